@@ -0,0 +1,15 @@
+package com.ai.contractanalysis.contract;
+
+import com.ai.contractanalysis.issue.Issues;
+import com.fasterxml.jackson.annotation.JsonUnwrapped;
+
+/**
+ * Výsledek analýzy nahraného souboru; v JSON má stejný tvar jako {@link Issues} a navíc příznak zkrácení.
+ *
+ * @param truncated text smlouvy byl delší než {@code analysis.extraction.max-chars} a analyzoval se jen jeho začátek
+ */
+public record AnalysisResult(
+        @JsonUnwrapped Issues issues,
+        boolean truncated
+) {
+}
@@ -0,0 +1,123 @@
+package com.ai.contractanalysis.contract;
+
+import com.ai.contractanalysis.issue.Issues;
+import com.ai.contractanalysis.utils.BoundedCache;
+import com.ai.contractanalysis.utils.Hashing;
+import com.ai.contractanalysis.utils.SpillDirectory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.Normalizer;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * Cache výsledků analýzy adresovaná obsahem smlouvy. Klíč zahrnuje normalizovaný text,
+ * verzi korpusu zákonů a verze promptů, takže změna kterékoli z nich cache obejde.
+ */
+@Component
+public class AnalysisResultCache implements MeterBinder {
+    static final String CACHE_REQUESTS = "contract.cache.requests";
+    private static final Logger log = LoggerFactory.getLogger(AnalysisResultCache.class);
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final BoundedCache<String, Issues> cache;
+    private final SpillDirectory directory;
+    private final ObjectMapper objectMapper;
+
+    public AnalysisResultCache(
+            @Value("${analysis.cache.max-entries:1000}") long maxEntries,
+            @Value("${analysis.cache.ttl:PT24H}") Duration ttl,
+            @Value("${analysis.cache.persistent:false}") boolean persistent,
+            @Value("${analysis.cache.max-disk-size:100MB}") DataSize maxDiskSize,
+            @Value("${vector.store.path:/app/data}") String storePath,
+            ObjectMapper objectMapper
+    ) {
+        this.cache = new BoundedCache<>(maxEntries, ttl);
+        this.directory = persistent
+                ? new SpillDirectory(Paths.get(storePath, "analysis-cache"), ttl, maxDiskSize.toBytes())
+                : null;
+        this.objectMapper = objectMapper;
+    }
+
+    public String key(String text, String... versions) {
+        String normalized = WHITESPACE.matcher(Normalizer.normalize(text, Normalizer.Form.NFC))
+                .replaceAll(" ")
+                .strip();
+        String[] parts = new String[versions.length + 1];
+        parts[0] = Hashing.sha256(normalized);
+        System.arraycopy(versions, 0, parts, 1, versions.length);
+        return Hashing.sha256(parts);
+    }
+
+    public Optional<Issues> get(String key) {
+        Optional<Issues> cached = cache.get(key);
+        if (cached.isPresent() || directory == null) {
+            return cached;
+        }
+
+        Optional<Issues> persisted = readFile(key);
+        persisted.ifPresent(issues -> cache.put(key, issues));
+        return persisted;
+    }
+
+    public void put(String key, Issues issues) {
+        cache.put(key, issues);
+        if (directory != null) {
+            writeFile(key, issues);
+        }
+    }
+
+    public long hitCount() {
+        return cache.hitCount();
+    }
+
+    public long missCount() {
+        return cache.missCount();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder(CACHE_REQUESTS, this, AnalysisResultCache::hitCount)
+                .description("Dotazy do cache podle výsledku")
+                .tag("cache", "analysis")
+                .tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder(CACHE_REQUESTS, this, AnalysisResultCache::missCount)
+                .description("Dotazy do cache podle výsledku")
+                .tag("cache", "analysis")
+                .tag("result", "miss")
+                .register(registry);
+    }
+
+    private Optional<Issues> readFile(String key) {
+        try {
+            Optional<Path> file = directory.find(key + ".json");
+            return file.isPresent()
+                    ? Optional.of(objectMapper.readValue(file.get().toFile(), Issues.class))
+                    : Optional.empty();
+        } catch (IOException e) {
+            log.warn("Nelze načíst uložený výsledek analýzy {} z {}", key, directory.path(), e);
+            return Optional.empty();
+        }
+    }
+
+    private void writeFile(String key, Issues issues) {
+        try {
+            directory.write(key + ".json", file -> objectMapper.writeValue(file.toFile(), issues));
+        } catch (IOException e) {
+            log.warn("Nelze uložit výsledek analýzy do {}", directory.path(), e);
+        }
+    }
+}
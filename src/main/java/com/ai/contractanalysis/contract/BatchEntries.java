@@ -0,0 +1,132 @@
+package com.ai.contractanalysis.contract;
+
+import com.ai.contractanalysis.utils.ByteArrayMultipartFile;
+import org.apache.commons.io.FilenameUtils;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Postupně prochází soubory dávky. ZIP archivy rozbaluje líně po jedné položce,
+ * takže v paměti jsou jen soubory, které se právě analyzují.
+ */
+class BatchEntries implements Iterator<BatchEntries.Entry>, AutoCloseable {
+    private final Iterator<MultipartFile> uploads;
+    private final long maxEntryBytes;
+    private final Deque<Entry> pending = new ArrayDeque<>();
+    private ZipInputStream zip;
+    private String zipName;
+
+    BatchEntries(List<MultipartFile> uploads, long maxEntryBytes) {
+        this.uploads = uploads.iterator();
+        this.maxEntryBytes = maxEntryBytes;
+    }
+
+    /**
+     * @param file  soubor k analýze, {@code null} pokud jej nešlo načíst
+     * @param error důvod, proč soubor nešlo načíst
+     */
+    record Entry(String fileName, MultipartFile file, String error) {
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (pending.isEmpty()) {
+            if (zip != null) {
+                readZipEntry();
+            } else if (uploads.hasNext()) {
+                open(uploads.next());
+            } else {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public Entry next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return pending.poll();
+    }
+
+    private void open(MultipartFile upload) {
+        if (!isZip(upload)) {
+            pending.add(new Entry(upload.getOriginalFilename(), upload, null));
+            return;
+        }
+        try {
+            zip = new ZipInputStream(upload.getInputStream());
+            zipName = upload.getOriginalFilename();
+        } catch (IOException e) {
+            pending.add(new Entry(upload.getOriginalFilename(), null, "Chyba při čtení archivu: " + e.getMessage()));
+        }
+    }
+
+    private void readZipEntry() {
+        try {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                String name = entry.getName();
+                if (entry.isDirectory() || name.startsWith("__MACOSX/")
+                        || FilenameUtils.getName(name).startsWith(".")) {
+                    continue;
+                }
+                byte[] content = readLimited(zip);
+                pending.add(content == null
+                        ? new Entry(name, null, "Soubor v archivu je větší než povolený limit " + maxEntryBytes + " B")
+                        : new Entry(name, new ByteArrayMultipartFile("file", FilenameUtils.getName(name), null, content), null));
+                return;
+            }
+            closeZip();
+        } catch (IOException e) {
+            pending.add(new Entry(zipName, null, "Chyba při čtení archivu: " + e.getMessage()));
+            closeZip();
+        }
+    }
+
+    private byte[] readLimited(InputStream stream) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = stream.read(buffer)) != -1) {
+            if (out.size() + read > maxEntryBytes) {
+                return null;
+            }
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+
+    private static boolean isZip(MultipartFile upload) {
+        return "zip".equalsIgnoreCase(FilenameUtils.getExtension(upload.getOriginalFilename()))
+                || "application/zip".equals(upload.getContentType());
+    }
+
+    private void closeZip() {
+        try {
+            zip.close();
+        } catch (IOException ignored) {
+            // Archiv se čte jen z nahraného souboru, chyba při zavírání nic nemění.
+        }
+        zip = null;
+        zipName = null;
+    }
+
+    @Override
+    public void close() {
+        if (zip != null) {
+            closeZip();
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.ai.contractanalysis.contract;
+
+import com.ai.contractanalysis.issue.Issues;
+
+/**
+ * Jeden řádek NDJSON odpovědi dávkové analýzy.
+ *
+ * @param index     pořadí souboru v dávce; řádky přichází v pořadí dokončení, ne nahrání
+ * @param truncated text smlouvy byl zkrácen na {@code analysis.extraction.max-chars} znaků
+ */
+public record BatchResult(
+        int index,
+        String fileName,
+        Issues issues,
+        boolean truncated,
+        String error
+) {
+    public static BatchResult success(int index, String fileName, AnalysisResult result) {
+        return new BatchResult(index, fileName, result.issues(), result.truncated(), null);
+    }
+
+    public static BatchResult failure(int index, String fileName, String error) {
+        return new BatchResult(index, fileName, null, false, error);
+    }
+}
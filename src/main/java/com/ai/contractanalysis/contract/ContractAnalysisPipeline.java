@@ -1,72 +1,164 @@
 package com.ai.contractanalysis.contract;
 
-import com.ai.contractanalysis.step.ComplianceCheckStep;
 import com.ai.contractanalysis.step.ContextKey;
+import com.ai.contractanalysis.step.PipelineContext;
 import com.ai.contractanalysis.step.ReasoningStep;
 import com.ai.contractanalysis.issue.Issues;
+import com.ai.contractanalysis.utils.Hashing;
+import com.ai.contractanalysis.utils.MdcPropagation;
 import com.ai.contractanalysis.utils.StepResult;
-import org.springframework.ai.chat.client.ChatClient;
-import org.springframework.stereotype.Service;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
 
+import java.time.Instant;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.List;
-import java.util.Map;
-
-@Service
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Neměnná definice pipeline. Sestavuje se jednou a je bezpečné ji spouštět souběžně;
+ * stav každého běhu drží {@link PipelineContext}.
+ * <p>
+ * Pořadí kroků určují jejich deklarované klíče kontextu: krok čeká jen na dříve uvedené kroky,
+ * se kterými sdílí data. Nezávislé kroky běží paralelně na virtuálních vláknech.
+ */
 public class ContractAnalysisPipeline {
-    private final List<ReasoningStep> steps = new ArrayList<>();
-    private final Map<ContextKey, Object> context = new HashMap<>();
-    private final List<StepResult> executionHistory = new ArrayList<>();
-    private final ChatClient.Builder chatClientBuilder;
+    static final String STEP_TIMER = "contract.pipeline.step";
+    static final String RUN_COUNTER = "contract.pipeline.runs";
+
+    private final List<ReasoningStep> steps;
+    private final List<List<Integer>> dependencies;
+    private final MeterRegistry meterRegistry;
 
-    public ContractAnalysisPipeline(ChatClient.Builder chatClientBuilder) {
-        this.chatClientBuilder = chatClientBuilder;
+    public ContractAnalysisPipeline(List<ReasoningStep> steps) {
+        this(steps, Metrics.globalRegistry);
     }
 
-    public ContractAnalysisPipeline addStep(ReasoningStep step) {
-        steps.add(step);
-        return this;
+    public ContractAnalysisPipeline(List<ReasoningStep> steps, MeterRegistry meterRegistry) {
+        this.steps = List.copyOf(steps);
+        this.dependencies = resolveDependencies(this.steps);
+        this.meterRegistry = meterRegistry;
     }
 
     public Issues execute(String input) {
-        String currentInput = input;
-        context.put(ContextKey.ORIGINAL_INPUT, input);
-
-        Issues finalResult = null;
+        return run(input, PipelineListener.NONE).getIssues();
+    }
 
-        for (ReasoningStep step : steps) {
-            try {
-                StepResult result = step.execute(currentInput, context, chatClientBuilder);
-                executionHistory.add(result);
+    public PipelineContext run(String input, PipelineListener listener) {
+        PipelineContext context = listener == PipelineListener.NONE
+                ? new PipelineContext(input)
+                : new PipelineContext(input, listener::onIssue);
+        AtomicBoolean failed = new AtomicBoolean();
+
+        // Executor je vázaný na jeden běh; close() počká na všechny spuštěné kroky.
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<CompletableFuture<Void>> futures = new ArrayList<>(steps.size());
+            for (int i = 0; i < steps.size(); i++) {
+                ReasoningStep step = steps.get(i);
+                CompletableFuture<?>[] upstream = dependencies.get(i).stream()
+                        .map(futures::get)
+                        .toArray(CompletableFuture[]::new);
+
+                // Kroky přebírají MDC volajícího, identifikátor požadavku se tak objeví i v jejich logu.
+                futures.add(CompletableFuture.allOf(upstream).thenRunAsync(MdcPropagation.wrap(() -> {
+                    // Po prvním selhání se další kroky už nespouští.
+                    if (failed.get()) {
+                        return;
+                    }
+                    StepResult result = executeStep(step, context);
+                    if (!result.success()) {
+                        failed.set(true);
+                    }
+                    context.record(result);
+                    listener.onStepCompleted(result);
+                }), executor));
+            }
+            CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).join();
+        }
 
-                if (!result.success()) {
-                    break;
-                }
+        Counter.builder(RUN_COUNTER)
+                .description("Dokončené běhy pipeline")
+                .tag("outcome", outcome(!failed.get()))
+                .register(meterRegistry)
+                .increment();
+        return context;
+    }
 
-                if (step instanceof ComplianceCheckStep) {
-                    finalResult = (Issues) context.get(ContextKey.COMPLIANCE_ISSUES);
-                }
+    private StepResult executeStep(ReasoningStep step, PipelineContext context) {
+        Instant startedAt = Instant.now();
+        long start = System.nanoTime();
+        StepResult result;
+        try {
+            result = step.execute(context);
+        } catch (Exception e) {
+            result = new StepResult(step.getName(), "", "", e.getMessage(), false);
+        }
+        if (result.stepName() != null) {
+            context.recordTiming(result.stepName(), startedAt, startedAt.plusNanos(System.nanoTime() - start));
+        }
+        Timer.builder(STEP_TIMER)
+                .description("Doba běhu kroku pipeline")
+                .tag("step", Objects.requireNonNullElse(step.getName(), "unknown"))
+                .tag("outcome", outcome(result.success()))
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return result;
+    }
 
-                currentInput = result.output();
+    private static String outcome(boolean success) {
+        return success ? "success" : "failure";
+    }
 
-            } catch (Exception e) {
-                executionHistory.add(new StepResult(
-                        step.getName(), currentInput, "", e.getMessage(), false
-                ));
-                break;
-            }
-        }
+    public List<ReasoningStep> getSteps() {
+        return steps;
+    }
 
-        return finalResult != null ? finalResult : createEmptyIssues();
+    /**
+     * Indexy kroků, na jejichž dokončení krok na pozici {@code index} čeká.
+     */
+    public List<Integer> getDependencies(int index) {
+        return dependencies.get(index);
     }
 
+    public String getPromptVersion() {
+        return Hashing.sha256(steps.stream()
+                .map(step -> step.getName() + "=" + step.getPromptVersion())
+                .toArray(String[]::new));
+    }
 
-    private Issues createEmptyIssues() {
-        return new Issues(List.of());
+    /**
+     * Krok závisí na dřívějším kroku, pokud čte jeho výstup, zapisuje stejný klíč,
+     * nebo přepisuje klíč, který dřívější krok teprve čte.
+     */
+    private static List<List<Integer>> resolveDependencies(List<ReasoningStep> steps) {
+        List<List<Integer>> result = new ArrayList<>(steps.size());
+        for (int i = 0; i < steps.size(); i++) {
+            ReasoningStep step = steps.get(i);
+            List<Integer> upstream = new ArrayList<>();
+            for (int j = 0; j < i; j++) {
+                ReasoningStep earlier = steps.get(j);
+                if (intersects(step.getReads(), earlier.getWrites())
+                        || intersects(step.getWrites(), earlier.getWrites())
+                        || intersects(step.getWrites(), earlier.getReads())) {
+                    upstream.add(j);
+                }
+            }
+            result.add(List.copyOf(upstream));
+        }
+        return List.copyOf(result);
     }
 
-    public List<StepResult> getExecutionHistory() {
-        return executionHistory;
+    private static boolean intersects(Set<ContextKey> a, Set<ContextKey> b) {
+        return a != null && b != null && !Collections.disjoint(a, b);
     }
 }
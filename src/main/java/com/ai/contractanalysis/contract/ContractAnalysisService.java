@@ -1,40 +1,126 @@
 package com.ai.contractanalysis.contract;
 
 
-import com.ai.contractanalysis.step.ComplianceCheckStep;
-import com.ai.contractanalysis.step.ContractAnalysisStep;
-import com.ai.contractanalysis.step.LawRetrievalStep;
+import com.ai.contractanalysis.rag.LawCorpusVersion;
 import com.ai.contractanalysis.issue.Issues;
+import com.ai.contractanalysis.step.PipelineContext;
+import com.ai.contractanalysis.trace.RequestIds;
+import com.ai.contractanalysis.trace.TraceStore;
+import com.ai.contractanalysis.utils.ExtractedText;
 import com.ai.contractanalysis.utils.FileConverter;
-import org.springframework.ai.chat.client.ChatClient;
-import org.springframework.ai.vectorstore.SimpleVectorStore;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
 @Service
 public class ContractAnalysisService {
-    private final ChatClient.Builder builder;
-    private final SimpleVectorStore vectorStore;
+    private final ContractAnalysisPipeline pipeline;
     private final FileConverter fileConverter;
+    private final AnalysisResultCache resultCache;
+    private final TraceStore traceStore;
+    private final String[] cacheVersions;
+    // Rozpracované analýzy podle klíče cache; další volající se stejným obsahem se připojí k nim.
+    private final ConcurrentMap<String, CompletableFuture<Issues>> inFlight = new ConcurrentHashMap<>();
 
     public ContractAnalysisService(
-            ChatClient.Builder builder,
-            SimpleVectorStore vectorStore,
-            FileConverter fileConverter
+            ContractAnalysisPipeline pipeline,
+            FileConverter fileConverter,
+            AnalysisResultCache resultCache,
+            LawCorpusVersion lawCorpusVersion,
+            TraceStore traceStore
     ) {
-        this.builder = builder;
-        this.vectorStore = vectorStore;
+        this.pipeline = pipeline;
         this.fileConverter = fileConverter;
+        this.resultCache = resultCache;
+        this.traceStore = traceStore;
+        this.cacheVersions = new String[]{lawCorpusVersion.value(), pipeline.getPromptVersion()};
+    }
+
+    public AnalysisResult analyze(MultipartFile file) {
+        ExtractedText extracted = fileConverter.extract(file);
+        return new AnalysisResult(analyzeText(extracted.text()), extracted.truncated());
+    }
+
+    public Issues analyzeText(String input) {
+        return analyzeText(input, PipelineListener.NONE);
+    }
+
+    public Issues analyzeText(String input, PipelineListener listener) {
+        String requestId = RequestIds.current();
+        Instant startedAt = Instant.now();
+        String key = resultCache.key(input, cacheVersions);
+        Optional<Issues> cached = resultCache.get(key);
+        if (cached.isPresent()) {
+            traceStore.record(requestId, startedAt, "cached", input.length());
+            return replay(cached.get(), listener);
+        }
+
+        CompletableFuture<Issues> own = new CompletableFuture<>();
+        CompletableFuture<Issues> running = inFlight.putIfAbsent(key, own);
+        if (running != null) {
+            Issues issues = await(running);
+            traceStore.record(requestId, startedAt, "coalesced", input.length());
+            return replay(issues, listener);
+        }
+
+        try {
+            // Předchozí běh mohl skončit mezi čtením cache a registrací tohoto běhu.
+            cached = resultCache.get(key);
+            Issues issues;
+            if (cached.isPresent()) {
+                traceStore.record(requestId, startedAt, "cached", input.length());
+                issues = replay(cached.get(), listener);
+            } else {
+                issues = run(key, input, listener, requestId, startedAt);
+            }
+            own.complete(issues);
+            return issues;
+        } catch (RuntimeException | Error e) {
+            own.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, own);
+        }
+    }
+
+    /**
+     * Počet právě běžících analýz s různým obsahem.
+     */
+    public int inFlightCount() {
+        return inFlight.size();
     }
 
-    public Issues analyze(MultipartFile file) {
-        String input = fileConverter.extractText(file);
+    private Issues run(String key, String input, PipelineListener listener, String requestId, Instant startedAt) {
+        PipelineContext context = pipeline.run(input, listener);
+        Issues issues = context.getIssues();
+        traceStore.record(requestId, context, startedAt, input.length());
 
-        ContractAnalysisPipeline pipeline = new ContractAnalysisPipeline(builder)
-                .addStep(new ContractAnalysisStep())
-                .addStep(new LawRetrievalStep(vectorStore))
-                .addStep(new ComplianceCheckStep());
+        // Selhaný krok vrací prázdné Issues, ty se ukládat nesmí.
+        if (context.isSuccessful()) {
+            resultCache.put(key, issues);
+        }
+        return issues;
+    }
+
+    private static Issues replay(Issues issues, PipelineListener listener) {
+        issues.issues().forEach(listener::onIssue);
+        return issues;
+    }
 
-        return pipeline.execute(input);
+    private static Issues await(CompletableFuture<Issues> running) {
+        try {
+            return running.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
     }
 }
@@ -0,0 +1,145 @@
+package com.ai.contractanalysis.contract;
+
+import com.ai.contractanalysis.trace.RequestIds;
+import com.ai.contractanalysis.utils.BoundedVirtualThreadExecutor;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Analýza dávky smluv. Souběžně běží nejvýše {@code maxConcurrency} analýz a výsledek každé
+ * se hned po dokončení zapíše jako jeden řádek NDJSON.
+ */
+@Service
+public class ContractBatchService {
+    private static final Logger log = LoggerFactory.getLogger(ContractBatchService.class);
+    // Bez explicitního charsetu by StringHttpMessageConverter zapisoval ISO-8859-1.
+    static final MediaType NDJSON = new MediaType(MediaType.APPLICATION_NDJSON, StandardCharsets.UTF_8);
+
+    private final ContractAnalysisService contractAnalysisService;
+    private final BoundedVirtualThreadExecutor executor;
+    private final ObjectMapper objectMapper;
+    private final int maxConcurrency;
+    private final int maxFiles;
+    private final DataSize maxEntrySize;
+    private final Duration timeout;
+
+    public ContractBatchService(
+            ContractAnalysisService contractAnalysisService,
+            BoundedVirtualThreadExecutor analysisExecutor,
+            ObjectMapper objectMapper,
+            @Value("${analysis.batch.max-concurrency:8}") int maxConcurrency,
+            @Value("${analysis.batch.max-files:1000}") int maxFiles,
+            @Value("${analysis.batch.max-entry-size:50MB}") DataSize maxEntrySize,
+            @Value("${analysis.batch.timeout:PT1H}") Duration timeout
+    ) {
+        this.contractAnalysisService = contractAnalysisService;
+        this.executor = analysisExecutor;
+        this.objectMapper = objectMapper;
+        this.maxConcurrency = Math.max(1, maxConcurrency);
+        this.maxFiles = maxFiles;
+        this.maxEntrySize = maxEntrySize;
+        this.timeout = timeout;
+    }
+
+    public ResponseBodyEmitter analyze(List<MultipartFile> files) {
+        ResponseBodyEmitter emitter = new ResponseBodyEmitter(timeout.toMillis());
+        String requestId = RequestIds.current();
+
+        // Řídicí vlákno jen čeká na výsledky, nesmí proto blokovat místo ve sdíleném executoru analýz.
+        Thread.ofVirtual().name("contract-batch").start(() -> {
+            try {
+                run(requestId, files, emitter);
+                emitter.complete();
+            } catch (Exception e) {
+                log.warn("Dávková analýza selhala", e);
+                emitter.completeWithError(e);
+            }
+        });
+
+        return emitter;
+    }
+
+    private void run(String requestId, List<MultipartFile> files, ResponseBodyEmitter emitter) throws Exception {
+        // Úloha přerušená ještě ve frontě (ukončení aplikace) se zruší, aby na ni take() nečekalo navždy.
+        CompletionService<BatchResult> completion = new ExecutorCompletionService<>(task -> executor.execute(task,
+                () -> ((Future<?>) task).cancel(false)));
+        int submitted = 0;
+        int running = 0;
+
+        try (BatchEntries entries = new BatchEntries(files, maxEntrySize.toBytes())) {
+            // Posuvné okno: další soubor se načte až po dokončení některého z běžících.
+            while (true) {
+                while (running < maxConcurrency && entries.hasNext() && submitted < maxFiles) {
+                    int index = submitted++;
+                    BatchEntries.Entry entry = entries.next();
+                    try {
+                        submit(completion, requestId, index, entry);
+                        running++;
+                    } catch (RejectedExecutionException e) {
+                        if (!send(emitter, BatchResult.failure(index, entry.fileName(),
+                                "Fronta analýz je plná, zkuste to později"))) {
+                            return;
+                        }
+                    }
+                }
+                if (running == 0) {
+                    break;
+                }
+                BatchResult result = completion.take().get();
+                running--;
+                if (!send(emitter, result)) {
+                    // Klient se odpojil; rozběhnuté analýzy doběhnou, nové se nespouští.
+                    return;
+                }
+            }
+
+            if (entries.hasNext()) {
+                send(emitter, BatchResult.failure(submitted, null,
+                        "Překročen maximální počet souborů v dávce: " + maxFiles));
+            }
+        }
+    }
+
+    private void submit(CompletionService<BatchResult> completion, String requestId, int index,
+                        BatchEntries.Entry entry) {
+        completion.submit(() -> {
+            if (entry.file() == null) {
+                return BatchResult.failure(index, entry.fileName(), entry.error());
+            }
+            // Každá smlouva dávky má vlastní průběh, dohledatelný jako <id požadavku>-<index>.
+            MDC.put(RequestIds.MDC_KEY, requestId + "-" + index);
+            try {
+                AnalysisResult result = contractAnalysisService.analyze(entry.file());
+                return BatchResult.success(index, entry.fileName(), result);
+            } catch (Exception e) {
+                return BatchResult.failure(index, entry.fileName(), e.getMessage());
+            }
+        });
+    }
+
+    private boolean send(ResponseBodyEmitter emitter, BatchResult result) {
+        try {
+            emitter.send(objectMapper.writeValueAsString(result) + "\n", NDJSON);
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            return false;
+        }
+    }
+}
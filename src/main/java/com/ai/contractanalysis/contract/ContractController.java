@@ -1,26 +1,38 @@
 package com.ai.contractanalysis.contract;
 
-import com.ai.contractanalysis.issue.Issues;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+
+import java.util.List;
 
 @RestController
 @RequestMapping("/api/v1/contracts")
 public class ContractController {
     private final ContractAnalysisService contractAnalysisService;
+    private final ContractBatchService contractBatchService;
 
-    public ContractController(ContractAnalysisService contractAnalysisService) {
+    public ContractController(ContractAnalysisService contractAnalysisService, ContractBatchService contractBatchService) {
         this.contractAnalysisService = contractAnalysisService;
+        this.contractBatchService = contractBatchService;
     }
 
     @PostMapping("/analyze")
-    public ResponseEntity<Issues> analyzeContract(@RequestParam("file") MultipartFile file) {
-        Issues issues = contractAnalysisService.analyze(file);
-        return ResponseEntity.ok(issues);
+    public ResponseEntity<AnalysisResult> analyzeContract(@RequestParam("file") MultipartFile file) {
+        AnalysisResult result = contractAnalysisService.analyze(file);
+        return ResponseEntity.ok(result);
+    }
+
+    @PostMapping(value = "/analyze/batch", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<ResponseBodyEmitter> analyzeBatch(@RequestParam("files") List<MultipartFile> files) {
+        return ResponseEntity.ok()
+                .contentType(ContractBatchService.NDJSON)
+                .body(contractBatchService.analyze(files));
     }
 
 }
\ No newline at end of file
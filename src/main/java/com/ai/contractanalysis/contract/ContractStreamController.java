@@ -0,0 +1,70 @@
+package com.ai.contractanalysis.contract;
+
+import com.ai.contractanalysis.issue.Issues;
+import com.ai.contractanalysis.utils.BoundedVirtualThreadExecutor;
+import com.ai.contractanalysis.utils.ExtractedText;
+import com.ai.contractanalysis.utils.FileConverter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+import java.util.concurrent.RejectedExecutionException;
+
+@RestController
+@RequestMapping("/api/v1/contracts")
+public class ContractStreamController {
+    private final ContractAnalysisService contractAnalysisService;
+    private final FileConverter fileConverter;
+    private final BoundedVirtualThreadExecutor executor;
+    private final Duration timeout;
+
+    public ContractStreamController(
+            ContractAnalysisService contractAnalysisService,
+            FileConverter fileConverter,
+            BoundedVirtualThreadExecutor analysisExecutor,
+            @Value("${analysis.stream.timeout:PT5M}") Duration timeout
+    ) {
+        this.contractAnalysisService = contractAnalysisService;
+        this.fileConverter = fileConverter;
+        this.executor = analysisExecutor;
+        this.timeout = timeout;
+    }
+
+    @PostMapping(value = "/analyze/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamAnalysis(@RequestParam("file") MultipartFile file) {
+        ExtractedText extracted = fileConverter.extract(file);
+
+        SseEmitter emitter = new SseEmitter(timeout.toMillis());
+        SsePipelineListener listener = new SsePipelineListener(emitter);
+
+        try {
+            executor.execute(() -> run(extracted, listener),
+                    () -> listener.fail(new IllegalStateException("Analýza byla přerušena")));
+        } catch (RejectedExecutionException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Fronta analýz je plná, zkuste to později", e);
+        }
+
+        return emitter;
+    }
+
+    private void run(ExtractedText extracted, SsePipelineListener listener) {
+        try {
+            if (extracted.truncated()) {
+                listener.warn("Text smlouvy byl zkrácen na " + extracted.maxChars()
+                        + " znaků, analýza se týká jen jeho začátku");
+            }
+            Issues issues = contractAnalysisService.analyzeText(extracted.text(), listener);
+            listener.complete(new AnalysisResult(issues, extracted.truncated()));
+        } catch (Exception e) {
+            listener.fail(e);
+        }
+    }
+}
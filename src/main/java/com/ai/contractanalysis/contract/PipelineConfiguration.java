@@ -0,0 +1,90 @@
+package com.ai.contractanalysis.contract;
+
+import com.ai.contractanalysis.rag.LawSearch;
+import com.ai.contractanalysis.step.ComplianceCheckStep;
+import com.ai.contractanalysis.step.ContractAnalysisStep;
+import com.ai.contractanalysis.step.DirectLawRetrievalStep;
+import com.ai.contractanalysis.step.LawPrefetchStep;
+import com.ai.contractanalysis.step.LawRetrievalStep;
+import com.ai.contractanalysis.step.ReasoningStep;
+import com.ai.contractanalysis.utils.ClauseSegmenter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+@Configuration
+public class PipelineConfiguration {
+
+    @Value("${analysis.retrieval.mode:llm}")
+    private String retrievalMode;
+
+    @Value("${analysis.retrieval.direct.max-queries:4}")
+    private int directMaxQueries;
+
+    @Value("${analysis.retrieval.direct.window-chars:2000}")
+    private int directWindowChars;
+
+    @Value("${analysis.retrieval.direct.top-k:6}")
+    private int directTopK;
+
+    @Value("${analysis.retrieval.direct.max-documents:8}")
+    private int directMaxDocuments;
+
+    @Value("${analysis.retrieval.speculative:false}")
+    private boolean speculativeRetrieval;
+
+    @Value("${analysis.retrieval.prefetch.max-queries:4}")
+    private int prefetchMaxQueries;
+
+    @Value("${analysis.retrieval.prefetch.window-chars:2000}")
+    private int prefetchWindowChars;
+
+    @Value("${analysis.retrieval.prefetch.top-k:4}")
+    private int prefetchTopK;
+
+    @Value("${analysis.retrieval.prefetch.max-documents:12}")
+    private int prefetchMaxDocuments;
+
+    @Value("${analysis.chunking.threshold-chars:40000}")
+    private int chunkingThresholdChars;
+
+    @Value("${analysis.chunking.segment-chars:15000}")
+    private int chunkingSegmentChars;
+
+    @Value("${analysis.chunking.max-concurrency:4}")
+    private int chunkingMaxConcurrency;
+
+    @Bean
+    ContractAnalysisPipeline contractAnalysisPipeline(ChatClient.Builder chatClientBuilder, VectorStore vectorStore,
+                                                      MeterRegistry meterRegistry) {
+        List<ReasoningStep> steps = new ArrayList<>();
+        if (speculativeRetrieval) {
+            // Nezávisí na analýze smlouvy, pipeline jej proto spustí souběžně s ní.
+            steps.add(new LawPrefetchStep(new LawSearch(vectorStore,
+                    prefetchMaxQueries, prefetchWindowChars, prefetchTopK, prefetchMaxDocuments)));
+        }
+        steps.add(new ContractAnalysisStep(chatClientBuilder,
+                new ClauseSegmenter(chunkingThresholdChars, chunkingSegmentChars), chunkingMaxConcurrency));
+        steps.add(lawRetrievalStep(chatClientBuilder, vectorStore));
+        steps.add(new ComplianceCheckStep(chatClientBuilder, chunkingMaxConcurrency));
+        return new ContractAnalysisPipeline(steps, meterRegistry);
+    }
+
+    private ReasoningStep lawRetrievalStep(ChatClient.Builder chatClientBuilder, VectorStore vectorStore) {
+        return switch (retrievalMode.strip().toLowerCase(Locale.ROOT)) {
+            // Bez mezikroku s modelem; do kontroly shody jdou přímo nalezené části zákonů.
+            case "direct" -> new DirectLawRetrievalStep(new LawSearch(vectorStore,
+                    directMaxQueries, directWindowChars, directTopK, directMaxDocuments));
+            case "llm" -> new LawRetrievalStep(chatClientBuilder, vectorStore);
+            default -> throw new IllegalStateException(
+                    "Neznámý režim získání právních informací: " + retrievalMode);
+        };
+    }
+}
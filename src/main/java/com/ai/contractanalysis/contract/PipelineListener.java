@@ -0,0 +1,18 @@
+package com.ai.contractanalysis.contract;
+
+import com.ai.contractanalysis.issue.Issue;
+import com.ai.contractanalysis.utils.StepResult;
+
+/**
+ * Nezávislé kroky pipeline běží paralelně, metody listeneru tak mohou být volány z více vláken.
+ */
+public interface PipelineListener {
+    PipelineListener NONE = new PipelineListener() {
+    };
+
+    default void onStepCompleted(StepResult result) {
+    }
+
+    default void onIssue(Issue issue) {
+    }
+}
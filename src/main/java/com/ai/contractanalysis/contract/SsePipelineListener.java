@@ -0,0 +1,60 @@
+package com.ai.contractanalysis.contract;
+
+import com.ai.contractanalysis.issue.Issue;
+import com.ai.contractanalysis.utils.StepResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+
+/**
+ * Převádí průběh pipeline na Server-Sent Events. Vstupy a výstupy kroků se neposílají,
+ * jen jejich název a výsledek.
+ */
+class SsePipelineListener implements PipelineListener {
+    static final String STEP_EVENT = "step";
+    static final String ISSUE_EVENT = "issue";
+    static final String COMPLETE_EVENT = "complete";
+    static final String ERROR_EVENT = "error";
+    static final String WARNING_EVENT = "warning";
+
+    private final SseEmitter emitter;
+
+    SsePipelineListener(SseEmitter emitter) {
+        this.emitter = emitter;
+    }
+
+    @Override
+    public void onStepCompleted(StepResult result) {
+        send(STEP_EVENT, new StepProgress(result.stepName(), result.message(), result.success()));
+    }
+
+    @Override
+    public void onIssue(Issue issue) {
+        send(ISSUE_EVENT, issue);
+    }
+
+    void complete(AnalysisResult result) {
+        send(COMPLETE_EVENT, result);
+        emitter.complete();
+    }
+
+    void warn(String message) {
+        send(WARNING_EVENT, new StepProgress(null, message, true));
+    }
+
+    void fail(Exception e) {
+        send(ERROR_EVENT, new StepProgress(null, e.getMessage(), false));
+        emitter.complete();
+    }
+
+    private void send(String name, Object data) {
+        try {
+            emitter.send(SseEmitter.event().name(name).data(data));
+        } catch (IOException | IllegalStateException ignored) {
+            // Klient se odpojil, analýza doběhne a výsledek se zahodí.
+        }
+    }
+
+    record StepProgress(String stepName, String message, boolean success) {
+    }
+}
@@ -1,8 +1,20 @@
 package com.ai.contractanalysis.issue;
 
+import java.util.Locale;
+
 public record Issue(
         String passage,
         String recommendation,
         Importance importance
 ) {
-}
\ No newline at end of file
+
+    /**
+     * Pasáž bez rozdílů v bílých znacích a velikosti písmen, podle ní se slučují duplicitní problémy.
+     */
+    public String passageKey() {
+        if (passage == null || passage.isBlank()) {
+            return null;
+        }
+        return passage.strip().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+}
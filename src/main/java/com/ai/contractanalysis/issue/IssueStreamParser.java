@@ -0,0 +1,84 @@
+package com.ai.contractanalysis.issue;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.function.Consumer;
+
+/**
+ * Inkrementálně čte JSON odpověď modelu po částech a každý objekt, který je prvkem pole,
+ * převede na {@link Issue} ihned, jakmile je uzavřen.
+ */
+public class IssueStreamParser {
+    private final ObjectMapper objectMapper;
+    private final Consumer<Issue> consumer;
+    private final Deque<Character> containers = new ArrayDeque<>();
+    private final StringBuilder current = new StringBuilder();
+    private int captureDepth = -1;
+    private boolean inString;
+    private boolean escaped;
+
+    public IssueStreamParser(ObjectMapper objectMapper, Consumer<Issue> consumer) {
+        this.objectMapper = objectMapper;
+        this.consumer = consumer;
+    }
+
+    public void feed(String chunk) {
+        for (int i = 0; i < chunk.length(); i++) {
+            accept(chunk.charAt(i));
+        }
+    }
+
+    private void accept(char c) {
+        if (captureDepth >= 0) {
+            current.append(c);
+        }
+
+        if (inString) {
+            if (escaped) {
+                escaped = false;
+            } else if (c == '\\') {
+                escaped = true;
+            } else if (c == '"') {
+                inString = false;
+            }
+            return;
+        }
+
+        switch (c) {
+            case '"' -> inString = true;
+            case '[' -> containers.push('[');
+            case '{' -> {
+                if (captureDepth < 0 && !containers.isEmpty() && containers.peek() == '[') {
+                    captureDepth = containers.size();
+                    current.setLength(0);
+                    current.append(c);
+                }
+                containers.push('{');
+            }
+            case ']', '}' -> {
+                if (containers.isEmpty()) {
+                    return;
+                }
+                containers.pop();
+                if (c == '}' && containers.size() == captureDepth) {
+                    emit(current.toString());
+                    captureDepth = -1;
+                    current.setLength(0);
+                }
+            }
+            default -> {
+            }
+        }
+    }
+
+    private void emit(String json) {
+        try {
+            consumer.accept(objectMapper.readValue(json, Issue.class));
+        } catch (JsonProcessingException ignored) {
+            // Neúplný nebo neplatný objekt se přeskočí, kompletní výsledek se stejně převede na konci.
+        }
+    }
+}
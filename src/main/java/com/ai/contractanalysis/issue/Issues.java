@@ -1,8 +1,30 @@
 package com.ai.contractanalysis.issue;
 
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 public record Issues(
         List<Issue> issues
 ) {
-}
\ No newline at end of file
+
+    /**
+     * Spojí výsledky kontroly jednotlivých úseků smlouvy; problémy se stejnou pasáží ponechá jen jednou.
+     */
+    public static Issues merge(List<Issues> parts) {
+        Set<String> passages = new HashSet<>();
+        List<Issue> merged = new ArrayList<>();
+        for (Issues part : parts) {
+            if (part == null || part.issues() == null) {
+                continue;
+            }
+            for (Issue issue : part.issues()) {
+                if (issue.passageKey() == null || passages.add(issue.passageKey())) {
+                    merged.add(issue);
+                }
+            }
+        }
+        return new Issues(merged);
+    }
+}
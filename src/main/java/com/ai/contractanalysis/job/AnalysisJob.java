@@ -0,0 +1,34 @@
+package com.ai.contractanalysis.job;
+
+import com.ai.contractanalysis.issue.Issues;
+
+import java.time.Instant;
+
+/**
+ * @param truncated text smlouvy byl zkrácen na {@code analysis.extraction.max-chars} znaků
+ */
+public record AnalysisJob(
+        String id,
+        JobStatus status,
+        Issues issues,
+        boolean truncated,
+        String error,
+        Instant createdAt,
+        Instant finishedAt
+) {
+    public static AnalysisJob pending(String id, boolean truncated, Instant now) {
+        return new AnalysisJob(id, JobStatus.PENDING, null, truncated, null, now, null);
+    }
+
+    public AnalysisJob running() {
+        return new AnalysisJob(id, JobStatus.RUNNING, null, truncated, null, createdAt, null);
+    }
+
+    public AnalysisJob completed(Issues issues, Instant now) {
+        return new AnalysisJob(id, JobStatus.COMPLETED, issues, truncated, null, createdAt, now);
+    }
+
+    public AnalysisJob failed(String error, Instant now) {
+        return new AnalysisJob(id, JobStatus.FAILED, null, truncated, error, createdAt, now);
+    }
+}
@@ -0,0 +1,49 @@
+package com.ai.contractanalysis.job;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.net.URI;
+import java.util.concurrent.RejectedExecutionException;
+
+@RestController
+@RequestMapping("/api/v1/contracts")
+public class AnalysisJobController {
+    static final String RETRY_AFTER_SECONDS = "30";
+
+    private final AnalysisJobService analysisJobService;
+
+    public AnalysisJobController(AnalysisJobService analysisJobService) {
+        this.analysisJobService = analysisJobService;
+    }
+
+    @PostMapping(value = "/analyze", params = "async=true")
+    public ResponseEntity<AnalysisJob> submitAnalysis(@RequestParam("file") MultipartFile file) {
+        AnalysisJob job;
+        try {
+            job = analysisJobService.submit(file);
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS)
+                    .build();
+        }
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/v1/contracts/jobs/" + job.id()))
+                .body(job);
+    }
+
+    @GetMapping("/jobs/{id}")
+    public ResponseEntity<AnalysisJob> getJob(@PathVariable("id") String id) {
+        return analysisJobService.find(id)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+}
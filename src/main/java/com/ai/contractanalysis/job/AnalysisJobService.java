@@ -0,0 +1,92 @@
+package com.ai.contractanalysis.job;
+
+import com.ai.contractanalysis.contract.ContractAnalysisService;
+import com.ai.contractanalysis.issue.Issues;
+import com.ai.contractanalysis.utils.BoundedVirtualThreadExecutor;
+import com.ai.contractanalysis.utils.ExtractedText;
+import com.ai.contractanalysis.utils.FileConverter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+
+@Service
+public class AnalysisJobService {
+    private final ContractAnalysisService contractAnalysisService;
+    private final FileConverter fileConverter;
+    private final BoundedVirtualThreadExecutor executor;
+    private final Duration retention;
+    private final Duration maxAge;
+    private final Map<String, AnalysisJob> jobs = new ConcurrentHashMap<>();
+
+    public AnalysisJobService(
+            ContractAnalysisService contractAnalysisService,
+            FileConverter fileConverter,
+            BoundedVirtualThreadExecutor analysisExecutor,
+            @Value("${analysis.jobs.retention:PT1H}") Duration retention,
+            @Value("${analysis.jobs.max-age:PT24H}") Duration maxAge
+    ) {
+        this.contractAnalysisService = contractAnalysisService;
+        this.fileConverter = fileConverter;
+        this.executor = analysisExecutor;
+        this.retention = retention;
+        this.maxAge = maxAge;
+    }
+
+    /**
+     * @throws RejectedExecutionException fronta analýz je plná
+     */
+    public AnalysisJob submit(MultipartFile file) {
+        evictExpired();
+
+        // Multipart soubor po skončení požadavku zaniká, text se proto extrahuje ještě v něm.
+        ExtractedText extracted = fileConverter.extract(file);
+
+        String id = UUID.randomUUID().toString();
+        AnalysisJob job = AnalysisJob.pending(id, extracted.truncated(), Instant.now());
+        jobs.put(id, job);
+
+        try {
+            executor.execute(() -> run(id, extracted.text()),
+                    () -> jobs.computeIfPresent(id, (key, pending) -> pending.failed("Analýza byla přerušena", Instant.now())));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(id);
+            throw e;
+        }
+        return job;
+    }
+
+    public Optional<AnalysisJob> find(String id) {
+        evictExpired();
+        return Optional.ofNullable(jobs.get(id));
+    }
+
+    private void run(String id, String input) {
+        jobs.computeIfPresent(id, (key, job) -> job.running());
+        try {
+            Issues issues = contractAnalysisService.analyzeText(input);
+            jobs.computeIfPresent(id, (key, job) -> job.completed(issues, Instant.now()));
+        } catch (Exception e) {
+            jobs.computeIfPresent(id, (key, job) -> job.failed(e.getMessage(), Instant.now()));
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${analysis.jobs.eviction-interval:PT1M}")
+    void evictExpired() {
+        Instant now = Instant.now();
+        Instant finishedThreshold = now.minus(retention);
+        Instant createdThreshold = now.minus(maxAge);
+        // Nedokončené úlohy se zahodí po maxAge, aby je visící analýza nedržela v paměti navždy.
+        jobs.values().removeIf(job -> job.status().isFinished()
+                ? job.finishedAt().isBefore(finishedThreshold)
+                : job.createdAt().isBefore(createdThreshold));
+    }
+}
@@ -0,0 +1,28 @@
+package com.ai.contractanalysis.job;
+
+import com.ai.contractanalysis.utils.BoundedVirtualThreadExecutor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+import java.time.Duration;
+
+@Configuration
+@EnableScheduling
+public class JobConfiguration {
+
+    @Value("${analysis.executor.max-concurrency:64}")
+    private int maxConcurrency;
+
+    @Value("${analysis.executor.max-queued:256}")
+    private int maxQueued;
+
+    @Value("${analysis.executor.shutdown-timeout:PT10S}")
+    private Duration shutdownTimeout;
+
+    @Bean(destroyMethod = "close")
+    BoundedVirtualThreadExecutor analysisExecutor() {
+        return new BoundedVirtualThreadExecutor("analysis-", maxConcurrency, maxQueued, shutdownTimeout);
+    }
+}
@@ -0,0 +1,249 @@
+package com.ai.contractanalysis.llm;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Sdílený limit souběžných volání modelu, který se přizpůsobuje kvótě OpenAI (AIMD).
+ * Úspěšná odpověď při vytíženém limitu jej zvýší zhruba o jedno volání za kolo, odpověď 429
+ * nebo odpověď pomalejší než {@code latencyThreshold} jej sníží násobkem {@code backoffRatio}.
+ * Volající nad limitem čekají ve frontě a dostávají povolení v pořadí příchodu.
+ */
+public class AdaptiveConcurrencyLimiter {
+    private static final Logger log = LoggerFactory.getLogger(AdaptiveConcurrencyLimiter.class);
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double backoffRatio;
+    private final long latencyThresholdNanos;
+    private final LongSupplier nanoTime;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Deque<Waiter> queue = new ArrayDeque<>();
+    private double limit;
+    private int inFlight;
+    private long lastDecrease;
+
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit,
+                                      double backoffRatio, Duration latencyThreshold) {
+        this(initialLimit, minLimit, maxLimit, backoffRatio, latencyThreshold, System::nanoTime);
+    }
+
+    AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit,
+                               double backoffRatio, Duration latencyThreshold, LongSupplier nanoTime) {
+        if (minLimit < 1 || maxLimit < minLimit) {
+            throw new IllegalArgumentException("Neplatné meze limitu: " + minLimit + "–" + maxLimit);
+        }
+        if (backoffRatio <= 0 || backoffRatio >= 1) {
+            throw new IllegalArgumentException("Koeficient snížení musí být mezi 0 a 1: " + backoffRatio);
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.backoffRatio = backoffRatio;
+        this.latencyThresholdNanos = latencyThreshold.toNanos();
+        this.nanoTime = nanoTime;
+        this.limit = Math.clamp(initialLimit, minLimit, maxLimit);
+        this.lastDecrease = nanoTime.getAsLong();
+    }
+
+    /**
+     * Provede volání v rámci limitu. Výjimka s 429 limit sníží, ostatní chyby jej nemění.
+     */
+    public <T> T call(Supplier<T> action) {
+        Permit permit = acquireUninterruptibly();
+        try {
+            T result = action.get();
+            permit.onSuccess();
+            return result;
+        } catch (RuntimeException e) {
+            if (RateLimits.isRateLimited(e)) {
+                permit.onRateLimited();
+            }
+            throw e;
+        } finally {
+            permit.close();
+        }
+    }
+
+    /**
+     * Počká na volné místo. Povolení je nutné uvolnit přes {@link Permit#close()}.
+     */
+    public Permit acquire() throws InterruptedException {
+        lock.lock();
+        try {
+            if (queue.isEmpty() && inFlight < currentLimit()) {
+                inFlight++;
+                return new Permit();
+            }
+            Waiter waiter = new Waiter(lock.newCondition());
+            queue.addLast(waiter);
+            try {
+                while (!waiter.granted) {
+                    waiter.condition.await();
+                }
+            } catch (InterruptedException e) {
+                if (waiter.granted) {
+                    inFlight--;
+                    grantWaiting();
+                } else {
+                    queue.remove(waiter);
+                }
+                throw e;
+            }
+            return new Permit();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getLimit() {
+        lock.lock();
+        try {
+            return currentLimit();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getQueueDepth() {
+        lock.lock();
+        try {
+            return queue.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Permit acquireUninterruptibly() {
+        try {
+            return acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Čekání na volání modelu bylo přerušeno", e);
+        }
+    }
+
+    private int currentLimit() {
+        return (int) limit;
+    }
+
+    private void grantWaiting() {
+        while (!queue.isEmpty() && inFlight < currentLimit()) {
+            Waiter waiter = queue.pollFirst();
+            waiter.granted = true;
+            inFlight++;
+            waiter.condition.signal();
+        }
+    }
+
+    private void increase() {
+        // Limit roste jen tehdy, když je skutečně využitý.
+        if (inFlight * 2 >= currentLimit()) {
+            limit = Math.min(maxLimit, limit + 1 / limit);
+            grantWaiting();
+        }
+    }
+
+    private void decrease(long start) {
+        // Volání zahájená před posledním snížením už byla započtena, jinak by jedna vlna 429 limit zhroutila.
+        if (start - lastDecrease < 0) {
+            return;
+        }
+        int before = currentLimit();
+        limit = Math.max(minLimit, limit * backoffRatio);
+        lastDecrease = nanoTime.getAsLong();
+        if (currentLimit() != before) {
+            log.info("Limit souběžných volání modelu snížen z {} na {}", before, currentLimit());
+        }
+    }
+
+    private static final class Waiter {
+        private final Condition condition;
+        private boolean granted;
+
+        private Waiter(Condition condition) {
+            this.condition = condition;
+        }
+    }
+
+    public final class Permit implements AutoCloseable {
+        private final AtomicBoolean released = new AtomicBoolean();
+        private final long start = nanoTime.getAsLong();
+        private volatile long firstResponse;
+        private volatile boolean responded;
+
+        private Permit() {
+        }
+
+        /**
+         * Doba do první části odpovědi se u streamování použije místo doby celého volání.
+         */
+        public void onFirstResponse() {
+            if (!responded) {
+                firstResponse = nanoTime.getAsLong();
+                responded = true;
+            }
+        }
+
+        public void onSuccess() {
+            if (released.get()) {
+                return;
+            }
+            long end = responded ? firstResponse : nanoTime.getAsLong();
+            lock.lock();
+            try {
+                if (end - start > latencyThresholdNanos) {
+                    decrease(start);
+                } else {
+                    increase();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        public void onRateLimited() {
+            if (released.get()) {
+                return;
+            }
+            lock.lock();
+            try {
+                decrease(start);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public void close() {
+            if (!released.compareAndSet(false, true)) {
+                return;
+            }
+            lock.lock();
+            try {
+                inFlight--;
+                grantWaiting();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
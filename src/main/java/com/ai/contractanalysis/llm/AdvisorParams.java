@@ -0,0 +1,25 @@
+package com.ai.contractanalysis.llm;
+
+import java.util.Map;
+
+/**
+ * Klíče parametrů, které kroky pipeline předávají advisorům přes {@code .advisors(a -> a.param(...))}.
+ */
+public final class AdvisorParams {
+    public static final String STEP_NAME = "contract-analysis.step-name";
+    public static final String USAGE_LISTENER = "contract-analysis.usage-listener";
+    public static final String UNKNOWN_STEP = "unknown";
+
+    private AdvisorParams() {
+    }
+
+    public static String stepName(Map<String, Object> context) {
+        Object stepName = context.get(STEP_NAME);
+        return stepName instanceof String name ? name : UNKNOWN_STEP;
+    }
+
+    public static TokenUsageListener usageListener(Map<String, Object> context) {
+        Object listener = context.get(USAGE_LISTENER);
+        return listener instanceof TokenUsageListener usageListener ? usageListener : null;
+    }
+}
@@ -0,0 +1,188 @@
+package com.ai.contractanalysis.llm;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.chat.client.ChatClientRequest;
+import org.springframework.ai.chat.client.ChatClientResponse;
+import org.springframework.ai.chat.client.advisor.DefaultAroundAdvisorChain;
+import org.springframework.ai.chat.client.advisor.api.Advisor;
+import org.springframework.ai.chat.client.advisor.api.AdvisorChain;
+import org.springframework.ai.chat.client.advisor.api.CallAdvisor;
+import org.springframework.ai.chat.client.advisor.api.CallAdvisorChain;
+import org.springframework.ai.chat.client.advisor.api.StreamAdvisor;
+import org.springframework.ai.chat.client.advisor.api.StreamAdvisorChain;
+import org.springframework.core.Ordered;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Pouští volání modelu přes {@link AdaptiveConcurrencyLimiter}. Je řazený za memoizací,
+ * takže odpovědi z paměti limit nespotřebují. Po použití se musí zavřít, aby skončila vlákna čekání na limit.
+ * <p>
+ * Odpověď 429 opakuje sám s exponenciálním odstupem: povolení vrátí a limit sníží hned po odmítnutí,
+ * během čekání tak volání v limitu nezabírá místo, a před dalším pokusem si povolení vyžádá znovu.
+ * Opakování po 429 v klientovi Spring AI ({@code spring.ai.retry.on-http-codes}) proto zůstává vypnuté.
+ * Povolení streamu patří k jednomu odběru, ne k vláknu.
+ */
+public class ConcurrencyLimitAdvisor implements CallAdvisor, StreamAdvisor, AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(ConcurrencyLimitAdvisor.class);
+
+    private final AdaptiveConcurrencyLimiter limiter;
+    private final int maxAttempts;
+    private final Duration initialBackoff;
+    private final double backoffMultiplier;
+    private final Duration maxBackoff;
+    // Čekání ve frontě blokuje, u streamu proto běží na virtuálních vláknech a ne ve vláknech Reactoru.
+    private final Scheduler waitScheduler = Schedulers.fromExecutorService(
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("llm-limiter-", 0).factory()), "llm-limiter");
+
+    public ConcurrencyLimitAdvisor(AdaptiveConcurrencyLimiter limiter) {
+        this(limiter, 10, Duration.ofSeconds(2), 5, Duration.ofMinutes(3));
+    }
+
+    /**
+     * @param maxAttempts nejvyšší počet pokusů o volání odmítnuté s 429, včetně prvního
+     */
+    public ConcurrencyLimitAdvisor(AdaptiveConcurrencyLimiter limiter, int maxAttempts, Duration initialBackoff,
+                                   double backoffMultiplier, Duration maxBackoff) {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("maxAttempts musí být alespoň 1");
+        }
+        this.limiter = limiter;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoff = initialBackoff;
+        this.backoffMultiplier = backoffMultiplier;
+        this.maxBackoff = maxBackoff;
+    }
+
+    @Override
+    public ChatClientResponse adviseCall(ChatClientRequest request, CallAdvisorChain chain) {
+        List<CallAdvisor> advisors = chain.getCallAdvisors();
+        CallAdvisorChain attemptChain = chain;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                CallAdvisorChain next = attemptChain;
+                return limiter.call(() -> next.nextCall(request));
+            } catch (RuntimeException e) {
+                if (attempt >= maxAttempts || !RateLimits.isRateLimited(e)) {
+                    throw e;
+                }
+                Duration backoff = backoff(attempt);
+                log.debug("Volání modelu odmítnuto s 429, {}. pokus za {} ms", attempt + 1, backoff.toMillis());
+                sleep(backoff);
+            }
+            attemptChain = remainingChain(chain, advisors);
+        }
+    }
+
+    @Override
+    public Flux<ChatClientResponse> adviseStream(ChatClientRequest request, StreamAdvisorChain chain) {
+        return Flux.defer(() -> {
+            List<StreamAdvisor> advisors = chain.getStreamAdvisors();
+            AtomicInteger attempts = new AtomicInteger();
+            AtomicBoolean emitted = new AtomicBoolean();
+            // Po první části odpovědi by opakování poslalo text znovu, opakuje se jen odmítnutí před ní.
+            Retry retry = Retry.from(signals -> signals.concatMap(signal -> {
+                long attempt = signal.totalRetries() + 1;
+                if (emitted.get() || attempt >= maxAttempts || !RateLimits.isRateLimited(signal.failure())) {
+                    return Mono.error(signal.failure());
+                }
+                Duration backoff = backoff(attempt);
+                log.debug("Stream modelu odmítnut s 429, {}. pokus za {} ms", attempt + 1, backoff.toMillis());
+                return Mono.delay(backoff);
+            }));
+            return Flux.defer(() -> limited(request,
+                            attempts.getAndIncrement() == 0 ? chain : remainingChain(chain, advisors)))
+                    .doOnNext(response -> emitted.set(true))
+                    .retryWhen(retry);
+        });
+    }
+
+    private Flux<ChatClientResponse> limited(ChatClientRequest request, StreamAdvisorChain chain) {
+        // Odběr zrušený během čekání: povolení získané až potom se hned vrátí, jinak by v limitu chybělo.
+        AtomicReference<AdaptiveConcurrencyLimiter.Permit> acquired = new AtomicReference<>();
+        AtomicBoolean cancelled = new AtomicBoolean();
+        return Mono.fromCallable(() -> {
+                    AdaptiveConcurrencyLimiter.Permit permit = limiter.acquire();
+                    acquired.set(permit);
+                    if (cancelled.get()) {
+                        permit.close();
+                    }
+                    return permit;
+                })
+                .subscribeOn(waitScheduler)
+                .doOnCancel(() -> {
+                    cancelled.set(true);
+                    AdaptiveConcurrencyLimiter.Permit permit = acquired.get();
+                    if (permit != null) {
+                        permit.close();
+                    }
+                })
+                .flatMapMany(permit -> chain.nextStream(request)
+                        .doOnNext(response -> permit.onFirstResponse())
+                        .doOnComplete(() -> {
+                            permit.onSuccess();
+                            permit.close();
+                        })
+                        .doOnError(error -> {
+                            if (RateLimits.isRateLimited(error)) {
+                                permit.onRateLimited();
+                            }
+                            permit.close();
+                        })
+                        .doOnCancel(permit::close));
+    }
+
+    /**
+     * Řetěz poradců za tímto pro další pokus; původní řetěz poradce při průchodu odebírá a znovu použít nejde.
+     */
+    private DefaultAroundAdvisorChain remainingChain(AdvisorChain chain, List<? extends Advisor> advisors) {
+        int index = advisors.indexOf(this);
+        if (index < 0) {
+            throw new IllegalStateException("ConcurrencyLimitAdvisor chybí v řetězci poradců");
+        }
+        return DefaultAroundAdvisorChain.builder(chain.getObservationRegistry())
+                .pushAll(advisors.subList(index + 1, advisors.size()))
+                .build();
+    }
+
+    Duration backoff(long attempt) {
+        double millis = initialBackoff.toMillis() * Math.pow(backoffMultiplier, attempt - 1);
+        return millis >= maxBackoff.toMillis() ? maxBackoff : Duration.ofMillis((long) millis);
+    }
+
+    private static void sleep(Duration backoff) {
+        try {
+            Thread.sleep(backoff);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Čekání na opakování volání modelu bylo přerušeno", e);
+        }
+    }
+
+    @Override
+    public void close() {
+        waitScheduler.dispose();
+    }
+
+    @Override
+    public String getName() {
+        return "ConcurrencyLimitAdvisor";
+    }
+
+    @Override
+    public int getOrder() {
+        // Za PromptMemoAdvisorem, před samotným voláním modelu.
+        return Ordered.LOWEST_PRECEDENCE - 500;
+    }
+}
@@ -0,0 +1,98 @@
+package com.ai.contractanalysis.llm;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.ai.chat.client.ChatClientCustomizer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+public class LlmConfiguration {
+
+    @Value("${analysis.memo.max-entries:500}")
+    private long memoMaxEntries;
+
+    @Value("${analysis.memo.ttl:PT6H}")
+    private Duration memoTtl;
+
+    @Value("${spring.ai.openai.chat.options.model:}")
+    private String defaultModel;
+
+    @Value("${analysis.llm.limiter.initial-limit:8}")
+    private int limiterInitialLimit;
+
+    @Value("${analysis.llm.limiter.min-limit:1}")
+    private int limiterMinLimit;
+
+    @Value("${analysis.llm.limiter.max-limit:64}")
+    private int limiterMaxLimit;
+
+    @Value("${analysis.llm.limiter.backoff-ratio:0.5}")
+    private double limiterBackoffRatio;
+
+    @Value("${analysis.llm.limiter.latency-threshold:PT60S}")
+    private Duration limiterLatencyThreshold;
+
+    @Value("${analysis.llm.limiter.retry.max-attempts:10}")
+    private int retryMaxAttempts;
+
+    @Value("${analysis.llm.limiter.retry.initial-interval:PT2S}")
+    private Duration retryInitialInterval;
+
+    @Value("${analysis.llm.limiter.retry.multiplier:5}")
+    private double retryMultiplier;
+
+    @Value("${analysis.llm.limiter.retry.max-interval:PT3M}")
+    private Duration retryMaxInterval;
+
+    @Bean
+    @ConditionalOnProperty(name = "analysis.memo.enabled", havingValue = "true", matchIfMissing = true)
+    PromptMemoAdvisor promptMemoAdvisor(MeterRegistry meterRegistry) {
+        return new PromptMemoAdvisor(memoMaxEntries, memoTtl, defaultModel, meterRegistry);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "analysis.memo.enabled", havingValue = "true", matchIfMissing = true)
+    ChatClientCustomizer promptMemoCustomizer(PromptMemoAdvisor promptMemoAdvisor) {
+        return builder -> builder.defaultAdvisors(promptMemoAdvisor);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "analysis.llm.limiter.enabled", havingValue = "true", matchIfMissing = true)
+    AdaptiveConcurrencyLimiter adaptiveConcurrencyLimiter(MeterRegistry meterRegistry) {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(limiterInitialLimit, limiterMinLimit,
+                limiterMaxLimit, limiterBackoffRatio, limiterLatencyThreshold);
+        Gauge.builder("contract.llm.limiter.limit", limiter, AdaptiveConcurrencyLimiter::getLimit)
+                .description("Aktuální limit souběžných volání modelu")
+                .register(meterRegistry);
+        Gauge.builder("contract.llm.limiter.in-flight", limiter, AdaptiveConcurrencyLimiter::getInFlight)
+                .description("Právě probíhající volání modelu")
+                .register(meterRegistry);
+        Gauge.builder("contract.llm.limiter.queue-depth", limiter, AdaptiveConcurrencyLimiter::getQueueDepth)
+                .description("Volání čekající na volné místo v limitu")
+                .register(meterRegistry);
+        return limiter;
+    }
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "analysis.llm.limiter.enabled", havingValue = "true", matchIfMissing = true)
+    ConcurrencyLimitAdvisor concurrencyLimitAdvisor(AdaptiveConcurrencyLimiter adaptiveConcurrencyLimiter) {
+        return new ConcurrencyLimitAdvisor(adaptiveConcurrencyLimiter, retryMaxAttempts, retryInitialInterval,
+                retryMultiplier, retryMaxInterval);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "analysis.llm.limiter.enabled", havingValue = "true", matchIfMissing = true)
+    ChatClientCustomizer concurrencyLimitCustomizer(ConcurrencyLimitAdvisor concurrencyLimitAdvisor) {
+        return builder -> builder.defaultAdvisors(concurrencyLimitAdvisor);
+    }
+
+    @Bean
+    ChatClientCustomizer tokenUsageCustomizer(MeterRegistry meterRegistry) {
+        return builder -> builder.defaultAdvisors(new TokenUsageAdvisor(meterRegistry, defaultModel));
+    }
+}
@@ -0,0 +1,142 @@
+package com.ai.contractanalysis.llm;
+
+import com.ai.contractanalysis.utils.BoundedCache;
+import com.ai.contractanalysis.utils.Hashing;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.ai.chat.client.ChatClientAttributes;
+import org.springframework.ai.chat.client.ChatClientRequest;
+import org.springframework.ai.chat.client.ChatClientResponse;
+import org.springframework.ai.chat.client.advisor.api.CallAdvisor;
+import org.springframework.ai.chat.client.advisor.api.CallAdvisorChain;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.prompt.ChatOptions;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.core.Ordered;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Memoizuje odpovědi modelu pro jednotlivé kroky pipeline. Klíčem je název kroku, volby modelu
+ * a otisk finálního promptu (tedy včetně dokumentů doplněných RAG advisorem), takže se znovu použije
+ * jen odpověď na přesně stejný dotaz. Streamovaná volání se nememoizují.
+ * Zásahy a výpadky se publikují jako {@code contract.llm.memo.requests} podle kroku.
+ */
+public class PromptMemoAdvisor implements CallAdvisor {
+    static final String REQUESTS_COUNTER = "contract.llm.memo.requests";
+
+    private final BoundedCache<String, ChatResponse> cache;
+    private final String defaultModel;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Counters> counters = new ConcurrentHashMap<>();
+
+    public PromptMemoAdvisor(long maxEntries, Duration ttl, String defaultModel, MeterRegistry meterRegistry) {
+        this.cache = new BoundedCache<>(maxEntries, ttl);
+        this.defaultModel = defaultModel;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public ChatClientResponse adviseCall(ChatClientRequest request, CallAdvisorChain chain) {
+        String stepName = AdvisorParams.stepName(request.context());
+        Counters stepCounters = counters.computeIfAbsent(stepName, this::register);
+        String key = key(stepName, request);
+
+        Optional<ChatResponse> cached = cache.get(key);
+        if (cached.isPresent()) {
+            stepCounters.hits.increment();
+            return ChatClientResponse.builder()
+                    .chatResponse(cached.get())
+                    .context(request.context())
+                    .build();
+        }
+
+        stepCounters.misses.increment();
+        ChatClientResponse response = chain.nextCall(request);
+        if (response.chatResponse() != null && response.chatResponse().getResult() != null) {
+            cache.put(key, response.chatResponse());
+        }
+        return response;
+    }
+
+    public Map<String, MemoStats> getStats() {
+        Map<String, MemoStats> stats = new ConcurrentHashMap<>();
+        counters.forEach((step, value) -> stats.put(step, new MemoStats(value.hits.sum(), value.misses.sum())));
+        return stats;
+    }
+
+    public int size() {
+        return cache.size();
+    }
+
+    private Counters register(String stepName) {
+        Counters stepCounters = new Counters();
+        FunctionCounter.builder(REQUESTS_COUNTER, stepCounters.hits, LongAdder::sum)
+                .description("Volání modelu podle toho, zda odpověď byla memoizovaná")
+                .tag("step", stepName)
+                .tag("result", "hit")
+                .register(meterRegistry);
+        FunctionCounter.builder(REQUESTS_COUNTER, stepCounters.misses, LongAdder::sum)
+                .description("Volání modelu podle toho, zda odpověď byla memoizovaná")
+                .tag("step", stepName)
+                .tag("result", "miss")
+                .register(meterRegistry);
+        return stepCounters;
+    }
+
+    private String key(String stepName, ChatClientRequest request) {
+        Prompt prompt = request.prompt();
+        List<String> parts = new ArrayList<>();
+        parts.add(stepName);
+        parts.add(options(prompt.getOptions()));
+        parts.add(Objects.toString(request.context().get(ChatClientAttributes.OUTPUT_FORMAT.getKey()), ""));
+        for (Message message : prompt.getInstructions()) {
+            parts.add(message.getMessageType().name());
+            parts.add(message.getText());
+        }
+        return Hashing.sha256(parts.toArray(String[]::new));
+    }
+
+    private String options(ChatOptions options) {
+        if (options == null) {
+            return defaultModel;
+        }
+        String model = options.getModel() != null ? options.getModel() : defaultModel;
+        return String.join("|",
+                model,
+                Objects.toString(options.getTemperature()),
+                Objects.toString(options.getTopP()),
+                Objects.toString(options.getTopK()),
+                Objects.toString(options.getMaxTokens()),
+                Objects.toString(options.getFrequencyPenalty()),
+                Objects.toString(options.getPresencePenalty()),
+                Objects.toString(options.getStopSequences()));
+    }
+
+    @Override
+    public String getName() {
+        return "PromptMemoAdvisor";
+    }
+
+    @Override
+    public int getOrder() {
+        // Až po QuestionAnswerAdvisoru (order 0), aby klíč obsahoval i nalezené dokumenty.
+        return Ordered.LOWEST_PRECEDENCE - 1000;
+    }
+
+    public record MemoStats(long hits, long misses) {
+    }
+
+    private static final class Counters {
+        private final LongAdder hits = new LongAdder();
+        private final LongAdder misses = new LongAdder();
+    }
+}
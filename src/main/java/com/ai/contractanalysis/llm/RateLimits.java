@@ -0,0 +1,34 @@
+package com.ai.contractanalysis.llm;
+
+import org.springframework.web.client.RestClientResponseException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+/**
+ * Rozpozná odpověď 429 od OpenAI v řetězci výjimek. Spring AI ji podle nastavení
+ * {@code spring.ai.retry} hlásí jen zprávou ve tvaru {@code "HTTP 429 - ..."}.
+ */
+public final class RateLimits {
+    private static final int TOO_MANY_REQUESTS = 429;
+
+    private RateLimits() {
+    }
+
+    public static boolean isRateLimited(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof RestClientResponseException e && e.getStatusCode().value() == TOO_MANY_REQUESTS) {
+                return true;
+            }
+            if (cause instanceof WebClientResponseException e && e.getStatusCode().value() == TOO_MANY_REQUESTS) {
+                return true;
+            }
+            String message = cause.getMessage();
+            if (message != null && (message.startsWith("429") || message.startsWith("HTTP 429"))) {
+                return true;
+            }
+            if (cause.getCause() == cause) {
+                break;
+            }
+        }
+        return false;
+    }
+}
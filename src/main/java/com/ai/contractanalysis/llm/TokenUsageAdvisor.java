@@ -0,0 +1,108 @@
+package com.ai.contractanalysis.llm;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.ai.chat.client.ChatClientRequest;
+import org.springframework.ai.chat.client.ChatClientResponse;
+import org.springframework.ai.chat.client.advisor.api.CallAdvisor;
+import org.springframework.ai.chat.client.advisor.api.CallAdvisorChain;
+import org.springframework.ai.chat.client.advisor.api.StreamAdvisor;
+import org.springframework.ai.chat.client.advisor.api.StreamAdvisorChain;
+import org.springframework.ai.chat.metadata.ChatResponseMetadata;
+import org.springframework.ai.chat.metadata.Usage;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.core.Ordered;
+import org.springframework.util.StringUtils;
+import reactor.core.publisher.Flux;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Počítá tokeny promptu a odpovědi podle kroku pipeline a modelu a hlásí je také běhu pipeline,
+ * ze kterého volání pochází. Je řazený za memoizací, takže počítá jen skutečně zaplacená volání.
+ */
+public class TokenUsageAdvisor implements CallAdvisor, StreamAdvisor {
+    static final String TOKEN_COUNTER = "contract.llm.tokens";
+
+    private final MeterRegistry meterRegistry;
+    private final String defaultModel;
+
+    public TokenUsageAdvisor(MeterRegistry meterRegistry, String defaultModel) {
+        this.meterRegistry = meterRegistry;
+        this.defaultModel = StringUtils.hasText(defaultModel) ? defaultModel : "unknown";
+    }
+
+    @Override
+    public ChatClientResponse adviseCall(ChatClientRequest request, CallAdvisorChain chain) {
+        ChatClientResponse response = chain.nextCall(request);
+        record(request, response.chatResponse());
+        return response;
+    }
+
+    @Override
+    public Flux<ChatClientResponse> adviseStream(ChatClientRequest request, StreamAdvisorChain chain) {
+        // Při streamování přijde spotřeba až v poslední části odpovědi (spring.ai.openai.chat.options.stream-usage).
+        AtomicReference<ChatResponse> lastWithUsage = new AtomicReference<>();
+        return chain.nextStream(request)
+                .doOnNext(response -> {
+                    if (hasUsage(response.chatResponse())) {
+                        lastWithUsage.set(response.chatResponse());
+                    }
+                })
+                .doOnComplete(() -> record(request, lastWithUsage.get()));
+    }
+
+    private void record(ChatClientRequest request, ChatResponse response) {
+        if (!hasUsage(response)) {
+            return;
+        }
+        String stepName = AdvisorParams.stepName(request.context());
+        ChatResponseMetadata metadata = response.getMetadata();
+        Usage usage = metadata.getUsage();
+        String model = StringUtils.hasText(metadata.getModel()) ? metadata.getModel() : defaultModel;
+        increment(stepName, model, "prompt", usage.getPromptTokens());
+        increment(stepName, model, "completion", usage.getCompletionTokens());
+
+        TokenUsageListener listener = AdvisorParams.usageListener(request.context());
+        if (listener != null) {
+            listener.onTokenUsage(stepName, tokens(usage.getPromptTokens()), tokens(usage.getCompletionTokens()));
+        }
+    }
+
+    private static long tokens(Integer tokens) {
+        return tokens != null ? tokens : 0;
+    }
+
+    private void increment(String stepName, String model, String type, Integer tokens) {
+        if (tokens == null || tokens <= 0) {
+            return;
+        }
+        Counter.builder(TOKEN_COUNTER)
+                .description("Tokeny spotřebované voláním modelu")
+                .tag("step", stepName)
+                .tag("model", model)
+                .tag("type", type)
+                .register(meterRegistry)
+                .increment(tokens);
+    }
+
+    private static boolean hasUsage(ChatResponse response) {
+        if (response == null || response.getMetadata() == null || response.getMetadata().getUsage() == null) {
+            return false;
+        }
+        Usage usage = response.getMetadata().getUsage();
+        return usage.getPromptTokens() != null && usage.getPromptTokens() > 0
+                || usage.getCompletionTokens() != null && usage.getCompletionTokens() > 0;
+    }
+
+    @Override
+    public String getName() {
+        return "TokenUsageAdvisor";
+    }
+
+    @Override
+    public int getOrder() {
+        // Za PromptMemoAdvisorem i ConcurrencyLimitAdvisorem, těsně před voláním modelu.
+        return Ordered.LOWEST_PRECEDENCE - 400;
+    }
+}
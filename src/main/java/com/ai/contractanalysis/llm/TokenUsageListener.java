@@ -0,0 +1,9 @@
+package com.ai.contractanalysis.llm;
+
+/**
+ * Příjemce spotřeby tokenů jednoho volání modelu; předává se advisorům přes {@link AdvisorParams#USAGE_LISTENER}.
+ */
+@FunctionalInterface
+public interface TokenUsageListener {
+    void onTokenUsage(String stepName, long promptTokens, long completionTokens);
+}
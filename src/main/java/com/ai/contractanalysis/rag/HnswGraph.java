@@ -0,0 +1,279 @@
+package com.ai.contractanalysis.rag;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.SplittableRandom;
+import java.util.function.IntToDoubleFunction;
+
+/**
+ * Graf HNSW (Hierarchical Navigable Small World) nad řádky {@link MappedVectorIndex}. Uzly jsou čísla řádků,
+ * graf drží jen sousedy, vektory se při hledání čtou z namapovaného indexu.
+ * <p>
+ * Ukládá se vedle indexu do souboru {@code .hnsw} spolu s kontrolním součtem souboru vektorů,
+ * takže po změně indexu se neplatný graf nenačte a sestaví se znovu.
+ */
+final class HnswGraph {
+    static final String SUFFIX = ".hnsw";
+
+    private static final int MAGIC = 0x4341484E; // "CAHN"
+    private static final int VERSION = 1;
+    // Pevné semínko, aby stejný index dal vždy stejný graf.
+    private static final long SEED = 42;
+    private static final Comparator<ScoredRow> BY_SCORE = Comparator.comparingDouble(ScoredRow::score);
+
+    private final int m;
+    private final int efConstruction;
+    private final long checksum;
+    private final int entryPoint;
+    private final int maxLevel;
+    private final int[][][] links;
+
+    private HnswGraph(int m, int efConstruction, long checksum, int entryPoint, int maxLevel, int[][][] links) {
+        this.m = m;
+        this.efConstruction = efConstruction;
+        this.checksum = checksum;
+        this.entryPoint = entryPoint;
+        this.maxLevel = maxLevel;
+        this.links = links;
+    }
+
+    /**
+     * Sestaví graf vkládáním řádků jeden po druhém. Vektory se na dobu sestavení zkopírují do heapu.
+     */
+    static HnswGraph build(MappedVectorIndex index, int m, int efConstruction) {
+        int size = index.size();
+        float[][] vectors = new float[size][index.dimensions()];
+        for (int row = 0; row < size; row++) {
+            index.vector(row, vectors[row]);
+        }
+
+        double levelMultiplier = 1 / Math.log(m);
+        SplittableRandom random = new SplittableRandom(SEED);
+        int[][][] links = new int[size][][];
+        int entryPoint = -1;
+        int maxLevel = -1;
+
+        for (int node = 0; node < size; node++) {
+            int level = (int) (-Math.log(1 - random.nextDouble()) * levelMultiplier);
+            links[node] = new int[level + 1][0];
+            if (entryPoint < 0) {
+                entryPoint = node;
+                maxLevel = level;
+                continue;
+            }
+
+            float[] query = vectors[node];
+            IntToDoubleFunction similarity = other -> VectorMath.dot(query, vectors[other]);
+            List<ScoredRow> entries = List.of(new ScoredRow(entryPoint, similarity.applyAsDouble(entryPoint)));
+            for (int layer = maxLevel; layer > level; layer--) {
+                entries = searchLayer(links, similarity, entries, 1, layer, new BitSet(size));
+            }
+            for (int layer = Math.min(level, maxLevel); layer >= 0; layer--) {
+                List<ScoredRow> found = searchLayer(links, similarity, entries, efConstruction, layer, new BitSet(size));
+                int[] neighbours = selectNeighbours(found, m, vectors);
+                links[node][layer] = neighbours;
+                for (int neighbour : neighbours) {
+                    connect(links, vectors, neighbour, node, layer, maxLinks(m, layer));
+                }
+                entries = found;
+            }
+            if (level > maxLevel) {
+                entryPoint = node;
+                maxLevel = level;
+            }
+        }
+        return new HnswGraph(m, efConstruction, index.checksum(), entryPoint, maxLevel, links);
+    }
+
+    /**
+     * Načte uložený graf, pokud patří k aktuálnímu indexu a byl sestaven se stejnými parametry;
+     * jinak vrací {@code null}.
+     */
+    static HnswGraph load(Path basePath, MappedVectorIndex index, int m, int efConstruction) throws IOException {
+        Path file = file(basePath);
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                return null;
+            }
+            int size = in.readInt();
+            int storedM = in.readInt();
+            int storedEfConstruction = in.readInt();
+            long checksum = in.readLong();
+            if (size != index.size() || storedM != m || storedEfConstruction != efConstruction
+                    || checksum != index.checksum()) {
+                return null;
+            }
+            int entryPoint = in.readInt();
+            int maxLevel = in.readInt();
+            int[][][] links = new int[size][][];
+            for (int node = 0; node < size; node++) {
+                links[node] = new int[in.readInt()][];
+                for (int layer = 0; layer < links[node].length; layer++) {
+                    int[] neighbours = new int[in.readInt()];
+                    for (int i = 0; i < neighbours.length; i++) {
+                        neighbours[i] = in.readInt();
+                    }
+                    links[node][layer] = neighbours;
+                }
+            }
+            return new HnswGraph(m, efConstruction, checksum, entryPoint, maxLevel, links);
+        }
+    }
+
+    void save(Path basePath) throws IOException {
+        Path directory = basePath.toAbsolutePath().getParent();
+        Path temp = Files.createTempFile(directory, "hnsw-", ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(links.length);
+                out.writeInt(m);
+                out.writeInt(efConstruction);
+                out.writeLong(checksum);
+                out.writeInt(entryPoint);
+                out.writeInt(maxLevel);
+                for (int[][] layers : links) {
+                    out.writeInt(layers.length);
+                    for (int[] neighbours : layers) {
+                        out.writeInt(neighbours.length);
+                        for (int neighbour : neighbours) {
+                            out.writeInt(neighbour);
+                        }
+                    }
+                }
+            }
+            Files.move(temp, file(basePath), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Nejvýše {@code ef} nejpodobnějších řádků seřazených od nejpodobnějšího.
+     *
+     * @param similarity podobnost řádku s dotazem
+     */
+    List<ScoredRow> search(IntToDoubleFunction similarity, int ef) {
+        if (entryPoint < 0) {
+            return List.of();
+        }
+        BitSet visited = new BitSet(links.length);
+        List<ScoredRow> entries = List.of(new ScoredRow(entryPoint, similarity.applyAsDouble(entryPoint)));
+        for (int layer = maxLevel; layer > 0; layer--) {
+            entries = searchLayer(links, similarity, entries, 1, layer, visited);
+            visited.clear();
+        }
+        return searchLayer(links, similarity, entries, ef, 0, visited);
+    }
+
+    int size() {
+        return links.length;
+    }
+
+    static Path file(Path basePath) {
+        return basePath.resolveSibling(basePath.getFileName() + SUFFIX);
+    }
+
+    private static List<ScoredRow> searchLayer(int[][][] links, IntToDoubleFunction similarity, List<ScoredRow> entries,
+                                               int ef, int layer, BitSet visited) {
+        PriorityQueue<ScoredRow> candidates = new PriorityQueue<>(BY_SCORE.reversed());
+        PriorityQueue<ScoredRow> results = new PriorityQueue<>(BY_SCORE);
+        for (ScoredRow entry : entries) {
+            visited.set(entry.row());
+            candidates.add(entry);
+            results.add(entry);
+            if (results.size() > ef) {
+                results.poll();
+            }
+        }
+
+        while (!candidates.isEmpty()) {
+            ScoredRow current = candidates.poll();
+            if (results.size() >= ef && current.score() < results.peek().score()) {
+                break;
+            }
+            for (int neighbour : links[current.row()][layer]) {
+                if (visited.get(neighbour)) {
+                    continue;
+                }
+                visited.set(neighbour);
+                double score = similarity.applyAsDouble(neighbour);
+                if (results.size() < ef || score > results.peek().score()) {
+                    ScoredRow candidate = new ScoredRow(neighbour, score);
+                    candidates.add(candidate);
+                    results.add(candidate);
+                    if (results.size() > ef) {
+                        results.poll();
+                    }
+                }
+            }
+        }
+
+        List<ScoredRow> sorted = new ArrayList<>(results);
+        sorted.sort(BY_SCORE.reversed());
+        return sorted;
+    }
+
+    /**
+     * Výběr sousedů heuristikou z původního článku: kandidát se přeskočí, pokud je některému už vybranému
+     * sousedovi blíž než uzlu. Graf tak drží i spojení mezi vzdálenějšími shluky. Zbylá místa doplní
+     * přeskočení kandidáti.
+     */
+    private static int[] selectNeighbours(List<ScoredRow> candidates, int count, float[][] vectors) {
+        List<ScoredRow> selected = new ArrayList<>(count);
+        List<ScoredRow> skipped = new ArrayList<>();
+        for (ScoredRow candidate : candidates) {
+            if (selected.size() >= count) {
+                break;
+            }
+            boolean diverse = true;
+            for (ScoredRow chosen : selected) {
+                if (VectorMath.dot(vectors[candidate.row()], vectors[chosen.row()]) > candidate.score()) {
+                    diverse = false;
+                    break;
+                }
+            }
+            (diverse ? selected : skipped).add(candidate);
+        }
+        for (int i = 0; i < skipped.size() && selected.size() < count; i++) {
+            selected.add(skipped.get(i));
+        }
+        return selected.stream().mapToInt(ScoredRow::row).toArray();
+    }
+
+    private static void connect(int[][][] links, float[][] vectors, int node, int neighbour, int layer, int maxLinks) {
+        int[] current = links[node][layer];
+        int[] extended = Arrays.copyOf(current, current.length + 1);
+        extended[current.length] = neighbour;
+        if (extended.length <= maxLinks) {
+            links[node][layer] = extended;
+            return;
+        }
+        List<ScoredRow> candidates = new ArrayList<>(extended.length);
+        for (int other : extended) {
+            candidates.add(new ScoredRow(other, VectorMath.dot(vectors[node], vectors[other])));
+        }
+        candidates.sort(BY_SCORE.reversed());
+        links[node][layer] = selectNeighbours(candidates, maxLinks, vectors);
+    }
+
+    private static int maxLinks(int m, int layer) {
+        return layer == 0 ? 2 * m : m;
+    }
+}
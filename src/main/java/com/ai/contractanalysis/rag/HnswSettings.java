@@ -0,0 +1,20 @@
+package com.ai.contractanalysis.rag;
+
+/**
+ * Parametry HNSW indexu {@link MappedVectorStore}.
+ *
+ * @param m              počet sousedů uzlu ve vyšších vrstvách grafu (v nejnižší vrstvě dvojnásobek)
+ * @param efConstruction šířka prohledávání při vkládání uzlu do grafu
+ * @param efSearch       šířka prohledávání při dotazu; vyšší hodnota zvyšuje přesnost i dobu hledání
+ */
+public record HnswSettings(int m, int efConstruction, int efSearch) {
+
+    public HnswSettings {
+        if (m < 2) {
+            throw new IllegalArgumentException("HNSW parametr m musí být alespoň 2");
+        }
+        if (efConstruction < 1 || efSearch < 1) {
+            throw new IllegalArgumentException("HNSW parametry efConstruction a efSearch musí být kladné");
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.ai.contractanalysis.rag;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Soupis souborů se zákony, ze kterých vznikl vector store: pro každý soubor hash obsahu a id jeho částí.
+ * Ukládá se vedle vector store do souboru {@code .manifest}.
+ */
+record LawCorpusManifest(Map<String, Entry> files) {
+    static final String SUFFIX = ".manifest";
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    record Entry(String sha256, List<String> chunkIds) {
+    }
+
+    /**
+     * Načte manifest; pokud soubor neexistuje, vrací {@code null}.
+     */
+    static LawCorpusManifest read(Path file) throws IOException {
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        return OBJECT_MAPPER.readValue(file.toFile(), LawCorpusManifest.class);
+    }
+
+    void write(Path file) throws IOException {
+        Path directory = file.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temp = Files.createTempFile(directory, "manifest-", ".tmp");
+        try {
+            OBJECT_MAPPER.writerWithDefaultPrettyPrinter().writeValue(temp.toFile(), this);
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * @param storePath soubor nebo základní cesta vector store
+     */
+    static Path file(Path storePath) {
+        return storePath.resolveSibling(storePath.getFileName() + SUFFIX);
+    }
+}
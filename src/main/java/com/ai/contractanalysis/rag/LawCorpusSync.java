@@ -0,0 +1,210 @@
+package com.ai.contractanalysis.rag;
+
+import com.ai.contractanalysis.utils.Hashing;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.reader.TextReader;
+import org.springframework.ai.transformer.splitter.TextSplitter;
+import org.springframework.ai.transformer.splitter.TokenTextSplitter;
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Promítá změny souborů se zákony do vector store podle {@link LawCorpusManifest}. Rozdělí a embeduje se jen
+ * nový nebo změněný soubor, části změněných a smazaných souborů se odeberou.
+ * <p>
+ * Id částí se odvozují ze jména souboru, hashe obsahu a pořadí části. Když start skončí po zápisu indexu,
+ * ale před zápisem manifestu, další start tytéž části jen přepíše a nevzniknou duplicity.
+ */
+final class LawCorpusSync {
+    private static final Logger log = LoggerFactory.getLogger(LawCorpusSync.class);
+    static final String FILENAME = "filename";
+
+    /**
+     * Zápis změn do konkrétního vector store.
+     */
+    @FunctionalInterface
+    interface Changes {
+        void apply(List<String> removedIds, List<Document> documents);
+    }
+
+    private final Resource[] laws;
+    private final TextSplitter textSplitter = new TokenTextSplitter();
+
+    LawCorpusSync(Resource[] laws) {
+        this.laws = laws;
+    }
+
+    /**
+     * @param manifestFile    manifest vedle vector store
+     * @param storeExists     zda vector store při startu existoval; manifest bez vector store se nepoužije,
+     *                        jinak by se smazaný korpus považoval za aktuální a zůstal prázdný
+     * @param storedDocuments dokumenty ve vector store; čtou se jen při chybějícím manifestu
+     * @return {@code true}, pokud se obsah vector store změnil
+     */
+    boolean sync(Path manifestFile, boolean storeExists, Supplier<List<Document>> storedDocuments, Changes changes) {
+        Map<String, LawFile> current = new LinkedHashMap<>();
+        for (Resource law : laws) {
+            String filename = law.getFilename();
+            current.put(filename, new LawFile(filename, hash(law), law));
+        }
+
+        LawCorpusManifest manifest = readManifest(manifestFile);
+        if (manifest != null && !storeExists) {
+            log.warn("Manifest zákonů {} existuje, ale vector store chybí; zákony se načtou znovu", manifestFile);
+            manifest = null;
+        }
+        Map<String, LawCorpusManifest.Entry> previous = manifest != null
+                ? manifest.files()
+                : adopt(storeExists ? storedDocuments.get() : List.of(), current);
+
+        Map<String, LawCorpusManifest.Entry> files = new LinkedHashMap<>();
+        List<String> removedIds = new ArrayList<>();
+        List<Document> documents = new ArrayList<>();
+        int changedFiles = 0;
+        for (LawFile law : current.values()) {
+            LawCorpusManifest.Entry entry = previous.get(law.filename());
+            if (entry != null && law.sha256().equals(entry.sha256())) {
+                files.put(law.filename(), entry);
+                continue;
+            }
+            if (entry != null) {
+                removedIds.addAll(entry.chunkIds());
+            }
+            List<Document> chunks = law.chunks(textSplitter);
+            documents.addAll(chunks);
+            files.put(law.filename(), new LawCorpusManifest.Entry(law.sha256(), chunks.stream().map(Document::getId).toList()));
+            changedFiles++;
+        }
+        int removedFiles = 0;
+        for (Map.Entry<String, LawCorpusManifest.Entry> entry : previous.entrySet()) {
+            if (!current.containsKey(entry.getKey())) {
+                removedIds.addAll(entry.getValue().chunkIds());
+                removedFiles++;
+            }
+        }
+
+        boolean changed = !removedIds.isEmpty() || !documents.isEmpty();
+        if (changed) {
+            changes.apply(removedIds, documents);
+        }
+        if (manifest == null || !files.equals(previous)) {
+            writeManifest(manifestFile, new LawCorpusManifest(files));
+        }
+        log.info("Zákony: {} souborů beze změny, {} nových nebo změněných, {} odebraných; embedováno {} částí, odebráno {}",
+                current.size() - changedFiles, changedFiles, removedFiles, documents.size(), removedIds.size());
+        return changed;
+    }
+
+    /**
+     * Manifest pro vector store z doby před manifesty. Uložené části se seskupí podle metadat {@code filename};
+     * soubor, jehož rozdělený text se s nimi shoduje, se převezme bez embedování. Ostatní se při synchronizaci
+     * nahradí nebo odeberou. Části bez {@code filename} zůstanou beze změny.
+     */
+    private Map<String, LawCorpusManifest.Entry> adopt(List<Document> storedDocuments, Map<String, LawFile> current) {
+        Map<String, List<Document>> byFile = new LinkedHashMap<>();
+        for (Document document : storedDocuments) {
+            if (document.getMetadata().get(FILENAME) instanceof String filename) {
+                byFile.computeIfAbsent(filename, key -> new ArrayList<>()).add(document);
+            }
+        }
+        Map<String, LawCorpusManifest.Entry> adopted = new HashMap<>();
+        for (Map.Entry<String, List<Document>> entry : byFile.entrySet()) {
+            LawFile law = current.get(entry.getKey());
+            boolean same = law != null && sortedTexts(law.chunks(textSplitter)).equals(sortedTexts(entry.getValue()));
+            adopted.put(entry.getKey(), new LawCorpusManifest.Entry(same ? law.sha256() : null,
+                    entry.getValue().stream().map(Document::getId).toList()));
+        }
+        log.info("Manifest zákonů chybí, sestaven z {} uložených souborů", adopted.size());
+        return adopted;
+    }
+
+    private static List<String> sortedTexts(List<Document> documents) {
+        return documents.stream().map(Document::getText).sorted().toList();
+    }
+
+    private static String hash(Resource law) {
+        try (InputStream in = law.getInputStream()) {
+            return Hashing.sha256(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Nelze načíst zákon: " + law.getFilename(), e);
+        }
+    }
+
+    private static LawCorpusManifest readManifest(Path file) {
+        try {
+            return LawCorpusManifest.read(file);
+        } catch (IOException e) {
+            log.warn("Nelze načíst manifest zákonů {}, sestaví se znovu", file, e);
+            return null;
+        }
+    }
+
+    private static void writeManifest(Path file, LawCorpusManifest manifest) {
+        try {
+            manifest.write(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Nelze zapsat manifest zákonů " + file, e);
+        }
+    }
+
+    private static final class LawFile {
+        private final String filename;
+        private final String sha256;
+        private final Resource resource;
+        private List<Document> chunks;
+
+        LawFile(String filename, String sha256, Resource resource) {
+            this.filename = filename;
+            this.sha256 = sha256;
+            this.resource = resource;
+        }
+
+        String filename() {
+            return filename;
+        }
+
+        String sha256() {
+            return sha256;
+        }
+
+        /**
+         * Části souboru rozdělené stejně jako dřív při plném načtení zákonů, s id odvozeným z obsahu.
+         */
+        List<Document> chunks(TextSplitter textSplitter) {
+            if (chunks == null) {
+                TextReader textReader = new TextReader(resource);
+                textReader.getCustomMetadata().put(FILENAME, filename);
+                List<Document> parts = textSplitter.apply(textReader.get());
+                chunks = new ArrayList<>(parts.size());
+                for (int i = 0; i < parts.size(); i++) {
+                    Document part = parts.get(i);
+                    chunks.add(Document.builder()
+                            .id(chunkId(i))
+                            .text(part.getText())
+                            .metadata(part.getMetadata())
+                            .build());
+                }
+            }
+            return chunks;
+        }
+
+        private String chunkId(int index) {
+            String key = Hashing.sha256(filename, sha256, Integer.toString(index));
+            return UUID.nameUUIDFromBytes(key.getBytes(StandardCharsets.US_ASCII)).toString();
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.ai.contractanalysis.rag;
+
+import com.ai.contractanalysis.utils.Hashing;
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HexFormat;
+
+/**
+ * Otisk obsahu všech souborů se zákony; změní se při přidání, odebrání nebo úpravě kteréhokoli z nich.
+ */
+public record LawCorpusVersion(String value) {
+
+    public static LawCorpusVersion of(Resource[] laws) {
+        MessageDigest digest = Hashing.sha256Digest();
+        Resource[] sorted = laws.clone();
+        Arrays.sort(sorted, Comparator.comparing(Resource::getFilename, Comparator.nullsFirst(Comparator.naturalOrder())));
+
+        for (Resource law : sorted) {
+            digest.update(Hashing.sha256(law.getFilename()).getBytes());
+            try (InputStream in = law.getInputStream()) {
+                byte[] buffer = new byte[8192];
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    digest.update(buffer, 0, read);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Nelze načíst zákon: " + law.getFilename(), e);
+            }
+        }
+        return new LawCorpusVersion(HexFormat.of().formatHex(digest.digest()));
+    }
+}
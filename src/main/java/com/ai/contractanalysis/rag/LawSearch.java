@@ -0,0 +1,118 @@
+package com.ai.contractanalysis.rag;
+
+import com.ai.contractanalysis.utils.ParallelTasks;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * Vyhledání zákonů pro delší text. Text rozdělí do několika dotazů, hledá paralelně
+ * a výsledky sloučí podle id dokumentu.
+ */
+public class LawSearch {
+    private final VectorStore vectorStore;
+    private final int maxQueries;
+    private final int windowChars;
+    private final int topK;
+    private final int maxDocuments;
+
+    public LawSearch(VectorStore vectorStore, int maxQueries, int windowChars, int topK, int maxDocuments) {
+        this.vectorStore = vectorStore;
+        this.maxQueries = Math.max(1, maxQueries);
+        this.windowChars = windowChars;
+        this.topK = topK;
+        this.maxDocuments = maxDocuments;
+    }
+
+    /**
+     * Dokumenty seřazené od nejpodobnějšího, nejvýše {@code maxDocuments}.
+     */
+    public List<Document> search(String text) {
+        List<SearchRequest> requests = queries(text).stream()
+                .map(query -> SearchRequest.builder().query(query).topK(topK).build())
+                .toList();
+        Map<String, Document> documents = new LinkedHashMap<>();
+        for (List<Document> found : searchAll(requests)) {
+            if (found != null) {
+                found.forEach(document -> documents.merge(document.getId(), document, LawSearch::closer));
+            }
+        }
+
+        return documents.values().stream()
+                .sorted(Comparator.comparingDouble(LawSearch::score).reversed())
+                .limit(maxDocuments)
+                .toList();
+    }
+
+    /**
+     * {@link MappedVectorStore} vyhodnotí všechny dotazy jedním průchodem indexem, ostatní vector store
+     * se prohledají paralelně.
+     */
+    private List<List<Document>> searchAll(List<SearchRequest> requests) {
+        if (requests.isEmpty()) {
+            return List.of();
+        }
+        if (vectorStore instanceof MappedVectorStore mappedVectorStore) {
+            return mappedVectorStore.batchSimilaritySearch(requests);
+        }
+        return ParallelTasks.map(requests, requests.size(), vectorStore::similaritySearch);
+    }
+
+    /**
+     * Rozdělí text po odstavcích do nejvýše {@code maxQueries} oken rozložených po celém textu.
+     */
+    List<String> queries(String text) {
+        String trimmed = text == null ? "" : text.strip();
+        if (trimmed.isEmpty()) {
+            return List.of();
+        }
+        int limit = Math.max(windowChars, (trimmed.length() + maxQueries - 1) / maxQueries);
+
+        List<String> windows = new ArrayList<>();
+        StringBuilder window = new StringBuilder();
+        for (String paragraph : trimmed.split("\\n\\s*\\n")) {
+            String clause = paragraph.strip();
+            while (clause.length() > limit) {
+                flush(window, windows);
+                windows.add(clause.substring(0, limit));
+                clause = clause.substring(limit).strip();
+            }
+            if (window.length() + clause.length() + 1 > limit) {
+                flush(window, windows);
+            }
+            if (!clause.isEmpty()) {
+                window.append(window.isEmpty() ? "" : "\n").append(clause);
+            }
+        }
+        flush(window, windows);
+        if (windows.size() <= maxQueries) {
+            return windows;
+        }
+        // Rovnoměrný výběr, aby nezůstal bez dotazu konec textu.
+        return IntStream.range(0, maxQueries)
+                .mapToObj(i -> windows.get((2 * i + 1) * windows.size() / (2 * maxQueries)))
+                .toList();
+    }
+
+    private static void flush(StringBuilder window, List<String> windows) {
+        if (!window.isEmpty()) {
+            windows.add(window.toString());
+            window.setLength(0);
+        }
+    }
+
+    private static Document closer(Document a, Document b) {
+        return score(b) > score(a) ? b : a;
+    }
+
+    private static double score(Document document) {
+        return document.getScore() != null ? document.getScore() : 0.0;
+    }
+}
@@ -0,0 +1,416 @@
+package com.ai.contractanalysis.rag;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+/**
+ * Binární index vektorů namapovaný do paměti mimo heap. Tvoří jej dva soubory:
+ * <ul>
+ *     <li>{@code .vectors} – hlavička ({@code magic, verze, počet, rozměr, kontrolní součet}) a matice float32
+ *     po řádcích; vektory jsou uložené normalizované, kosinová podobnost je tak skalární součin,</li>
+ *     <li>{@code .documents} – hlavička ({@code magic, verze, počet, kontrolní součet}), tabulka offsetů a záznamy
+ *     dokumentů (id, text, metadata) v JSON, které se dekódují jen pro nalezené řádky.</li>
+ * </ul>
+ * Soubory se po zápisu nemění; úprava indexu zapíše nové soubory a každý zvlášť atomicky přesune na místo
+ * starého. Obě hlavičky nesou stejný kontrolní součet celého indexu, takže dvojici smíchanou z různých zápisů
+ * (pád mezi oběma přesuny) {@link #open} odmítne.
+ * <p>
+ * Každý soubor se mapuje jedním {@link ByteBuffer}, smí tedy mít nejvýš {@link #MAX_FILE_BYTES} bajtů;
+ * větší index odmítne už zápis.
+ */
+final class MappedVectorIndex {
+    static final String VECTORS_SUFFIX = ".vectors";
+    static final String DOCUMENTS_SUFFIX = ".documents";
+
+    private static final int VECTORS_MAGIC = 0x43415643;   // "CAVC"
+    private static final int DOCUMENTS_MAGIC = 0x43414443; // "CADC"
+    private static final int VERSION = 2;
+    private static final int VECTORS_HEADER = 4 * Integer.BYTES + Long.BYTES;
+    private static final int DOCUMENTS_HEADER = 3 * Integer.BYTES + Long.BYTES;
+    static final long MAX_FILE_BYTES = Integer.MAX_VALUE;
+    private static final int TABLE_CHUNK = 1024;
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final int size;
+    private final int dimensions;
+    private final long checksum;
+    private final ByteBuffer vectorRows;
+    private final FloatBuffer vectors;
+    private final LongBuffer offsets;
+    private final ByteBuffer records;
+
+    private MappedVectorIndex(int size, int dimensions, long checksum, ByteBuffer vectorRows, LongBuffer offsets,
+                              ByteBuffer records) {
+        this.size = size;
+        this.dimensions = dimensions;
+        this.checksum = checksum;
+        this.vectorRows = vectorRows;
+        this.vectors = vectorRows.asFloatBuffer();
+        this.offsets = offsets;
+        this.records = records;
+    }
+
+    static boolean exists(Path basePath) {
+        return Files.isRegularFile(vectorsFile(basePath)) && Files.isRegularFile(documentsFile(basePath));
+    }
+
+    static MappedVectorIndex open(Path basePath) throws IOException {
+        ByteBuffer vectorBytes = map(vectorsFile(basePath));
+        ByteBuffer documentBytes = map(documentsFile(basePath));
+
+        checkHeader(vectorBytes, VECTORS_MAGIC, VECTORS_HEADER, vectorsFile(basePath));
+        int size = vectorBytes.getInt(8);
+        int dimensions = vectorBytes.getInt(12);
+        long checksum = vectorBytes.getLong(16);
+        checkHeader(documentBytes, DOCUMENTS_MAGIC, DOCUMENTS_HEADER, documentsFile(basePath));
+        if (documentBytes.getInt(8) != size) {
+            throw new IOException("Soubory indexu " + basePath + " nepatří k sobě: "
+                    + size + " vektorů, " + documentBytes.getInt(8) + " dokumentů");
+        }
+        if (documentBytes.getLong(12) != checksum) {
+            throw new IOException("Soubory indexu " + basePath + " nepatří k sobě: liší se kontrolní součet");
+        }
+        if (vectorBytes.capacity() != VECTORS_HEADER + (long) size * dimensions * Float.BYTES) {
+            throw new IOException("Neúplný soubor vektorů: " + vectorsFile(basePath));
+        }
+
+        ByteBuffer vectorRows = vectorBytes.slice(VECTORS_HEADER, vectorBytes.capacity() - VECTORS_HEADER)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        int offsetsBytes = (size + 1) * Long.BYTES;
+        LongBuffer offsets = documentBytes.slice(DOCUMENTS_HEADER, offsetsBytes)
+                .order(ByteOrder.LITTLE_ENDIAN)
+                .asLongBuffer();
+        int recordsStart = DOCUMENTS_HEADER + offsetsBytes;
+        ByteBuffer records = documentBytes.slice(recordsStart, documentBytes.capacity() - recordsStart);
+        return new MappedVectorIndex(size, dimensions, checksum, vectorRows, offsets, records);
+    }
+
+    /**
+     * Zapíše index do dočasných souborů a přesune je na místo; běžící čtení dál vidí původní mapování.
+     */
+    static void write(Path basePath, List<StoredDocument> documents, List<float[]> embeddings) throws IOException {
+        write(basePath, null, Set.of(), documents, embeddings);
+    }
+
+    /**
+     * Zapíše řádky indexu {@code previous} kromě dokumentů s id z {@code excluded} a za ně nové dokumenty;
+     * nový dokument se stejným id jako uložený jej nahradí na jeho místě. Řádky původního indexu se kopírují
+     * přímo z jeho mapování, vektory ani texty se do heapu nenačítají.
+     */
+    static void write(Path basePath, MappedVectorIndex previous, Set<String> excluded,
+                      List<StoredDocument> documents, List<float[]> embeddings) throws IOException {
+        if (documents.size() != embeddings.size()) {
+            throw new IllegalArgumentException("Počet dokumentů a vektorů se liší");
+        }
+        int[] rows = plan(previous, excluded, documents);
+        int dimensions = rows.length == 0 ? 0
+                : rows[0] >= 0 ? previous.dimensions : embeddings.get(-rows[0] - 1).length;
+        long vectorsBytes = VECTORS_HEADER + (long) rows.length * dimensions * Float.BYTES;
+        if (vectorsBytes > MAX_FILE_BYTES) {
+            throw new IOException("Soubor vektorů by měl " + vectorsBytes + " B, index vektorů může mít nejvýš "
+                    + MAX_FILE_BYTES + " B v jednom souboru");
+        }
+        Path directory = basePath.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+
+        Path documentsTemp = Files.createTempFile(directory, "documents-", ".tmp");
+        Path vectorsTemp = Files.createTempFile(directory, "vectors-", ".tmp");
+        try {
+            CRC32 crc = new CRC32();
+            writeDocuments(documentsTemp, previous, rows, documents, crc);
+            long checksum = writeVectors(vectorsTemp, previous, rows, embeddings, dimensions, crc);
+            writeDocumentsHeader(documentsTemp, rows.length, checksum);
+            Files.move(documentsTemp, documentsFile(basePath),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            Files.move(vectorsTemp, vectorsFile(basePath),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(documentsTemp);
+            Files.deleteIfExists(vectorsTemp);
+        }
+    }
+
+    /**
+     * Pořadí řádků nového indexu: nezáporná hodnota je řádek {@code previous}, záporná {@code -(i + 1)}
+     * nový dokument {@code i}. Duplicitní id mezi novými dokumenty vyhrává poslední.
+     */
+    private static int[] plan(MappedVectorIndex previous, Set<String> excluded, List<StoredDocument> documents)
+            throws IOException {
+        Map<String, Integer> pending = new LinkedHashMap<>();
+        for (int i = 0; i < documents.size(); i++) {
+            pending.put(documents.get(i).id(), i);
+        }
+        int previousSize = previous != null ? previous.size : 0;
+        int[] rows = new int[previousSize + pending.size()];
+        int count = 0;
+        for (int row = 0; row < previousSize; row++) {
+            String id = previous.id(row);
+            if (excluded.contains(id)) {
+                continue;
+            }
+            Integer replacement = pending.remove(id);
+            rows[count++] = replacement != null ? -replacement - 1 : row;
+        }
+        for (int i : pending.values()) {
+            rows[count++] = -i - 1;
+        }
+        return Arrays.copyOf(rows, count);
+    }
+
+    int size() {
+        return size;
+    }
+
+    int dimensions() {
+        return dimensions;
+    }
+
+    /**
+     * Kontrolní součet CRC32 záznamů dokumentů a vektorů spočtený při zápisu a uložený v hlavičkách;
+     * podle něj se pozná, ke kterému indexu patří uložený HNSW graf a kvantované vektory.
+     */
+    long checksum() {
+        return checksum;
+    }
+
+    /**
+     * Zkopíruje normalizovaný vektor řádku do {@code target}.
+     */
+    void vector(int row, float[] target) {
+        vectors.get(row * dimensions, target, 0, dimensions);
+    }
+
+    /**
+     * Zkopíruje {@code rows} řádků od {@code fromRow} za sebou do {@code target}.
+     */
+    void vectors(int fromRow, int rows, float[] target) {
+        vectors.get(fromRow * dimensions, target, 0, rows * dimensions);
+    }
+
+    StoredDocument document(int row) {
+        try (InputStream record = new ByteBufferBackedInputStream(record(row))) {
+            return OBJECT_MAPPER.readValue(record, StoredDocument.class);
+        } catch (IOException e) {
+            throw new IllegalStateException("Poškozený záznam dokumentu v indexu vektorů (řádek " + row + ")", e);
+        }
+    }
+
+    /**
+     * Id dokumentu bez dekódování textu a metadat.
+     */
+    String id(int row) throws IOException {
+        try (JsonParser parser = OBJECT_MAPPER.createParser(new ByteBufferBackedInputStream(record(row)))) {
+            if (parser.nextToken() == JsonToken.START_OBJECT) {
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String field = parser.currentName();
+                    parser.nextToken();
+                    if ("id".equals(field)) {
+                        return parser.getValueAsString();
+                    }
+                    parser.skipChildren();
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Obsahuje index některý z dokumentů {@code ids}?
+     */
+    boolean containsAny(Set<String> ids) throws IOException {
+        for (int row = 0; row < size; row++) {
+            if (ids.contains(id(row))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private ByteBuffer record(int row) {
+        int start = Math.toIntExact(offsets.get(row));
+        return records.slice(start, Math.toIntExact(offsets.get(row + 1)) - start);
+    }
+
+    List<StoredDocument> documents() {
+        List<StoredDocument> documents = new ArrayList<>(size);
+        for (int row = 0; row < size; row++) {
+            documents.add(document(row));
+        }
+        return documents;
+    }
+
+    static Path vectorsFile(Path basePath) {
+        return basePath.resolveSibling(basePath.getFileName() + VECTORS_SUFFIX);
+    }
+
+    static Path documentsFile(Path basePath) {
+        return basePath.resolveSibling(basePath.getFileName() + DOCUMENTS_SUFFIX);
+    }
+
+    /**
+     * Zapíše tabulku offsetů a záznamy dokumentů a dopočítá jimi {@code crc}; hlavičku zapíše
+     * {@link #writeDocumentsHeader}, až bude kontrolní součet celého indexu známý.
+     */
+    private static void writeDocuments(Path file, MappedVectorIndex previous, int[] rows,
+                                       List<StoredDocument> documents, CRC32 crc) throws IOException {
+        long recordsStart = DOCUMENTS_HEADER + (long) (rows.length + 1) * Long.BYTES;
+        ByteBuffer table = ByteBuffer.allocate(TABLE_CHUNK * Long.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        long tablePosition = DOCUMENTS_HEADER;
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            long offset = 0;
+            for (int row : rows) {
+                ByteBuffer record = row >= 0
+                        ? previous.record(row)
+                        : ByteBuffer.wrap(OBJECT_MAPPER.writeValueAsBytes(documents.get(-row - 1)));
+                if (recordsStart + offset + record.remaining() > MAX_FILE_BYTES) {
+                    throw new IOException("Soubor dokumentů by měl přes " + MAX_FILE_BYTES
+                            + " B, index vektorů může mít nejvýš " + MAX_FILE_BYTES + " B v jednom souboru");
+                }
+                if (!table.hasRemaining()) {
+                    tablePosition += writeFully(channel, table.flip(), tablePosition);
+                    table.clear();
+                }
+                table.putLong(offset);
+                crc.update(record.duplicate());
+                offset += writeFully(channel, record, recordsStart + offset);
+            }
+            if (!table.hasRemaining()) {
+                tablePosition += writeFully(channel, table.flip(), tablePosition);
+                table.clear();
+            }
+            table.putLong(offset);
+            writeFully(channel, table.flip(), tablePosition);
+        }
+    }
+
+    private static void writeDocumentsHeader(Path file, int size, long checksum) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(DOCUMENTS_HEADER)
+                .order(ByteOrder.LITTLE_ENDIAN)
+                .putInt(DOCUMENTS_MAGIC)
+                .putInt(VERSION)
+                .putInt(size)
+                .putLong(checksum)
+                .flip();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            writeFully(channel, header, 0);
+            channel.force(true);
+        }
+    }
+
+    /**
+     * Zapíše matici vektorů, dopočítá jimi {@code crc} a výsledný kontrolní součet indexu vrátí.
+     * Řádky původního indexu jsou už normalizované a kopírují se beze změny.
+     */
+    private static long writeVectors(Path file, MappedVectorIndex previous, int[] rows, List<float[]> embeddings,
+                                     int dimensions, CRC32 crc) throws IOException {
+        ByteBuffer normalized = ByteBuffer.allocate(dimensions * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            // Hlavička s kontrolním součtem se zapíše až po průchodu všemi řádky.
+            channel.position(VECTORS_HEADER);
+            for (int source : rows) {
+                ByteBuffer row;
+                if (source >= 0) {
+                    if (previous.dimensions != dimensions) {
+                        throw new IllegalArgumentException("Vektory mají různý rozměr: " + previous.dimensions + " a " + dimensions);
+                    }
+                    row = previous.vectorRows.slice(source * dimensions * Float.BYTES, dimensions * Float.BYTES);
+                } else {
+                    row = normalize(embeddings.get(-source - 1), dimensions, normalized);
+                }
+                crc.update(row.duplicate());
+                writeFully(channel, row);
+            }
+            long checksum = crc.getValue();
+            ByteBuffer header = ByteBuffer.allocate(VECTORS_HEADER)
+                    .order(ByteOrder.LITTLE_ENDIAN)
+                    .putInt(VECTORS_MAGIC)
+                    .putInt(VERSION)
+                    .putInt(rows.length)
+                    .putInt(dimensions)
+                    .putLong(checksum)
+                    .flip();
+            writeFully(channel, header, 0);
+            channel.force(true);
+            return checksum;
+        }
+    }
+
+    private static ByteBuffer normalize(float[] embedding, int dimensions, ByteBuffer target) {
+        if (embedding.length != dimensions) {
+            throw new IllegalArgumentException("Vektory mají různý rozměr: " + embedding.length + " a " + dimensions);
+        }
+        double norm = 0;
+        for (float value : embedding) {
+            norm += value * value;
+        }
+        float scale = norm > 0 ? (float) (1 / Math.sqrt(norm)) : 0;
+        target.clear();
+        for (float value : embedding) {
+            target.putFloat(value * scale);
+        }
+        return target.flip();
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * Zapíše {@code buffer} od pozice {@code position} bez změny pozice kanálu a vrátí počet zapsaných bajtů.
+     */
+    private static int writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        int written = 0;
+        while (buffer.hasRemaining()) {
+            written += channel.write(buffer, position + written);
+        }
+        return written;
+    }
+
+    private static ByteBuffer map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > MAX_FILE_BYTES) {
+                throw new IOException("Soubor indexu " + file + " má " + channel.size()
+                        + " B, index vektorů může mít nejvýš " + MAX_FILE_BYTES + " B v jednom souboru");
+            }
+            // Mapování zůstává platné i po zavření kanálu.
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()).order(ByteOrder.LITTLE_ENDIAN);
+        }
+    }
+
+    private static void checkHeader(ByteBuffer buffer, int magic, int headerBytes, Path file) throws IOException {
+        if (buffer.capacity() < 2 * Integer.BYTES || buffer.getInt(0) != magic) {
+            throw new IOException("Soubor není index vektorů: " + file);
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IOException("Nepodporovaná verze indexu vektorů " + buffer.getInt(4) + ": " + file);
+        }
+        if (buffer.capacity() < headerBytes) {
+            throw new IOException("Neúplný soubor indexu vektorů: " + file);
+        }
+    }
+}
@@ -0,0 +1,542 @@
+package com.ai.contractanalysis.rag;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingOptionsBuilder;
+import org.springframework.ai.observation.conventions.VectorStoreSimilarityMetric;
+import org.springframework.ai.vectorstore.AbstractVectorStoreBuilder;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.filter.converter.SimpleVectorStoreFilterExpressionConverter;
+import org.springframework.ai.vectorstore.observation.AbstractObservationVectorStore;
+import org.springframework.ai.vectorstore.observation.DefaultVectorStoreObservationConvention;
+import org.springframework.ai.vectorstore.observation.VectorStoreObservationContext;
+import org.springframework.ai.vectorstore.observation.VectorStoreObservationConvention;
+import org.springframework.ai.vectorstore.observation.VectorStoreObservationDocumentation;
+import org.springframework.expression.Expression;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.expression.spel.support.StandardEvaluationContext;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Vector store nad binárním indexem namapovaným do paměti ({@link MappedVectorIndex}).
+ * Otevření indexu jen namapuje soubory, vektory ani texty se nenačítají do heapu; vyhledávání
+ * prochází matici přímo a dekóduje jen dokumenty, které vrací. Výsledky odpovídají {@code SimpleVectorStore}
+ * (kosinová podobnost, {@code similarityThreshold}, filtry metadat). Skalární součiny počítá {@link VectorMath}
+ * přes Vector API, pokud je k dispozici, a z každého dotazu se drží jen {@code topK} nejlepších řádků.
+ * <p>
+ * Přidání nebo smazání dokumentů zapíše nový index: ponechané řádky se kopírují přímo z mapování původního
+ * indexu a do heapu se nenačítají, zápis ale i tak projde celý korpus. Změny je proto lepší seskupit do jednoho
+ * volání {@link #replace}.
+ * <p>
+ * S nastaveným {@link HnswSettings} se místo procházení všech vektorů hledá přibližně v grafu {@link HnswGraph},
+ * který se ukládá vedle indexu. Dotazy s filtrem metadat se i tehdy vyhodnocují přesně.
+ * S {@link VectorQuantization#INT8} se při procházení čte kvantovaná kopie vektorů ({@link QuantizedVectorIndex})
+ * a vektory float32 se čtou jen pro přepočet nejlepších kandidátů.
+ */
+public class MappedVectorStore extends AbstractObservationVectorStore {
+    private static final Logger log = LoggerFactory.getLogger(MappedVectorStore.class);
+    private static final String DB_SYSTEM = "mapped";
+    private static final int BLOCK_ROWS = 16;
+    private static final VectorStoreObservationConvention DEFAULT_OBSERVATION_CONVENTION =
+            new DefaultVectorStoreObservationConvention();
+    private static final SpelExpressionParser EXPRESSION_PARSER = new SpelExpressionParser();
+    private static final SimpleVectorStoreFilterExpressionConverter FILTER_CONVERTER =
+            new SimpleVectorStoreFilterExpressionConverter();
+
+    private final Path basePath;
+    private final HnswSettings hnsw;
+    private final ObservationRegistry observationRegistry;
+    private final VectorStoreObservationConvention customObservationConvention;
+    private final VectorQuantization quantization;
+    private final int rescoreFactor;
+    private volatile State state = new State(null, null, null);
+
+    protected MappedVectorStore(Builder builder) {
+        super(builder);
+        this.basePath = builder.basePath;
+        this.hnsw = builder.hnsw;
+        this.quantization = builder.quantization;
+        this.rescoreFactor = builder.rescoreFactor;
+        this.observationRegistry = builder.getObservationRegistry();
+        this.customObservationConvention = builder.getCustomObservationConvention();
+        if (MappedVectorIndex.exists(basePath)) {
+            MappedVectorIndex index = openOrDiscard();
+            if (index != null) {
+                try {
+                    this.state = new State(index, loadOrBuildGraph(index), loadOrBuildQuantized(index));
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Nelze otevřít index vektorů " + basePath, e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Index z nekompatibilní verze nebo se soubory z různých zápisů se smaže; {@link #exists} pak vrací
+     * {@code false} a korpus se načte znovu.
+     */
+    private MappedVectorIndex openOrDiscard() {
+        try {
+            return MappedVectorIndex.open(basePath);
+        } catch (IOException e) {
+            log.warn("Index vektorů {} nelze použít, sestaví se znovu: {}", basePath, e.getMessage());
+        }
+        try {
+            Files.deleteIfExists(MappedVectorIndex.vectorsFile(basePath));
+            Files.deleteIfExists(MappedVectorIndex.documentsFile(basePath));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Nelze smazat neplatný index vektorů " + basePath, e);
+        }
+        return null;
+    }
+
+    /**
+     * Index a z něj odvozené struktury se vyměňují najednou, aby dotaz nikdy nedostal graf
+     * nebo kvantované vektory jiného indexu.
+     */
+    private record State(MappedVectorIndex index, HnswGraph graph, QuantizedVectorIndex quantized) {
+    }
+
+    /**
+     * @param basePath cesta k indexu bez přípony; vedle ní vzniknou soubory {@code .vectors} a {@code .documents}
+     */
+    public static Builder builder(EmbeddingModel embeddingModel, Path basePath) {
+        return new Builder(embeddingModel, basePath);
+    }
+
+    public static boolean exists(Path basePath) {
+        return MappedVectorIndex.exists(basePath);
+    }
+
+    public int size() {
+        MappedVectorIndex current = state.index();
+        return current != null ? current.size() : 0;
+    }
+
+    @Override
+    public void doAdd(List<Document> documents) {
+        if (documents.isEmpty()) {
+            add(documents, List.of());
+            return;
+        }
+        List<float[]> embeddings = embeddingModel.embed(documents, EmbeddingOptionsBuilder.builder().build(),
+                batchingStrategy);
+        add(documents, embeddings);
+    }
+
+    /**
+     * Přidá dokumenty s již spočítanými vektory; dokument se stejným id nahradí původní.
+     */
+    synchronized void add(List<Document> documents, List<float[]> embeddings) {
+        merge(Set.of(), documents, embeddings);
+    }
+
+    /**
+     * Odebere dokumenty s danými id a přidá nové; index se přepíše jen jednou.
+     */
+    synchronized void replace(Collection<String> removedIds, List<Document> documents) {
+        if (removedIds.isEmpty() && documents.isEmpty()) {
+            return;
+        }
+        List<float[]> embeddings = documents.isEmpty()
+                ? List.of()
+                : embeddingModel.embed(documents, EmbeddingOptionsBuilder.builder().build(), batchingStrategy);
+        merge(new HashSet<>(removedIds), documents, embeddings);
+    }
+
+    /**
+     * Uložené dokumenty bez vektorů a skóre.
+     */
+    List<Document> documents() {
+        MappedVectorIndex current = state.index();
+        if (current == null) {
+            return List.of();
+        }
+        return current.documents().stream()
+                .map(document -> Document.builder()
+                        .id(document.id())
+                        .text(document.text())
+                        .metadata(document.metadata() != null ? document.metadata() : Map.of())
+                        .build())
+                .toList();
+    }
+
+    private void merge(Set<String> excluded, List<Document> documents, List<float[]> embeddings) {
+        rewrite(excluded, documents.stream().map(StoredDocument::of).toList(), embeddings);
+    }
+
+    @Override
+    public synchronized void doDelete(List<String> idList) {
+        MappedVectorIndex current = state.index();
+        if (current == null || idList.isEmpty()) {
+            return;
+        }
+        Set<String> excluded = new HashSet<>(idList);
+        try {
+            if (!current.containsAny(excluded)) {
+                return;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Nelze číst index vektorů " + basePath, e);
+        }
+        rewrite(excluded, List.of(), List.of());
+    }
+
+    @Override
+    public List<Document> doSimilaritySearch(SearchRequest request) {
+        State snapshot = state;
+        if (snapshot.index() == null || snapshot.index().size() == 0) {
+            return List.of();
+        }
+        return search(snapshot, List.of(request), List.of(embeddingModel.embed(request.getQuery()))).getFirst();
+    }
+
+    /**
+     * Vyhledá více dotazů najednou. Vektory dotazů vytvoří jedno volání embedding modelu a dotazy bez filtru
+     * se při přesném hledání vyhodnotí jedním průchodem indexem. Výsledky jsou ve stejném pořadí jako dotazy,
+     * každý dotaz se zaznamená jako samostatná observace.
+     */
+    public List<List<Document>> batchSimilaritySearch(List<SearchRequest> requests) {
+        if (requests.isEmpty()) {
+            return List.of();
+        }
+        List<VectorStoreObservationContext> contexts = new ArrayList<>(requests.size());
+        List<Observation> observations = new ArrayList<>(requests.size());
+        for (SearchRequest request : requests) {
+            VectorStoreObservationContext context = createObservationContextBuilder(
+                    VectorStoreObservationContext.Operation.QUERY.value())
+                    .queryRequest(request)
+                    .build();
+            contexts.add(context);
+            observations.add(VectorStoreObservationDocumentation.AI_VECTOR_STORE
+                    .observation(customObservationConvention, DEFAULT_OBSERVATION_CONVENTION, () -> context,
+                            observationRegistry)
+                    .start());
+        }
+        try {
+            State snapshot = state;
+            List<List<Document>> results = snapshot.index() == null || snapshot.index().size() == 0
+                    ? Collections.nCopies(requests.size(), List.of())
+                    : search(snapshot, requests, embeddingModel.embed(
+                    requests.stream().map(SearchRequest::getQuery).toList()));
+            for (int i = 0; i < results.size(); i++) {
+                contexts.get(i).setQueryResponse(results.get(i));
+            }
+            return results;
+        } catch (RuntimeException e) {
+            observations.forEach(observation -> observation.error(e));
+            throw e;
+        } finally {
+            observations.forEach(Observation::stop);
+        }
+    }
+
+    @Override
+    public VectorStoreObservationContext.Builder createObservationContextBuilder(String operationName) {
+        MappedVectorIndex current = state.index();
+        return VectorStoreObservationContext.builder(DB_SYSTEM, operationName)
+                .collectionName(basePath.getFileName().toString())
+                .dimensions(current != null ? current.dimensions() : null)
+                .similarityMetric(VectorStoreSimilarityMetric.COSINE.value());
+    }
+
+    private List<List<Document>> search(State snapshot, List<SearchRequest> requests, List<float[]> embeddings) {
+        MappedVectorIndex current = snapshot.index();
+        List<List<Document>> results = new ArrayList<>(Collections.nCopies(requests.size(), List.of()));
+        List<Integer> scanned = new ArrayList<>();
+        List<float[]> scannedQueries = new ArrayList<>();
+
+        for (int i = 0; i < requests.size(); i++) {
+            SearchRequest request = requests.get(i);
+            float[] query = embeddings.get(i);
+            if (query.length != current.dimensions()) {
+                throw new IllegalStateException(String.format(
+                        "Rozměr vektoru dotazu (%d) neodpovídá indexu vektorů (%d)", query.length, current.dimensions()));
+            }
+            // Vektory v indexu jsou normalizované, po normalizaci dotazu je kosinová podobnost skalární součin.
+            float[] normalized = VectorMath.normalize(query);
+            if (normalized == null) {
+                continue;
+            }
+            Predicate<StoredDocument> filter = filter(request);
+            if (filter != null) {
+                results.set(i, filteredTopK(current, normalized, request, filter));
+            } else if (snapshot.graph() != null) {
+                results.set(i, approximateTopK(current, snapshot.graph(), normalized, request));
+            } else {
+                scanned.add(i);
+                scannedQueries.add(normalized);
+            }
+        }
+
+        if (!scanned.isEmpty()) {
+            float[][] queries = scannedQueries.toArray(float[][]::new);
+            List<SearchRequest> scannedRequests = scanned.stream().map(requests::get).toList();
+            List<List<ScoredRow>> found = snapshot.quantized() != null
+                    ? quantizedTopK(current, snapshot.quantized(), queries, scannedRequests)
+                    : exactTopK(current, queries, scannedRequests);
+            for (int q = 0; q < found.size(); q++) {
+                results.set(scanned.get(q), documents(current, found.get(q)));
+            }
+        }
+        return results;
+    }
+
+    private static List<List<ScoredRow>> exactTopK(MappedVectorIndex current, float[][] queries,
+                                                   List<SearchRequest> requests) {
+        TopK[] best = new TopK[queries.length];
+        double[] thresholds = new double[queries.length];
+        for (int q = 0; q < queries.length; q++) {
+            best[q] = new TopK(Math.min(current.size(), requests.get(q).getTopK()));
+            thresholds[q] = requests.get(q).getSimilarityThreshold();
+        }
+        scan(current, queries, (q, row, score) -> {
+            if (score >= thresholds[q]) {
+                best[q].offer(row, score);
+            }
+        });
+        return Arrays.stream(best).map(TopK::drain).toList();
+    }
+
+    /**
+     * Projde kvantované vektory a pro každý dotaz vybere {@code topK × rescoreFactor} kandidátů, které
+     * přepočítá nad vektory float32. Práh podobnosti se uplatní až na přepočítané skóre.
+     */
+    private List<List<ScoredRow>> quantizedTopK(MappedVectorIndex current, QuantizedVectorIndex quantized,
+                                                float[][] queries, List<SearchRequest> requests) {
+        TopK[] candidates = new TopK[queries.length];
+        for (int q = 0; q < queries.length; q++) {
+            candidates[q] = new TopK((int) Math.min(current.size(), (long) requests.get(q).getTopK() * rescoreFactor));
+        }
+        int dimensions = current.dimensions();
+        byte[] block = new byte[BLOCK_ROWS * dimensions];
+        for (int from = 0; from < quantized.size(); from += BLOCK_ROWS) {
+            int rows = Math.min(BLOCK_ROWS, quantized.size() - from);
+            quantized.rows(from, rows, block);
+            for (int q = 0; q < queries.length; q++) {
+                float[] query = queries[q];
+                for (int r = 0; r < rows; r++) {
+                    float score = quantized.scale(from + r) * VectorMath.dot(query, 0, block, r * dimensions, dimensions);
+                    candidates[q].offer(from + r, score);
+                }
+            }
+        }
+
+        float[] row = new float[dimensions];
+        List<List<ScoredRow>> results = new ArrayList<>(queries.length);
+        for (int q = 0; q < queries.length; q++) {
+            SearchRequest request = requests.get(q);
+            TopK best = new TopK(Math.min(current.size(), request.getTopK()));
+            for (ScoredRow candidate : candidates[q].drain()) {
+                current.vector(candidate.row(), row);
+                float score = VectorMath.dot(queries[q], row);
+                if (score >= request.getSimilarityThreshold()) {
+                    best.offer(candidate.row(), score);
+                }
+            }
+            results.add(best.drain());
+        }
+        return results;
+    }
+
+    /**
+     * Prochází matici po blocích řádků a každý blok porovná se všemi dotazy, dokud je v cache procesoru.
+     * Řádky se kopírují do pole, protože Vector API v Javě 21 neumí číst přímo z {@code FloatBuffer}.
+     */
+    private static void scan(MappedVectorIndex current, float[][] queries, ScoreConsumer consumer) {
+        int dimensions = current.dimensions();
+        float[] block = new float[BLOCK_ROWS * dimensions];
+        for (int from = 0; from < current.size(); from += BLOCK_ROWS) {
+            int rows = Math.min(BLOCK_ROWS, current.size() - from);
+            current.vectors(from, rows, block);
+            for (int q = 0; q < queries.length; q++) {
+                float[] query = queries[q];
+                for (int r = 0; r < rows; r++) {
+                    consumer.accept(q, from + r, VectorMath.dot(query, 0, block, r * dimensions, dimensions));
+                }
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface ScoreConsumer {
+        void accept(int query, int row, float score);
+    }
+
+    /**
+     * Prohledá graf se šířkou {@code efSearch} (nejméně {@code topK}) a vrátí nejlepší kandidáty nad prahem.
+     */
+    private List<Document> approximateTopK(MappedVectorIndex current, HnswGraph graph, float[] query,
+                                           SearchRequest request) {
+        float[] row = new float[current.dimensions()];
+        List<ScoredRow> candidates = graph.search(r -> {
+            current.vector(r, row);
+            return VectorMath.dot(query, row);
+        }, Math.max(hnsw.efSearch(), request.getTopK()));
+
+        List<Document> results = new ArrayList<>(request.getTopK());
+        for (ScoredRow candidate : candidates) {
+            if (results.size() >= request.getTopK() || candidate.score() < request.getSimilarityThreshold()) {
+                break;
+            }
+            results.add(current.document(candidate.row()).toDocument(candidate.score()));
+        }
+        return results;
+    }
+
+    private static List<Document> documents(MappedVectorIndex current, List<ScoredRow> rows) {
+        List<Document> documents = new ArrayList<>(rows.size());
+        for (ScoredRow row : rows) {
+            documents.add(current.document(row.row()).toDocument(row.score()));
+        }
+        return documents;
+    }
+
+    /**
+     * S filtrem se dokumenty dekódují v pořadí podle podobnosti, dokud jich filtr nepropustí {@code topK}.
+     */
+    private List<Document> filteredTopK(MappedVectorIndex current, float[] query, SearchRequest request,
+                                        Predicate<StoredDocument> filter) {
+        float[] scores = new float[current.size()];
+        scan(current, new float[][]{query}, (q, row, score) -> scores[row] = score);
+
+        Integer[] candidates = new Integer[scores.length];
+        int count = 0;
+        for (int r = 0; r < scores.length; r++) {
+            if (scores[r] >= request.getSimilarityThreshold()) {
+                candidates[count++] = r;
+            }
+        }
+        Integer[] sorted = Arrays.copyOf(candidates, count);
+        Arrays.sort(sorted, Comparator.comparingDouble((Integer r) -> scores[r]).reversed());
+
+        List<Document> results = new ArrayList<>(request.getTopK());
+        for (int r : sorted) {
+            if (results.size() >= request.getTopK()) {
+                break;
+            }
+            StoredDocument document = current.document(r);
+            if (filter.test(document)) {
+                results.add(document.toDocument(scores[r]));
+            }
+        }
+        return results;
+    }
+
+    private static Predicate<StoredDocument> filter(SearchRequest request) {
+        if (!request.hasFilterExpression()) {
+            return null;
+        }
+        Expression expression = EXPRESSION_PARSER.parseExpression(
+                FILTER_CONVERTER.convertExpression(request.getFilterExpression()));
+        return document -> {
+            StandardEvaluationContext context = new StandardEvaluationContext();
+            context.setVariable("metadata", document.metadata());
+            return Boolean.TRUE.equals(expression.getValue(context, Boolean.class));
+        };
+    }
+
+    private void rewrite(Set<String> excluded, List<StoredDocument> documents, List<float[]> embeddings) {
+        try {
+            MappedVectorIndex.write(basePath, state.index(), excluded, documents, embeddings);
+            MappedVectorIndex index = MappedVectorIndex.open(basePath);
+            state = new State(index,
+                    hnsw != null ? buildGraph(index) : null,
+                    quantization == VectorQuantization.INT8 ? buildQuantized(index) : null);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Nelze zapsat index vektorů " + basePath, e);
+        }
+    }
+
+    private HnswGraph loadOrBuildGraph(MappedVectorIndex index) throws IOException {
+        if (hnsw == null) {
+            return null;
+        }
+        try {
+            HnswGraph graph = HnswGraph.load(basePath, index, hnsw.m(), hnsw.efConstruction());
+            if (graph != null) {
+                return graph;
+            }
+        } catch (IOException e) {
+            log.warn("Nelze načíst HNSW index {}, sestaví se znovu", HnswGraph.file(basePath), e);
+        }
+        return buildGraph(index);
+    }
+
+    private HnswGraph buildGraph(MappedVectorIndex index) throws IOException {
+        long start = System.nanoTime();
+        HnswGraph graph = HnswGraph.build(index, hnsw.m(), hnsw.efConstruction());
+        graph.save(basePath);
+        log.info("HNSW index pro {} vektorů sestaven za {} ms", index.size(), (System.nanoTime() - start) / 1_000_000);
+        return graph;
+    }
+
+    private QuantizedVectorIndex loadOrBuildQuantized(MappedVectorIndex index) throws IOException {
+        if (quantization != VectorQuantization.INT8) {
+            return null;
+        }
+        QuantizedVectorIndex quantized = QuantizedVectorIndex.open(basePath, index);
+        return quantized != null ? quantized : buildQuantized(index);
+    }
+
+    private QuantizedVectorIndex buildQuantized(MappedVectorIndex index) throws IOException {
+        QuantizedVectorIndex.write(basePath, index);
+        return QuantizedVectorIndex.open(basePath, index);
+    }
+
+    public static final class Builder extends AbstractVectorStoreBuilder<Builder> {
+        private final Path basePath;
+        private HnswSettings hnsw;
+        private VectorQuantization quantization = VectorQuantization.NONE;
+        private int rescoreFactor = 4;
+
+        private Builder(EmbeddingModel embeddingModel, Path basePath) {
+            super(embeddingModel);
+            this.basePath = basePath;
+        }
+
+        /**
+         * Zapne přibližné hledání v HNSW grafu; bez nastavení se prochází všechny vektory.
+         */
+        public Builder hnsw(HnswSettings hnsw) {
+            this.hnsw = hnsw;
+            return this;
+        }
+
+        /**
+         * Prochází se kvantovaná kopie vektorů; {@code rescoreFactor}násobek {@code topK} nejlepších kandidátů
+         * se přepočítá nad vektory float32.
+         */
+        public Builder quantization(VectorQuantization quantization, int rescoreFactor) {
+            if (rescoreFactor < 1) {
+                throw new IllegalArgumentException("rescoreFactor musí být alespoň 1");
+            }
+            this.quantization = quantization;
+            this.rescoreFactor = rescoreFactor;
+            return this;
+        }
+
+        @Override
+        public MappedVectorStore build() {
+            return new MappedVectorStore(this);
+        }
+    }
+}
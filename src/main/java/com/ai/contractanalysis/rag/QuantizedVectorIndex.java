@@ -0,0 +1,143 @@
+package com.ai.contractanalysis.rag;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Vektory {@link MappedVectorIndex} kvantované do int8, namapované do paměti ze souboru {@code .int8}:
+ * hlavička ({@code magic, verze, počet, rozměr, kontrolní součet indexu}), měřítka řádků (float32)
+ * a matice int8 po řádcích. Každý řádek má vlastní symetrické měřítko {@code max|v| / 127}, hodnota
+ * {@code v[i]} se uloží jako {@code round(v[i] / měřítko)}.
+ * <p>
+ * Soubor se odvozuje z indexu vektorů a podle kontrolního součtu uloženého v hlavičce indexu se pozná,
+ * že k němu už nepatří; při otevření se tak neprochází celá matice float32.
+ */
+final class QuantizedVectorIndex {
+    static final String SUFFIX = ".int8";
+
+    private static final int MAGIC = 0x43414938; // "CAI8"
+    private static final int VERSION = 1;
+    private static final int HEADER = 4 * Integer.BYTES + Long.BYTES;
+
+    private final int size;
+    private final int dimensions;
+    private final FloatBuffer scales;
+    private final ByteBuffer values;
+
+    private QuantizedVectorIndex(int size, int dimensions, FloatBuffer scales, ByteBuffer values) {
+        this.size = size;
+        this.dimensions = dimensions;
+        this.scales = scales;
+        this.values = values;
+    }
+
+    /**
+     * Otevře kvantované vektory, pokud patří k {@code index}; jinak vrací {@code null}.
+     */
+    static QuantizedVectorIndex open(Path basePath, MappedVectorIndex index) throws IOException {
+        Path file = file(basePath);
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        ByteBuffer bytes;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER || channel.size() > Integer.MAX_VALUE) {
+                return null;
+            }
+            bytes = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()).order(ByteOrder.LITTLE_ENDIAN);
+        }
+        int size = bytes.getInt(8);
+        int dimensions = bytes.getInt(12);
+        if (bytes.getInt(0) != MAGIC || bytes.getInt(4) != VERSION
+                || size != index.size() || dimensions != index.dimensions()
+                || bytes.getLong(16) != index.checksum()
+                || bytes.capacity() != HEADER + (long) size * (Float.BYTES + dimensions)) {
+            return null;
+        }
+        FloatBuffer scales = bytes.slice(HEADER, size * Float.BYTES)
+                .order(ByteOrder.LITTLE_ENDIAN)
+                .asFloatBuffer();
+        int valuesStart = HEADER + size * Float.BYTES;
+        ByteBuffer values = bytes.slice(valuesStart, bytes.capacity() - valuesStart);
+        return new QuantizedVectorIndex(size, dimensions, scales, values);
+    }
+
+    /**
+     * Kvantuje všechny řádky {@code index} a zapíše je vedle něj.
+     */
+    static void write(Path basePath, MappedVectorIndex index) throws IOException {
+        int size = index.size();
+        int dimensions = index.dimensions();
+        ByteBuffer header = ByteBuffer.allocate(HEADER)
+                .order(ByteOrder.LITTLE_ENDIAN)
+                .putInt(MAGIC)
+                .putInt(VERSION)
+                .putInt(size)
+                .putInt(dimensions)
+                .putLong(index.checksum());
+        ByteBuffer scales = ByteBuffer.allocate(size * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        ByteBuffer row = ByteBuffer.allocate(dimensions);
+        float[] vector = new float[dimensions];
+
+        Path temp = Files.createTempFile(basePath.toAbsolutePath().getParent(), "int8-", ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                // Měřítka předcházejí matici, zapíší se až po průchodu všemi řádky.
+                channel.position(HEADER + (long) size * Float.BYTES);
+                for (int r = 0; r < size; r++) {
+                    index.vector(r, vector);
+                    float max = 0;
+                    for (float value : vector) {
+                        max = Math.max(max, Math.abs(value));
+                    }
+                    float scale = max > 0 ? max / 127 : 1;
+                    row.clear();
+                    for (float value : vector) {
+                        row.put((byte) Math.round(value / scale));
+                    }
+                    scales.putFloat(scale);
+                    writeFully(channel, row.flip());
+                }
+                channel.position(0);
+                writeFully(channel, header.flip());
+                writeFully(channel, scales.flip());
+                channel.force(true);
+            }
+            Files.move(temp, file(basePath), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    float scale(int row) {
+        return scales.get(row);
+    }
+
+    /**
+     * Zkopíruje {@code rows} kvantovaných řádků od {@code fromRow} za sebou do {@code target}.
+     */
+    void rows(int fromRow, int rows, byte[] target) {
+        values.get(fromRow * dimensions, target, 0, rows * dimensions);
+    }
+
+    static Path file(Path basePath) {
+        return basePath.resolveSibling(basePath.getFileName() + SUFFIX);
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+}
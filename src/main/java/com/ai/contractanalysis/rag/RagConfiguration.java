@@ -1,23 +1,34 @@
 package com.ai.contractanalysis.rag;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.ai.document.Document;
 import org.springframework.ai.embedding.EmbeddingModel;
-import org.springframework.ai.reader.TextReader;
-import org.springframework.ai.transformer.splitter.TextSplitter;
-import org.springframework.ai.transformer.splitter.TokenTextSplitter;
 import org.springframework.ai.vectorstore.SimpleVectorStore;
+import org.springframework.ai.vectorstore.VectorStore;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.io.Resource;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 
 @Configuration
 public class RagConfiguration {
+    private static final Logger log = LoggerFactory.getLogger(RagConfiguration.class);
 
     @Value("${vector.store.name:vectorstore.json}")
     private String vectorStoreName;
@@ -25,37 +36,148 @@ public class RagConfiguration {
     @Value("${vector.store.path:/app/data}")
     private String vectorStorePath;
 
+    @Value("${vector.store.format:binary}")
+    private String vectorStoreFormat;
+
+    @Value("${vector.store.hnsw.enabled:false}")
+    private boolean hnswEnabled;
+
+    @Value("${vector.store.hnsw.m:16}")
+    private int hnswM;
+
+    @Value("${vector.store.hnsw.ef-construction:200}")
+    private int hnswEfConstruction;
+
+    @Value("${vector.store.hnsw.ef-search:100}")
+    private int hnswEfSearch;
+
+    @Value("${vector.store.quantization.type:none}")
+    private String quantizationType;
+
+    @Value("${vector.store.quantization.rescore-factor:4}")
+    private int quantizationRescoreFactor;
+
     @Value("classpath:/data/laws/*.json")
     private Resource[] laws;
 
     @Bean
-    SimpleVectorStore simpleVectorStore(EmbeddingModel embeddingModel) {
-        SimpleVectorStore simpleVectorStore = SimpleVectorStore.builder(embeddingModel).build();
+    VectorStore vectorStore(EmbeddingModel embeddingModel, ObservationRegistry observationRegistry) {
+        return switch (vectorStoreFormat.strip().toLowerCase(Locale.ROOT)) {
+            case "binary" -> mappedVectorStore(embeddingModel, observationRegistry);
+            case "json" -> simpleVectorStore(embeddingModel, observationRegistry);
+            default -> throw new IllegalStateException("Neznámý formát vector store: " + vectorStoreFormat);
+        };
+    }
+
+    SimpleVectorStore simpleVectorStore(EmbeddingModel embeddingModel, ObservationRegistry observationRegistry) {
+        SimpleVectorStore simpleVectorStore = SimpleVectorStore.builder(embeddingModel)
+                .observationRegistry(observationRegistry)
+                .build();
         File vectorStoreFile = getVectorStoreFile();
+        boolean exists = vectorStoreFile.exists();
 
-        if (vectorStoreFile.exists()) {
+        if (exists) {
             simpleVectorStore.load(vectorStoreFile);
-        } else {
-            TextReader textReader;
-            List<Document> allDocuments = new java.util.ArrayList<>();
-
-            for (Resource law : laws) {
-                textReader = new TextReader(law);
-                textReader.getCustomMetadata().put("filename", law.getFilename());
-                List<Document> documents = textReader.get();
-                TextSplitter textSplitter = new TokenTextSplitter();
-                List<Document> splitDocuments = textSplitter.apply(documents);
-                allDocuments.addAll(splitDocuments);
-            }
-
-            simpleVectorStore.add(allDocuments);
+        }
+        boolean changed = new LawCorpusSync(laws).sync(LawCorpusManifest.file(vectorStoreFile.toPath()), exists,
+                () -> readJson(vectorStoreFile).documents(),
+                (removedIds, documents) -> {
+                    if (!removedIds.isEmpty()) {
+                        simpleVectorStore.delete(removedIds);
+                    }
+                    if (!documents.isEmpty()) {
+                        simpleVectorStore.add(documents);
+                    }
+                });
+        if (changed || !exists) {
             simpleVectorStore.save(vectorStoreFile);
         }
         return simpleVectorStore;
     }
 
+    MappedVectorStore mappedVectorStore(EmbeddingModel embeddingModel, ObservationRegistry observationRegistry) {
+        Path basePath = getMappedVectorStorePath();
+        MappedVectorStore mappedVectorStore = MappedVectorStore.builder(embeddingModel, basePath)
+                .observationRegistry(observationRegistry)
+                .hnsw(hnswEnabled ? new HnswSettings(hnswM, hnswEfConstruction, hnswEfSearch) : null)
+                .quantization(quantization(), quantizationRescoreFactor)
+                .build();
+        // Až po otevření: neplatný index store smaže a korpus se pak načte jako při prvním startu.
+        boolean exists = MappedVectorStore.exists(basePath);
+
+        if (!exists) {
+            File vectorStoreFile = getVectorStoreFile();
+            if (vectorStoreFile.exists()) {
+                // Vektory z původního JSON formátu se převezmou, zákony se znovu neembedují.
+                importJson(mappedVectorStore, vectorStoreFile);
+                log.info("Vector store {} převeden do binárního formátu {}", vectorStoreFile, basePath);
+            }
+        }
+        new LawCorpusSync(laws).sync(LawCorpusManifest.file(basePath), MappedVectorStore.exists(basePath),
+                mappedVectorStore::documents, mappedVectorStore::replace);
+        return mappedVectorStore;
+    }
+
+    @Bean
+    VectorSearchMetricsHandler vectorSearchMetricsHandler(MeterRegistry meterRegistry) {
+        return new VectorSearchMetricsHandler(meterRegistry);
+    }
+
+    @Bean
+    LawCorpusVersion lawCorpusVersion() {
+        return LawCorpusVersion.of(laws);
+    }
+
+    private VectorQuantization quantization() {
+        return switch (quantizationType.strip().toLowerCase(Locale.ROOT)) {
+            case "none" -> VectorQuantization.NONE;
+            case "int8" -> VectorQuantization.INT8;
+            default -> throw new IllegalStateException("Neznámý typ kvantizace vektorů: " + quantizationType);
+        };
+    }
+
     private File getVectorStoreFile() {
         Path path = Paths.get(vectorStorePath, vectorStoreName);
         return path.toFile();
     }
+
+    private Path getMappedVectorStorePath() {
+        String name = vectorStoreName.endsWith(".json")
+                ? vectorStoreName.substring(0, vectorStoreName.length() - ".json".length())
+                : vectorStoreName;
+        return Paths.get(vectorStorePath, name);
+    }
+
+    private static void importJson(MappedVectorStore vectorStore, File file) {
+        JsonVectorStore content = readJson(file);
+        vectorStore.add(content.documents(), content.embeddings());
+    }
+
+    private static JsonVectorStore readJson(File file) {
+        ObjectMapper objectMapper = new ObjectMapper();
+        List<Document> documents = new ArrayList<>();
+        List<float[]> embeddings = new ArrayList<>();
+        try {
+            for (JsonNode content : objectMapper.readTree(file)) {
+                JsonNode values = content.path("embedding");
+                float[] embedding = new float[values.size()];
+                for (int i = 0; i < embedding.length; i++) {
+                    embedding[i] = values.get(i).floatValue();
+                }
+                documents.add(Document.builder()
+                        .id(content.path("id").asText())
+                        .text(content.path("text").asText())
+                        .metadata(objectMapper.convertValue(content.path("metadata"), new TypeReference<Map<String, Object>>() {
+                        }))
+                        .build());
+                embeddings.add(embedding);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Nelze načíst vector store " + file, e);
+        }
+        return new JsonVectorStore(documents, embeddings);
+    }
+
+    private record JsonVectorStore(List<Document> documents, List<float[]> embeddings) {
+    }
 }
\ No newline at end of file
@@ -0,0 +1,7 @@
+package com.ai.contractanalysis.rag;
+
+/**
+ * Řádek {@link MappedVectorIndex} a jeho kosinová podobnost s dotazem.
+ */
+record ScoredRow(int row, double score) {
+}
@@ -0,0 +1,69 @@
+package com.ai.contractanalysis.rag;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Skalární součin přes Vector API s nejširšími registry, které procesor nabízí. Volá se jen přes
+ * {@link VectorMath}, který ověří, že je modul {@code jdk.incubator.vector} k dispozici.
+ */
+final class SimdVectorMath {
+    private static final VectorSpecies<Float> SPECIES = FloatVector.SPECIES_PREFERRED;
+    // Bajty se stejným počtem prvků jako SPECIES, aby převod B2F vyplnil celý registr float.
+    // Pro registry užší než 256 bitů takový tvar neexistuje, int8 se pak počítá skalárně.
+    private static final VectorSpecies<Byte> BYTE_SPECIES = SPECIES.length() >= 8
+            ? VectorSpecies.of(byte.class, VectorShape.forBitSize(SPECIES.length() * Byte.SIZE))
+            : null;
+
+    private SimdVectorMath() {
+    }
+
+    static float dot(float[] a, int aOffset, float[] b, int bOffset, int length) {
+        int step = SPECIES.length();
+        // Dva nezávislé součty, aby sčítání nečekalo na výsledek předchozího kroku.
+        FloatVector first = FloatVector.zero(SPECIES);
+        FloatVector second = FloatVector.zero(SPECIES);
+        int i = 0;
+        for (int bound = length - 2 * step; i <= bound; i += 2 * step) {
+            first = FloatVector.fromArray(SPECIES, a, aOffset + i)
+                    .mul(FloatVector.fromArray(SPECIES, b, bOffset + i))
+                    .add(first);
+            second = FloatVector.fromArray(SPECIES, a, aOffset + i + step)
+                    .mul(FloatVector.fromArray(SPECIES, b, bOffset + i + step))
+                    .add(second);
+        }
+        for (int bound = SPECIES.loopBound(length); i < bound; i += step) {
+            first = FloatVector.fromArray(SPECIES, a, aOffset + i)
+                    .mul(FloatVector.fromArray(SPECIES, b, bOffset + i))
+                    .add(first);
+        }
+        float sum = first.add(second).reduceLanes(VectorOperators.ADD);
+        for (; i < length; i++) {
+            sum += a[aOffset + i] * b[bOffset + i];
+        }
+        return sum;
+    }
+
+    static boolean supportsBytes() {
+        return BYTE_SPECIES != null;
+    }
+
+    static float dot(float[] a, int aOffset, byte[] b, int bOffset, int length) {
+        int step = SPECIES.length();
+        FloatVector sum = FloatVector.zero(SPECIES);
+        int i = 0;
+        for (int bound = SPECIES.loopBound(length); i < bound; i += step) {
+            FloatVector values = (FloatVector) ByteVector.fromArray(BYTE_SPECIES, b, bOffset + i)
+                    .convertShape(VectorOperators.B2F, SPECIES, 0);
+            sum = FloatVector.fromArray(SPECIES, a, aOffset + i).mul(values).add(sum);
+        }
+        float result = sum.reduceLanes(VectorOperators.ADD);
+        for (; i < length; i++) {
+            result += a[aOffset + i] * b[bOffset + i];
+        }
+        return result;
+    }
+}
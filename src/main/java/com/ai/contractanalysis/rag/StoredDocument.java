@@ -0,0 +1,31 @@
+package com.ai.contractanalysis.rag;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.document.DocumentMetadata;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Záznam dokumentu v {@link MappedVectorIndex}.
+ */
+record StoredDocument(String id, String text, Map<String, Object> metadata) {
+
+    static StoredDocument of(Document document) {
+        return new StoredDocument(document.getId(), document.getText(), document.getMetadata());
+    }
+
+    /**
+     * Stejný tvar výsledku jako u {@code SimpleVectorStore}, včetně vzdálenosti v metadatech.
+     */
+    Document toDocument(double score) {
+        Map<String, Object> values = new HashMap<>(metadata != null ? metadata : Map.of());
+        values.put(DocumentMetadata.DISTANCE.value(), 1.0 - score);
+        return Document.builder()
+                .id(id)
+                .text(text)
+                .metadata(values)
+                .score(score)
+                .build();
+    }
+}
@@ -0,0 +1,88 @@
+package com.ai.contractanalysis.rag;
+
+import java.util.List;
+
+/**
+ * Omezená min-halda nejpodobnějších řádků. Drží jen {@code k} nejlepších skóre, takže se při hledání
+ * neřadí skóre všech řádků indexu.
+ */
+final class TopK {
+    private final int[] rows;
+    private final float[] scores;
+    private int size;
+
+    TopK(int k) {
+        this.rows = new int[Math.max(0, k)];
+        this.scores = new float[rows.length];
+    }
+
+    void offer(int row, float score) {
+        if (size < rows.length) {
+            rows[size] = row;
+            scores[size] = score;
+            siftUp(size++);
+        } else if (size > 0 && score > scores[0]) {
+            rows[0] = row;
+            scores[0] = score;
+            siftDown(0);
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Vyprázdní haldu a vrátí řádky seřazené od nejpodobnějšího.
+     */
+    List<ScoredRow> drain() {
+        ScoredRow[] sorted = new ScoredRow[size];
+        while (size > 0) {
+            sorted[size - 1] = new ScoredRow(rows[0], scores[0]);
+            size--;
+            rows[0] = rows[size];
+            scores[0] = scores[size];
+            siftDown(0);
+        }
+        return List.of(sorted);
+    }
+
+    private void siftUp(int index) {
+        while (index > 0) {
+            int parent = (index - 1) / 2;
+            if (scores[parent] <= scores[index]) {
+                return;
+            }
+            swap(parent, index);
+            index = parent;
+        }
+    }
+
+    private void siftDown(int index) {
+        while (true) {
+            int smallest = index;
+            int left = 2 * index + 1;
+            int right = left + 1;
+            if (left < size && scores[left] < scores[smallest]) {
+                smallest = left;
+            }
+            if (right < size && scores[right] < scores[smallest]) {
+                smallest = right;
+            }
+            if (smallest == index) {
+                return;
+            }
+            swap(index, smallest);
+            index = smallest;
+        }
+    }
+
+    private void swap(int i, int j) {
+        int row = rows[i];
+        rows[i] = rows[j];
+        rows[j] = row;
+        float score = scores[i];
+        scores[i] = scores[j];
+        scores[j] = score;
+    }
+}
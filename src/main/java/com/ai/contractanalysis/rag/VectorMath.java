@@ -0,0 +1,73 @@
+package com.ai.contractanalysis.rag;
+
+/**
+ * Skalární součin vektorů pro vyhledávání v {@link MappedVectorStore}. Pokud JVM běží s modulem
+ * {@code jdk.incubator.vector} ({@code --add-modules jdk.incubator.vector}), počítá se přes Vector API
+ * ({@link SimdVectorMath}), jinak obyčejnou smyčkou. Vector API lze vypnout systémovou vlastností
+ * {@code -Danalysis.vector.simd=false}.
+ */
+final class VectorMath {
+    static final boolean SIMD = ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()
+            && !"false".equals(System.getProperty("analysis.vector.simd"));
+
+    private VectorMath() {
+    }
+
+    static float dot(float[] a, float[] b) {
+        return dot(a, 0, b, 0, a.length);
+    }
+
+    /**
+     * Skalární součin úseků délky {@code length} začínajících na daných pozicích.
+     */
+    static float dot(float[] a, int aOffset, float[] b, int bOffset, int length) {
+        // SimdVectorMath se načte jen při prvním volání, bez modulu se na něj nikdy nesáhne.
+        return SIMD
+                ? SimdVectorMath.dot(a, aOffset, b, bOffset, length)
+                : scalarDot(a, aOffset, b, bOffset, length);
+    }
+
+    /**
+     * Skalární součin vektoru float32 s kvantovaným vektorem int8 (bez měřítka řádku).
+     */
+    static float dot(float[] a, int aOffset, byte[] b, int bOffset, int length) {
+        return SIMD && SimdVectorMath.supportsBytes()
+                ? SimdVectorMath.dot(a, aOffset, b, bOffset, length)
+                : scalarDot(a, aOffset, b, bOffset, length);
+    }
+
+    static float scalarDot(float[] a, int aOffset, byte[] b, int bOffset, int length) {
+        float sum = 0;
+        for (int i = 0; i < length; i++) {
+            sum += a[aOffset + i] * b[bOffset + i];
+        }
+        return sum;
+    }
+
+    static float scalarDot(float[] a, int aOffset, float[] b, int bOffset, int length) {
+        float sum = 0;
+        for (int i = 0; i < length; i++) {
+            sum += a[aOffset + i] * b[bOffset + i];
+        }
+        return sum;
+    }
+
+    /**
+     * Normalizovaná kopie vektoru, nebo {@code null} pro nulový vektor.
+     */
+    static float[] normalize(float[] vector) {
+        double norm = 0;
+        for (float value : vector) {
+            norm += value * value;
+        }
+        if (norm == 0) {
+            return null;
+        }
+        float scale = (float) (1 / Math.sqrt(norm));
+        float[] normalized = new float[vector.length];
+        for (int i = 0; i < vector.length; i++) {
+            normalized[i] = vector[i] * scale;
+        }
+        return normalized;
+    }
+}
@@ -0,0 +1,16 @@
+package com.ai.contractanalysis.rag;
+
+/**
+ * Způsob uložení vektorů, nad kterým {@link MappedVectorStore} prochází korpus.
+ */
+public enum VectorQuantization {
+    /**
+     * Procházejí se přímo vektory float32.
+     */
+    NONE,
+    /**
+     * Prochází se kopie vektorů v int8 (čtvrtinová velikost) a nejlepší kandidáti se přepočítají
+     * nad vektory float32.
+     */
+    INT8
+}
@@ -0,0 +1,39 @@
+package com.ai.contractanalysis.rag;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationHandler;
+import org.springframework.ai.vectorstore.observation.VectorStoreObservationContext;
+
+/**
+ * Zaznamenává počet dokumentů vrácených vyhledáváním ve vector store.
+ * Dobu vyhledávání měří samotná observace {@code db.vector.client.operation}.
+ */
+public class VectorSearchMetricsHandler implements ObservationHandler<VectorStoreObservationContext> {
+    static final String HITS_SUMMARY = "contract.vector.search.hits";
+
+    private final MeterRegistry meterRegistry;
+
+    public VectorSearchMetricsHandler(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public void onStop(VectorStoreObservationContext context) {
+        if (!VectorStoreObservationContext.Operation.QUERY.value().equals(context.getOperationName())) {
+            return;
+        }
+        int hits = context.getQueryResponse() != null ? context.getQueryResponse().size() : 0;
+        DistributionSummary.builder(HITS_SUMMARY)
+                .description("Počet dokumentů vrácených jedním vyhledáváním")
+                .tag("db.system", context.getDatabaseSystem())
+                .register(meterRegistry)
+                .record(hits);
+    }
+
+    @Override
+    public boolean supportsContext(Observation.Context context) {
+        return context instanceof VectorStoreObservationContext;
+    }
+}
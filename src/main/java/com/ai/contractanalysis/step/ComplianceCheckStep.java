@@ -1,79 +1,167 @@
 package com.ai.contractanalysis.step;
 
+import com.ai.contractanalysis.issue.Issue;
+import com.ai.contractanalysis.issue.IssueStreamParser;
 import com.ai.contractanalysis.issue.Issues;
+import com.ai.contractanalysis.utils.Hashing;
+import com.ai.contractanalysis.utils.ParallelTasks;
 import com.ai.contractanalysis.utils.StepResult;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.converter.BeanOutputConverter;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
 
-import java.util.Map;
 
 public class ComplianceCheckStep extends ReasoningStep {
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private static final String SYSTEM_PROMPT = """
+            Jste profesionální právník specializovaný na kontrolu souladu smluv.
+            Máte k dispozici výhradně následující právní kontext, který pochází z databáze (JSON soubory).
+
+            Vaším úkolem je:
+            - Identifikovat problémy pouze na základě POSKYTNUTÉHO právního kontextu.
+            - Pokud problém není pokryt žádným ustanovením z tohoto kontextu, ignorujte jej.
+            - Nikdy nepřidávejte doporučení ani chyby, které vyplývají z jiných zákonů, judikatury
+            nebo obecných obchodních praktik, pokud nejsou výslovně uvedeny v právním kontextu.
+
+            Pro každý nalezený problém uveďte:
+            - Typ problému (např. "Chybějící doložka podle § 553")
+            - Úroveň závažnosti (Kritická, Vysoká, Střední, Nízká)
+            - Podrobný popis problému
+            - Konkrétní doložku nebo část, které se problém týká
+            - Doporučení k vyřešení
+            - Přibližné číslo řádku, pokud lze určit
+
+            Vraťte svá zjištění ve strukturovaném JSON formátu.
+            """;
+
+    private static final String USER_PROMPT = """
+            Na základě analýzy smlouvy a POSKYTNUTÉHO právního kontextu
+            identifikujte všechny problémy se souladem a právní nepřesnosti.
+
+            Původní smlouva:
+            %s
+
+            Analýza smlouvy:
+            %s
+
+            Právní kontext (výhradně z JSON):
+            %s
+
+            Pokud smlouva splňuje všechny uvedené požadavky, vraťte prázdný seznam issues.
+            """;
+
+    private static final String SEGMENT_PROMPT = """
+            Původní smlouva je dlouhá, níže je pouze její část %d z %d. Analýza smlouvy
+            pokrývá celou smlouvu, problémy však hlaste jen pro pasáže z této části.
+            
+            """;
+
+    private final ChatClient chatClient;
+    private final int maxConcurrency;
 
-    public ComplianceCheckStep() {
-        super("Compliance Check", "Check contract compliance and generate issues");
+    public ComplianceCheckStep(ChatClient.Builder chatClientBuilder) {
+        this(chatClientBuilder, 1);
+    }
+
+    /**
+     * @param maxConcurrency nejvyšší počet souběžně kontrolovaných úseků smlouvy
+     */
+    public ComplianceCheckStep(ChatClient.Builder chatClientBuilder, int maxConcurrency) {
+        super("Compliance Check", "Check contract compliance and generate issues",
+                Set.of(ContextKey.CONTRACT_ANALYSIS, ContextKey.LEGAL_CONTEXT, ContextKey.ORIGINAL_CONTRACT,
+                        ContextKey.CONTRACT_SEGMENTS),
+                Set.of(ContextKey.COMPLIANCE_ISSUES));
+        this.chatClient = chatClientBuilder.build();
+        this.maxConcurrency = maxConcurrency;
+    }
+
+    @Override
+    public String getPromptVersion() {
+        return Hashing.sha256(SYSTEM_PROMPT, USER_PROMPT, SEGMENT_PROMPT);
     }
 
     @Override
-    public StepResult execute(String input, Map<ContextKey, Object> context, ChatClient.Builder chatClient) {
+    public StepResult execute(PipelineContext context) {
+        String contractAnalysis = context.get(ContextKey.CONTRACT_ANALYSIS);
+        String legalContext = context.get(ContextKey.LEGAL_CONTEXT);
+        String originalContract = context.get(ContextKey.ORIGINAL_CONTRACT);
+        List<String> segments = context.get(ContextKey.CONTRACT_SEGMENTS);
         try {
-            String contractAnalysis = (String) context.get(ContextKey.CONTRACT_ANALYSIS);
-            String legalContext = (String) context.get(ContextKey.LEGAL_CONTEXT);
-            String originalContract = (String) context.get(ContextKey.ORIGINAL_CONTRACT);
-
-            String systemPrompt = """
-                Jste profesionální právník specializovaný na kontrolu souladu smluv.
-                Máte k dispozici výhradně následující právní kontext, který pochází z databáze (JSON soubory).
-    
-                Vaším úkolem je:
-                - Identifikovat problémy pouze na základě POSKYTNUTÉHO právního kontextu.
-                - Pokud problém není pokryt žádným ustanovením z tohoto kontextu, ignorujte jej.
-                - Nikdy nepřidávejte doporučení ani chyby, které vyplývají z jiných zákonů, judikatury
-                nebo obecných obchodních praktik, pokud nejsou výslovně uvedeny v právním kontextu.
-    
-                Pro každý nalezený problém uveďte:
-                - Typ problému (např. "Chybějící doložka podle § 553")
-                - Úroveň závažnosti (Kritická, Vysoká, Střední, Nízká)
-                - Podrobný popis problému
-                - Konkrétní doložku nebo část, které se problém týká
-                - Doporučení k vyřešení
-                - Přibližné číslo řádku, pokud lze určit
-    
-                Vraťte svá zjištění ve strukturovaném JSON formátu.
-                """;
-
-
-            String userPrompt = String.format("""
-                Na základě analýzy smlouvy a POSKYTNUTÉHO právního kontextu
-                identifikujte všechny problémy se souladem a právní nepřesnosti.
-
-                Původní smlouva:
-                %s
-
-                Analýza smlouvy:
-                %s
-
-                Právní kontext (výhradně z JSON):
-                %s
-
-                Pokud smlouva splňuje všechny uvedené požadavky, vraťte prázdný seznam issues.
-                """, originalContract, contractAnalysis, legalContext);
-
-
-            Issues issues = chatClient.build()
-                    .prompt()
-                    .system(systemPrompt)
-                    .user(userPrompt)
-                    .call()
-                    .entity(Issues.class);
+            Issues issues;
+
+            if (segments != null && segments.size() > 1) {
+                // Každý úsek se kontroluje zvlášť; stejný problém nalezený ve více úsecích se předá jen jednou.
+                Consumer<Issue> listener = context.getIssueListener();
+                Set<String> emitted = ConcurrentHashMap.newKeySet();
+                Consumer<Issue> deduplicated = listener == null ? null : issue -> {
+                    if (issue.passageKey() == null || emitted.add(issue.passageKey())) {
+                        listener.accept(issue);
+                    }
+                };
+
+                issues = Issues.merge(ParallelTasks.map(
+                        IntStream.range(0, segments.size()).boxed().toList(),
+                        maxConcurrency,
+                        i -> check(context, String.format(SEGMENT_PROMPT, i + 1, segments.size())
+                                + String.format(USER_PROMPT, segments.get(i), contractAnalysis, legalContext),
+                                deduplicated)));
+            } else {
+                issues = check(context, String.format(USER_PROMPT, originalContract, contractAnalysis, legalContext),
+                        context.getIssueListener());
+            }
 
             context.put(ContextKey.COMPLIANCE_ISSUES, issues);
 
             assert issues != null;
-            return new StepResult(name, input, issues.toString(),
+            return new StepResult(name, legalContext, issues.toString(),
                     "Kontrola shody dokončena úspěšně", true);
 
         } catch (Exception e) {
-            return new StepResult(name, input, "",
+            return new StepResult(name, legalContext, "",
                     "Chyba při kontrole shody: " + e.getMessage(), false);
         }
     }
+
+    private Issues check(PipelineContext context, String userPrompt, Consumer<Issue> listener) {
+        // S posluchačem se odpověď streamuje a každý problém se předá hned po dokončení jeho JSON objektu.
+        if (listener != null) {
+            return streamIssues(context, userPrompt, listener);
+        }
+        return chatClient
+                .prompt()
+                .advisors(advisorParams(context))
+                .system(SYSTEM_PROMPT)
+                .user(userPrompt)
+                .call()
+                .entity(Issues.class);
+    }
+
+    private Issues streamIssues(PipelineContext context, String userPrompt, Consumer<Issue> listener) {
+        BeanOutputConverter<Issues> converter = new BeanOutputConverter<>(Issues.class);
+        IssueStreamParser parser = new IssueStreamParser(OBJECT_MAPPER, listener);
+        StringBuilder response = new StringBuilder();
+
+        Iterable<String> chunks = chatClient
+                .prompt()
+                .advisors(advisorParams(context))
+                .system(SYSTEM_PROMPT)
+                .user(userPrompt + System.lineSeparator() + converter.getFormat())
+                .stream()
+                .content()
+                .toIterable();
+
+        for (String chunk : chunks) {
+            response.append(chunk);
+            parser.feed(chunk);
+        }
+
+        return converter.convert(response.toString());
+    }
 }
@@ -2,12 +2,16 @@ package com.ai.contractanalysis.step;
 
 import com.ai.contractanalysis.issue.Issues;
 
+import java.util.List;
+
 public enum ContextKey {
     ORIGINAL_INPUT(String.class),
     CONTRACT_ANALYSIS(String.class),
     LEGAL_CONTEXT(String.class),
     ORIGINAL_CONTRACT(String.class),
-    COMPLIANCE_ISSUES(Issues.class);
+    COMPLIANCE_ISSUES(Issues.class),
+    PREFETCHED_LAWS(List.class),
+    CONTRACT_SEGMENTS(List.class);
 
     private final Class<?> type;
 
@@ -1,43 +1,87 @@
 package com.ai.contractanalysis.step;
 
+import com.ai.contractanalysis.utils.ClauseSegmenter;
+import com.ai.contractanalysis.utils.Hashing;
+import com.ai.contractanalysis.utils.ParallelTasks;
 import com.ai.contractanalysis.utils.StepResult;
 import org.springframework.ai.chat.client.ChatClient;
 
-import java.util.Map;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 public class ContractAnalysisStep extends ReasoningStep {
+    private static final String SYSTEM_PROMPT = """
+            Jste profesionální analytik smluv. Vaším úkolem je analyzovat poskytnutý text smlouvy a vyextrahovat:
+            1. Typ smlouvy a zúčastněné strany
+            2. Klíčové doložky a podmínky
+            3. Důležité termíny a lhůty
+            4. Finanční závazky
+            5. Podmínky ukončení
+            6. Rizikové oblasti, které vyžadují právní přezkum
+            
+            Poskytněte strukturovanou analýzu, která bude použita pro kontrolu souladu.
+            """;
 
-    public ContractAnalysisStep() {
-        super("Contract Analysis", "Analyze contract structure and extract key clauses");
+    private static final String USER_PROMPT = """
+            Analyzujte tento text smlouvy a poskytněte strukturovaný rozbor:
+            
+            Text smlouvy:
+            """;
+
+    private static final String SEGMENT_PROMPT = """
+            Následuje část %d z %d dlouhé smlouvy. Analyzujte pouze tuto část.
+            
+            """;
+
+    private final ChatClient chatClient;
+    private final ClauseSegmenter segmenter;
+    private final int maxConcurrency;
+
+    public ContractAnalysisStep(ChatClient.Builder chatClientBuilder) {
+        this(chatClientBuilder, ClauseSegmenter.disabled(), 1);
+    }
+
+    /**
+     * @param segmenter      dlouhé smlouvy dělí na úseky, které se analyzují paralelně
+     * @param maxConcurrency nejvyšší počet souběžně analyzovaných úseků
+     */
+    public ContractAnalysisStep(ChatClient.Builder chatClientBuilder, ClauseSegmenter segmenter, int maxConcurrency) {
+        super("Contract Analysis", "Analyze contract structure and extract key clauses",
+                Set.of(ContextKey.ORIGINAL_INPUT),
+                Set.of(ContextKey.CONTRACT_ANALYSIS, ContextKey.ORIGINAL_CONTRACT, ContextKey.CONTRACT_SEGMENTS));
+        this.chatClient = chatClientBuilder.build();
+        this.segmenter = segmenter;
+        this.maxConcurrency = maxConcurrency;
     }
 
     @Override
-    public StepResult execute(String input, Map<ContextKey, Object> context, ChatClient.Builder chatClient) {
+    public String getPromptVersion() {
+        return Hashing.sha256(SYSTEM_PROMPT, USER_PROMPT, SEGMENT_PROMPT);
+    }
+
+    @Override
+    public StepResult execute(PipelineContext context) {
+        String input = context.get(ContextKey.ORIGINAL_INPUT);
         try {
-            String systemPrompt = """
-                Jste profesionální analytik smluv. Vaším úkolem je analyzovat poskytnutý text smlouvy a vyextrahovat:
-                1. Typ smlouvy a zúčastněné strany
-                2. Klíčové doložky a podmínky
-                3. Důležité termíny a lhůty
-                4. Finanční závazky
-                5. Podmínky ukončení
-                6. Rizikové oblasti, které vyžadují právní přezkum
-                
-                Poskytněte strukturovanou analýzu, která bude použita pro kontrolu souladu.
-                """;
-
-            String userPrompt = """
-                Analyzujte tento text smlouvy a poskytněte strukturovaný rozbor:
-                
-                Text smlouvy:
-                """ + input;
-
-            String response = chatClient.build()
-                    .prompt()
-                    .system(systemPrompt)
-                    .user(userPrompt)
-                    .call()
-                    .content();
+            List<String> segments = segmenter.split(input);
+            String response;
+
+            if (segments.size() > 1) {
+                List<String> analyses = ParallelTasks.map(
+                        IntStream.range(0, segments.size()).boxed().toList(),
+                        maxConcurrency,
+                        i -> analyze(context, String.format(SEGMENT_PROMPT, i + 1, segments.size())
+                                + USER_PROMPT + segments.get(i)));
+                response = IntStream.range(0, analyses.size())
+                        .mapToObj(i -> "## Část " + (i + 1) + "/" + analyses.size()
+                                + System.lineSeparator() + analyses.get(i))
+                        .collect(Collectors.joining(System.lineSeparator() + System.lineSeparator()));
+                context.put(ContextKey.CONTRACT_SEGMENTS, segments);
+            } else {
+                response = analyze(context, USER_PROMPT + input);
+            }
 
             context.put(ContextKey.CONTRACT_ANALYSIS, response);
             context.put(ContextKey.ORIGINAL_CONTRACT, input);
@@ -49,4 +93,14 @@ public class ContractAnalysisStep extends ReasoningStep {
                     "Chyba při analýze smlouvy: " + e.getMessage(), false);
         }
     }
+
+    private String analyze(PipelineContext context, String userPrompt) {
+        return chatClient
+                .prompt()
+                .advisors(advisorParams(context))
+                .system(SYSTEM_PROMPT)
+                .user(userPrompt)
+                .call()
+                .content();
+    }
 }
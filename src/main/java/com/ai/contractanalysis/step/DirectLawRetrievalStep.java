@@ -0,0 +1,69 @@
+package com.ai.contractanalysis.step;
+
+import com.ai.contractanalysis.rag.LawSearch;
+import com.ai.contractanalysis.utils.Hashing;
+import com.ai.contractanalysis.utils.StepResult;
+import org.springframework.ai.document.Document;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Získání právního kontextu bez volání modelu: nalezené části zákonů se do {@link ContextKey#LEGAL_CONTEXT}
+ * vloží přímo, včetně názvu souboru, ze kterého pochází.
+ */
+public class DirectLawRetrievalStep extends ReasoningStep {
+    private static final String DOCUMENT_FORMAT = """
+            [%s]
+            %s
+            """;
+
+    private static final String NO_LAWS = "Žádné ustanovení z poskytnutého seznamu se nevztahuje";
+
+    private final LawSearch lawSearch;
+
+    public DirectLawRetrievalStep(LawSearch lawSearch) {
+        super("Law Retrieval", "Retrieve relevant legal provisions by similarity search",
+                Set.of(ContextKey.CONTRACT_ANALYSIS, ContextKey.PREFETCHED_LAWS),
+                Set.of(ContextKey.LEGAL_CONTEXT));
+        this.lawSearch = lawSearch;
+    }
+
+    @Override
+    public String getPromptVersion() {
+        return Hashing.sha256(DOCUMENT_FORMAT, NO_LAWS);
+    }
+
+    @Override
+    public StepResult execute(PipelineContext context) {
+        String contractAnalysis = context.get(ContextKey.CONTRACT_ANALYSIS);
+        List<Document> prefetched = context.get(ContextKey.PREFETCHED_LAWS);
+        try {
+            Map<String, Document> documents = new LinkedHashMap<>();
+            lawSearch.search(contractAnalysis).forEach(document -> documents.putIfAbsent(document.getId(), document));
+            if (prefetched != null) {
+                prefetched.forEach(document -> documents.putIfAbsent(document.getId(), document));
+            }
+
+            String legalContext = documents.isEmpty()
+                    ? NO_LAWS
+                    : documents.values().stream()
+                            .map(document -> String.format(DOCUMENT_FORMAT,
+                                    document.getMetadata().getOrDefault("filename", "neznámý zdroj"),
+                                    document.getText()))
+                            .collect(Collectors.joining(System.lineSeparator()));
+
+            context.put(ContextKey.LEGAL_CONTEXT, legalContext);
+
+            return new StepResult(name, contractAnalysis, legalContext,
+                    "Právní informace byly úspěšně získány", true);
+
+        } catch (Exception e) {
+            return new StepResult(name, contractAnalysis, "",
+                    "Chyba při získávání právních informací: " + e.getMessage(), false);
+        }
+    }
+}
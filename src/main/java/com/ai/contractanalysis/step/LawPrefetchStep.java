@@ -0,0 +1,41 @@
+package com.ai.contractanalysis.step;
+
+import com.ai.contractanalysis.rag.LawSearch;
+import com.ai.contractanalysis.utils.StepResult;
+import org.springframework.ai.document.Document;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Spekulativní vyhledání zákonů přímo nad textem smlouvy. Nečeká na analýzu smlouvy,
+ * takže běží souběžně s jejím voláním modelu a {@link LawRetrievalStep} pak nalezené
+ * předpisy jen převezme.
+ */
+public class LawPrefetchStep extends ReasoningStep {
+    private final LawSearch lawSearch;
+
+    public LawPrefetchStep(LawSearch lawSearch) {
+        super("Law Prefetch", "Speculatively retrieve laws for the raw contract text",
+                Set.of(ContextKey.ORIGINAL_INPUT),
+                Set.of(ContextKey.PREFETCHED_LAWS));
+        this.lawSearch = lawSearch;
+    }
+
+    @Override
+    public StepResult execute(PipelineContext context) {
+        String input = context.get(ContextKey.ORIGINAL_INPUT);
+        try {
+            List<Document> prefetched = lawSearch.search(input);
+            context.put(ContextKey.PREFETCHED_LAWS, prefetched);
+
+            return new StepResult(name, input, prefetched.size() + " předpisů",
+                    "Předběžné vyhledání zákonů dokončeno", true);
+
+        } catch (Exception e) {
+            // Prefetch je jen optimalizace, LawRetrievalStep si předpisy vyhledá sám.
+            return new StepResult(name, input, "",
+                    "Předběžné vyhledání zákonů selhalo: " + e.getMessage(), true);
+        }
+    }
+}
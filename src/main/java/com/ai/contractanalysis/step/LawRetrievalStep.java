@@ -1,56 +1,88 @@
 package com.ai.contractanalysis.step;
 
+import com.ai.contractanalysis.utils.Hashing;
 import com.ai.contractanalysis.utils.StepResult;
 import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.ai.chat.client.advisor.vectorstore.QuestionAnswerAdvisor;
+import org.springframework.ai.document.Document;
 import org.springframework.ai.vectorstore.VectorStore;
 
-import java.util.Map;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 public class LawRetrievalStep extends ReasoningStep {
-    private final VectorStore vectorStore;
+    private static final String SYSTEM_PROMPT = """
+            Jste právní expert. Máte k dispozici POUZE níže uvedené právní předpisy,
+            které jsou definované v poskytnuté databázi (JSON soubory).
+            
+            Neodkazujte na žádné jiné zákony, paragrafy, judikaturu ani zdroje,
+            které nejsou výslovně součástí tohoto seznamu
+            
+            Vaším úkolem je:
+            1. Na základě analýzy smlouvy vyhledat relevantní ustanovení
+            2. Vysvětlit, proč jsou tato ustanovení aplikovatelná
+            3. Nepřidávat žádné další právní předpisy mimo tento seznam
+            """;
 
-    public LawRetrievalStep(VectorStore vectorStore) {
-        super("Law Retrieval", "Retrieve relevant legal information using RAG");
-        this.vectorStore = vectorStore;
+    private static final String USER_PROMPT = """
+            Na základě této analýzy smlouvy určete, která ustanovení
+            z POSKYTNUTÉHO seznamu právních předpisů jsou relevantní.
+            
+            Analýza smlouvy:
+            %s
+            
+            Pokud žádné ustanovení neodpovídá, uveďte "Žádné ustanovení z poskytnutého seznamu se nevztahuje".
+            """;
+
+    private static final String PREFETCHED_CONTEXT = """
+            
+            Seznam právních předpisů je uveden níže mezi oddělovači.
+            ---------------------
+            %s
+            ---------------------
+            """;
+
+    private final ChatClient ragChatClient;
+    private final ChatClient chatClient;
+
+    public LawRetrievalStep(ChatClient.Builder chatClientBuilder, VectorStore vectorStore) {
+        super("Law Retrieval", "Retrieve relevant legal information using RAG",
+                Set.of(ContextKey.CONTRACT_ANALYSIS, ContextKey.PREFETCHED_LAWS),
+                Set.of(ContextKey.LEGAL_CONTEXT));
+        // Klon, aby RAG advisor nezůstal ve sdíleném builderu ostatních kroků.
+        this.ragChatClient = chatClientBuilder.clone()
+                .defaultAdvisors(new QuestionAnswerAdvisor(vectorStore))
+                .build();
+        this.chatClient = chatClientBuilder.build();
     }
 
     @Override
-    public StepResult execute(String input, Map<ContextKey, Object> context, ChatClient.Builder baseChatClient) {
-        try {
-            String contractAnalysis = (String) context.get(ContextKey.CONTRACT_ANALYSIS);
-
-            ChatClient ragChatClient = baseChatClient
-                    .defaultAdvisors(new QuestionAnswerAdvisor(vectorStore))
-                    .build();
+    public String getPromptVersion() {
+        return Hashing.sha256(SYSTEM_PROMPT, USER_PROMPT, PREFETCHED_CONTEXT);
+    }
 
-            String systemPrompt = """
-                Jste právní expert. Máte k dispozici POUZE níže uvedené právní předpisy,
-                které jsou definované v poskytnuté databázi (JSON soubory).
-                
-                Neodkazujte na žádné jiné zákony, paragrafy, judikaturu ani zdroje,
-                které nejsou výslovně součástí tohoto seznamu
-                
-                Vaším úkolem je:
-                1. Na základě analýzy smlouvy vyhledat relevantní ustanovení
-                2. Vysvětlit, proč jsou tato ustanovení aplikovatelná
-                3. Nepřidávat žádné další právní předpisy mimo tento seznam
-                """;
+    @Override
+    public StepResult execute(PipelineContext context) {
+        String contractAnalysis = context.get(ContextKey.CONTRACT_ANALYSIS);
+        List<Document> prefetched = context.get(ContextKey.PREFETCHED_LAWS);
+        try {
 
-            String userPrompt = """
-                Na základě této analýzy smlouvy určete, která ustanovení
-                z POSKYTNUTÉHO seznamu právních předpisů jsou relevantní.
-                
-                Analýza smlouvy:
-                """ + contractAnalysis + """
-                
-                Pokud žádné ustanovení neodpovídá, uveďte "Žádné ustanovení z poskytnutého seznamu se nevztahuje".
-                """;
+            String userPrompt = String.format(USER_PROMPT, contractAnalysis);
 
+            // Předpisy nalezené spekulativně se vloží přímo, bez dalšího vyhledávání ve vector store.
+            ChatClient client = ragChatClient;
+            if (prefetched != null && !prefetched.isEmpty()) {
+                client = chatClient;
+                userPrompt += String.format(PREFETCHED_CONTEXT, prefetched.stream()
+                        .map(Document::getText)
+                        .collect(Collectors.joining(System.lineSeparator())));
+            }
 
-            String response = ragChatClient
+            String response = client
                     .prompt()
-                    .system(systemPrompt)
+                    .advisors(advisorParams(context))
+                    .system(SYSTEM_PROMPT)
                     .user(userPrompt)
                     .call()
                     .content();
@@ -61,7 +93,7 @@ public class LawRetrievalStep extends ReasoningStep {
                     "Právní informace byly úspěšně získány", true);
 
         } catch (Exception e) {
-            return new StepResult(name, input, "",
+            return new StepResult(name, contractAnalysis, "",
                     "Chyba při získávání právních informací: " + e.getMessage(), false);
         }
     }
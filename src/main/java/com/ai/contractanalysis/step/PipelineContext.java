@@ -0,0 +1,120 @@
+package com.ai.contractanalysis.step;
+
+import com.ai.contractanalysis.issue.Issue;
+import com.ai.contractanalysis.issue.Issues;
+import com.ai.contractanalysis.llm.TokenUsageListener;
+import com.ai.contractanalysis.utils.StepResult;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Stav jednoho běhu pipeline. Definice pipeline i kroky jsou sdílené mezi požadavky,
+ * vše, co vzniká během analýzy konkrétní smlouvy, patří sem.
+ */
+public class PipelineContext implements TokenUsageListener {
+    private final Map<ContextKey, Object> values = new ConcurrentHashMap<>();
+    private final List<StepResult> history = Collections.synchronizedList(new ArrayList<>());
+    private final Map<String, StepTiming> timings = new ConcurrentHashMap<>();
+    private final Map<String, TokenUsage> tokenUsage = new ConcurrentHashMap<>();
+    private final Consumer<Issue> issueListener;
+
+    public PipelineContext(String input) {
+        this(input, null);
+    }
+
+    /**
+     * @param issueListener pokud je zadán, kroky, které to umí, předávají problémy průběžně
+     */
+    public PipelineContext(String input, Consumer<Issue> issueListener) {
+        this.issueListener = issueListener;
+        put(ContextKey.ORIGINAL_INPUT, input);
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T get(ContextKey key) {
+        return (T) key.getType().cast(values.get(key));
+    }
+
+    public void put(ContextKey key, Object value) {
+        if (value == null) {
+            values.remove(key);
+            return;
+        }
+        if (!key.getType().isInstance(value)) {
+            throw new IllegalArgumentException(String.format(
+                    "Hodnota pro %s musí být typu %s, ale je %s",
+                    key, key.getType().getSimpleName(), value.getClass().getSimpleName()));
+        }
+        values.put(key, value);
+    }
+
+    public boolean contains(ContextKey key) {
+        return values.containsKey(key);
+    }
+
+    public Consumer<Issue> getIssueListener() {
+        return issueListener;
+    }
+
+    public void record(StepResult result) {
+        history.add(result);
+    }
+
+    public List<StepResult> getExecutionHistory() {
+        synchronized (history) {
+            return List.copyOf(history);
+        }
+    }
+
+    public boolean isSuccessful() {
+        synchronized (history) {
+            return history.stream().allMatch(StepResult::success);
+        }
+    }
+
+    public Issues getIssues() {
+        Issues issues = get(ContextKey.COMPLIANCE_ISSUES);
+        return issues != null ? issues : new Issues(List.of());
+    }
+
+    public void recordTiming(String stepName, Instant startedAt, Instant finishedAt) {
+        timings.put(stepName, new StepTiming(startedAt, finishedAt));
+    }
+
+    public StepTiming getTiming(String stepName) {
+        return timings.get(stepName);
+    }
+
+    /**
+     * Volání modelu jednoho kroku mohou běžet paralelně (části smlouvy), spotřeba se proto sčítá.
+     */
+    @Override
+    public void onTokenUsage(String stepName, long promptTokens, long completionTokens) {
+        tokenUsage.merge(stepName, new TokenUsage(promptTokens, completionTokens), TokenUsage::plus);
+    }
+
+    public TokenUsage getTokenUsage(String stepName) {
+        return tokenUsage.getOrDefault(stepName, TokenUsage.NONE);
+    }
+
+    public record StepTiming(Instant startedAt, Instant finishedAt) {
+        public Duration duration() {
+            return Duration.between(startedAt, finishedAt);
+        }
+    }
+
+    public record TokenUsage(long promptTokens, long completionTokens) {
+        public static final TokenUsage NONE = new TokenUsage(0, 0);
+
+        public TokenUsage plus(TokenUsage other) {
+            return new TokenUsage(promptTokens + other.promptTokens, completionTokens + other.completionTokens);
+        }
+    }
+}
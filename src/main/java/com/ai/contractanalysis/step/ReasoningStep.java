@@ -1,20 +1,38 @@
 package com.ai.contractanalysis.step;
 
+import com.ai.contractanalysis.llm.AdvisorParams;
 import com.ai.contractanalysis.utils.StepResult;
 import org.springframework.ai.chat.client.ChatClient;
 
-import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
 
 public abstract class ReasoningStep {
     protected final String name;
     protected final String description;
+    private final Set<ContextKey> reads;
+    private final Set<ContextKey> writes;
 
     protected ReasoningStep(String name, String description) {
+        this(name, description, Set.of(), Set.of());
+    }
+
+    /**
+     * @param reads  klíče kontextu, které krok čte; podle nich pipeline určí, na které kroky musí čekat
+     * @param writes klíče kontextu, které krok zapisuje
+     */
+    protected ReasoningStep(String name, String description, Set<ContextKey> reads, Set<ContextKey> writes) {
         this.name = name;
         this.description = description;
+        this.reads = Set.copyOf(reads);
+        this.writes = Set.copyOf(writes);
     }
 
-    public abstract StepResult execute(String input, Map<ContextKey, Object> context, ChatClient.Builder chatClient);
+    /**
+     * Kroky jsou sdílené mezi souběžnými běhy pipeline a nezávislé kroky běží paralelně;
+     * veškerý stav běhu musí jít přes {@code context}.
+     */
+    public abstract StepResult execute(PipelineContext context);
 
     public String getName() {
         return name;
@@ -23,4 +41,28 @@ public abstract class ReasoningStep {
     public String getDescription() {
         return description;
     }
+
+    public Set<ContextKey> getReads() {
+        return reads;
+    }
+
+    public Set<ContextKey> getWrites() {
+        return writes;
+    }
+
+    /**
+     * Otisk promptů kroku; mění se s každou úpravou promptu, takže zneplatní uložené výsledky.
+     */
+    public String getPromptVersion() {
+        return "";
+    }
+
+    /**
+     * Parametry advisorů pro volání modelu z tohoto kroku: název kroku a běh, kterému se připíše spotřeba tokenů.
+     */
+    protected Consumer<ChatClient.AdvisorSpec> advisorParams(PipelineContext context) {
+        return advisor -> advisor
+                .param(AdvisorParams.STEP_NAME, name)
+                .param(AdvisorParams.USAGE_LISTENER, context);
+    }
 }
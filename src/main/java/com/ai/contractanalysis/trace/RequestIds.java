@@ -0,0 +1,36 @@
+package com.ai.contractanalysis.trace;
+
+import org.slf4j.MDC;
+
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+/**
+ * Identifikátor požadavku je uložený v MDC pod klíčem {@value #MDC_KEY}; vzor logu
+ * ({@code logging.pattern.level}) jej vypisuje u každého řádku. S úlohami se přenáší přes
+ * {@link com.ai.contractanalysis.utils.MdcPropagation}.
+ */
+public final class RequestIds {
+    public static final String HEADER = "X-Request-Id";
+    public static final String MDC_KEY = "requestId";
+    private static final Pattern VALID = Pattern.compile("[A-Za-z0-9._:-]{1,100}");
+
+    private RequestIds() {
+    }
+
+    public static String current() {
+        String requestId = MDC.get(MDC_KEY);
+        return requestId != null ? requestId : generate();
+    }
+
+    /**
+     * Převezme identifikátor od klienta, pokud je bezpečný pro použití v názvu souboru, jinak vytvoří nový.
+     */
+    public static String resolve(String requested) {
+        return requested != null && VALID.matcher(requested).matches() ? requested : generate();
+    }
+
+    public static String generate() {
+        return UUID.randomUUID().toString();
+    }
+}
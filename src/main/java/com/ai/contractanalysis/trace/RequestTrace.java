@@ -0,0 +1,22 @@
+package com.ai.contractanalysis.trace;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Průběh analýzy jedné smlouvy. {@code outcome} je {@code success}, {@code failure},
+ * {@code cached} (výsledek z cache) nebo {@code coalesced} (připojeno k již běžící analýze).
+ */
+public record RequestTrace(
+        String requestId,
+        Instant startedAt,
+        Instant finishedAt,
+        long durationMs,
+        String outcome,
+        int inputChars,
+        List<StepTrace> steps
+) {
+    public RequestTrace {
+        steps = steps == null ? List.of() : List.copyOf(steps);
+    }
+}
@@ -0,0 +1,17 @@
+package com.ai.contractanalysis.trace;
+
+import java.time.Instant;
+
+public record StepTrace(
+        String stepName,
+        Instant startedAt,
+        Instant finishedAt,
+        long durationMs,
+        boolean success,
+        String message,
+        long promptTokens,
+        long completionTokens,
+        String inputPreview,
+        String outputPreview
+) {
+}
@@ -0,0 +1,24 @@
+package com.ai.contractanalysis.trace;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/v1/contracts")
+public class TraceController {
+    private final TraceStore traceStore;
+
+    public TraceController(TraceStore traceStore) {
+        this.traceStore = traceStore;
+    }
+
+    @GetMapping("/traces/{id}")
+    public ResponseEntity<RequestTrace> getTrace(@PathVariable("id") String id) {
+        return traceStore.get(id)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+}
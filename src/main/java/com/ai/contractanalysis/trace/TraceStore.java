@@ -0,0 +1,158 @@
+package com.ai.contractanalysis.trace;
+
+import com.ai.contractanalysis.step.PipelineContext;
+import com.ai.contractanalysis.utils.SpillDirectory;
+import com.ai.contractanalysis.utils.StepResult;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Průběhy posledních analýz v kruhovém bufferu pevné velikosti. Místo celých vstupů a výstupů kroků
+ * se ukládají jen jejich začátky. Se zapnutým {@code spill} se průběhy vytlačené z bufferu
+ * zapisují do {@code ${vector.store.path}/traces} a dají se dohledat i později.
+ */
+@Component
+public class TraceStore {
+    private static final Logger log = LoggerFactory.getLogger(TraceStore.class);
+
+    private final RequestTrace[] ring;
+    private final Map<String, Integer> index = new HashMap<>();
+    private final int previewChars;
+    private final SpillDirectory directory;
+    private final ObjectMapper objectMapper;
+    private int next;
+
+    public TraceStore(
+            @Value("${analysis.trace.max-entries:1000}") int maxEntries,
+            @Value("${analysis.trace.preview-chars:500}") int previewChars,
+            @Value("${analysis.trace.spill:false}") boolean spill,
+            @Value("${analysis.trace.retention:P1D}") Duration retention,
+            @Value("${analysis.trace.max-disk-size:100MB}") DataSize maxDiskSize,
+            @Value("${vector.store.path:/app/data}") String storePath,
+            ObjectMapper objectMapper
+    ) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("analysis.trace.max-entries musí být alespoň 1");
+        }
+        this.ring = new RequestTrace[maxEntries];
+        this.previewChars = previewChars;
+        this.directory = spill
+                ? new SpillDirectory(Paths.get(storePath, "traces"), retention, maxDiskSize.toBytes())
+                : null;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Uloží průběh dokončeného běhu pipeline včetně časů a spotřeby tokenů jednotlivých kroků.
+     */
+    public RequestTrace record(String requestId, PipelineContext context, Instant startedAt, int inputChars) {
+        List<StepTrace> steps = context.getExecutionHistory().stream()
+                .map(result -> stepTrace(result, context))
+                .toList();
+        String outcome = context.isSuccessful() ? "success" : "failure";
+        return record(requestId, startedAt, outcome, inputChars, steps);
+    }
+
+    /**
+     * Uloží průběh požadavku, který pipeline nespustil (výsledek z cache nebo z jiného běžícího požadavku).
+     */
+    public RequestTrace record(String requestId, Instant startedAt, String outcome, int inputChars) {
+        return record(requestId, startedAt, outcome, inputChars, List.of());
+    }
+
+    public Optional<RequestTrace> get(String requestId) {
+        synchronized (this) {
+            Integer slot = index.get(requestId);
+            if (slot != null) {
+                return Optional.of(ring[slot]);
+            }
+        }
+        return directory != null ? readFile(requestId) : Optional.empty();
+    }
+
+    private RequestTrace record(String requestId, Instant startedAt, String outcome, int inputChars,
+                                List<StepTrace> steps) {
+        Instant finishedAt = Instant.now();
+        RequestTrace trace = new RequestTrace(requestId, startedAt, finishedAt,
+                Duration.between(startedAt, finishedAt).toMillis(), outcome, inputChars, steps);
+        RequestTrace evicted = put(trace);
+        if (evicted != null && directory != null) {
+            writeFile(evicted);
+        }
+        return trace;
+    }
+
+    private synchronized RequestTrace put(RequestTrace trace) {
+        int slot = next;
+        next = (next + 1) % ring.length;
+
+        RequestTrace evicted = ring[slot];
+        if (evicted != null) {
+            // Stejné id mohl mezitím dostat novější průběh v jiném slotu.
+            index.remove(evicted.requestId(), slot);
+        }
+        ring[slot] = trace;
+        index.put(trace.requestId(), slot);
+        return evicted;
+    }
+
+    private StepTrace stepTrace(StepResult result, PipelineContext context) {
+        PipelineContext.StepTiming timing = context.getTiming(result.stepName());
+        PipelineContext.TokenUsage usage = context.getTokenUsage(result.stepName());
+        return new StepTrace(
+                result.stepName(),
+                timing != null ? timing.startedAt() : null,
+                timing != null ? timing.finishedAt() : null,
+                timing != null ? timing.duration().toMillis() : 0,
+                result.success(),
+                result.message(),
+                usage.promptTokens(),
+                usage.completionTokens(),
+                preview(result.input()),
+                preview(result.output()));
+    }
+
+    private String preview(String text) {
+        if (text == null || text.length() <= previewChars) {
+            return text;
+        }
+        return text.substring(0, previewChars) + "… (" + text.length() + " znaků)";
+    }
+
+    private Optional<RequestTrace> readFile(String requestId) {
+        if (!RequestIds.resolve(requestId).equals(requestId)) {
+            return Optional.empty();
+        }
+        try {
+            Optional<Path> file = directory.find(requestId + ".json");
+            return file.isPresent()
+                    ? Optional.of(objectMapper.readValue(file.get().toFile(), RequestTrace.class))
+                    : Optional.empty();
+        } catch (IOException e) {
+            log.warn("Nelze načíst průběh požadavku {} z {}", requestId, directory.path(), e);
+            return Optional.empty();
+        }
+    }
+
+    private void writeFile(RequestTrace trace) {
+        try {
+            directory.write(trace.requestId() + ".json", file -> objectMapper.writeValue(file.toFile(), trace));
+        } catch (IOException e) {
+            log.warn("Nelze uložit průběh požadavku do {}", directory.path(), e);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.ai.contractanalysis.utils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.BiConsumer;
+import java.util.function.ToLongFunction;
+
+/**
+ * Jednoduchá LRU cache omezená celkovou váhou záznamů a volitelně dobou platnosti.
+ * Vyřazené záznamy (kvůli kapacitě, ne kvůli expiraci) jsou předány posluchači mimo zámek.
+ */
+public class BoundedCache<K, V> {
+    private final long maxWeight;
+    private final long ttlNanos;
+    private final ToLongFunction<V> weigher;
+    private final BiConsumer<K, V> evictionListener;
+    private final LinkedHashMap<K, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long weight;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public BoundedCache(long maxEntries, Duration ttl) {
+        this(maxEntries, ttl, value -> 1, (key, value) -> {
+        });
+    }
+
+    /**
+     * @param ttl {@code null} nebo nulová doba znamená bez expirace
+     */
+    public BoundedCache(long maxWeight, Duration ttl, ToLongFunction<V> weigher, BiConsumer<K, V> evictionListener) {
+        this.maxWeight = maxWeight;
+        this.ttlNanos = ttl == null || ttl.isZero() ? 0 : ttl.toNanos();
+        this.weigher = weigher;
+        this.evictionListener = evictionListener;
+    }
+
+    public Optional<V> get(K key) {
+        synchronized (this) {
+            Entry<V> entry = entries.get(key);
+            if (entry != null && isExpired(entry)) {
+                remove(key);
+                entry = null;
+            }
+            if (entry == null) {
+                misses++;
+                return Optional.empty();
+            }
+            hits++;
+            return Optional.of(entry.value());
+        }
+    }
+
+    public void put(K key, V value) {
+        long entryWeight = weigher.applyAsLong(value);
+        List<Map.Entry<K, V>> evicted = new ArrayList<>();
+
+        synchronized (this) {
+            remove(key);
+            if (entryWeight > maxWeight) {
+                evicted.add(Map.entry(key, value));
+            } else {
+                entries.put(key, new Entry<>(value, entryWeight, System.nanoTime()));
+                weight += entryWeight;
+
+                Iterator<Map.Entry<K, Entry<V>>> iterator = entries.entrySet().iterator();
+                while (weight > maxWeight && iterator.hasNext()) {
+                    Map.Entry<K, Entry<V>> eldest = iterator.next();
+                    iterator.remove();
+                    weight -= eldest.getValue().weight();
+                    evictions++;
+                    if (!isExpired(eldest.getValue())) {
+                        evicted.add(Map.entry(eldest.getKey(), eldest.getValue().value()));
+                    }
+                }
+            }
+        }
+
+        evicted.forEach(entry -> evictionListener.accept(entry.getKey(), entry.getValue()));
+    }
+
+    public synchronized void invalidate(K key) {
+        remove(key);
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long weight() {
+        return weight;
+    }
+
+    public synchronized long hitCount() {
+        return hits;
+    }
+
+    public synchronized long missCount() {
+        return misses;
+    }
+
+    public synchronized long evictionCount() {
+        return evictions;
+    }
+
+    private void remove(K key) {
+        Entry<V> removed = entries.remove(key);
+        if (removed != null) {
+            weight -= removed.weight();
+        }
+    }
+
+    private boolean isExpired(Entry<V> entry) {
+        return ttlNanos > 0 && System.nanoTime() - entry.createdAt() > ttlNanos;
+    }
+
+    private record Entry<V>(V value, long weight, long createdAt) {
+    }
+}
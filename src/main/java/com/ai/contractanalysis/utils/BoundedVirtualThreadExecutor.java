@@ -0,0 +1,123 @@
+package com.ai.contractanalysis.utils;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Spouští každou úlohu ve vlastním virtuálním vlákně, ale nejvýše {@code maxConcurrency} současně.
+ * Úlohy nad limitem čekají (levně, ve virtuálním vlákně) ve férové frontě o nejvýše {@code maxQueued} místech;
+ * pokud je fronta plná, {@link #execute} vyhodí {@link RejectedExecutionException}.
+ * Úloha přebírá MDC vlákna, které ji spustilo (např. identifikátor požadavku).
+ * <p>
+ * {@link #close()} rozpracované úlohy přeruší a na jejich doběhnutí čeká nejvýše {@code shutdownTimeout};
+ * čekajícím úlohám se místo spuštění zavolá jejich {@code onCancel}.
+ */
+public class BoundedVirtualThreadExecutor implements AutoCloseable {
+    private final int maxConcurrency;
+    private final int maxQueued;
+    private final Duration shutdownTimeout;
+    private final Semaphore permits;
+    private final AtomicInteger queued = new AtomicInteger();
+    private final ExecutorService delegate;
+
+    public BoundedVirtualThreadExecutor(String namePrefix, int maxConcurrency) {
+        this(namePrefix, maxConcurrency, Integer.MAX_VALUE, Duration.ofSeconds(10));
+    }
+
+    public BoundedVirtualThreadExecutor(String namePrefix, int maxConcurrency, int maxQueued, Duration shutdownTimeout) {
+        if (maxConcurrency < 1) {
+            throw new IllegalArgumentException("maxConcurrency musí být alespoň 1");
+        }
+        if (maxQueued < 0) {
+            throw new IllegalArgumentException("maxQueued nesmí být záporné");
+        }
+        this.maxConcurrency = maxConcurrency;
+        this.maxQueued = maxQueued;
+        this.shutdownTimeout = shutdownTimeout;
+        this.permits = new Semaphore(maxConcurrency, true);
+        this.delegate = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(namePrefix, 0).factory());
+    }
+
+    public void execute(Runnable task) {
+        execute(task, () -> { });
+    }
+
+    /**
+     * @param onCancel zavolá se místo {@code task}, pokud je úloha přerušena dřív, než se spustí
+     * @throws RejectedExecutionException fronta čekajících úloh je plná nebo je executor zavřený
+     */
+    public void execute(Runnable task, Runnable onCancel) {
+        Runnable propagated = MdcPropagation.wrap(task);
+        // Volné místo se bere hned jen bez čekajících úloh; tryAcquire() by je předběhlo i u férového semaforu.
+        boolean acquired = queued.get() == 0 && tryAcquireFairly();
+        if (!acquired && queued.incrementAndGet() > maxQueued) {
+            queued.decrementAndGet();
+            throw new RejectedExecutionException("Fronta analýz je plná (" + maxQueued + ")");
+        }
+
+        try {
+            delegate.execute(() -> {
+                if (!acquired) {
+                    try {
+                        permits.acquire();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        onCancel.run();
+                        return;
+                    } finally {
+                        queued.decrementAndGet();
+                    }
+                }
+                try {
+                    propagated.run();
+                } finally {
+                    permits.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            if (acquired) {
+                permits.release();
+            } else {
+                queued.decrementAndGet();
+            }
+            throw e;
+        }
+    }
+
+    private boolean tryAcquireFairly() {
+        try {
+            return permits.tryAcquire(0, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Zařazení úlohy bylo přerušeno", e);
+        }
+    }
+
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    public int getActiveCount() {
+        return maxConcurrency - permits.availablePermits();
+    }
+
+    public int getQueuedCount() {
+        return queued.get();
+    }
+
+    @Override
+    public void close() {
+        // Úlohy žijí jen v paměti a restart je stejně zahodí, na dokončení fronty se proto nečeká.
+        delegate.shutdownNow();
+        try {
+            delegate.awaitTermination(shutdownTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.ai.contractanalysis.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Dělí dlouhou smlouvu na úseky zarovnané na hranice článků. Kratší text než
+ * {@code thresholdChars} vrací celý jako jediný úsek.
+ */
+public class ClauseSegmenter {
+    private static final Pattern CLAUSE_HEADING = Pattern.compile(
+            "^\\s*(Článek|ČLÁNEK|Čl\\.|§|Article|[IVXLC]+\\.|\\d+(\\.\\d+)*\\.?\\s)",
+            Pattern.MULTILINE);
+
+    private final int thresholdChars;
+    private final int segmentChars;
+
+    public ClauseSegmenter(int thresholdChars, int segmentChars) {
+        this.thresholdChars = thresholdChars;
+        this.segmentChars = Math.max(1, segmentChars);
+    }
+
+    /**
+     * Segmentace vypnutá; každý text zůstane v jednom úseku.
+     */
+    public static ClauseSegmenter disabled() {
+        return new ClauseSegmenter(Integer.MAX_VALUE, Integer.MAX_VALUE);
+    }
+
+    public List<String> split(String text) {
+        if (text == null || text.length() <= thresholdChars) {
+            return text == null ? List.of() : List.of(text);
+        }
+
+        List<String> segments = new ArrayList<>();
+        StringBuilder segment = new StringBuilder();
+        for (String clause : clauses(text)) {
+            if (!segment.isEmpty() && segment.length() + clause.length() > segmentChars) {
+                flush(segment, segments);
+            }
+            if (clause.length() > segmentChars) {
+                splitOversized(clause, segments);
+            } else {
+                segment.append(clause);
+            }
+        }
+        flush(segment, segments);
+        return segments;
+    }
+
+    private List<String> clauses(String text) {
+        List<String> clauses = new ArrayList<>();
+        var matcher = CLAUSE_HEADING.matcher(text);
+        int start = 0;
+        while (matcher.find()) {
+            if (matcher.start() > start) {
+                clauses.add(text.substring(start, matcher.start()));
+                start = matcher.start();
+            }
+        }
+        clauses.add(text.substring(start));
+        return clauses;
+    }
+
+    /**
+     * Článek delší než úsek se dělí po odstavcích, případně natvrdo.
+     */
+    private void splitOversized(String clause, List<String> segments) {
+        StringBuilder segment = new StringBuilder();
+        for (String paragraph : clause.split("(?<=\\n\\s{0,10}\\n)")) {
+            String rest = paragraph;
+            while (rest.length() > segmentChars) {
+                flush(segment, segments);
+                segments.add(rest.substring(0, segmentChars));
+                rest = rest.substring(segmentChars);
+            }
+            if (!segment.isEmpty() && segment.length() + rest.length() > segmentChars) {
+                flush(segment, segments);
+            }
+            segment.append(rest);
+        }
+        flush(segment, segments);
+    }
+
+    private static void flush(StringBuilder segment, List<String> segments) {
+        if (!segment.toString().isBlank()) {
+            segments.add(segment.toString());
+        }
+        segment.setLength(0);
+    }
+}
@@ -0,0 +1,11 @@
+package com.ai.contractanalysis.utils;
+
+/**
+ * @param truncated text byl zkrácen na nastavený limit znaků
+ */
+public record ExtractedText(
+        String text,
+        boolean truncated,
+        int maxChars
+) {
+}
@@ -0,0 +1,142 @@
+package com.ai.contractanalysis.utils;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Cache vytaženého textu podle otisku nahraných bajtů. Velikost je omezená součtem znaků;
+ * vytlačené záznamy se volitelně přelévají na disk a při dalším dotazu se vrací zpět do paměti.
+ */
+@Component
+public class ExtractionCache implements MeterBinder {
+    static final String CACHE_REQUESTS = "contract.cache.requests";
+    private static final Logger log = LoggerFactory.getLogger(ExtractionCache.class);
+
+    private final boolean enabled;
+    private final BoundedCache<String, ExtractedText> cache;
+    private final SpillDirectory spillDirectory;
+
+    public ExtractionCache(
+            @Value("${analysis.extraction.cache.enabled:true}") boolean enabled,
+            @Value("${analysis.extraction.cache.max-chars:20000000}") long maxChars,
+            @Value("${analysis.extraction.cache.ttl:PT1H}") Duration ttl,
+            @Value("${analysis.extraction.cache.spill:false}") boolean spill,
+            @Value("${analysis.extraction.cache.max-disk-size:1GB}") DataSize maxDiskSize,
+            @Value("${vector.store.path:/app/data}") String storePath
+    ) {
+        this.enabled = enabled;
+        this.spillDirectory = spill
+                ? new SpillDirectory(Paths.get(storePath, "extraction-cache"), ttl, maxDiskSize.toBytes())
+                : null;
+        this.cache = new BoundedCache<>(maxChars, ttl,
+                extracted -> extracted.text().length(),
+                spillDirectory != null ? this::writeFile : (key, extracted) -> {
+                });
+    }
+
+    public Optional<ExtractedText> get(String key) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        Optional<ExtractedText> cached = cache.get(key);
+        if (cached.isPresent() || spillDirectory == null) {
+            return cached;
+        }
+
+        Optional<ExtractedText> spilled = readFile(key);
+        spilled.ifPresent(extracted -> cache.put(key, extracted));
+        return spilled;
+    }
+
+    public void put(String key, ExtractedText extracted) {
+        if (enabled) {
+            cache.put(key, extracted);
+        }
+    }
+
+    public long hitCount() {
+        return cache.hitCount();
+    }
+
+    public long missCount() {
+        return cache.missCount();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder(CACHE_REQUESTS, this, ExtractionCache::hitCount)
+                .description("Dotazy do cache podle výsledku")
+                .tag("cache", "extraction")
+                .tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder(CACHE_REQUESTS, this, ExtractionCache::missCount)
+                .description("Dotazy do cache podle výsledku")
+                .tag("cache", "extraction")
+                .tag("result", "miss")
+                .register(registry);
+    }
+
+    public long weight() {
+        return cache.weight();
+    }
+
+    /**
+     * Soubor začíná řádkem {@code truncated:maxChars}, za ním následuje samotný text.
+     */
+    private void writeFile(String key, ExtractedText extracted) {
+        try {
+            spillDirectory.write(key + ".txt", file -> {
+                try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+                    writer.write(extracted.truncated() + ":" + extracted.maxChars());
+                    writer.newLine();
+                    writer.write(extracted.text());
+                }
+            });
+        } catch (IOException e) {
+            log.warn("Nelze uložit vytažený text do {}", spillDirectory.path(), e);
+        }
+    }
+
+    private Optional<ExtractedText> readFile(String key) {
+        try {
+            Optional<Path> file = spillDirectory.find(key + ".txt");
+            if (file.isEmpty()) {
+                return Optional.empty();
+            }
+            ExtractedText extracted;
+            try (BufferedReader reader = Files.newBufferedReader(file.get(), StandardCharsets.UTF_8)) {
+                String[] header = reader.readLine().split(":");
+                StringBuilder text = new StringBuilder();
+                char[] buffer = new char[8192];
+                int read;
+                while ((read = reader.read(buffer)) != -1) {
+                    text.append(buffer, 0, read);
+                }
+                extracted = new ExtractedText(text.toString(), Boolean.parseBoolean(header[0]),
+                        Integer.parseInt(header[1]));
+            }
+            // V paměti je text znovu; na disk se zapíše, až bude opět vytlačen.
+            Files.deleteIfExists(file.get());
+            return Optional.of(extracted);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Nelze načíst vytažený text {} z {}", key, spillDirectory.path(), e);
+            return Optional.empty();
+        }
+    }
+}
@@ -1,24 +1,176 @@
 package com.ai.contractanalysis.utils;
 
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
 import org.apache.commons.io.FilenameUtils;
-import org.apache.tika.Tika;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.poi.xwpf.usermodel.XWPFDocument;
+import org.apache.tika.config.TikaConfig;
+import org.apache.tika.exception.WriteLimitReachedException;
+import org.apache.tika.io.TikaInputStream;
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.metadata.TikaCoreProperties;
+import org.apache.tika.parser.CompositeParser;
+import org.apache.tika.parser.ParseContext;
+import org.apache.tika.parser.Parser;
+import org.apache.tika.parser.pdf.PDFParser;
+import org.apache.tika.parser.pdf.PDFParserConfig;
+import org.apache.tika.sax.BodyContentHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
 @Component
 public class FileConverter {
-    private final Tika tika = new Tika();
+    private static final Logger log = LoggerFactory.getLogger(FileConverter.class);
+    private static final String TIKA_CONFIG = "/tika-config.xml";
+    static final String EXTRACTION_TIMER = "contract.extraction";
+    static final String EXTRACTION_BYTES = "contract.extraction.bytes";
+
+    private final Parser parser;
+    private final PDFParserConfig pdfParserConfig;
+    private final int maxChars;
+    private final ParallelPdfExtractor pdfExtractor;
+    private final ExtractionCache extractionCache;
+    private final MeterRegistry meterRegistry;
+
+    public FileConverter() {
+        this(1_000_000, null, null);
+    }
+
+    public FileConverter(int maxChars) {
+        this(maxChars, null, null);
+    }
+
+    /**
+     * @param maxChars        nejvyšší počet znaků vytaženého textu, delší text se zkrátí; zároveň omezuje
+     *                        paměť, kterou text jednoho souboru zabere
+     * @param pdfExtractor    paralelní čtení velkých PDF, {@code null} pro čtení vždy přes Tika
+     * @param extractionCache cache podle otisku nahraného souboru, {@code null} bez cache
+     */
+    public FileConverter(int maxChars, ParallelPdfExtractor pdfExtractor, ExtractionCache extractionCache) {
+        this(maxChars, pdfExtractor, extractionCache, Metrics.globalRegistry);
+    }
+
+    public FileConverter(int maxChars, ParallelPdfExtractor pdfExtractor, ExtractionCache extractionCache,
+                         MeterRegistry meterRegistry) {
+        this.parser = loadParser();
+        this.pdfParserConfig = pdfParserConfig(parser);
+        if (pdfExtractor != null && pdfParserConfig == null) {
+            throw new IllegalStateException("Konfigurace Tika " + TIKA_CONFIG + " neobsahuje PDFParser");
+        }
+        this.maxChars = maxChars;
+        this.pdfExtractor = pdfExtractor;
+        this.extractionCache = extractionCache;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Autowired
+    public FileConverter(
+            @Value("${analysis.extraction.max-chars:1000000}") int maxChars,
+            @Value("${analysis.extraction.pdf.parallel:true}") boolean parallelPdf,
+            @Value("${analysis.extraction.pdf.parallelism:0}") int pdfParallelism,
+            @Value("${analysis.extraction.pdf.min-pages:24}") int pdfMinPages,
+            @Value("${analysis.extraction.pdf.min-pages-per-range:8}") int pdfMinPagesPerRange,
+            ExtractionCache extractionCache,
+            MeterRegistry meterRegistry
+    ) {
+        this(maxChars, parallelPdf
+                ? new ParallelPdfExtractor(
+                        pdfParallelism > 0 ? pdfParallelism : Runtime.getRuntime().availableProcessors(),
+                        pdfMinPages, pdfMinPagesPerRange)
+                : null, extractionCache, meterRegistry);
+    }
+
+    @PreDestroy
+    public void close() {
+        if (pdfExtractor != null) {
+            pdfExtractor.close();
+        }
+    }
 
-    public String extractText(MultipartFile file) {
+    public ExtractedText extract(MultipartFile file) {
         if (file == null || file.isEmpty()) {
             throw new IllegalArgumentException("Soubor je prázdný nebo chybí");
         }
 
         final String extension = FilenameUtils.getExtension(file.getOriginalFilename());
-        SupportedFileType.fromExtension(extension);
+        SupportedFileType type = SupportedFileType.fromExtension(extension);
 
+        long start = System.nanoTime();
+        String outcome = "failure";
         try {
-            return tika.parseToString(file.getInputStream());
+            ExtractedText extracted = extractionCache == null ? extract(file, type) : extractCached(file, type);
+            outcome = "success";
+            return extracted;
+        } finally {
+            record(type, file.getSize(), outcome, System.nanoTime() - start);
+        }
+    }
+
+    private ExtractedText extractCached(MultipartFile file, SupportedFileType type) {
+        // Opakovaně nahraný soubor se nečte znovu; klíč zahrnuje i typ, limit znaků a způsob čtení PDF.
+        String key;
+        try (InputStream stream = file.getInputStream()) {
+            key = Hashing.sha256(Hashing.sha256(stream), type.name(), Integer.toString(maxChars),
+                    type == SupportedFileType.PDF && pdfExtractor != null ? "pdfbox" : "tika");
+        } catch (Exception ex) {
+            throw new IllegalArgumentException(
+                    "Chyba při čtení souboru: " + file.getOriginalFilename(), ex
+            );
+        }
+
+        Optional<ExtractedText> cached = extractionCache.get(key);
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+        ExtractedText extracted = extract(file, type);
+        extractionCache.put(key, extracted);
+        return extracted;
+    }
+
+    private void record(SupportedFileType type, long bytes, String outcome, long nanos) {
+        String fileType = type.getExtension();
+        Timer.builder(EXTRACTION_TIMER)
+                .description("Doba vytažení textu ze souboru")
+                .tag("type", fileType)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+        DistributionSummary.builder(EXTRACTION_BYTES)
+                .description("Velikost zpracovaných souborů")
+                .baseUnit("bytes")
+                .tag("type", fileType)
+                .register(meterRegistry)
+                .record(bytes);
+    }
+
+    private ExtractedText extract(MultipartFile file, SupportedFileType type) {
+        if (type == SupportedFileType.PDF && pdfExtractor != null) {
+            return extractPdf(file);
+        }
+
+        try (InputStream stream = file.getInputStream()) {
+            return parse(stream, type, file.getOriginalFilename());
         } catch (Exception ex) {
             throw new IllegalArgumentException(
                     "Chyba při čtení souboru: " + file.getOriginalFilename(), ex
@@ -26,4 +178,118 @@ public class FileConverter {
         }
     }
 
+    /**
+     * Všechna PDF se čtou stejně přes PDFBox bez ohledu na počet stránek; přes Tika jen ta, se kterými
+     * si PDFBox neporadí. PDFBox se řídí nastavením PDFParseru z {@code tika-config.xml}.
+     */
+    private ExtractedText extractPdf(MultipartFile file) {
+        try {
+            ExtractedText extracted = null;
+            try {
+                extracted = pdfExtractor.extract(file, maxChars, pdfParserConfig);
+            } catch (IOException ex) {
+                log.debug("Čtení PDF {} přes PDFBox selhalo, čte se přes Tika", file.getOriginalFilename(), ex);
+            }
+            if (extracted == null) {
+                try (InputStream stream = file.getInputStream()) {
+                    return parse(stream, SupportedFileType.PDF, file.getOriginalFilename());
+                }
+            }
+            if (extracted.truncated()) {
+                log.warn("Text souboru {} byl zkrácen na {} znaků", file.getOriginalFilename(), maxChars);
+            }
+            return extracted;
+        } catch (Exception ex) {
+            throw new IllegalArgumentException(
+                    "Chyba při čtení souboru: " + file.getOriginalFilename(), ex
+            );
+        }
+    }
+
+    /**
+     * Načte parsery a PDFBox fonty hned po startu, aby je nemusel platit první požadavek.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        try {
+            parse(new ByteArrayInputStream(samplePdf()), SupportedFileType.PDF, "warm-up.pdf");
+            parse(new ByteArrayInputStream(sampleDocx()), SupportedFileType.DOCX, "warm-up.docx");
+        } catch (Exception ex) {
+            log.warn("Zahřátí parserů dokumentů selhalo", ex);
+        }
+    }
+
+    private ExtractedText parse(InputStream input, SupportedFileType type, String fileName) throws Exception {
+        // Text se čte proudově přes SAX handler, celý dokument se během parsování nedrží v paměti
+        // a text nepřekročí maxChars znaků.
+        try (InputStream stream = TikaInputStream.get(input)) {
+            // Typ je daný příponou, parser se vybírá přímo podle něj bez detekce obsahu.
+            Metadata metadata = new Metadata();
+            metadata.set(Metadata.CONTENT_TYPE, type.getMediaType());
+            metadata.set(TikaCoreProperties.RESOURCE_NAME_KEY, fileName);
+
+            BodyContentHandler handler = new BodyContentHandler(maxChars);
+            boolean truncated = false;
+            try {
+                parser.parse(stream, handler, metadata, new ParseContext());
+            } catch (Exception ex) {
+                if (!WriteLimitReachedException.isWriteLimitReached(ex)) {
+                    throw ex;
+                }
+                truncated = true;
+                log.warn("Text souboru {} byl zkrácen na {} znaků", fileName, maxChars);
+            }
+
+            return new ExtractedText(handler.toString(), truncated, maxChars);
+        }
+    }
+
+    static Parser loadParser() {
+        try (InputStream config = FileConverter.class.getResourceAsStream(TIKA_CONFIG)) {
+            return new TikaConfig(config).getParser();
+        } catch (Exception ex) {
+            throw new IllegalStateException("Nelze načíst konfiguraci Tika " + TIKA_CONFIG, ex);
+        }
+    }
+
+    static PDFParserConfig pdfParserConfig(Parser parser) {
+        if (parser instanceof PDFParser pdfParser) {
+            return pdfParser.getPDFParserConfig();
+        }
+        if (parser instanceof CompositeParser composite) {
+            for (Parser component : composite.getAllComponentParsers()) {
+                PDFParserConfig config = pdfParserConfig(component);
+                if (config != null) {
+                    return config;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static byte[] samplePdf() throws IOException {
+        try (PDDocument document = new PDDocument();
+             ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+            PDPage page = new PDPage();
+            document.addPage(page);
+            try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+                content.beginText();
+                content.setFont(PDType1Font.HELVETICA, 12);
+                content.newLineAtOffset(50, 700);
+                content.showText("Warm-up");
+                content.endText();
+            }
+            document.save(out);
+            return out.toByteArray();
+        }
+    }
+
+    private static byte[] sampleDocx() throws IOException {
+        try (XWPFDocument document = new XWPFDocument();
+             ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+            document.createParagraph().createRun().setText("Warm-up");
+            document.write(out);
+            return out.toByteArray();
+        }
+    }
 }
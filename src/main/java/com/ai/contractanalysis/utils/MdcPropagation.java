@@ -0,0 +1,49 @@
+package com.ai.contractanalysis.utils;
+
+import org.slf4j.MDC;
+
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+/**
+ * Přenáší MDC vlákna, které úlohu vytvořilo (např. identifikátor požadavku), do vlákna, které ji spustí.
+ */
+public final class MdcPropagation {
+
+    private MdcPropagation() {
+    }
+
+    public static Runnable wrap(Runnable task) {
+        Map<String, String> mdc = MDC.getCopyOfContextMap();
+        return () -> {
+            Map<String, String> previous = apply(mdc);
+            try {
+                task.run();
+            } finally {
+                apply(previous);
+            }
+        };
+    }
+
+    public static <T> Callable<T> wrap(Callable<T> task) {
+        Map<String, String> mdc = MDC.getCopyOfContextMap();
+        return () -> {
+            Map<String, String> previous = apply(mdc);
+            try {
+                return task.call();
+            } finally {
+                apply(previous);
+            }
+        };
+    }
+
+    private static Map<String, String> apply(Map<String, String> mdc) {
+        Map<String, String> previous = MDC.getCopyOfContextMap();
+        if (mdc != null) {
+            MDC.setContextMap(mdc);
+        } else {
+            MDC.clear();
+        }
+        return previous;
+    }
+}
@@ -0,0 +1,246 @@
+package com.ai.contractanalysis.utils;
+
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.apache.tika.parser.pdf.PDFParserConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.InputStreamSource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Vytáhne text z PDF; velké dokumenty po rozsazích stránek paralelně na vlastním fork-join poolu.
+ * Každá úloha si dokument načte sama, PDDocument není bezpečné sdílet mezi vlákny.
+ * Čtení i text se řídí stejným {@link PDFParserConfig} jako PDFParser Tika.
+ */
+public class ParallelPdfExtractor implements AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(ParallelPdfExtractor.class);
+
+    private final ForkJoinPool pool;
+    private final int minPages;
+    private final int minPagesPerRange;
+
+    /**
+     * @param minPages         dokumenty s menším počtem stránek se paralelně nezpracovávají
+     * @param minPagesPerRange nejmenší rozsah stránek jedné úlohy
+     */
+    public ParallelPdfExtractor(int parallelism, int minPages, int minPagesPerRange) {
+        this.pool = new ForkJoinPool(Math.max(1, parallelism));
+        this.minPages = minPages;
+        this.minPagesPerRange = Math.max(1, minPagesPerRange);
+    }
+
+    public int getParallelism() {
+        return pool.getParallelism();
+    }
+
+    /**
+     * Text dokumentu; krátké dokumenty se čtou v jednom rozsahu ve volajícím vlákně, aby text nezávisel
+     * na počtu stránek. Do dočasného souboru se kopírují jen dokumenty čtené paralelně.
+     * Text delší než {@code maxChars} se zkrátí.
+     *
+     * @param config nastavení PDFParseru Tika, podle kterého se dokument načte a text vytáhne
+     */
+    public ExtractedText extract(InputStreamSource pdf, int maxChars, PDFParserConfig config) throws IOException {
+        try (InputStream stream = pdf.getInputStream();
+             PDDocument document = PDDocument.load(stream, memoryUsage(config))) {
+            int pages = document.getNumberOfPages();
+            if (pages < minPages) {
+                BoundedWriter text = new BoundedWriter(maxChars);
+                write(stripper(config, 1, pages), document, text);
+                return text.toExtractedText();
+            }
+
+            Path temp = Files.createTempFile("upload-", ".pdf");
+            try {
+                try (InputStream copy = pdf.getInputStream()) {
+                    Files.copy(copy, temp, StandardCopyOption.REPLACE_EXISTING);
+                }
+                return extractParallel(document, temp, pages, maxChars, config);
+            } finally {
+                try {
+                    Files.deleteIfExists(temp);
+                } catch (IOException e) {
+                    log.warn("Nelze smazat dočasný soubor {}", temp, e);
+                }
+            }
+        }
+    }
+
+    private ExtractedText extractParallel(PDDocument document, Path pdf, int pages, int maxChars,
+                                          PDFParserConfig config) throws IOException {
+        // První rozsah se čte z už načteného dokumentu, ostatní na poolu. Úloh běží nejvýš tolik,
+        // kolik má pool vláken, a po dosažení limitu se další nezakládají. Každý rozsah se čte nejvýš
+        // o znak přes limit, aby se zkrácení poznalo i u rozsahu, který limit překročí sám.
+        int rangeMaxChars = (int) Math.min(Integer.MAX_VALUE, maxChars + 1L);
+        List<int[]> ranges = ranges(pages);
+        Deque<ForkJoinTask<String>> running = new ArrayDeque<>();
+        int next = 1;
+        while (next < ranges.size() && running.size() < getParallelism()) {
+            running.add(submit(pdf, ranges.get(next++), rangeMaxChars, config));
+        }
+        try {
+            int[] first = ranges.getFirst();
+            BoundedWriter text = new BoundedWriter(maxChars);
+            write(stripper(config, first[0], first[1]), document, text);
+            while (!text.truncated && !running.isEmpty()) {
+                text.append(running.poll().join());
+                if (next < ranges.size()) {
+                    running.add(submit(pdf, ranges.get(next++), rangeMaxChars, config));
+                }
+            }
+            return text.toExtractedText();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            running.forEach(task -> task.cancel(false));
+        }
+    }
+
+    List<int[]> ranges(int pages) {
+        int rangeSize = Math.max(minPagesPerRange, (pages + getParallelism() - 1) / getParallelism());
+        List<int[]> ranges = new ArrayList<>();
+        for (int start = 1; start <= pages; start += rangeSize) {
+            ranges.add(new int[]{start, Math.min(pages, start + rangeSize - 1)});
+        }
+        return ranges;
+    }
+
+    private ForkJoinTask<String> submit(Path pdf, int[] range, int maxChars, PDFParserConfig config) {
+        return pool.submit(() -> extractRange(pdf, range[0], range[1], maxChars, config));
+    }
+
+    private static String extractRange(Path pdf, int startPage, int endPage, int maxChars,
+                                       PDFParserConfig config) {
+        try (PDDocument document = PDDocument.load(pdf.toFile(), memoryUsage(config))) {
+            BoundedWriter text = new BoundedWriter(maxChars);
+            write(stripper(config, startPage, endPage), document, text);
+            return text.text.toString();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Čtení se přeruší, jakmile text dosáhne limitu zapisovače; zbytek dokumentu se už nezpracuje.
+     */
+    private static void write(PDFTextStripper stripper, PDDocument document, BoundedWriter text) throws IOException {
+        try {
+            stripper.writeText(document, text);
+        } catch (LimitReachedException e) {
+            // Text je zkrácený na limit, zbylé stránky se nečtou.
+        }
+    }
+
+    /**
+     * Stejně jako PDF2XHTML v Tika, viz {@link PDFParserConfig#configure}.
+     */
+    static PDFTextStripper stripper(PDFParserConfig config, int startPage, int endPage) throws IOException {
+        PDFTextStripper stripper = new PDFTextStripper();
+        stripper.setSortByPosition(config.isSortByPosition());
+        stripper.setWordSeparator(config.isEnableAutoSpace() ? " " : "");
+        stripper.setSuppressDuplicateOverlappingText(config.isSuppressDuplicateOverlappingText());
+        if (config.getAverageCharTolerance() != null) {
+            stripper.setAverageCharTolerance(config.getAverageCharTolerance());
+        }
+        if (config.getSpacingTolerance() != null) {
+            stripper.setSpacingTolerance(config.getSpacingTolerance());
+        }
+        if (config.getDropThreshold() != null) {
+            stripper.setDropThreshold(config.getDropThreshold());
+        }
+        stripper.setStartPage(startPage);
+        stripper.setEndPage(endPage);
+        return stripper;
+    }
+
+    /**
+     * Stejně jako PDFParser v Tika: do {@code maxMainMemoryBytes} v paměti, nad limit v dočasném souboru.
+     */
+    static MemoryUsageSetting memoryUsage(PDFParserConfig config) {
+        return config.getMaxMainMemoryBytes() < 0
+                ? MemoryUsageSetting.setupMainMemoryOnly()
+                : MemoryUsageSetting.setupMixed(config.getMaxMainMemoryBytes());
+    }
+
+    /**
+     * Zapisovač s limitem znaků jako {@code WriteOutContentHandler} v Tika: zápis přes limit uloží jen
+     * to, co se vejde, a ukončí čtení výjimkou {@link LimitReachedException}.
+     */
+    private static final class BoundedWriter extends Writer {
+        private final StringBuilder text = new StringBuilder();
+        private final int maxChars;
+        private boolean truncated;
+
+        BoundedWriter(int maxChars) {
+            this.maxChars = maxChars;
+        }
+
+        @Override
+        public void write(char[] chars, int offset, int length) throws IOException {
+            int room = maxChars - text.length();
+            if (length > room) {
+                text.append(chars, offset, Math.max(0, room));
+                truncated = true;
+                throw new LimitReachedException();
+            }
+            text.append(chars, offset, length);
+        }
+
+        @Override
+        public void write(String chars, int offset, int length) throws IOException {
+            int room = maxChars - text.length();
+            if (length > room) {
+                text.append(chars, offset, offset + Math.max(0, room));
+                truncated = true;
+                throw new LimitReachedException();
+            }
+            text.append(chars, offset, offset + length);
+        }
+
+        void append(String chars) {
+            try {
+                write(chars, 0, chars.length());
+            } catch (IOException e) {
+                // Zkráceno, další rozsahy se už nepřidávají.
+            }
+        }
+
+        ExtractedText toExtractedText() {
+            return new ExtractedText(text.toString(), truncated, maxChars);
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    private static final class LimitReachedException extends IOException {
+        LimitReachedException() {
+            super("Dosažen limit znaků");
+        }
+    }
+
+    @Override
+    public void close() {
+        pool.shutdownNow();
+    }
+}
@@ -0,0 +1,61 @@
+package com.ai.contractanalysis.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.function.Function;
+
+/**
+ * Paralelní zpracování položek na virtuálních vláknech s omezeným počtem souběžných úloh.
+ * Každé volání má vlastní executor, takže vnořené použití nemůže vyčerpat sdílený pool.
+ * Úlohy přebírají MDC volajícího vlákna.
+ */
+public final class ParallelTasks {
+
+    private ParallelTasks() {
+    }
+
+    /**
+     * Výsledky vrací ve stejném pořadí jako vstupní položky. Při první chybě zbylé úlohy přeruší
+     * a výjimku úlohy vyhodí dál.
+     */
+    public static <T, R> List<R> map(List<T> items, int maxConcurrency, Function<? super T, ? extends R> task) {
+        Semaphore permits = new Semaphore(Math.max(1, maxConcurrency), true);
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<R>> futures = new ArrayList<>(items.size());
+            for (T item : items) {
+                futures.add(executor.submit(MdcPropagation.wrap(() -> {
+                    permits.acquire();
+                    try {
+                        return task.apply(item);
+                    } finally {
+                        permits.release();
+                    }
+                })));
+            }
+
+            List<R> results = new ArrayList<>(items.size());
+            try {
+                for (Future<R> future : futures) {
+                    results.add(future.get());
+                }
+            } catch (ExecutionException e) {
+                executor.shutdownNow();
+                if (e.getCause() instanceof RuntimeException runtime) {
+                    throw runtime;
+                }
+                throw new IllegalStateException(e.getCause());
+            } catch (InterruptedException e) {
+                executor.shutdownNow();
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Paralelní zpracování bylo přerušeno", e);
+            }
+            return results;
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.ai.contractanalysis.utils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Adresář se soubory přelitými z paměťových cache. Soubory se zapisují do dočasného souboru
+ * a na místo se atomicky přesunou, starší než {@code ttl} se při čtení ani pročištění nepoužijí.
+ * Celková velikost je omezená {@code maxBytes}: jakmile ji zápis překročí, smažou se nejstarší soubory.
+ * Prošlé soubory se mažou při vytvoření, při čtení a nejvýše jednou za {@link #PRUNE_INTERVAL} při zápisu.
+ */
+public class SpillDirectory {
+    static final Duration PRUNE_INTERVAL = Duration.ofMinutes(1);
+    private static final Logger log = LoggerFactory.getLogger(SpillDirectory.class);
+
+    private final Path directory;
+    private final Duration ttl;
+    private final long maxBytes;
+    private long bytes;
+    private Instant prunedAt = Instant.MIN;
+
+    /**
+     * @param ttl {@code null} nebo nulová doba znamená bez expirace
+     */
+    public SpillDirectory(Path directory, Duration ttl, long maxBytes) {
+        this.directory = directory;
+        this.ttl = ttl;
+        this.maxBytes = maxBytes;
+        prune();
+    }
+
+    @FunctionalInterface
+    public interface Content {
+        void writeTo(Path file) throws IOException;
+    }
+
+    /**
+     * Vrátí soubor {@code name}, pokud existuje a neprošel; prošlý soubor smaže.
+     */
+    public Optional<Path> find(String name) throws IOException {
+        Path file = directory.resolve(name);
+        if (!Files.exists(file)) {
+            return Optional.empty();
+        }
+        if (isExpired(file)) {
+            Files.deleteIfExists(file);
+            return Optional.empty();
+        }
+        return Optional.of(file);
+    }
+
+    /**
+     * Zapíše soubor {@code name} přes dočasný soubor, takže souběžné čtení nikdy nevidí rozepsaný obsah.
+     */
+    public void write(String name, Content content) throws IOException {
+        Files.createDirectories(directory);
+        Path temp = Files.createTempFile(directory, "spill-", ".tmp");
+        try {
+            content.writeTo(temp);
+            long size = Files.size(temp);
+            Files.move(temp, directory.resolve(name), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            afterWrite(size);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    public Path path() {
+        return directory;
+    }
+
+    public synchronized long bytes() {
+        return bytes;
+    }
+
+    private synchronized void afterWrite(long size) {
+        // Přepsaný soubor se započte dvakrát; pročištění pak součet spočte znovu přesně.
+        bytes += size;
+        if (bytes > maxBytes || Instant.now().isAfter(prunedAt.plus(PRUNE_INTERVAL))) {
+            prune();
+        }
+    }
+
+    /**
+     * Smaže prošlé soubory a pak nejstarší, dokud celková velikost nepřesahuje {@code maxBytes}.
+     */
+    public synchronized void prune() {
+        prunedAt = Instant.now();
+        if (!Files.isDirectory(directory)) {
+            bytes = 0;
+            return;
+        }
+
+        List<SpilledFile> files = new ArrayList<>();
+        try (Stream<Path> listing = Files.list(directory)) {
+            listing.forEach(file -> {
+                try {
+                    BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                    files.add(new SpilledFile(file, attributes.lastModifiedTime().toInstant(), attributes.size()));
+                } catch (IOException e) {
+                    // Soubor mezitím smazalo souběžné čtení.
+                }
+            });
+        } catch (IOException e) {
+            log.warn("Nelze pročistit adresář {}", directory, e);
+            return;
+        }
+
+        files.sort(Comparator.comparing(SpilledFile::modified));
+        long total = files.stream().mapToLong(SpilledFile::size).sum();
+        for (SpilledFile file : files) {
+            boolean expired = isExpired(file.modified());
+            // Neprošlý dočasný soubor může právě zapisovat jiné vlákno.
+            if (!expired && (total <= maxBytes || file.path().getFileName().toString().endsWith(".tmp"))) {
+                continue;
+            }
+            if (delete(file.path())) {
+                total -= file.size();
+            }
+        }
+        bytes = total;
+    }
+
+    private boolean isExpired(Path file) {
+        try {
+            return isExpired(Files.getLastModifiedTime(file).toInstant());
+        } catch (IOException e) {
+            return true;
+        }
+    }
+
+    private boolean isExpired(Instant modified) {
+        return ttl != null && !ttl.isZero() && modified.plus(ttl).isBefore(Instant.now());
+    }
+
+    private static boolean delete(Path file) {
+        try {
+            Files.deleteIfExists(file);
+            return true;
+        } catch (IOException e) {
+            // Soubor se zkusí smazat znovu při příštím pročištění.
+            return false;
+        }
+    }
+
+    private record SpilledFile(Path path, Instant modified, long size) {
+    }
+}
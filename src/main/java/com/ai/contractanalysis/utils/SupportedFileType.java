@@ -4,19 +4,25 @@ import java.util.Arrays;
 import java.util.List;
 
 public enum SupportedFileType {
-    PDF("pdf"),
-    DOCX("docx");
+    PDF("pdf", "application/pdf"),
+    DOCX("docx", "application/vnd.openxmlformats-officedocument.wordprocessingml.document");
 
     private final String extension;
+    private final String mediaType;
 
-    SupportedFileType(String extension) {
+    SupportedFileType(String extension, String mediaType) {
         this.extension = extension;
+        this.mediaType = mediaType;
     }
 
     public String getExtension() {
         return extension;
     }
 
+    public String getMediaType() {
+        return mediaType;
+    }
+
     public static SupportedFileType fromExtension(String extension) {
         return Arrays.stream(values())
                 .filter(type -> type.extension.equalsIgnoreCase(extension))
@@ -0,0 +1,117 @@
+package com.ai.contractanalysis.benchmark;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.poi.xwpf.usermodel.XWPFDocument;
+import org.springframework.ai.document.Document;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Generované vstupy benchmarků, aby výsledky nezávisely na souborech mimo repozitář.
+ */
+final class BenchmarkFixtures {
+    private static final int LINES_PER_PAGE = 40;
+    private static final String[] CLAUSES = {
+            "The tenant shall pay the rent of %d CZK monthly, always by the 15th day of the month.",
+            "The landlord may terminate the lease with a notice period of %d months.",
+            "The contractual penalty for late payment is %d CZK for each day of delay.",
+            "The security deposit of %d CZK shall be returned within one month after the lease ends.",
+            "Any amendment to this contract requires %d written copies signed by both parties."
+    };
+
+    private BenchmarkFixtures() {
+    }
+
+    /**
+     * Řádek smlouvy jen se znaky ASCII, standardní písma PDF neumí českou diakritiku.
+     */
+    static String clause(int index) {
+        return String.format(CLAUSES[index % CLAUSES.length], 1000 + index);
+    }
+
+    static String contract(int chars) {
+        StringBuilder text = new StringBuilder(chars + 200);
+        for (int article = 1; text.length() < chars; article++) {
+            text.append("Článek ").append(article).append('\n');
+            for (int i = 0; i < 4; i++) {
+                text.append(clause(article * 4 + i)).append('\n');
+            }
+            text.append('\n');
+        }
+        return text.toString();
+    }
+
+    static byte[] pdf(int pages) {
+        try (PDDocument document = new PDDocument();
+             ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+            for (int p = 0; p < pages; p++) {
+                PDPage page = new PDPage();
+                document.addPage(page);
+                try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+                    content.beginText();
+                    content.setFont(PDType1Font.HELVETICA, 9);
+                    content.setLeading(16);
+                    content.newLineAtOffset(40, 740);
+                    for (int line = 0; line < LINES_PER_PAGE; line++) {
+                        content.showText(clause(p * LINES_PER_PAGE + line));
+                        content.newLine();
+                    }
+                    content.endText();
+                }
+            }
+            document.save(out);
+            return out.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * DOCX se zhruba stejným množstvím textu jako {@link #pdf(int)} se stejným počtem stran.
+     */
+    static byte[] docx(int pages) {
+        try (XWPFDocument document = new XWPFDocument();
+             ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+            for (int line = 0; line < pages * LINES_PER_PAGE; line++) {
+                document.createParagraph().createRun().setText(clause(line));
+            }
+            document.write(out);
+            return out.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static void deleteRecursively(Path directory) throws IOException {
+        if (directory == null || !Files.exists(directory)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    static List<Document> laws(int count) {
+        List<Document> documents = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            documents.add(new Document("law-" + i,
+                    "§ " + (i + 1) + " " + clause(i) + " " + clause(i * 7 + 3),
+                    Map.of("source", "zakon-" + (i % 20) + ".pdf")));
+        }
+        return documents;
+    }
+}
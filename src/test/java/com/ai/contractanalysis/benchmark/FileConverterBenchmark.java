@@ -0,0 +1,65 @@
+package com.ai.contractanalysis.benchmark;
+
+import com.ai.contractanalysis.utils.FileConverter;
+import com.ai.contractanalysis.utils.ParallelPdfExtractor;
+import com.ai.contractanalysis.utils.SupportedFileType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Vytažení textu se stejným nastavením jako v aplikaci, ale bez cache podle otisku souboru.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FileConverterBenchmark {
+
+    @Param({"pdf", "docx"})
+    public String type;
+
+    @Param({"1", "10", "50"})
+    public int pages;
+
+    private FileConverter fileConverter;
+    private MockMultipartFile file;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        fileConverter = new FileConverter(1_000_000,
+                new ParallelPdfExtractor(Runtime.getRuntime().availableProcessors(), 24, 8),
+                null, new SimpleMeterRegistry());
+        SupportedFileType fileType = SupportedFileType.fromExtension(type);
+        byte[] content = fileType == SupportedFileType.PDF
+                ? BenchmarkFixtures.pdf(pages)
+                : BenchmarkFixtures.docx(pages);
+        file = new MockMultipartFile("file", "smlouva." + type, fileType.getMediaType(), content);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        fileConverter.close();
+    }
+
+    @Benchmark
+    public String extractText() {
+        return fileConverter.extract(file).text();
+    }
+}
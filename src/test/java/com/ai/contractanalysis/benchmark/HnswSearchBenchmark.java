@@ -0,0 +1,109 @@
+package com.ai.contractanalysis.benchmark;
+
+import com.ai.contractanalysis.rag.HnswSettings;
+import com.ai.contractanalysis.rag.MappedVectorStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.SearchRequest;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Přesné procházení {@link MappedVectorStore} proti HNSW grafu s různým {@code efSearch}
+ * ({@code 0} = přesné procházení). Při přípravě se nad {@value #RECALL_QUERIES} dotazy spočítá
+ * recall@topK vůči přesnému hledání a vypíše se do výstupu JMH, aby šla doba hledání porovnat s přesností.
+ * <p>
+ * Vektory stub modelu leží blízko podprostoru s rozměrem {@code latentDimensions} jako skutečné embeddings;
+ * {@code latentDimensions = 0} dává rovnoměrně náhodné vektory, nejhorší případ pro HNSW.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class HnswSearchBenchmark {
+    static final int RECALL_QUERIES = 200;
+
+    @Param({"10000", "50000"})
+    public int corpusSize;
+
+    @Param({"384"})
+    public int dimensions;
+
+    @Param({"16"})
+    public int latentDimensions;
+
+    @Param({"0", "16", "64", "256"})
+    public int efSearch;
+
+    @Param({"16"})
+    public int m;
+
+    @Param({"100"})
+    public int efConstruction;
+
+    @Param({"6"})
+    public int topK;
+
+    private MappedVectorStore vectorStore;
+    private SearchRequest request;
+    private Path directory;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        StubEmbeddingModel embeddingModel = new StubEmbeddingModel(dimensions, latentDimensions);
+        directory = Files.createTempDirectory("hnsw-benchmark-");
+        Path basePath = directory.resolve("laws");
+        MappedVectorStore exact = MappedVectorStore.builder(embeddingModel, basePath).build();
+        exact.add(BenchmarkFixtures.laws(corpusSize));
+        vectorStore = efSearch == 0
+                ? exact
+                : MappedVectorStore.builder(embeddingModel, basePath)
+                .hnsw(new HnswSettings(m, efConstruction, efSearch))
+                .build();
+
+        int found = 0;
+        for (int q = 0; q < RECALL_QUERIES; q++) {
+            SearchRequest query = SearchRequest.builder().query("dotaz " + q).topK(topK).build();
+            List<String> expected = exact.similaritySearch(query).stream().map(Document::getId).toList();
+            found += (int) vectorStore.similaritySearch(query).stream()
+                    .map(Document::getId)
+                    .filter(expected::contains)
+                    .count();
+        }
+        System.out.printf("recall@%d (efSearch=%d, %d dokumentů): %.3f%n",
+                topK, efSearch, corpusSize, (double) found / (RECALL_QUERIES * topK));
+
+        request = SearchRequest.builder()
+                .query(BenchmarkFixtures.clause(2))
+                .topK(topK)
+                .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        BenchmarkFixtures.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public List<Document> similaritySearch() {
+        return vectorStore.similaritySearch(request);
+    }
+}
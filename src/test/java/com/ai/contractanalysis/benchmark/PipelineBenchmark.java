@@ -0,0 +1,74 @@
+package com.ai.contractanalysis.benchmark;
+
+import com.ai.contractanalysis.contract.ContractAnalysisPipeline;
+import com.ai.contractanalysis.issue.Issues;
+import com.ai.contractanalysis.rag.LawSearch;
+import com.ai.contractanalysis.step.ComplianceCheckStep;
+import com.ai.contractanalysis.step.ContractAnalysisStep;
+import com.ai.contractanalysis.step.DirectLawRetrievalStep;
+import com.ai.contractanalysis.step.LawRetrievalStep;
+import com.ai.contractanalysis.step.ReasoningStep;
+import com.ai.contractanalysis.utils.ClauseSegmenter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.vectorstore.SimpleVectorStore;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Režie pipeline (plánování kroků, šablony promptů, advisory, parsování odpovědí) s modelem,
+ * který odpovídá okamžitě. Kroky jsou sestavené stejně jako v {@code PipelineConfiguration}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PipelineBenchmark {
+
+    @Param({"llm", "direct"})
+    public String retrievalMode;
+
+    // Delší smlouva překročí práh pro analýzu po částech.
+    @Param({"2000", "60000"})
+    public int contractChars;
+
+    private ContractAnalysisPipeline pipeline;
+    private String contract;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ChatClient.Builder chatClientBuilder = ChatClient.builder(new StubChatModel());
+        SimpleVectorStore vectorStore = SimpleVectorStore.builder(new StubEmbeddingModel(256)).build();
+        vectorStore.add(BenchmarkFixtures.laws(500));
+
+        ReasoningStep lawRetrieval = retrievalMode.equals("direct")
+                ? new DirectLawRetrievalStep(new LawSearch(vectorStore, 4, 2000, 6, 8))
+                : new LawRetrievalStep(chatClientBuilder, vectorStore);
+        pipeline = new ContractAnalysisPipeline(List.of(
+                new ContractAnalysisStep(chatClientBuilder, new ClauseSegmenter(40_000, 15_000), 4),
+                lawRetrieval,
+                new ComplianceCheckStep(chatClientBuilder, 4)
+        ), new SimpleMeterRegistry());
+        contract = BenchmarkFixtures.contract(contractChars);
+    }
+
+    @Benchmark
+    public Issues execute() {
+        return pipeline.execute(contract);
+    }
+}
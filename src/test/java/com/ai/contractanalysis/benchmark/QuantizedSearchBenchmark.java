@@ -0,0 +1,134 @@
+package com.ai.contractanalysis.benchmark;
+
+import com.ai.contractanalysis.rag.MappedVectorStore;
+import com.ai.contractanalysis.rag.VectorQuantization;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.reader.TextReader;
+import org.springframework.ai.transformer.splitter.TokenTextSplitter;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Přesné hledání nad vektory float32 proti procházení kvantovaných vektorů int8 s přepočtem kandidátů.
+ * Korpus {@code laws} jsou zákony z {@code classpath:/data/laws/*.json} rozdělené stejně jako v
+ * {@code RagConfiguration}; bez nich se použije vygenerovaný korpus o 10 000 dokumentech. Pro číselnou
+ * hodnotu se vygeneruje korpus dané velikosti.
+ * <p>
+ * Při přípravě se vypíše velikost procházených dat a recall@topK vůči hledání nad float32. Vektory vytváří
+ * stub model, recall tedy měří ztrátu kvantizací, ne kvalitu samotných embeddings.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g", "--add-modules", "jdk.incubator.vector"})
+public class QuantizedSearchBenchmark {
+    static final int RECALL_QUERIES = 200;
+    static final int LATENT_DIMENSIONS = 64;
+
+    @Param({"laws", "50000"})
+    public String corpus;
+
+    @Param({"none", "int8"})
+    public String quantization;
+
+    @Param({"1", "4"})
+    public int rescoreFactor;
+
+    @Param({"6"})
+    public int topK;
+
+    private MappedVectorStore vectorStore;
+    private SearchRequest request;
+    private Path directory;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        StubEmbeddingModel embeddingModel = new StubEmbeddingModel(VectorSearchBenchmark.DIMENSIONS, LATENT_DIMENSIONS);
+        directory = Files.createTempDirectory("quantized-benchmark-");
+        Path basePath = directory.resolve("laws");
+        MappedVectorStore exact = MappedVectorStore.builder(embeddingModel, basePath).build();
+        List<Document> documents = documents();
+        exact.add(documents);
+
+        VectorQuantization type = VectorQuantization.valueOf(quantization.toUpperCase(Locale.ROOT));
+        vectorStore = type == VectorQuantization.NONE
+                ? exact
+                : MappedVectorStore.builder(embeddingModel, basePath).quantization(type, rescoreFactor).build();
+
+        int found = 0;
+        int relevant = 0;
+        for (int q = 0; q < RECALL_QUERIES; q++) {
+            SearchRequest query = SearchRequest.builder().query("dotaz " + q).topK(topK).build();
+            List<String> expected = exact.similaritySearch(query).stream().map(Document::getId).toList();
+            relevant += expected.size();
+            found += (int) vectorStore.similaritySearch(query).stream()
+                    .map(Document::getId)
+                    .filter(expected::contains)
+                    .count();
+        }
+        Path scanned = type == VectorQuantization.NONE
+                ? directory.resolve("laws.vectors")
+                : directory.resolve("laws.int8");
+        System.out.printf("%d dokumentů, procházená data %s: %.1f MB (laws.vectors %.1f MB), recall@%d: %.3f%n",
+                documents.size(), scanned.getFileName(), Files.size(scanned) / 1e6,
+                Files.size(directory.resolve("laws.vectors")) / 1e6, topK,
+                (double) found / relevant);
+
+        request = SearchRequest.builder()
+                .query(BenchmarkFixtures.clause(2))
+                .topK(topK)
+                .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        BenchmarkFixtures.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public List<Document> similaritySearch() {
+        return vectorStore.similaritySearch(request);
+    }
+
+    private List<Document> documents() throws IOException {
+        if (!corpus.equals("laws")) {
+            return BenchmarkFixtures.laws(Integer.parseInt(corpus));
+        }
+        Resource[] laws = new PathMatchingResourcePatternResolver().getResources("classpath:/data/laws/*.json");
+        List<Document> documents = new ArrayList<>();
+        for (Resource law : laws) {
+            TextReader textReader = new TextReader(law);
+            textReader.getCustomMetadata().put("filename", law.getFilename());
+            documents.addAll(new TokenTextSplitter().apply(textReader.get()));
+        }
+        if (documents.isEmpty()) {
+            System.out.println("Na classpath nejsou zákony, použije se vygenerovaný korpus");
+            return BenchmarkFixtures.laws(10_000);
+        }
+        return documents;
+    }
+}
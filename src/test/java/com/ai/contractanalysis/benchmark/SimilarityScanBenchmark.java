@@ -0,0 +1,94 @@
+package com.ai.contractanalysis.benchmark;
+
+import com.ai.contractanalysis.rag.MappedVectorStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.SearchRequest;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Přesné hledání v {@link MappedVectorStore}: skalární součin přes Vector API proti obyčejné smyčce
+ * ({@code -Danalysis.vector.simd=false}) a dávka dotazů jedním průchodem proti samostatným
+ * dotazům, jak je posílá {@code LawSearch}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g", "--add-modules", "jdk.incubator.vector"})
+public class SimilarityScanBenchmark {
+
+    @Param({"10000"})
+    public int corpusSize;
+
+    @Param({"4"})
+    public int queries;
+
+    @Param({"6"})
+    public int topK;
+
+    private MappedVectorStore vectorStore;
+    private List<SearchRequest> requests;
+    private Path directory;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        StubEmbeddingModel embeddingModel = new StubEmbeddingModel(VectorSearchBenchmark.DIMENSIONS);
+        directory = Files.createTempDirectory("scan-benchmark-");
+        vectorStore = MappedVectorStore.builder(embeddingModel, directory.resolve("laws")).build();
+        vectorStore.add(BenchmarkFixtures.laws(corpusSize));
+        requests = IntStream.range(0, queries)
+                .mapToObj(i -> SearchRequest.builder().query(BenchmarkFixtures.clause(i)).topK(topK).build())
+                .toList();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        BenchmarkFixtures.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public List<Document> simd() {
+        return vectorStore.similaritySearch(requests.getFirst());
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = {"-Xmx4g", "--add-modules", "jdk.incubator.vector", "-Danalysis.vector.simd=false"})
+    public List<Document> scalar() {
+        return vectorStore.similaritySearch(requests.getFirst());
+    }
+
+    @Benchmark
+    public List<List<Document>> sequentialQueries() {
+        List<List<Document>> results = new ArrayList<>(requests.size());
+        for (SearchRequest request : requests) {
+            results.add(vectorStore.similaritySearch(request));
+        }
+        return results;
+    }
+
+    @Benchmark
+    public List<List<Document>> batchQueries() {
+        return vectorStore.batchSimilaritySearch(requests);
+    }
+}
@@ -0,0 +1,28 @@
+package com.ai.contractanalysis.benchmark;
+
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+
+import java.util.List;
+
+/**
+ * Model, který okamžitě vrací stejnou odpověď. Všem krokům stačí JSON s problémy –
+ * analýza a získání právních informací jej berou jako prostý text.
+ */
+class StubChatModel implements ChatModel {
+    static final String RESPONSE = """
+            {"issues":[
+              {"passage":"The contractual penalty for late payment is 1002 CZK for each day of delay.",
+               "recommendation":"Snížit smluvní pokutu na přiměřenou výši.","importance":"HIGH"},
+              {"passage":"The landlord may terminate the lease with a notice period of 1001 months.",
+               "recommendation":"Upravit výpovědní dobu podle § 2286 občanského zákoníku.","importance":"MEDIUM"}
+            ]}""";
+
+    @Override
+    public ChatResponse call(Prompt prompt) {
+        return new ChatResponse(List.of(new Generation(new AssistantMessage(RESPONSE))));
+    }
+}
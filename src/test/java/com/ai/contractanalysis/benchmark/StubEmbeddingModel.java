@@ -0,0 +1,91 @@
+package com.ai.contractanalysis.benchmark;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Deterministické normalizované vektory odvozené z textu, bez volání OpenAI.
+ * <p>
+ * S {@code latentDimensions} leží vektory blízko podprostoru s menším rozměrem, podobně jako skutečné
+ * embeddings; bez něj jsou rovnoměrně náhodné, což je nejhorší případ pro přibližné hledání.
+ */
+class StubEmbeddingModel implements EmbeddingModel {
+    private static final double NOISE = 0.05;
+
+    private final int dimensions;
+    private final float[][] projection;
+
+    StubEmbeddingModel(int dimensions) {
+        this(dimensions, 0);
+    }
+
+    StubEmbeddingModel(int dimensions, int latentDimensions) {
+        this.dimensions = dimensions;
+        this.projection = latentDimensions > 0 ? projection(dimensions, latentDimensions) : null;
+    }
+
+    @Override
+    public EmbeddingResponse call(EmbeddingRequest request) {
+        List<Embedding> embeddings = new ArrayList<>(request.getInstructions().size());
+        for (String text : request.getInstructions()) {
+            embeddings.add(new Embedding(vector(text), embeddings.size()));
+        }
+        return new EmbeddingResponse(embeddings);
+    }
+
+    @Override
+    public float[] embed(Document document) {
+        return vector(document.getText());
+    }
+
+    @Override
+    public int dimensions() {
+        return dimensions;
+    }
+
+    private float[] vector(String text) {
+        SplittableRandom random = new SplittableRandom(text.hashCode());
+        float[] vector = new float[dimensions];
+        if (projection == null) {
+            for (int i = 0; i < dimensions; i++) {
+                vector[i] = (float) (random.nextDouble() - 0.5);
+            }
+        } else {
+            double[] latent = random.doubles(projection[0].length).map(value -> value - 0.5).toArray();
+            for (int i = 0; i < dimensions; i++) {
+                double value = 0;
+                for (int j = 0; j < latent.length; j++) {
+                    value += projection[i][j] * latent[j];
+                }
+                vector[i] = (float) (value + NOISE * (random.nextDouble() - 0.5));
+            }
+        }
+        double norm = 0;
+        for (float value : vector) {
+            norm += value * value;
+        }
+        float scale = (float) (1 / Math.sqrt(norm));
+        for (int i = 0; i < dimensions; i++) {
+            vector[i] *= scale;
+        }
+        return vector;
+    }
+
+    private static float[][] projection(int dimensions, int latentDimensions) {
+        SplittableRandom random = new SplittableRandom(dimensions * 31L + latentDimensions);
+        float[][] projection = new float[dimensions][latentDimensions];
+        for (float[] row : projection) {
+            for (int j = 0; j < latentDimensions; j++) {
+                row[j] = (float) random.nextGaussian();
+            }
+        }
+        return projection;
+    }
+}
@@ -0,0 +1,86 @@
+package com.ai.contractanalysis.benchmark;
+
+import com.ai.contractanalysis.rag.MappedVectorStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.SimpleVectorStore;
+import org.springframework.ai.vectorstore.VectorStore;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Vyhledávání v {@link SimpleVectorStore} a {@link MappedVectorStore} podle velikosti korpusu. Vektory mají
+ * rozměr {@code text-embedding-ada-002}; čas zahrnuje i vytvoření vektoru dotazu stub modelem.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class VectorSearchBenchmark {
+    static final int DIMENSIONS = 1536;
+
+    @Param({"1000", "10000", "50000"})
+    public int corpusSize;
+
+    @Param({"6"})
+    public int topK;
+
+    @Param({"simple", "mapped"})
+    public String store;
+
+    private VectorStore vectorStore;
+    private SearchRequest request;
+    private Path directory;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        StubEmbeddingModel embeddingModel = new StubEmbeddingModel(DIMENSIONS);
+        directory = Files.createTempDirectory("vector-benchmark-");
+        vectorStore = store.equals("mapped")
+                ? MappedVectorStore.builder(embeddingModel, directory.resolve("laws")).build()
+                : SimpleVectorStore.builder(embeddingModel).build();
+        List<Document> laws = BenchmarkFixtures.laws(corpusSize);
+        // Po dávkách, aby se při sestavení nepočítaly tokeny celého korpusu najednou.
+        // MappedVectorStore přepisuje index při každém přidání, korpus se mu proto předá najednou.
+        if (vectorStore instanceof MappedVectorStore) {
+            vectorStore.add(laws);
+        } else {
+            for (int from = 0; from < laws.size(); from += 1000) {
+                vectorStore.add(laws.subList(from, Math.min(laws.size(), from + 1000)));
+            }
+        }
+        request = SearchRequest.builder()
+                .query(BenchmarkFixtures.clause(2))
+                .topK(topK)
+                .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        BenchmarkFixtures.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public List<Document> similaritySearch() {
+        return vectorStore.similaritySearch(request);
+    }
+}
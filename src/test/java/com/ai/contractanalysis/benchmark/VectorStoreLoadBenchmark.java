@@ -0,0 +1,76 @@
+package com.ai.contractanalysis.benchmark;
+
+import com.ai.contractanalysis.rag.MappedVectorStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.ai.vectorstore.SimpleVectorStore;
+import org.springframework.ai.vectorstore.VectorStore;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Načtení uloženého korpusu při startu aplikace: {@code vectorstore.json} proti binárnímu indexu.
+ * Obě varianty zahrnují stejnou pevnou režii builderu Spring AI, který při vytvoření vždy načte
+ * tokenizer pro {@code TokenCountBatchingStrategy} (přibližně 150 ms).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class VectorStoreLoadBenchmark {
+
+    @Param({"1000", "10000"})
+    public int corpusSize;
+
+    private StubEmbeddingModel embeddingModel;
+    private Path directory;
+    private File jsonFile;
+    private Path mappedPath;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        embeddingModel = new StubEmbeddingModel(VectorSearchBenchmark.DIMENSIONS);
+        directory = Files.createTempDirectory("vector-load-benchmark-");
+        jsonFile = directory.resolve("vectorstore.json").toFile();
+        mappedPath = directory.resolve("vectorstore");
+
+        SimpleVectorStore simple = SimpleVectorStore.builder(embeddingModel).build();
+        simple.add(BenchmarkFixtures.laws(corpusSize));
+        simple.save(jsonFile);
+        MappedVectorStore.builder(embeddingModel, mappedPath).build().add(BenchmarkFixtures.laws(corpusSize));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        BenchmarkFixtures.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public VectorStore loadJson() {
+        SimpleVectorStore vectorStore = SimpleVectorStore.builder(embeddingModel).build();
+        vectorStore.load(jsonFile);
+        return vectorStore;
+    }
+
+    @Benchmark
+    public VectorStore openMapped() {
+        return MappedVectorStore.builder(embeddingModel, mappedPath).build();
+    }
+}
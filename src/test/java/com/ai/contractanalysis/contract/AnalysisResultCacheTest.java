@@ -0,0 +1,101 @@
+package com.ai.contractanalysis.contract;
+
+import com.ai.contractanalysis.issue.Importance;
+import com.ai.contractanalysis.issue.Issue;
+import com.ai.contractanalysis.issue.Issues;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AnalysisResultCacheTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void key_ShouldIgnoreWhitespaceDifferences() {
+        // Given
+        AnalysisResultCache cache = new AnalysisResultCache(10, Duration.ofHours(1), false, DataSize.ofMegabytes(100), tempDir.toString(), objectMapper);
+
+        // When & Then
+        assertEquals(cache.key("Kupní  smlouva\n čl. 1", "v1"), cache.key(" Kupní smlouva čl. 1 ", "v1"));
+        assertNotEquals(cache.key("Kupní smlouva", "v1"), cache.key("Kupní smlouva", "v2"));
+        assertNotEquals(cache.key("Kupní smlouva", "v1"), cache.key("Nájemní smlouva", "v1"));
+    }
+
+    @Test
+    void get_WithPersistence_ShouldSurviveRestart() {
+        // Given
+        Issues issues = new Issues(List.of(new Issue("passage", "recommendation", Importance.HIGH)));
+        AnalysisResultCache cache = new AnalysisResultCache(10, Duration.ofHours(1), true, DataSize.ofMegabytes(100), tempDir.toString(), objectMapper);
+        String key = cache.key("contract", "v1");
+        cache.put(key, issues);
+
+        // When
+        AnalysisResultCache restarted = new AnalysisResultCache(10, Duration.ofHours(1), true, DataSize.ofMegabytes(100), tempDir.toString(), objectMapper);
+
+        // Then
+        assertEquals(Optional.of(issues), restarted.get(key));
+        assertTrue(Files.exists(tempDir.resolve("analysis-cache").resolve(key + ".json")));
+    }
+
+    @Test
+    void get_WithoutPersistence_ShouldNotWriteFiles() {
+        // Given
+        AnalysisResultCache cache = new AnalysisResultCache(10, Duration.ofHours(1), false, DataSize.ofMegabytes(100), tempDir.toString(), objectMapper);
+
+        // When
+        cache.put(cache.key("contract"), new Issues(List.of()));
+
+        // Then
+        assertFalse(Files.exists(tempDir.resolve("analysis-cache")));
+    }
+
+    @Test
+    void bindTo_ShouldPublishHitsAndMisses() {
+        // Given
+        AnalysisResultCache cache = new AnalysisResultCache(10, Duration.ofHours(1), false, DataSize.ofMegabytes(100), tempDir.toString(), objectMapper);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        cache.bindTo(registry);
+        String key = cache.key("contract");
+
+        // When
+        cache.get(key);
+        cache.put(key, new Issues(List.of()));
+        cache.get(key);
+        cache.get(key);
+
+        // Then
+        assertEquals(2, registry.get(AnalysisResultCache.CACHE_REQUESTS)
+                .tags("cache", "analysis", "result", "hit").functionCounter().count());
+        assertEquals(1, registry.get(AnalysisResultCache.CACHE_REQUESTS)
+                .tags("cache", "analysis", "result", "miss").functionCounter().count());
+    }
+
+    @Test
+    void constructor_ShouldPruneExpiredFiles() throws Exception {
+        // Given
+        AnalysisResultCache cache = new AnalysisResultCache(10, Duration.ofMillis(1), true, DataSize.ofMegabytes(100), tempDir.toString(), objectMapper);
+        String key = cache.key("contract");
+        cache.put(key, new Issues(List.of()));
+        Thread.sleep(20);
+
+        // When
+        new AnalysisResultCache(10, Duration.ofMillis(1), true, DataSize.ofMegabytes(100), tempDir.toString(), objectMapper);
+
+        // Then
+        assertFalse(Files.exists(tempDir.resolve("analysis-cache").resolve(key + ".json")));
+    }
+}
@@ -1,19 +1,29 @@
 package com.ai.contractanalysis.contract;
 
-import com.ai.contractanalysis.step.ComplianceCheckStep;
+import com.ai.contractanalysis.issue.Issue;
 import com.ai.contractanalysis.step.ContextKey;
+import com.ai.contractanalysis.step.PipelineContext;
 import com.ai.contractanalysis.step.ReasoningStep;
+import com.ai.contractanalysis.trace.RequestIds;
 import com.ai.contractanalysis.issue.Issues;
 import com.ai.contractanalysis.utils.StepResult;
-import org.junit.jupiter.api.BeforeEach;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.ai.chat.client.ChatClient;
+import org.slf4j.MDC;
 
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -22,9 +32,6 @@ import static org.mockito.Mockito.*;
 @ExtendWith(MockitoExtension.class)
 class ContractAnalysisPipelineTest {
 
-    @Mock
-    private ChatClient.Builder chatClientBuilder;
-
     @Mock
     private ReasoningStep mockStep1;
 
@@ -32,44 +39,48 @@ class ContractAnalysisPipelineTest {
     private ReasoningStep mockStep2;
 
     @Mock
-    private ComplianceCheckStep complianceCheckStep;
+    private ReasoningStep complianceCheckStep;
 
     @Mock
     private Issues mockIssues;
 
-    private ContractAnalysisPipeline pipeline;
-
-    @BeforeEach
-    void setUp() {
-        pipeline = new ContractAnalysisPipeline(chatClientBuilder);
-    }
-
     @Test
-    void constructor_ShouldInitializeWithChatClientBuilder() {
-        // Given & When
-        ContractAnalysisPipeline newPipeline = new ContractAnalysisPipeline(chatClientBuilder);
-
-        // Then
-        assertNotNull(newPipeline);
-        assertTrue(newPipeline.getExecutionHistory().isEmpty());
-    }
+    void constructor_ShouldCopySteps() {
+        // Given
+        List<ReasoningStep> steps = new ArrayList<>(List.of(mockStep1));
 
-    @Test
-    void addStep_ShouldReturnPipelineForChaining() {
         // When
-        ContractAnalysisPipeline result = pipeline.addStep(mockStep1);
+        ContractAnalysisPipeline pipeline = new ContractAnalysisPipeline(steps);
+        steps.add(mockStep2);
 
         // Then
-        assertSame(pipeline, result);
+        assertEquals(List.of(mockStep1), pipeline.getSteps());
+        assertThrows(UnsupportedOperationException.class, () -> pipeline.getSteps().add(mockStep2));
     }
 
     @Test
-    void addStep_ShouldAllowMultipleSteps() {
+    void run_ShouldRecordStepTimersAndRunOutcome() {
+        // Given
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        when(mockStep1.getName()).thenReturn("Contract Analysis");
+        when(mockStep1.getWrites()).thenReturn(Set.of(ContextKey.CONTRACT_ANALYSIS));
+        when(mockStep1.execute(any(PipelineContext.class)))
+                .thenReturn(new StepResult("Contract Analysis", "in", "out", "ok", true));
+        when(mockStep2.getName()).thenReturn("Compliance Check");
+        when(mockStep2.getReads()).thenReturn(Set.of(ContextKey.CONTRACT_ANALYSIS));
+        when(mockStep2.execute(any(PipelineContext.class)))
+                .thenReturn(new StepResult("Compliance Check", "in", "", "Chyba", false));
+        ContractAnalysisPipeline pipeline = new ContractAnalysisPipeline(List.of(mockStep1, mockStep2), registry);
+
         // When
-        pipeline.addStep(mockStep1).addStep(mockStep2);
+        pipeline.run("test contract", PipelineListener.NONE);
 
-        // Then - no exception should be thrown and pipeline should work
-        assertNotNull(pipeline);
+        // Then
+        assertEquals(1, registry.get(ContractAnalysisPipeline.STEP_TIMER)
+                .tags("step", "Contract Analysis", "outcome", "success").timer().count());
+        assertEquals(1, registry.get(ContractAnalysisPipeline.STEP_TIMER)
+                .tags("step", "Compliance Check", "outcome", "failure").timer().count());
+        assertEquals(1, registry.get(ContractAnalysisPipeline.RUN_COUNTER).tags("outcome", "failure").counter().count());
     }
 
     @Test
@@ -79,18 +90,19 @@ class ContractAnalysisPipelineTest {
         String output = "processed contract";
         StepResult successResult = new StepResult("TestStep", input, output, null, true);
 
-        when(mockStep1.execute(eq(input), any(Map.class), eq(chatClientBuilder)))
-                .thenReturn(successResult);
+        when(mockStep1.execute(any(PipelineContext.class))).thenReturn(successResult);
 
-        pipeline.addStep(mockStep1);
+        ContractAnalysisPipeline pipeline = new ContractAnalysisPipeline(List.of(mockStep1));
 
         // When
-        Issues result = pipeline.execute(input);
+        PipelineContext context = pipeline.run(input, PipelineListener.NONE);
 
         // Then
-        assertNotNull(result);
-        assertEquals(1, pipeline.getExecutionHistory().size());
-        verify(mockStep1).execute(eq(input), any(Map.class), eq(chatClientBuilder));
+        assertNotNull(context.getIssues());
+        assertTrue(context.getIssues().issues().isEmpty());
+        assertEquals(1, context.getExecutionHistory().size());
+        assertTrue(context.isSuccessful());
+        verify(mockStep1).execute(any(PipelineContext.class));
     }
 
     @Test
@@ -99,19 +111,21 @@ class ContractAnalysisPipelineTest {
         String input = "test contract";
         StepResult failedResult = new StepResult("TestStep", input, "", "Error occurred", false);
 
-        when(mockStep1.execute(eq(input), any(Map.class), eq(chatClientBuilder)))
-                .thenReturn(failedResult);
+        when(mockStep1.execute(any(PipelineContext.class))).thenReturn(failedResult);
+        declare(mockStep1, Set.of(), Set.of(ContextKey.CONTRACT_ANALYSIS));
+        declare(mockStep2, Set.of(ContextKey.CONTRACT_ANALYSIS), Set.of());
 
-        pipeline.addStep(mockStep1).addStep(mockStep2);
+        ContractAnalysisPipeline pipeline = new ContractAnalysisPipeline(List.of(mockStep1, mockStep2));
 
         // When
-        Issues result = pipeline.execute(input);
+        PipelineContext context = pipeline.run(input, PipelineListener.NONE);
 
         // Then
-        assertNotNull(result);
-        assertEquals(1, pipeline.getExecutionHistory().size());
-        verify(mockStep1).execute(eq(input), any(Map.class), eq(chatClientBuilder));
-        verifyNoInteractions(mockStep2);
+        assertNotNull(context.getIssues());
+        assertEquals(1, context.getExecutionHistory().size());
+        assertFalse(context.isSuccessful());
+        verify(mockStep1).execute(any(PipelineContext.class));
+        verify(mockStep2, never()).execute(any(PipelineContext.class));
     }
 
     @Test
@@ -120,54 +134,102 @@ class ContractAnalysisPipelineTest {
         String input = "test contract";
         String errorMessage = "Unexpected error";
 
-        when(mockStep1.execute(eq(input), any(Map.class), eq(chatClientBuilder)))
+        when(mockStep1.execute(any(PipelineContext.class)))
                 .thenThrow(new RuntimeException(errorMessage));
         when(mockStep1.getName()).thenReturn("TestStep");
+        declare(mockStep1, Set.of(), Set.of(ContextKey.CONTRACT_ANALYSIS));
+        declare(mockStep2, Set.of(ContextKey.CONTRACT_ANALYSIS), Set.of());
 
-        pipeline.addStep(mockStep1).addStep(mockStep2);
+        ContractAnalysisPipeline pipeline = new ContractAnalysisPipeline(List.of(mockStep1, mockStep2));
 
         // When
-        Issues result = pipeline.execute(input);
+        PipelineContext context = pipeline.run(input, PipelineListener.NONE);
 
         // Then
-        assertNotNull(result);
-        assertEquals(1, pipeline.getExecutionHistory().size());
-        StepResult errorResult = pipeline.getExecutionHistory().getFirst();
+        assertEquals(1, context.getExecutionHistory().size());
+        StepResult errorResult = context.getExecutionHistory().getFirst();
         assertEquals("TestStep", errorResult.stepName());
-        assertEquals(input, errorResult.input());
         assertEquals("", errorResult.output());
         assertEquals(errorMessage, errorResult.message());
         assertFalse(errorResult.success());
 
-        verify(mockStep1).execute(eq(input), any(Map.class), eq(chatClientBuilder));
-        verifyNoInteractions(mockStep2);
+        verify(mockStep1).execute(any(PipelineContext.class));
+        verify(mockStep2, never()).execute(any(PipelineContext.class));
     }
 
     @Test
-    void execute_WithMultipleSteps_ShouldChainOutputsCorrectly() {
+    void run_WithDependentStep_ShouldRunAfterItsProducer() {
         // Given
-        String input = "test contract";
-        String intermediateOutput = "step1 output";
-        String finalOutput = "step2 output";
+        declare(mockStep1, Set.of(ContextKey.ORIGINAL_INPUT), Set.of(ContextKey.CONTRACT_ANALYSIS));
+        declare(mockStep2, Set.of(ContextKey.CONTRACT_ANALYSIS), Set.of(ContextKey.LEGAL_CONTEXT));
+
+        when(mockStep1.execute(any(PipelineContext.class))).thenAnswer(invocation -> {
+            PipelineContext context = invocation.getArgument(0);
+            Thread.sleep(20);
+            context.put(ContextKey.CONTRACT_ANALYSIS, "analysis");
+            return new StepResult("Step1", "", "analysis", null, true);
+        });
+        when(mockStep2.execute(any(PipelineContext.class))).thenAnswer(invocation -> {
+            PipelineContext context = invocation.getArgument(0);
+            String analysis = context.get(ContextKey.CONTRACT_ANALYSIS);
+            return new StepResult("Step2", analysis, "legal", null, true);
+        });
+
+        ContractAnalysisPipeline pipeline = new ContractAnalysisPipeline(List.of(mockStep1, mockStep2));
+
+        // When
+        PipelineContext context = pipeline.run("test contract", PipelineListener.NONE);
+
+        // Then
+        assertEquals(List.of(0), pipeline.getDependencies(1));
+        List<StepResult> history = context.getExecutionHistory();
+        assertEquals(List.of("Step1", "Step2"), history.stream().map(StepResult::stepName).toList());
+        assertEquals("analysis", history.get(1).input());
+    }
 
-        StepResult result1 = new StepResult("Step1", input, intermediateOutput, null, true);
-        StepResult result2 = new StepResult("Step2", intermediateOutput, finalOutput, null, true);
+    @Test
+    void run_WithIndependentSteps_ShouldRunThemConcurrently() {
+        // Given
+        declare(mockStep1, Set.of(ContextKey.ORIGINAL_INPUT), Set.of(ContextKey.CONTRACT_ANALYSIS));
+        declare(mockStep2, Set.of(ContextKey.ORIGINAL_INPUT), Set.of(ContextKey.LEGAL_CONTEXT));
+        CountDownLatch bothStarted = new CountDownLatch(2);
+
+        when(mockStep1.execute(any(PipelineContext.class))).thenAnswer(invocation -> {
+            bothStarted.countDown();
+            assertTrue(bothStarted.await(5, TimeUnit.SECONDS));
+            return new StepResult("Step1", "", "", null, true);
+        });
+        when(mockStep2.execute(any(PipelineContext.class))).thenAnswer(invocation -> {
+            bothStarted.countDown();
+            assertTrue(bothStarted.await(5, TimeUnit.SECONDS));
+            return new StepResult("Step2", "", "", null, true);
+        });
+
+        ContractAnalysisPipeline pipeline = new ContractAnalysisPipeline(List.of(mockStep1, mockStep2));
 
-        when(mockStep1.execute(eq(input), any(Map.class), eq(chatClientBuilder)))
-                .thenReturn(result1);
-        when(mockStep2.execute(eq(intermediateOutput), any(Map.class), eq(chatClientBuilder)))
-                .thenReturn(result2);
+        // When
+        PipelineContext context = pipeline.run("test contract", PipelineListener.NONE);
 
-        pipeline.addStep(mockStep1).addStep(mockStep2);
+        // Then
+        assertTrue(pipeline.getDependencies(1).isEmpty());
+        assertTrue(context.isSuccessful());
+        assertEquals(2, context.getExecutionHistory().size());
+    }
+
+    @Test
+    void constructor_WithWriteConflicts_ShouldOrderWriters() {
+        // Given
+        declare(mockStep1, Set.of(ContextKey.LEGAL_CONTEXT), Set.of(ContextKey.COMPLIANCE_ISSUES));
+        declare(mockStep2, Set.of(), Set.of(ContextKey.COMPLIANCE_ISSUES));
+        declare(complianceCheckStep, Set.of(), Set.of(ContextKey.LEGAL_CONTEXT));
 
         // When
-        Issues result = pipeline.execute(input);
+        ContractAnalysisPipeline pipeline = new ContractAnalysisPipeline(
+                List.of(mockStep1, mockStep2, complianceCheckStep));
 
         // Then
-        assertNotNull(result);
-        assertEquals(2, pipeline.getExecutionHistory().size());
-        verify(mockStep1).execute(eq(input), any(Map.class), eq(chatClientBuilder));
-        verify(mockStep2).execute(eq(intermediateOutput), any(Map.class), eq(chatClientBuilder));
+        assertEquals(List.of(0), pipeline.getDependencies(1));
+        assertEquals(List.of(0), pipeline.getDependencies(2));
     }
 
     @Test
@@ -176,20 +238,20 @@ class ContractAnalysisPipelineTest {
         String input = "test contract";
         StepResult successResult = new StepResult("TestStep", input, "output", null, true);
 
-        when(mockStep1.execute(eq(input), any(Map.class), eq(chatClientBuilder)))
+        when(mockStep1.execute(any(PipelineContext.class)))
                 .thenAnswer(invocation -> {
-                    Map<ContextKey, Object> context = invocation.getArgument(1);
+                    PipelineContext context = invocation.getArgument(0);
                     assertEquals(input, context.get(ContextKey.ORIGINAL_INPUT));
                     return successResult;
                 });
 
-        pipeline.addStep(mockStep1);
+        ContractAnalysisPipeline pipeline = new ContractAnalysisPipeline(List.of(mockStep1));
 
         // When
         pipeline.execute(input);
 
         // Then
-        verify(mockStep1).execute(eq(input), any(Map.class), eq(chatClientBuilder));
+        verify(mockStep1).execute(any(PipelineContext.class));
     }
 
     @Test
@@ -200,27 +262,27 @@ class ContractAnalysisPipelineTest {
         StepResult complianceResult = new StepResult("ComplianceCheck", "pre-output", "compliance-output", null, true);
         StepResult result3 = new StepResult("PostStep", "compliance-output", "final-output", null, true);
 
-        when(mockStep1.execute(eq(input), any(Map.class), eq(chatClientBuilder)))
-                .thenReturn(result1);
-        when(complianceCheckStep.execute(eq("pre-output"), any(Map.class), eq(chatClientBuilder)))
+        when(mockStep1.execute(any(PipelineContext.class))).thenReturn(result1);
+        when(complianceCheckStep.execute(any(PipelineContext.class)))
                 .thenAnswer(invocation -> {
-                    Map<ContextKey, Object> context = invocation.getArgument(1);
+                    PipelineContext context = invocation.getArgument(0);
                     context.put(ContextKey.COMPLIANCE_ISSUES, mockIssues);
                     return complianceResult;
                 });
-        when(mockStep2.execute(eq("compliance-output"), any(Map.class), eq(chatClientBuilder)))
-                .thenReturn(result3);
+        when(mockStep2.execute(any(PipelineContext.class))).thenReturn(result3);
+        declare(mockStep1, Set.of(), Set.of(ContextKey.CONTRACT_ANALYSIS));
+        declare(complianceCheckStep, Set.of(ContextKey.CONTRACT_ANALYSIS), Set.of(ContextKey.COMPLIANCE_ISSUES));
+        declare(mockStep2, Set.of(ContextKey.COMPLIANCE_ISSUES), Set.of());
 
-        pipeline.addStep(mockStep1)
-                .addStep(complianceCheckStep)
-                .addStep(mockStep2);
+        ContractAnalysisPipeline pipeline = new ContractAnalysisPipeline(
+                List.of(mockStep1, complianceCheckStep, mockStep2));
 
         // When
-        Issues result = pipeline.execute(input);
+        PipelineContext context = pipeline.run(input, PipelineListener.NONE);
 
         // Then
-        assertSame(mockIssues, result);
-        assertEquals(3, pipeline.getExecutionHistory().size());
+        assertSame(mockIssues, context.getIssues());
+        assertEquals(3, context.getExecutionHistory().size());
     }
 
     @Test
@@ -229,18 +291,133 @@ class ContractAnalysisPipelineTest {
         String input = "test contract";
         StepResult successResult = new StepResult("TestStep", input, "output", null, true);
 
-        when(mockStep1.execute(eq(input), any(Map.class), eq(chatClientBuilder)))
-                .thenReturn(successResult);
+        when(mockStep1.execute(any(PipelineContext.class))).thenReturn(successResult);
 
-        pipeline.addStep(mockStep1);
-        pipeline.execute(input);
+        ContractAnalysisPipeline pipeline = new ContractAnalysisPipeline(List.of(mockStep1));
+        PipelineContext context = pipeline.run(input, PipelineListener.NONE);
 
         // When
-        List<StepResult> history = pipeline.getExecutionHistory();
+        List<StepResult> history = context.getExecutionHistory();
 
         // Then
         assertNotNull(history);
         assertEquals(1, history.size());
         assertEquals("TestStep", history.getFirst().stepName());
+        assertThrows(UnsupportedOperationException.class, () -> history.add(successResult));
+    }
+
+    @Test
+    void execute_WithListener_ShouldReportEachStepResult() {
+        // Given
+        String input = "test contract";
+        StepResult result1 = new StepResult("Step1", input, "step1 output", null, true);
+        StepResult result2 = new StepResult("Step2", "step1 output", "", "Error occurred", false);
+        PipelineListener listener = mock(PipelineListener.class);
+
+        when(mockStep1.execute(any(PipelineContext.class))).thenReturn(result1);
+        when(mockStep2.execute(any(PipelineContext.class))).thenReturn(result2);
+        declare(mockStep1, Set.of(), Set.of(ContextKey.CONTRACT_ANALYSIS));
+        declare(mockStep2, Set.of(ContextKey.CONTRACT_ANALYSIS), Set.of());
+
+        ContractAnalysisPipeline pipeline = new ContractAnalysisPipeline(List.of(mockStep1, mockStep2));
+
+        // When
+        pipeline.run(input, listener);
+
+        // Then
+        verify(listener).onStepCompleted(result1);
+        verify(listener).onStepCompleted(result2);
+        verifyNoMoreInteractions(listener);
+    }
+
+    @Test
+    void run_WithListener_ShouldExposeIssueListenerToSteps() {
+        // Given
+        Issue issue = new Issue("passage", "recommendation", null);
+        PipelineListener listener = mock(PipelineListener.class);
+        when(mockStep1.execute(any(PipelineContext.class))).thenAnswer(invocation -> {
+            PipelineContext context = invocation.getArgument(0);
+            context.getIssueListener().accept(issue);
+            return new StepResult("Step1", "in", "out", null, true);
+        });
+
+        ContractAnalysisPipeline pipeline = new ContractAnalysisPipeline(List.of(mockStep1));
+
+        // When
+        pipeline.run("contract", listener);
+
+        // Then
+        verify(listener).onIssue(issue);
+    }
+
+    @Test
+    void run_Concurrently_ShouldKeepContextsIsolated() throws Exception {
+        // Given
+        when(mockStep1.execute(any(PipelineContext.class))).thenAnswer(invocation -> {
+            PipelineContext context = invocation.getArgument(0);
+            String input = context.get(ContextKey.ORIGINAL_INPUT);
+            context.put(ContextKey.CONTRACT_ANALYSIS, "analysis of " + input);
+            Thread.sleep(1);
+            return new StepResult("Step1", input, (String) context.get(ContextKey.CONTRACT_ANALYSIS), null, true);
+        });
+
+        ContractAnalysisPipeline pipeline = new ContractAnalysisPipeline(List.of(mockStep1));
+        List<Callable<PipelineContext>> runs = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            String input = "contract " + i;
+            runs.add(() -> pipeline.run(input, PipelineListener.NONE));
+        }
+
+        // When
+        List<Future<PipelineContext>> results;
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            results = executor.invokeAll(runs);
+        }
+
+        // Then
+        for (int i = 0; i < results.size(); i++) {
+            PipelineContext context = results.get(i).get();
+            assertEquals("analysis of contract " + i, context.get(ContextKey.CONTRACT_ANALYSIS));
+            assertEquals(1, context.getExecutionHistory().size());
+        }
+    }
+
+    private static void declare(ReasoningStep step, Set<ContextKey> reads, Set<ContextKey> writes) {
+        lenient().when(step.getReads()).thenReturn(reads);
+        lenient().when(step.getWrites()).thenReturn(writes);
+    }
+
+    @Test
+    void run_ShouldPropagateMdcToSteps() {
+        // Given
+        AtomicReference<String> observed = new AtomicReference<>();
+        when(mockStep1.getName()).thenReturn("Contract Analysis");
+        when(mockStep1.execute(any(PipelineContext.class))).thenAnswer(invocation -> {
+            observed.set(MDC.get(RequestIds.MDC_KEY));
+            return new StepResult("Contract Analysis", "in", "out", "ok", true);
+        });
+        ContractAnalysisPipeline pipeline = new ContractAnalysisPipeline(List.of(mockStep1));
+
+        // When
+        MDC.put(RequestIds.MDC_KEY, "req-1");
+        try {
+            pipeline.run("test contract", PipelineListener.NONE);
+        } finally {
+            MDC.remove(RequestIds.MDC_KEY);
+        }
+
+        // Then
+        assertEquals("req-1", observed.get());
+    }
+
+    @Test
+    void getPromptVersion_ShouldChangeWithStepPrompts() {
+        // Given
+        when(mockStep1.getName()).thenReturn("Step1");
+        when(mockStep1.getPromptVersion()).thenReturn("a", "b");
+        ContractAnalysisPipeline pipeline = new ContractAnalysisPipeline(List.of(mockStep1));
+
+        // When & Then
+        assertNotEquals(pipeline.getPromptVersion(), pipeline.getPromptVersion());
     }
-}
\ No newline at end of file
+}
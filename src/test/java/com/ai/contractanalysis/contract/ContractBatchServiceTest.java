@@ -0,0 +1,173 @@
+package com.ai.contractanalysis.contract;
+
+import com.ai.contractanalysis.issue.Importance;
+import com.ai.contractanalysis.issue.Issue;
+import com.ai.contractanalysis.issue.Issues;
+import com.ai.contractanalysis.utils.BoundedVirtualThreadExecutor;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+@ExtendWith(MockitoExtension.class)
+class ContractBatchServiceTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Mock
+    private ContractAnalysisService contractAnalysisService;
+
+    private BoundedVirtualThreadExecutor executor;
+
+    @BeforeEach
+    void setUp() {
+        executor = new BoundedVirtualThreadExecutor("test-", 8);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.close();
+    }
+
+    @Test
+    void analyzeBatch_WithFilesAndZip_ShouldStreamOneLinePerContract() throws Exception {
+        // Given
+        Issues issues = new Issues(List.of(new Issue("passage", "recommendation", Importance.HIGH)));
+        when(contractAnalysisService.analyze(any(MultipartFile.class))).thenAnswer(invocation -> {
+            MultipartFile file = invocation.getArgument(0);
+            if (file.getOriginalFilename().equals("broken.pdf")) {
+                throw new IllegalArgumentException("Chyba při čtení souboru: broken.pdf");
+            }
+            return new AnalysisResult(issues, file.getOriginalFilename().equals("first.pdf"));
+        });
+
+        MockMultipartFile first = new MockMultipartFile("files", "first.pdf", MediaType.APPLICATION_PDF_VALUE, "a".getBytes());
+        MockMultipartFile broken = new MockMultipartFile("files", "broken.pdf", MediaType.APPLICATION_PDF_VALUE, "b".getBytes());
+        MockMultipartFile archive = new MockMultipartFile("files", "portfolio.zip", "application/zip",
+                zip("smlouvy/najem.docx", "smlouvy/", "__MACOSX/smlouvy/._najem.docx", "kupni.pdf"));
+
+        // When
+        List<JsonNode> lines = perform(service(2, 100), first, broken, archive);
+
+        // Then
+        assertEquals(4, lines.size());
+        assertEquals(List.of(0, 1, 2, 3), lines.stream().map(line -> line.get("index").asInt()).sorted().toList());
+        JsonNode error = lines.stream().filter(line -> line.get("fileName").asText().equals("broken.pdf")).findFirst().orElseThrow();
+        assertEquals("Chyba při čtení souboru: broken.pdf", error.get("error").asText());
+        assertTrue(lines.stream().anyMatch(line -> line.get("fileName").asText().equals("smlouvy/najem.docx")
+                && line.get("issues").get("issues").size() == 1));
+        assertTrue(lines.stream().anyMatch(line -> line.get("fileName").asText().equals("first.pdf")
+                && line.get("truncated").asBoolean()));
+        verify(contractAnalysisService, times(4)).analyze(any(MultipartFile.class));
+    }
+
+    @Test
+    void analyzeBatch_ShouldRespectConcurrencyLimit() throws Exception {
+        // Given
+        AtomicInteger active = new AtomicInteger();
+        AtomicInteger maxActive = new AtomicInteger();
+        when(contractAnalysisService.analyze(any(MultipartFile.class))).thenAnswer(invocation -> {
+            maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+            Thread.sleep(20);
+            active.decrementAndGet();
+            return new AnalysisResult(new Issues(List.of()), false);
+        });
+        List<MockMultipartFile> files = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            files.add(new MockMultipartFile("files", "contract" + i + ".pdf", MediaType.APPLICATION_PDF_VALUE, "x".getBytes()));
+        }
+
+        // When
+        List<JsonNode> lines = perform(service(2, 100), files.toArray(MockMultipartFile[]::new));
+
+        // Then
+        assertEquals(6, lines.size());
+        assertTrue(maxActive.get() <= 2);
+    }
+
+    @Test
+    void analyzeBatch_OverFileLimit_ShouldReportError() throws Exception {
+        // Given
+        when(contractAnalysisService.analyze(any(MultipartFile.class))).thenReturn(new AnalysisResult(new Issues(List.of()), false));
+        MockMultipartFile first = new MockMultipartFile("files", "a.pdf", MediaType.APPLICATION_PDF_VALUE, "a".getBytes());
+        MockMultipartFile second = new MockMultipartFile("files", "b.pdf", MediaType.APPLICATION_PDF_VALUE, "b".getBytes());
+
+        // When
+        List<JsonNode> lines = perform(service(4, 1), first, second);
+
+        // Then
+        assertEquals(2, lines.size());
+        assertTrue(lines.getLast().get("error").asText().contains("Překročen maximální počet souborů"));
+        verify(contractAnalysisService, times(1)).analyze(any(MultipartFile.class));
+    }
+
+    private ContractBatchService service(int maxConcurrency, int maxFiles) {
+        return new ContractBatchService(contractAnalysisService, executor, objectMapper,
+                maxConcurrency, maxFiles, DataSize.ofMegabytes(1), Duration.ofSeconds(10));
+    }
+
+    private List<JsonNode> perform(ContractBatchService batchService, MockMultipartFile... files) throws Exception {
+        MockMvc mockMvc = MockMvcBuilders
+                .standaloneSetup(new ContractController(contractAnalysisService, batchService))
+                .build();
+        var builder = multipart("/api/v1/contracts/analyze/batch");
+        for (MockMultipartFile file : files) {
+            builder.file(file);
+        }
+
+        MvcResult result = mockMvc.perform(builder)
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        result.getAsyncResult(5000);
+        assertTrue(MediaType.APPLICATION_NDJSON.isCompatibleWith(MediaType.parseMediaType(result.getResponse().getContentType())));
+
+        List<JsonNode> lines = new ArrayList<>();
+        for (String line : result.getResponse().getContentAsString(StandardCharsets.UTF_8).split("\n")) {
+            if (!line.isBlank()) {
+                lines.add(objectMapper.readTree(line));
+            }
+        }
+        return lines;
+    }
+
+    private static byte[] zip(String... names) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(out)) {
+            for (String name : names) {
+                zip.putNextEntry(new ZipEntry(name));
+                if (!name.endsWith("/")) {
+                    zip.write(("obsah " + name).getBytes());
+                }
+                zip.closeEntry();
+            }
+        }
+        return out.toByteArray();
+    }
+}
@@ -28,6 +28,9 @@ class ContractControllerTest {
     @Mock
     private ContractAnalysisService contractAnalysisService;
 
+    @Mock
+    private ContractBatchService contractBatchService;
+
     @Mock
     private Issues mockIssues;
 
@@ -36,14 +39,14 @@ class ContractControllerTest {
 
     @BeforeEach
     void setUp() {
-        controller = new ContractController(contractAnalysisService);
+        controller = new ContractController(contractAnalysisService, contractBatchService);
         mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
     }
 
     @Test
     void constructor_ShouldInitializeWithService() {
         // When
-        ContractController newController = new ContractController(contractAnalysisService);
+        ContractController newController = new ContractController(contractAnalysisService, contractBatchService);
 
         // Then
         assertNotNull(newController);
@@ -59,14 +62,14 @@ class ContractControllerTest {
                 "test contract content".getBytes()
         );
 
-        when(contractAnalysisService.analyze(any(MultipartFile.class))).thenReturn(mockIssues);
+        when(contractAnalysisService.analyze(any(MultipartFile.class))).thenReturn(new AnalysisResult(mockIssues, false));
 
         // When
-        ResponseEntity<Issues> response = controller.analyzeContract(mockFile);
+        ResponseEntity<AnalysisResult> response = controller.analyzeContract(mockFile);
 
         // Then
         assertEquals(HttpStatus.OK, response.getStatusCode());
-        assertSame(mockIssues, response.getBody());
+        assertSame(mockIssues, response.getBody().issues());
         verify(contractAnalysisService).analyze(mockFile);
     }
 
@@ -80,14 +83,14 @@ class ContractControllerTest {
                 new byte[0]
         );
 
-        when(contractAnalysisService.analyze(any(MultipartFile.class))).thenReturn(mockIssues);
+        when(contractAnalysisService.analyze(any(MultipartFile.class))).thenReturn(new AnalysisResult(mockIssues, false));
 
         // When
-        ResponseEntity<Issues> response = controller.analyzeContract(emptyFile);
+        ResponseEntity<AnalysisResult> response = controller.analyzeContract(emptyFile);
 
         // Then
         assertEquals(HttpStatus.OK, response.getStatusCode());
-        assertSame(mockIssues, response.getBody());
+        assertSame(mockIssues, response.getBody().issues());
         verify(contractAnalysisService).analyze(emptyFile);
     }
 
@@ -122,12 +125,12 @@ class ContractControllerTest {
         MockMultipartFile txtFile = new MockMultipartFile(
                 "file", "contract.txt", MediaType.TEXT_PLAIN_VALUE, "text content".getBytes());
 
-        when(contractAnalysisService.analyze(any(MultipartFile.class))).thenReturn(mockIssues);
+        when(contractAnalysisService.analyze(any(MultipartFile.class))).thenReturn(new AnalysisResult(mockIssues, false));
 
         // When
-        ResponseEntity<Issues> pdfResponse = controller.analyzeContract(pdfFile);
-        ResponseEntity<Issues> docResponse = controller.analyzeContract(docFile);
-        ResponseEntity<Issues> txtResponse = controller.analyzeContract(txtFile);
+        ResponseEntity<AnalysisResult> pdfResponse = controller.analyzeContract(pdfFile);
+        ResponseEntity<AnalysisResult> docResponse = controller.analyzeContract(docFile);
+        ResponseEntity<AnalysisResult> txtResponse = controller.analyzeContract(txtFile);
 
         // Then
         assertEquals(HttpStatus.OK, pdfResponse.getStatusCode());
@@ -150,14 +153,15 @@ class ContractControllerTest {
         );
 
         Issues testIssues = new Issues(Collections.emptyList());
-        when(contractAnalysisService.analyze(any(MultipartFile.class))).thenReturn(testIssues);
+        when(contractAnalysisService.analyze(any(MultipartFile.class))).thenReturn(new AnalysisResult(testIssues, false));
 
         // When & Then
         mockMvc.perform(multipart("/api/v1/contracts/analyze")
                         .file(mockFile))
                 .andExpect(status().isOk())
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON))
-                .andExpect(jsonPath("$.issues").exists());
+                .andExpect(jsonPath("$.issues").exists())
+                .andExpect(jsonPath("$.truncated").value(false));
 
         verify(contractAnalysisService).analyze(any(MultipartFile.class));
     }
@@ -201,7 +205,7 @@ class ContractControllerTest {
         );
 
         Issues testIssues = new Issues(Collections.emptyList());
-        when(contractAnalysisService.analyze(any(MultipartFile.class))).thenReturn(testIssues);
+        when(contractAnalysisService.analyze(any(MultipartFile.class))).thenReturn(new AnalysisResult(testIssues, false));
 
         // When & Then
         mockMvc.perform(multipart("/api/v1/contracts/analyze")
@@ -223,18 +227,18 @@ class ContractControllerTest {
         Issues issues1 = mock(Issues.class);
         Issues issues2 = mock(Issues.class);
 
-        when(contractAnalysisService.analyze(file1)).thenReturn(issues1);
-        when(contractAnalysisService.analyze(file2)).thenReturn(issues2);
+        when(contractAnalysisService.analyze(file1)).thenReturn(new AnalysisResult(issues1, false));
+        when(contractAnalysisService.analyze(file2)).thenReturn(new AnalysisResult(issues2, false));
 
         // When
-        ResponseEntity<Issues> response1 = controller.analyzeContract(file1);
-        ResponseEntity<Issues> response2 = controller.analyzeContract(file2);
+        ResponseEntity<AnalysisResult> response1 = controller.analyzeContract(file1);
+        ResponseEntity<AnalysisResult> response2 = controller.analyzeContract(file2);
 
         // Then
         assertEquals(HttpStatus.OK, response1.getStatusCode());
         assertEquals(HttpStatus.OK, response2.getStatusCode());
-        assertSame(issues1, response1.getBody());
-        assertSame(issues2, response2.getBody());
+        assertSame(issues1, response1.getBody().issues());
+        assertSame(issues2, response2.getBody().issues());
 
         verify(contractAnalysisService).analyze(file1);
         verify(contractAnalysisService).analyze(file2);
@@ -247,7 +251,7 @@ class ContractControllerTest {
                 "file", "test.pdf", MediaType.APPLICATION_PDF_VALUE, "content".getBytes());
 
         Issues testIssues = new Issues(Collections.emptyList());
-        when(contractAnalysisService.analyze(any(MultipartFile.class))).thenReturn(testIssues);
+        when(contractAnalysisService.analyze(any(MultipartFile.class))).thenReturn(new AnalysisResult(testIssues, false));
 
         // When & Then - Test correct endpoint path
         mockMvc.perform(multipart("/api/v1/contracts/analyze")
@@ -282,7 +286,7 @@ class ContractControllerTest {
         );
 
         Issues testIssues = new Issues(Collections.emptyList());
-        when(contractAnalysisService.analyze(any(MultipartFile.class))).thenReturn(testIssues);
+        when(contractAnalysisService.analyze(any(MultipartFile.class))).thenReturn(new AnalysisResult(testIssues, false));
 
         // When & Then
         mockMvc.perform(multipart("/api/v1/contracts/analyze")
@@ -0,0 +1,144 @@
+package com.ai.contractanalysis.contract;
+
+import com.ai.contractanalysis.issue.Importance;
+import com.ai.contractanalysis.issue.Issue;
+import com.ai.contractanalysis.issue.Issues;
+import com.ai.contractanalysis.utils.BoundedVirtualThreadExecutor;
+import com.ai.contractanalysis.utils.ExtractedText;
+import com.ai.contractanalysis.utils.FileConverter;
+import com.ai.contractanalysis.utils.StepResult;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@ExtendWith(MockitoExtension.class)
+class ContractStreamControllerTest {
+
+    @Mock
+    private ContractAnalysisService contractAnalysisService;
+
+    @Mock
+    private FileConverter fileConverter;
+
+    private BoundedVirtualThreadExecutor executor;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        executor = new BoundedVirtualThreadExecutor("test-", 2);
+        ContractStreamController controller = new ContractStreamController(
+                contractAnalysisService, fileConverter, executor, Duration.ofSeconds(10));
+        mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.close();
+    }
+
+    @Test
+    void streamAnalysis_ShouldEmitStepIssueAndCompleteEvents() throws Exception {
+        // Given
+        MockMultipartFile mockFile = new MockMultipartFile(
+                "file", "contract.pdf", MediaType.APPLICATION_PDF_VALUE, "content".getBytes());
+        Issue issue = new Issue("passage", "recommendation", Importance.HIGH);
+
+        when(fileConverter.extract(any(MultipartFile.class))).thenReturn(new ExtractedText("contract", false, 1_000_000));
+        when(contractAnalysisService.analyzeText(eq("contract"), any(PipelineListener.class)))
+                .thenAnswer(invocation -> {
+                    PipelineListener listener = invocation.getArgument(1);
+                    listener.onStepCompleted(new StepResult("Contract Analysis", "in", "out", "ok", true));
+                    listener.onIssue(issue);
+                    return new Issues(List.of(issue));
+                });
+
+        // When
+        MvcResult result = mockMvc.perform(multipart("/api/v1/contracts/analyze/stream").file(mockFile))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        result.getAsyncResult(5000);
+
+        // Then
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        int step = body.indexOf("event:step");
+        int issueEvent = body.indexOf("event:issue");
+        int complete = body.indexOf("event:complete");
+        assertTrue(step >= 0 && issueEvent > step && complete > issueEvent, body);
+        assertFalse(body.contains("\"out\""), "step payloads must not be streamed");
+    }
+
+    @Test
+    void streamAnalysis_WithTruncatedText_ShouldEmitWarningAndFlagResult() throws Exception {
+        // Given
+        MockMultipartFile mockFile = new MockMultipartFile(
+                "file", "contract.pdf", MediaType.APPLICATION_PDF_VALUE, "content".getBytes());
+        when(fileConverter.extract(any(MultipartFile.class))).thenReturn(new ExtractedText("contract", true, 8));
+        when(contractAnalysisService.analyzeText(eq("contract"), any(PipelineListener.class)))
+                .thenReturn(new Issues(List.of()));
+
+        // When
+        MvcResult result = mockMvc.perform(multipart("/api/v1/contracts/analyze/stream").file(mockFile))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        result.getAsyncResult(5000);
+
+        // Then
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+        int warning = body.indexOf("event:warning");
+        int complete = body.indexOf("event:complete");
+        assertTrue(warning >= 0 && complete > warning, body);
+        assertTrue(body.contains("\"truncated\":true"), body);
+    }
+
+    @Test
+    void streamAnalysis_WhenAnalysisFails_ShouldEmitErrorEvent() throws Exception {
+        // Given
+        MockMultipartFile mockFile = new MockMultipartFile(
+                "file", "contract.pdf", MediaType.APPLICATION_PDF_VALUE, "content".getBytes());
+        when(fileConverter.extract(any(MultipartFile.class))).thenReturn(new ExtractedText("contract", false, 1_000_000));
+        when(contractAnalysisService.analyzeText(eq("contract"), any(PipelineListener.class)))
+                .thenThrow(new RuntimeException("boom"));
+
+        // When
+        MvcResult result = mockMvc.perform(multipart("/api/v1/contracts/analyze/stream").file(mockFile))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        result.getAsyncResult(5000);
+
+        // Then
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+        assertTrue(body.contains("event:error"), body);
+        assertTrue(body.contains("boom"), body);
+    }
+}
@@ -0,0 +1,69 @@
+package com.ai.contractanalysis.issue;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IssueStreamParserTest {
+
+    private List<Issue> emitted;
+    private IssueStreamParser parser;
+
+    @BeforeEach
+    void setUp() {
+        emitted = new ArrayList<>();
+        parser = new IssueStreamParser(new ObjectMapper(), emitted::add);
+    }
+
+    @Test
+    void feed_ShouldEmitIssueOnlyAfterItsObjectIsClosed() {
+        // When
+        parser.feed("{\"issues\":[{\"passage\":\"A\",\"recommendation\":\"B\"");
+
+        // Then
+        assertTrue(emitted.isEmpty());
+
+        // When
+        parser.feed(",\"importance\":\"MEDIUM\"}");
+
+        // Then
+        assertEquals(List.of(new Issue("A", "B", Importance.MEDIUM)), emitted);
+    }
+
+    @Test
+    void feed_ShouldIgnoreBracesAndQuotesInsideStrings() {
+        // When
+        parser.feed("```json\n{\"issues\":[{\"passage\":\"Čl. [1] {\\\"x\\\"}\",");
+        parser.feed("\"recommendation\":\"}]\",\"importance\":\"LOW\"}]}\n```");
+
+        // Then
+        assertEquals(1, emitted.size());
+        assertEquals("Čl. [1] {\"x\"}", emitted.getFirst().passage());
+        assertEquals("}]", emitted.getFirst().recommendation());
+    }
+
+    @Test
+    void feed_ShouldSupportTopLevelArray() {
+        // When
+        parser.feed("[{\"passage\":\"A\",\"recommendation\":\"B\",\"importance\":\"HIGH\"},");
+        parser.feed("{\"passage\":\"C\",\"recommendation\":\"D\",\"importance\":\"LOW\"}]");
+
+        // Then
+        assertEquals(2, emitted.size());
+        assertEquals("C", emitted.get(1).passage());
+    }
+
+    @Test
+    void feed_ShouldSkipObjectsThatAreNotIssues() {
+        // When
+        parser.feed("{\"issues\":[{\"unknown\":true},{\"passage\":\"A\",\"recommendation\":\"B\",\"importance\":\"HIGH\"}]}");
+
+        // Then
+        assertEquals(List.of(new Issue("A", "B", Importance.HIGH)), emitted);
+    }
+}
@@ -0,0 +1,97 @@
+package com.ai.contractanalysis.job;
+
+import com.ai.contractanalysis.issue.Importance;
+import com.ai.contractanalysis.issue.Issue;
+import com.ai.contractanalysis.issue.Issues;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@ExtendWith(MockitoExtension.class)
+class AnalysisJobControllerTest {
+
+    @Mock
+    private AnalysisJobService analysisJobService;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.standaloneSetup(new AnalysisJobController(analysisJobService)).build();
+    }
+
+    @Test
+    void submitAnalysis_ShouldReturnAcceptedWithJobLocation() throws Exception {
+        // Given
+        MockMultipartFile mockFile = new MockMultipartFile(
+                "file", "contract.pdf", MediaType.APPLICATION_PDF_VALUE, "content".getBytes());
+        when(analysisJobService.submit(any(MultipartFile.class)))
+                .thenReturn(AnalysisJob.pending("job-1", false, Instant.now()));
+
+        // When & Then
+        mockMvc.perform(multipart("/api/v1/contracts/analyze")
+                        .file(mockFile)
+                        .param("async", "true"))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", "/api/v1/contracts/jobs/job-1"))
+                .andExpect(jsonPath("$.id").value("job-1"))
+                .andExpect(jsonPath("$.status").value("PENDING"));
+    }
+
+    @Test
+    void submitAnalysis_WhenQueueIsFull_ShouldReturnServiceUnavailable() throws Exception {
+        // Given
+        MockMultipartFile mockFile = new MockMultipartFile(
+                "file", "contract.pdf", MediaType.APPLICATION_PDF_VALUE, "content".getBytes());
+        when(analysisJobService.submit(any(MultipartFile.class))).thenThrow(new RejectedExecutionException("full"));
+
+        // When & Then
+        mockMvc.perform(multipart("/api/v1/contracts/analyze")
+                        .file(mockFile)
+                        .param("async", "true"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "30"));
+    }
+
+    @Test
+    void getJob_WhenCompleted_ShouldReturnIssues() throws Exception {
+        // Given
+        Issues issues = new Issues(List.of(new Issue("passage", "recommendation", Importance.HIGH)));
+        AnalysisJob job = AnalysisJob.pending("job-1", false, Instant.now()).completed(issues, Instant.now());
+        when(analysisJobService.find("job-1")).thenReturn(Optional.of(job));
+
+        // When & Then
+        mockMvc.perform(get("/api/v1/contracts/jobs/job-1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("COMPLETED"))
+                .andExpect(jsonPath("$.issues.issues[0].importance").value("HIGH"));
+    }
+
+    @Test
+    void getJob_WithUnknownId_ShouldReturnNotFound() throws Exception {
+        // Given
+        when(analysisJobService.find("missing")).thenReturn(Optional.empty());
+
+        // When & Then
+        mockMvc.perform(get("/api/v1/contracts/jobs/missing"))
+                .andExpect(status().isNotFound());
+    }
+}
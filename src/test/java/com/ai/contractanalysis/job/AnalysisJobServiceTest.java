@@ -0,0 +1,202 @@
+package com.ai.contractanalysis.job;
+
+import com.ai.contractanalysis.contract.ContractAnalysisService;
+import com.ai.contractanalysis.issue.Issues;
+import com.ai.contractanalysis.utils.BoundedVirtualThreadExecutor;
+import com.ai.contractanalysis.utils.ExtractedText;
+import com.ai.contractanalysis.utils.FileConverter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AnalysisJobServiceTest {
+
+    @Mock
+    private ContractAnalysisService contractAnalysisService;
+
+    @Mock
+    private FileConverter fileConverter;
+
+    @Mock
+    private MultipartFile multipartFile;
+
+    private BoundedVirtualThreadExecutor executor;
+    private AnalysisJobService service;
+
+    @BeforeEach
+    void setUp() {
+        executor = new BoundedVirtualThreadExecutor("test-", 2);
+        service = new AnalysisJobService(contractAnalysisService, fileConverter, executor, Duration.ofHours(1), Duration.ofHours(24));
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.close();
+    }
+
+    @Test
+    void submit_ShouldReturnPendingJobAndCompleteInBackground() throws Exception {
+        // Given
+        Issues issues = new Issues(List.of());
+        CountDownLatch release = new CountDownLatch(1);
+        when(fileConverter.extract(multipartFile)).thenReturn(new ExtractedText("contract", false, 1_000_000));
+        when(contractAnalysisService.analyzeText("contract")).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return issues;
+        });
+
+        // When
+        AnalysisJob job = service.submit(multipartFile);
+
+        // Then
+        assertEquals(JobStatus.PENDING, job.status());
+        assertFalse(service.find(job.id()).orElseThrow().status().isFinished());
+
+        release.countDown();
+        AnalysisJob finished = awaitFinished(job.id());
+        assertEquals(JobStatus.COMPLETED, finished.status());
+        assertSame(issues, finished.issues());
+        assertNotNull(finished.finishedAt());
+    }
+
+    @Test
+    void submit_WhenAnalysisFails_ShouldMarkJobAsFailed() throws Exception {
+        // Given
+        when(fileConverter.extract(multipartFile)).thenReturn(new ExtractedText("contract", false, 1_000_000));
+        when(contractAnalysisService.analyzeText("contract")).thenThrow(new RuntimeException("LLM unavailable"));
+
+        // When
+        AnalysisJob job = service.submit(multipartFile);
+
+        // Then
+        AnalysisJob finished = awaitFinished(job.id());
+        assertEquals(JobStatus.FAILED, finished.status());
+        assertEquals("LLM unavailable", finished.error());
+        assertNull(finished.issues());
+    }
+
+    @Test
+    void submit_WhenExtractionFails_ShouldPropagateWithoutCreatingJob() {
+        // Given
+        when(fileConverter.extract(multipartFile)).thenThrow(new IllegalArgumentException("Nepodporovaný typ souboru"));
+
+        // When & Then
+        assertThrows(IllegalArgumentException.class, () -> service.submit(multipartFile));
+        verifyNoInteractions(contractAnalysisService);
+    }
+
+    @Test
+    void find_WithUnknownId_ShouldReturnEmpty() {
+        assertTrue(service.find("unknown").isEmpty());
+    }
+
+    @Test
+    void submit_ShouldEvictFinishedJobsAfterRetention() throws Exception {
+        // Given
+        service = new AnalysisJobService(contractAnalysisService, fileConverter, executor, Duration.ofMillis(200), Duration.ofHours(24));
+        when(fileConverter.extract(multipartFile)).thenReturn(new ExtractedText("contract", false, 1_000_000));
+        when(contractAnalysisService.analyzeText("contract")).thenReturn(new Issues(List.of()));
+
+        AnalysisJob first = service.submit(multipartFile);
+        awaitFinished(first.id());
+        Thread.sleep(250);
+
+        // When
+        service.submit(multipartFile);
+
+        // Then
+        assertTrue(service.find(first.id()).isEmpty());
+    }
+
+    @Test
+    void find_ShouldEvictFinishedJobsAfterRetention() throws Exception {
+        // Given
+        service = new AnalysisJobService(contractAnalysisService, fileConverter, executor, Duration.ofMillis(200), Duration.ofHours(24));
+        when(fileConverter.extract(multipartFile)).thenReturn(new ExtractedText("contract", false, 1_000_000));
+        when(contractAnalysisService.analyzeText("contract")).thenReturn(new Issues(List.of()));
+
+        AnalysisJob job = service.submit(multipartFile);
+        awaitFinished(job.id());
+        Thread.sleep(250);
+
+        // When & Then
+        assertTrue(service.find(job.id()).isEmpty());
+    }
+
+    @Test
+    void submit_WhenQueueIsFull_ShouldRejectWithoutKeepingJob() throws Exception {
+        // Given
+        BoundedVirtualThreadExecutor full = new BoundedVirtualThreadExecutor("test-", 1, 0, Duration.ofSeconds(1));
+        service = new AnalysisJobService(contractAnalysisService, fileConverter, full, Duration.ofHours(1), Duration.ofHours(24));
+        CountDownLatch release = new CountDownLatch(1);
+        when(fileConverter.extract(multipartFile)).thenReturn(new ExtractedText("contract", false, 1_000_000));
+        when(contractAnalysisService.analyzeText("contract")).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return new Issues(List.of());
+        });
+
+        try {
+            AnalysisJob first = service.submit(multipartFile);
+
+            // When & Then
+            assertThrows(RejectedExecutionException.class, () -> service.submit(multipartFile));
+            release.countDown();
+            assertEquals(JobStatus.COMPLETED, awaitFinished(first.id()).status());
+        } finally {
+            full.close();
+        }
+    }
+
+    @Test
+    void close_ShouldFailJobsStillWaitingInQueue() throws Exception {
+        // Given
+        BoundedVirtualThreadExecutor single = new BoundedVirtualThreadExecutor("test-", 1, 10, Duration.ofSeconds(1));
+        service = new AnalysisJobService(contractAnalysisService, fileConverter, single, Duration.ofHours(1), Duration.ofHours(24));
+        CountDownLatch started = new CountDownLatch(1);
+        when(fileConverter.extract(multipartFile)).thenReturn(new ExtractedText("contract", false, 1_000_000));
+        when(contractAnalysisService.analyzeText("contract")).thenAnswer(invocation -> {
+            started.countDown();
+            Thread.sleep(10_000);
+            return new Issues(List.of());
+        });
+
+        AnalysisJob running = service.submit(multipartFile);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        AnalysisJob queued = service.submit(multipartFile);
+
+        // When
+        single.close();
+
+        // Then
+        assertEquals(JobStatus.FAILED, awaitFinished(running.id()).status());
+        AnalysisJob cancelled = awaitFinished(queued.id());
+        assertEquals(JobStatus.FAILED, cancelled.status());
+        assertEquals("Analýza byla přerušena", cancelled.error());
+    }
+
+    private AnalysisJob awaitFinished(String id) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (System.nanoTime() < deadline) {
+            AnalysisJob job = service.find(id).orElseThrow();
+            if (job.status().isFinished()) {
+                return job;
+            }
+            Thread.sleep(10);
+        }
+        return fail("Job " + id + " did not finish in time");
+    }
+}
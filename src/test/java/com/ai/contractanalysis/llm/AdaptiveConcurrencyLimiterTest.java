@@ -0,0 +1,308 @@
+package com.ai.contractanalysis.llm;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.retry.NonTransientAiException;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    private final AtomicLong clock = new AtomicLong();
+
+    @Test
+    void onSuccess_WhenLimitIsUtilized_ShouldIncreaseLimit() throws Exception {
+        // Given
+        AdaptiveConcurrencyLimiter limiter = limiter(2, 10);
+
+        // When
+        for (int i = 0; i < 4; i++) {
+            AdaptiveConcurrencyLimiter.Permit first = limiter.acquire();
+            AdaptiveConcurrencyLimiter.Permit second = limiter.acquire();
+            first.onSuccess();
+            first.close();
+            second.onSuccess();
+            second.close();
+        }
+
+        // Then
+        assertTrue(limiter.getLimit() > 2);
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    void onRateLimited_WithConcurrentPermits_ShouldDecreaseOnlyOnce() throws Exception {
+        // Given
+        AdaptiveConcurrencyLimiter limiter = limiter(8, 10);
+        AdaptiveConcurrencyLimiter.Permit first = limiter.acquire();
+        AdaptiveConcurrencyLimiter.Permit second = limiter.acquire();
+        clock.addAndGet(10);
+
+        // When
+        first.onRateLimited();
+        second.onRateLimited();
+
+        // Then
+        assertEquals(4, limiter.getLimit());
+
+        // When
+        first.close();
+        second.close();
+        clock.addAndGet(10);
+        AdaptiveConcurrencyLimiter.Permit third = limiter.acquire();
+        third.onRateLimited();
+        third.close();
+
+        // Then
+        assertEquals(2, limiter.getLimit());
+    }
+
+    @Test
+    void onSuccess_WithSlowResponse_ShouldDecreaseLimit() throws Exception {
+        // Given
+        AdaptiveConcurrencyLimiter limiter = limiter(8, 10);
+        AdaptiveConcurrencyLimiter.Permit permit = limiter.acquire();
+
+        // When
+        clock.addAndGet(Duration.ofSeconds(61).toNanos());
+        permit.onSuccess();
+        permit.close();
+
+        // Then
+        assertEquals(4, limiter.getLimit());
+    }
+
+    @Test
+    void onRateLimited_ShouldNotGoBelowMinimum() throws Exception {
+        // Given
+        AdaptiveConcurrencyLimiter limiter = limiter(2, 10);
+
+        // When
+        for (int i = 0; i < 5; i++) {
+            clock.addAndGet(10);
+            try (AdaptiveConcurrencyLimiter.Permit permit = limiter.acquire()) {
+                permit.onRateLimited();
+            }
+        }
+
+        // Then
+        assertEquals(1, limiter.getLimit());
+    }
+
+    @Test
+    void acquire_OverLimit_ShouldQueueCallersInArrivalOrder() throws Exception {
+        // Given
+        AdaptiveConcurrencyLimiter limiter = limiter(1, 1);
+        AdaptiveConcurrencyLimiter.Permit holder = limiter.acquire();
+        List<Integer> order = new CopyOnWriteArrayList<>();
+
+        // When
+        Thread first = Thread.ofVirtual().start(() -> acquireAndRecord(limiter, order, 1));
+        awaitQueueDepth(limiter, 1);
+        Thread second = Thread.ofVirtual().start(() -> acquireAndRecord(limiter, order, 2));
+        awaitQueueDepth(limiter, 2);
+        holder.close();
+        first.join(5000);
+        second.join(5000);
+
+        // Then
+        assertEquals(List.of(1, 2), order);
+        assertEquals(0, limiter.getQueueDepth());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    void call_WithRateLimitError_ShouldDecreaseLimitAndRethrow() {
+        // Given
+        AdaptiveConcurrencyLimiter limiter = limiter(8, 10);
+        clock.addAndGet(10);
+
+        // When
+        NonTransientAiException exception = assertThrows(NonTransientAiException.class, () -> limiter.call(() -> {
+            throw new NonTransientAiException("HTTP 429 - Rate limit reached");
+        }));
+
+        // Then
+        assertTrue(exception.getMessage().startsWith("HTTP 429"));
+        assertEquals(4, limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    void call_WithOtherError_ShouldKeepLimit() {
+        // Given
+        AdaptiveConcurrencyLimiter limiter = limiter(8, 10);
+
+        // When
+        assertThrows(IllegalStateException.class, () -> limiter.call(() -> {
+            throw new IllegalStateException("HTTP 500 - Server error");
+        }));
+
+        // Then
+        assertEquals(8, limiter.getLimit());
+    }
+
+    @Test
+    void isRateLimited_ShouldInspectCauseChain() {
+        assertTrue(RateLimits.isRateLimited(new IllegalStateException("wrapper", new RuntimeException("429 Too Many Requests"))));
+        assertFalse(RateLimits.isRateLimited(new IllegalStateException("HTTP 400 - Bad request")));
+    }
+
+    @Test
+    void advisor_ShouldReleasePermitAfterCallAndStream() {
+        // Given
+        AdaptiveConcurrencyLimiter limiter = limiter(2, 10);
+        ChatModel chatModel = mock(ChatModel.class);
+        ChatResponse response = new ChatResponse(List.of(new Generation(new AssistantMessage("odpověď"))));
+        when(chatModel.call(any(Prompt.class))).thenReturn(response);
+        when(chatModel.stream(any(Prompt.class))).thenReturn(Flux.just(response, response));
+        ConcurrencyLimitAdvisor advisor = new ConcurrencyLimitAdvisor(limiter);
+        ChatClient chatClient = ChatClient.builder(chatModel)
+                .defaultAdvisors(advisor)
+                .build();
+
+        // When
+        String called = chatClient.prompt().user("smlouva").call().content();
+        List<String> streamed = chatClient.prompt().user("smlouva").stream().content().collectList().block();
+        advisor.close();
+
+        // Then
+        assertEquals("odpověď", called);
+        assertEquals(List.of("odpověď", "odpověď"), streamed);
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    void advisor_WhenStreamIsCancelledWhileWaiting_ShouldNotLeakPermit() throws Exception {
+        // Given
+        AdaptiveConcurrencyLimiter limiter = limiter(1, 1);
+        ChatModel chatModel = mock(ChatModel.class);
+        ChatResponse response = new ChatResponse(List.of(new Generation(new AssistantMessage("odpověď"))));
+        lenient().when(chatModel.stream(any(Prompt.class))).thenReturn(Flux.just(response));
+        ConcurrencyLimitAdvisor advisor = new ConcurrencyLimitAdvisor(limiter);
+        ChatClient chatClient = ChatClient.builder(chatModel)
+                .defaultAdvisors(advisor)
+                .build();
+        AdaptiveConcurrencyLimiter.Permit held = limiter.acquire();
+        Disposable subscription = chatClient.prompt().user("smlouva").stream().content().subscribe();
+        awaitQueueDepth(limiter, 1);
+
+        // When
+        subscription.dispose();
+        held.close();
+
+        // Then
+        for (int i = 0; i < 500 && (limiter.getInFlight() > 0 || limiter.getQueueDepth() > 0); i++) {
+            Thread.sleep(10);
+        }
+        advisor.close();
+        assertEquals(0, limiter.getInFlight());
+        assertEquals(0, limiter.getQueueDepth());
+    }
+
+    @Test
+    void advisor_WithRateLimitedCall_ShouldReleasePermitAndRetry() {
+        // Given
+        AdaptiveConcurrencyLimiter limiter = limiter(4, 10);
+        ChatModel chatModel = mock(ChatModel.class);
+        ChatResponse response = new ChatResponse(List.of(new Generation(new AssistantMessage("odpověď"))));
+        List<Integer> inFlight = new CopyOnWriteArrayList<>();
+        when(chatModel.call(any(Prompt.class)))
+                .thenThrow(new NonTransientAiException("HTTP 429 - Rate limit reached"))
+                .thenAnswer(invocation -> {
+                    inFlight.add(limiter.getInFlight());
+                    return response;
+                });
+        ConcurrencyLimitAdvisor advisor = new ConcurrencyLimitAdvisor(limiter, 3, Duration.ofMillis(1), 2,
+                Duration.ofMillis(10));
+        ChatClient chatClient = ChatClient.builder(chatModel)
+                .defaultAdvisors(advisor)
+                .build();
+
+        // When
+        String called = chatClient.prompt().user("smlouva").call().content();
+        advisor.close();
+
+        // Then
+        assertEquals("odpověď", called);
+        verify(chatModel, times(2)).call(any(Prompt.class));
+        assertEquals(List.of(1), inFlight);
+        assertEquals(2, limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    void advisor_WithRateLimitedStream_ShouldRetryUntilMaxAttempts() {
+        // Given
+        AdaptiveConcurrencyLimiter limiter = limiter(4, 10);
+        ChatModel chatModel = mock(ChatModel.class);
+        ChatResponse response = new ChatResponse(List.of(new Generation(new AssistantMessage("odpověď"))));
+        when(chatModel.stream(any(Prompt.class)))
+                .thenReturn(Flux.error(new NonTransientAiException("HTTP 429 - Rate limit reached")))
+                .thenReturn(Flux.just(response));
+        ConcurrencyLimitAdvisor advisor = new ConcurrencyLimitAdvisor(limiter, 2, Duration.ofMillis(1), 2,
+                Duration.ofMillis(10));
+        ChatClient chatClient = ChatClient.builder(chatModel)
+                .defaultAdvisors(advisor)
+                .build();
+
+        // When
+        List<String> streamed = chatClient.prompt().user("smlouva").stream().content().collectList().block();
+        when(chatModel.stream(any(Prompt.class)))
+                .thenReturn(Flux.error(new NonTransientAiException("HTTP 429 - Rate limit reached")));
+        Flux<String> exhausted = chatClient.prompt().user("smlouva").stream().content();
+
+        // Then
+        assertEquals(List.of("odpověď"), streamed);
+        assertThrows(NonTransientAiException.class, exhausted::blockLast);
+        verify(chatModel, times(4)).stream(any(Prompt.class));
+        advisor.close();
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    void backoff_ShouldGrowExponentiallyUpToMaximum() {
+        // Given
+        ConcurrencyLimitAdvisor advisor = new ConcurrencyLimitAdvisor(limiter(1, 1), 10, Duration.ofSeconds(2), 5,
+                Duration.ofMinutes(3));
+
+        // Then
+        assertEquals(Duration.ofSeconds(2), advisor.backoff(1));
+        assertEquals(Duration.ofSeconds(10), advisor.backoff(2));
+        assertEquals(Duration.ofMinutes(3), advisor.backoff(5));
+        advisor.close();
+    }
+
+    private AdaptiveConcurrencyLimiter limiter(int initialLimit, int maxLimit) {
+        return new AdaptiveConcurrencyLimiter(initialLimit, 1, maxLimit, 0.5, Duration.ofSeconds(60), clock::get);
+    }
+
+    private static void acquireAndRecord(AdaptiveConcurrencyLimiter limiter, List<Integer> order, int id) {
+        try (AdaptiveConcurrencyLimiter.Permit permit = limiter.acquire()) {
+            order.add(id);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void awaitQueueDepth(AdaptiveConcurrencyLimiter limiter, int depth) throws InterruptedException {
+        for (int i = 0; i < 500 && limiter.getQueueDepth() < depth; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(depth, limiter.getQueueDepth());
+    }
+}
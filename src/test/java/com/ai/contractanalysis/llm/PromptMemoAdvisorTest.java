@@ -0,0 +1,105 @@
+package com.ai.contractanalysis.llm;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.ChatOptions;
+import org.springframework.ai.chat.prompt.Prompt;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class PromptMemoAdvisorTest {
+
+    private ChatModel chatModel;
+    private SimpleMeterRegistry registry;
+    private PromptMemoAdvisor advisor;
+    private ChatClient chatClient;
+
+    @BeforeEach
+    void setUp() {
+        chatModel = mock(ChatModel.class);
+        when(chatModel.call(any(Prompt.class)))
+                .thenAnswer(invocation -> new ChatResponse(List.of(new Generation(new AssistantMessage("odpověď")))));
+
+        registry = new SimpleMeterRegistry();
+        advisor = new PromptMemoAdvisor(10, Duration.ofHours(1), "gpt-4o", registry);
+        chatClient = ChatClient.builder(chatModel).defaultAdvisors(advisor).build();
+    }
+
+    @Test
+    void adviseCall_WithIdenticalPrompt_ShouldReuseResponse() {
+        // When
+        String first = call("Contract Analysis", "smlouva");
+        String second = call("Contract Analysis", "smlouva");
+
+        // Then
+        assertEquals("odpověď", first);
+        assertEquals("odpověď", second);
+        verify(chatModel, times(1)).call(any(Prompt.class));
+        assertEquals(new PromptMemoAdvisor.MemoStats(1, 1), advisor.getStats().get("Contract Analysis"));
+        assertEquals(1, registry.get(PromptMemoAdvisor.REQUESTS_COUNTER)
+                .tags("step", "Contract Analysis", "result", "hit").functionCounter().count());
+        assertEquals(1, registry.get(PromptMemoAdvisor.REQUESTS_COUNTER)
+                .tags("step", "Contract Analysis", "result", "miss").functionCounter().count());
+    }
+
+    @Test
+    void adviseCall_WithDifferentStepOrPrompt_ShouldCallModel() {
+        // When
+        call("Contract Analysis", "smlouva");
+        call("Law Retrieval", "smlouva");
+        call("Contract Analysis", "jiná smlouva");
+
+        // Then
+        verify(chatModel, times(3)).call(any(Prompt.class));
+        assertEquals(3, advisor.size());
+    }
+
+    @Test
+    void adviseCall_WithDifferentModelOptions_ShouldCallModel() {
+        // When
+        chatClient.prompt()
+                .advisors(spec -> spec.param(AdvisorParams.STEP_NAME, "Contract Analysis"))
+                .options(ChatOptions.builder().temperature(0.0).build())
+                .user("smlouva")
+                .call()
+                .content();
+        chatClient.prompt()
+                .advisors(spec -> spec.param(AdvisorParams.STEP_NAME, "Contract Analysis"))
+                .options(ChatOptions.builder().temperature(0.7).build())
+                .user("smlouva")
+                .call()
+                .content();
+
+        // Then
+        verify(chatModel, times(2)).call(any(Prompt.class));
+    }
+
+    @Test
+    void adviseCall_WithoutStepName_ShouldUseUnknownStep() {
+        // When
+        chatClient.prompt().user("smlouva").call().content();
+
+        // Then
+        assertEquals(new PromptMemoAdvisor.MemoStats(0, 1), advisor.getStats().get(AdvisorParams.UNKNOWN_STEP));
+    }
+
+    private String call(String stepName, String user) {
+        return chatClient.prompt()
+                .advisors(spec -> spec.param(AdvisorParams.STEP_NAME, stepName))
+                .system("systém")
+                .user(user)
+                .call()
+                .content();
+    }
+}
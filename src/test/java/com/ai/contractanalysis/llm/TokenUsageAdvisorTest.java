@@ -0,0 +1,105 @@
+package com.ai.contractanalysis.llm;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.metadata.ChatResponseMetadata;
+import org.springframework.ai.chat.metadata.DefaultUsage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class TokenUsageAdvisorTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final ChatModel chatModel = mock(ChatModel.class);
+
+    @Test
+    void adviseCall_ShouldCountTokensByStepAndModel() {
+        // Given
+        when(chatModel.call(any(Prompt.class))).thenReturn(response("odpověď", 120, 30));
+        ChatClient chatClient = ChatClient.builder(chatModel)
+                .defaultAdvisors(new TokenUsageAdvisor(registry, "gpt-4o"))
+                .build();
+
+        // When
+        call(chatClient, "Contract Analysis");
+        call(chatClient, "Contract Analysis");
+
+        // Then
+        assertEquals(240, count("Contract Analysis", "prompt"));
+        assertEquals(60, count("Contract Analysis", "completion"));
+    }
+
+    @Test
+    void adviseStream_ShouldCountUsageFromLastChunk() {
+        // Given
+        when(chatModel.stream(any(Prompt.class))).thenReturn(Flux.just(
+                response("první", 0, 0), response("druhá", 0, 0), response("", 80, 20)));
+        ChatClient chatClient = ChatClient.builder(chatModel)
+                .defaultAdvisors(new TokenUsageAdvisor(registry, "gpt-4o"))
+                .build();
+
+        // When
+        chatClient.prompt()
+                .advisors(spec -> spec.param(AdvisorParams.STEP_NAME, "Compliance Check"))
+                .user("smlouva")
+                .stream()
+                .content()
+                .blockLast(Duration.ofSeconds(5));
+
+        // Then
+        assertEquals(80, count("Compliance Check", "prompt"));
+        assertEquals(20, count("Compliance Check", "completion"));
+    }
+
+    @Test
+    void adviseCall_WithMemoizedResponse_ShouldNotCountTokensTwice() {
+        // Given
+        when(chatModel.call(any(Prompt.class))).thenReturn(response("odpověď", 100, 10));
+        ChatClient chatClient = ChatClient.builder(chatModel)
+                .defaultAdvisors(new PromptMemoAdvisor(10, Duration.ofHours(1), "gpt-4o", registry),
+                        new TokenUsageAdvisor(registry, "gpt-4o"))
+                .build();
+
+        // When
+        call(chatClient, "Contract Analysis");
+        call(chatClient, "Contract Analysis");
+
+        // Then
+        assertEquals(100, count("Contract Analysis", "prompt"));
+    }
+
+    private void call(ChatClient chatClient, String stepName) {
+        chatClient.prompt()
+                .advisors(spec -> spec.param(AdvisorParams.STEP_NAME, stepName))
+                .user("smlouva")
+                .call()
+                .content();
+    }
+
+    private double count(String stepName, String type) {
+        return registry.get(TokenUsageAdvisor.TOKEN_COUNTER)
+                .tags("step", stepName, "model", "gpt-4o-2024-08-06", "type", type)
+                .counter()
+                .count();
+    }
+
+    private static ChatResponse response(String text, int promptTokens, int completionTokens) {
+        ChatResponseMetadata metadata = ChatResponseMetadata.builder()
+                .model("gpt-4o-2024-08-06")
+                .usage(new DefaultUsage(promptTokens, completionTokens))
+                .build();
+        return new ChatResponse(List.of(new Generation(new AssistantMessage(text))), metadata);
+    }
+}
@@ -0,0 +1,253 @@
+package com.ai.contractanalysis.loadtest;
+
+import com.ai.contractanalysis.ContractAnalysisApplication;
+import com.ai.contractanalysis.utils.SupportedFileType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.poi.xwpf.usermodel.XWPFDocument;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Zátěžový test celé aplikace proti {@link OpenAiStub}. Spustí stub a aplikaci s přesměrovaným
+ * {@code spring.ai.openai.base-url}, posílá smlouvy na {@code /api/v1/contracts/analyze}
+ * se zadanou souběžností a vypíše propustnost, percentily doby odpovědi a podíl chyb.
+ * <p>
+ * Volby harnessu začínají {@code --load.}, volby stubu {@code --stub.}; ostatní argumenty
+ * (např. {@code --analysis.retrieval.mode=direct}) dostane aplikace. Pokud v classpath nejsou
+ * žádné zákony, vygeneruje se {@code --load.laws} syntetických ustanovení.
+ */
+public final class LoadTestHarness {
+    private static final String BOUNDARY = "loadtest-boundary";
+
+    private LoadTestHarness() {
+    }
+
+    public record Report(int requests, int concurrency, long durationMs, double throughput,
+                         double p50Ms, double p90Ms, double p99Ms, double maxMs, double errorRate,
+                         Map<String, Long> outcomes, OpenAiStub.Stats stub) {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new LinkedHashMap<>();
+        List<String> appArgs = new ArrayList<>();
+        for (String arg : args) {
+            if (arg.startsWith("--load.") || arg.startsWith("--stub.")) {
+                int separator = arg.indexOf('=');
+                options.put(arg.substring(2, separator), arg.substring(separator + 1));
+            } else if (!arg.isBlank()) {
+                appArgs.add(arg);
+            }
+        }
+        String extraArgs = options.getOrDefault("load.app-args", "");
+        if (!extraArgs.isBlank()) {
+            appArgs.addAll(Arrays.asList(extraArgs.strip().split("\\s+")));
+        }
+
+        int concurrency = Integer.parseInt(options.getOrDefault("load.concurrency", "8"));
+        int requests = Integer.parseInt(options.getOrDefault("load.requests", "200"));
+        int warmup = Integer.parseInt(options.getOrDefault("load.warmup", "10"));
+        boolean unique = Boolean.parseBoolean(options.getOrDefault("load.unique", "true"));
+        int articles = Integer.parseInt(options.getOrDefault("load.articles", "20"));
+        Path result = Paths.get(options.getOrDefault("load.result", "target/loadtest-result.json"));
+        OpenAiStub.Settings settings = new OpenAiStub.Settings(
+                Duration.parse(options.getOrDefault("stub.latency-median", "PT2S")),
+                Double.parseDouble(options.getOrDefault("stub.latency-sigma", "0.5")),
+                Integer.parseInt(options.getOrDefault("stub.completion-tokens", "400")),
+                Double.parseDouble(options.getOrDefault("stub.rate-limit-rate", "0")),
+                Integer.parseInt(options.getOrDefault("stub.max-concurrency", "0")),
+                Duration.parse(options.getOrDefault("stub.embedding-latency", "PT0.05S")),
+                Integer.parseInt(options.getOrDefault("stub.embedding-dimensions", "1536")));
+
+        Path dataDir = Files.createTempDirectory("loadtest-");
+        try (OpenAiStub stub = OpenAiStub.start(settings)) {
+            List<String> arguments = new ArrayList<>(List.of(
+                    "--server.port=0",
+                    "--spring.ai.openai.base-url=" + stub.baseUrl(),
+                    "--spring.ai.openai.api-key=loadtest",
+                    "--vector.store.path=" + dataDir));
+            arguments.addAll(appArgs);
+
+            SpringApplication application = new SpringApplication(ContractAnalysisApplication.class);
+            if (LoadTestHarness.class.getResource("/data/laws/") == null) {
+                // Bez vlastních zákonů v classpath se použije vygenerovaný korpus.
+                application.setResourceLoader(new DefaultResourceLoader(new URLClassLoader(
+                        new URL[]{laws(dataDir.resolve("laws"), Integer.parseInt(options.getOrDefault("load.laws", "200")))},
+                        LoadTestHarness.class.getClassLoader())));
+            }
+
+            try (ConfigurableApplicationContext context = application.run(arguments.toArray(String[]::new))) {
+                URI uri = URI.create("http://localhost:"
+                        + context.getEnvironment().getProperty("local.server.port")
+                        + "/api/v1/contracts/analyze");
+
+                // Soubory se připraví předem, aby jejich generování nezkreslovalo měření.
+                List<byte[]> bodies = new ArrayList<>();
+                for (int i = 0; i < (unique ? warmup + requests : 1); i++) {
+                    bodies.add(multipart("smlouva-" + i + ".docx", contract(i, articles)));
+                }
+
+                HttpClient client = HttpClient.newBuilder()
+                        .executor(Executors.newVirtualThreadPerTaskExecutor())
+                        .build();
+                run(client, uri, bodies, 0, warmup, concurrency, new long[warmup], new ConcurrentHashMap<>());
+
+                Map<String, LongAdder> outcomes = new ConcurrentHashMap<>();
+                long[] latencies = new long[requests];
+                long start = System.nanoTime();
+                run(client, uri, bodies, unique ? warmup : 0, requests, concurrency, latencies, outcomes);
+                long duration = System.nanoTime() - start;
+
+                Report report = report(requests, concurrency, duration, latencies, outcomes, stub.stats());
+                print(report);
+                Files.createDirectories(result.toAbsolutePath().getParent());
+                new ObjectMapper().writerWithDefaultPrettyPrinter().writeValue(result.toFile(), report);
+                System.out.println("Výsledek uložen do " + result.toAbsolutePath());
+            }
+        }
+    }
+
+    private static void run(HttpClient client, URI uri, List<byte[]> bodies, int offset, int requests,
+                            int concurrency, long[] latencies, Map<String, LongAdder> outcomes) {
+        AtomicInteger next = new AtomicInteger();
+        try (ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int w = 0; w < concurrency; w++) {
+                workers.submit(() -> {
+                    for (int i = next.getAndIncrement(); i < requests; i = next.getAndIncrement()) {
+                        byte[] body = bodies.get(bodies.size() == 1 ? 0 : offset + i);
+                        long start = System.nanoTime();
+                        String outcome = send(client, uri, body);
+                        latencies[i] = System.nanoTime() - start;
+                        outcomes.computeIfAbsent(outcome, key -> new LongAdder()).increment();
+                    }
+                });
+            }
+        }
+    }
+
+    private static String send(HttpClient client, URI uri, byte[] body) {
+        HttpRequest request = HttpRequest.newBuilder(uri)
+                .header("Content-Type", "multipart/form-data; boundary=" + BOUNDARY)
+                .timeout(Duration.ofMinutes(10))
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+                .build();
+        try {
+            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200) {
+                return "http-" + response.statusCode();
+            }
+            // Selhaný běh pipeline vrací 200 s prázdným seznamem problémů.
+            return response.body().contains("\"passage\"") ? "ok" : "empty";
+        } catch (IOException e) {
+            return e.getClass().getSimpleName();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return "interrupted";
+        }
+    }
+
+    private static Report report(int requests, int concurrency, long durationNanos, long[] latencies,
+                                 Map<String, LongAdder> outcomes, OpenAiStub.Stats stats) {
+        long[] sorted = latencies.clone();
+        Arrays.sort(sorted);
+        Map<String, Long> counts = new TreeMap<>();
+        outcomes.forEach((outcome, count) -> counts.put(outcome, count.sum()));
+        long errors = requests - counts.getOrDefault("ok", 0L);
+        return new Report(requests, concurrency, durationNanos / 1_000_000,
+                requests / (durationNanos / 1e9),
+                percentile(sorted, 0.50), percentile(sorted, 0.90), percentile(sorted, 0.99),
+                sorted.length == 0 ? 0 : sorted[sorted.length - 1] / 1e6,
+                requests == 0 ? 0 : (double) errors / requests, counts, stats);
+    }
+
+    private static double percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(quantile * sorted.length);
+        return sorted[Math.max(0, rank - 1)] / 1e6;
+    }
+
+    private static void print(Report report) {
+        System.out.printf("""
+
+                Požadavků:      %d (souběžnost %d)
+                Doba:           %.1f s
+                Propustnost:    %.2f req/s
+                Doba odpovědi:  p50 %.0f ms, p90 %.0f ms, p99 %.0f ms, max %.0f ms
+                Chybovost:      %.2f %% %s
+                OpenAI stub:    %d volání modelu (%d × 429), %d volání embeddings, %d + %d tokenů
+                %n""",
+                report.requests(), report.concurrency(), report.durationMs() / 1000.0, report.throughput(),
+                report.p50Ms(), report.p90Ms(), report.p99Ms(), report.maxMs(),
+                report.errorRate() * 100, report.outcomes(),
+                report.stub().chatRequests(), report.stub().rateLimited(), report.stub().embeddingRequests(),
+                report.stub().promptTokens(), report.stub().completionTokens());
+    }
+
+    private static URL laws(Path root, int count) throws IOException {
+        List<Map<String, String>> laws = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            laws.add(Map.of(
+                    "name", "Občanský zákoník § " + (2200 + i),
+                    "requirement", "Nájemce je povinen platit nájemné a služby spojené s užíváním bytu; ujednání, "
+                            + "které ukládá nájemci smluvní pokutu vyšší než " + i + " % nebo zkracuje výpovědní dobu, "
+                            + "se nepřihlíží."));
+        }
+        Path directory = Files.createDirectories(root.resolve("data").resolve("laws"));
+        new ObjectMapper().writeValue(directory.resolve("loadtest-laws.json").toFile(), laws);
+        return root.toUri().toURL();
+    }
+
+    private static byte[] contract(int index, int articles) throws IOException {
+        try (XWPFDocument document = new XWPFDocument();
+             ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+            document.createParagraph().createRun().setText("Nájemní smlouva č. " + index);
+            for (int article = 1; article <= articles; article++) {
+                document.createParagraph().createRun().setText("Článek " + article);
+                document.createParagraph().createRun().setText(
+                        "Nájemce platí nájemné ve výši " + (10_000 + article * 100) + " Kč měsíčně, vždy do 15. dne měsíce.");
+                document.createParagraph().createRun().setText(
+                        "Smluvní pokuta za prodlení činí " + article + " % dlužné částky za každý den prodlení.");
+            }
+            document.write(out);
+            return out.toByteArray();
+        }
+    }
+
+    private static byte[] multipart(String fileName, byte[] content) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream(content.length + 256);
+        body.write(("--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"file\"; filename=\"" + fileName + "\"\r\n"
+                + "Content-Type: " + SupportedFileType.DOCX.getMediaType() + "\r\n\r\n")
+                .getBytes(StandardCharsets.UTF_8));
+        body.write(content);
+        body.write(("\r\n--" + BOUNDARY + "--\r\n").getBytes(StandardCharsets.UTF_8));
+        return body.toByteArray();
+    }
+}
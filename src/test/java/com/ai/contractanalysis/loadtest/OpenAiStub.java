@@ -0,0 +1,268 @@
+package com.ai.contractanalysis.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lokální náhrada OpenAI API ({@code /v1/chat/completions} včetně streamování a {@code /v1/embeddings})
+ * pro zátěžové testy bez spotřeby kvóty. Doba odpovědi modelu má log-normální rozdělení kolem
+ * {@code latencyMedian}; odpověď 429 se vrací náhodně s pravděpodobností {@code rateLimitRate}
+ * a vždy, když souběžných volání modelu je více než {@code maxConcurrency}.
+ */
+public class OpenAiStub implements AutoCloseable {
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final int STREAM_CHUNKS = 10;
+    static final String CONTENT = """
+            {"issues":[
+              {"passage":"Smluvní pokuta za prodlení s placením nájemného činí 1 % denně.",
+               "recommendation":"Snížit smluvní pokutu na přiměřenou výši.","importance":"HIGH"},
+              {"passage":"Pronajímatel může nájem vypovědět bez udání důvodu.",
+               "recommendation":"Doplnit výpovědní důvody podle § 2288 občanského zákoníku.","importance":"MEDIUM"}
+            ]}""";
+
+    /**
+     * @param latencyMedian       medián doby odpovědi modelu
+     * @param latencySigma        rozptyl log-normálního rozdělení, {@code 0} pro konstantní dobu
+     * @param completionTokens    počet tokenů odpovědi hlášený v {@code usage}
+     * @param rateLimitRate       pravděpodobnost odpovědi 429 (0–1)
+     * @param maxConcurrency      počet souběžných volání modelu, nad který se vrací 429, {@code 0} bez omezení
+     * @param embeddingLatency    doba odpovědi embeddings API
+     * @param embeddingDimensions rozměr vracených vektorů
+     */
+    public record Settings(Duration latencyMedian, double latencySigma, int completionTokens,
+                           double rateLimitRate, int maxConcurrency,
+                           Duration embeddingLatency, int embeddingDimensions) {
+
+        public static Settings defaults() {
+            return new Settings(Duration.ofSeconds(2), 0.5, 400, 0, 0, Duration.ofMillis(50), 1536);
+        }
+    }
+
+    public record Stats(long chatRequests, long embeddingRequests, long rateLimited,
+                        long promptTokens, long completionTokens) {
+    }
+
+    private final Settings settings;
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong chatRequests = new AtomicLong();
+    private final AtomicLong embeddingRequests = new AtomicLong();
+    private final AtomicLong rateLimited = new AtomicLong();
+    private final AtomicLong promptTokens = new AtomicLong();
+    private final AtomicLong completionTokens = new AtomicLong();
+
+    private OpenAiStub(Settings settings) throws IOException {
+        this.settings = settings;
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/v1/chat/completions", this::chat);
+        server.createContext("/v1/embeddings", this::embeddings);
+        server.setExecutor(executor);
+    }
+
+    public static OpenAiStub start(Settings settings) throws IOException {
+        OpenAiStub stub = new OpenAiStub(settings);
+        stub.server.start();
+        return stub;
+    }
+
+    /**
+     * Hodnota pro {@code spring.ai.openai.base-url}.
+     */
+    public String baseUrl() {
+        return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort();
+    }
+
+    public Stats stats() {
+        return new Stats(chatRequests.get(), embeddingRequests.get(), rateLimited.get(),
+                promptTokens.get(), completionTokens.get());
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void chat(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            JsonNode request = OBJECT_MAPPER.readTree(exchange.getRequestBody());
+            chatRequests.incrementAndGet();
+            int concurrent = inFlight.incrementAndGet();
+            try {
+                if ((settings.maxConcurrency() > 0 && concurrent > settings.maxConcurrency())
+                        || ThreadLocalRandom.current().nextDouble() < settings.rateLimitRate()) {
+                    rateLimited.incrementAndGet();
+                    rateLimit(exchange);
+                    return;
+                }
+
+                int prompt = estimatePromptTokens(request);
+                promptTokens.addAndGet(prompt);
+                completionTokens.addAndGet(settings.completionTokens());
+                String model = request.path("model").asText("gpt-4o");
+                Duration latency = sampleLatency();
+
+                if (request.path("stream").asBoolean()) {
+                    stream(exchange, model, prompt, latency,
+                            request.path("stream_options").path("include_usage").asBoolean());
+                } else {
+                    sleep(latency);
+                    Map<String, Object> message = Map.of("role", "assistant", "content", CONTENT);
+                    Map<String, Object> response = completion("chat.completion", model,
+                            List.of(Map.of("index", 0, "message", message, "finish_reason", "stop")));
+                    response.put("usage", usage(prompt, settings.completionTokens()));
+                    writeJson(exchange, 200, response);
+                }
+            } finally {
+                inFlight.decrementAndGet();
+            }
+        }
+    }
+
+    private void stream(HttpExchange exchange, String model, int prompt, Duration latency, boolean includeUsage)
+            throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "text/event-stream");
+        exchange.sendResponseHeaders(200, 0);
+        OutputStream out = exchange.getResponseBody();
+        int chunkLength = (CONTENT.length() + STREAM_CHUNKS - 1) / STREAM_CHUNKS;
+        for (int from = 0; from < CONTENT.length(); from += chunkLength) {
+            sleep(latency.dividedBy(STREAM_CHUNKS));
+            Map<String, Object> delta = new LinkedHashMap<>();
+            if (from == 0) {
+                delta.put("role", "assistant");
+            }
+            delta.put("content", CONTENT.substring(from, Math.min(CONTENT.length(), from + chunkLength)));
+            Map<String, Object> choice = new LinkedHashMap<>();
+            choice.put("index", 0);
+            choice.put("delta", delta);
+            choice.put("finish_reason", from + chunkLength >= CONTENT.length() ? "stop" : null);
+            event(out, completion("chat.completion.chunk", model, List.of(choice)));
+        }
+        if (includeUsage) {
+            Map<String, Object> usage = completion("chat.completion.chunk", model, List.of());
+            usage.put("usage", usage(prompt, settings.completionTokens()));
+            event(out, usage);
+        }
+        out.write("data: [DONE]\n\n".getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+
+    private void embeddings(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            JsonNode request = OBJECT_MAPPER.readTree(exchange.getRequestBody());
+            embeddingRequests.incrementAndGet();
+            sleep(settings.embeddingLatency());
+
+            JsonNode input = request.path("input");
+            List<JsonNode> inputs = new ArrayList<>();
+            if (input.isArray()) {
+                input.forEach(inputs::add);
+            } else {
+                inputs.add(input);
+            }
+            List<Map<String, Object>> data = new ArrayList<>(inputs.size());
+            int tokens = 0;
+            for (JsonNode text : inputs) {
+                String value = text.isTextual() ? text.asText() : text.toString();
+                tokens += value.length() / 4 + 1;
+                data.add(Map.of("object", "embedding", "index", data.size(), "embedding", vector(value)));
+            }
+            Map<String, Object> response = new LinkedHashMap<>();
+            response.put("object", "list");
+            response.put("data", data);
+            response.put("model", request.path("model").asText("text-embedding-ada-002"));
+            response.put("usage", Map.of("prompt_tokens", tokens, "total_tokens", tokens));
+            writeJson(exchange, 200, response);
+        }
+    }
+
+    private void rateLimit(HttpExchange exchange) throws IOException {
+        writeJson(exchange, 429, Map.of("error", Map.of(
+                "message", "Rate limit reached for requests (stub)",
+                "type", "requests",
+                "code", "rate_limit_exceeded")));
+    }
+
+    private Duration sampleLatency() {
+        double factor = Math.exp(settings.latencySigma() * ThreadLocalRandom.current().nextGaussian());
+        return Duration.ofNanos((long) (settings.latencyMedian().toNanos() * factor));
+    }
+
+    private static int estimatePromptTokens(JsonNode request) {
+        int chars = 0;
+        for (JsonNode message : request.path("messages")) {
+            chars += message.path("content").asText().length();
+        }
+        // Hrubý odhad, pro češtinu vychází zhruba čtyři znaky na token.
+        return chars / 4 + 1;
+    }
+
+    private float[] vector(String text) {
+        SplittableRandom random = new SplittableRandom(text.hashCode());
+        float[] vector = new float[settings.embeddingDimensions()];
+        double norm = 0;
+        for (int i = 0; i < vector.length; i++) {
+            vector[i] = (float) (random.nextDouble() - 0.5);
+            norm += vector[i] * vector[i];
+        }
+        float scale = (float) (1 / Math.sqrt(norm));
+        for (int i = 0; i < vector.length; i++) {
+            vector[i] *= scale;
+        }
+        return vector;
+    }
+
+    private static Map<String, Object> completion(String object, String model, List<?> choices) {
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("id", "chatcmpl-stub");
+        response.put("object", object);
+        response.put("created", System.currentTimeMillis() / 1000);
+        response.put("model", model);
+        response.put("choices", choices);
+        return response;
+    }
+
+    private static Map<String, Object> usage(int prompt, int completion) {
+        return Map.of("prompt_tokens", prompt, "completion_tokens", completion, "total_tokens", prompt + completion);
+    }
+
+    private static void event(OutputStream out, Object data) throws IOException {
+        out.write(("data: " + OBJECT_MAPPER.writeValueAsString(data) + "\n\n").getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+
+    private static void writeJson(HttpExchange exchange, int status, Object body) throws IOException {
+        byte[] bytes = OBJECT_MAPPER.writeValueAsBytes(body);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        exchange.getResponseBody().write(bytes);
+    }
+
+    private static void sleep(Duration duration) {
+        try {
+            Thread.sleep(duration);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.ai.contractanalysis.loadtest;
+
+import com.ai.contractanalysis.issue.Issues;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.openai.OpenAiChatModel;
+import org.springframework.ai.openai.OpenAiEmbeddingModel;
+import org.springframework.ai.openai.api.OpenAiApi;
+import org.springframework.ai.retry.RetryUtils;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OpenAiStubTest {
+
+    private OpenAiStub stub;
+
+    @AfterEach
+    void tearDown() {
+        stub.close();
+    }
+
+    @Test
+    void chat_ShouldAnswerCallAndStreamInOpenAiFormat() throws Exception {
+        // Given
+        stub = OpenAiStub.start(settings(0, 0));
+        ChatClient chatClient = ChatClient.create(OpenAiChatModel.builder()
+                .openAiApi(api())
+                .retryTemplate(RetryUtils.SHORT_RETRY_TEMPLATE)
+                .build());
+
+        // When
+        Issues issues = chatClient.prompt().user("smlouva").call().entity(Issues.class);
+        String streamed = String.join("", chatClient.prompt().user("smlouva").stream().content()
+                .collectList().block());
+
+        // Then
+        assertEquals(2, issues.issues().size());
+        assertEquals(OpenAiStub.CONTENT, streamed);
+        OpenAiStub.Stats stats = stub.stats();
+        assertEquals(2, stats.chatRequests());
+        assertEquals(2 * 50, stats.completionTokens());
+    }
+
+    @Test
+    void embeddings_ShouldReturnDeterministicVectors() throws Exception {
+        // Given
+        stub = OpenAiStub.start(settings(0, 0));
+        OpenAiEmbeddingModel embeddingModel = new OpenAiEmbeddingModel(api());
+
+        // When
+        List<float[]> vectors = embeddingModel.embed(List.of("nájemné", "nájemné", "kauce"));
+
+        // Then
+        assertEquals(3, vectors.size());
+        assertEquals(64, vectors.getFirst().length);
+        assertArrayEquals(vectors.get(0), vectors.get(1));
+        assertFalse(Arrays.equals(vectors.get(0), vectors.get(2)));
+    }
+
+    @Test
+    void chat_WithRateLimitRate_ShouldReturn429() throws Exception {
+        // Given
+        stub = OpenAiStub.start(settings(1.0, 0));
+
+        // When
+        HttpResponse<String> response = HttpClient.newHttpClient().send(
+                HttpRequest.newBuilder(URI.create(stub.baseUrl() + "/v1/chat/completions"))
+                        .POST(HttpRequest.BodyPublishers.ofString("{\"messages\":[]}"))
+                        .build(),
+                HttpResponse.BodyHandlers.ofString());
+
+        // Then
+        assertEquals(429, response.statusCode());
+        assertTrue(response.body().contains("rate_limit_exceeded"));
+        assertEquals(1, stub.stats().rateLimited());
+    }
+
+    private OpenAiApi api() {
+        return OpenAiApi.builder().baseUrl(stub.baseUrl()).apiKey("test").build();
+    }
+
+    private static OpenAiStub.Settings settings(double rateLimitRate, int maxConcurrency) {
+        return new OpenAiStub.Settings(Duration.ZERO, 0, 50, rateLimitRate, maxConcurrency, Duration.ZERO, 64);
+    }
+}
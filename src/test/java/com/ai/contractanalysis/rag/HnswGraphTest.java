@@ -0,0 +1,143 @@
+package com.ai.contractanalysis.rag;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.function.IntToDoubleFunction;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HnswGraphTest {
+
+    private static final int SIZE = 2000;
+    private static final int DIMENSIONS = 32;
+    private static final int TOP_K = 10;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void search_ShouldFindMostExactNeighbours() throws Exception {
+        // Given
+        MappedVectorIndex index = index(tempDir.resolve("laws"), 1);
+        HnswGraph graph = HnswGraph.build(index, 16, 100);
+        SplittableRandom random = new SplittableRandom(7);
+
+        // When
+        int found = 0;
+        int queries = 50;
+        for (int q = 0; q < queries; q++) {
+            IntToDoubleFunction similarity = similarity(index, randomVector(random));
+            List<Integer> expected = exactTopK(index, similarity);
+            List<Integer> actual = graph.search(similarity, 64).stream()
+                    .limit(TOP_K)
+                    .map(ScoredRow::row)
+                    .toList();
+            found += (int) actual.stream().filter(expected::contains).count();
+        }
+
+        // Then
+        double recall = (double) found / (queries * TOP_K);
+        assertTrue(recall >= 0.95, "recall@10 = " + recall);
+    }
+
+    @Test
+    void load_WithSavedGraph_ShouldReturnSameResults() throws Exception {
+        // Given
+        Path basePath = tempDir.resolve("laws");
+        MappedVectorIndex index = index(basePath, 1);
+        HnswGraph graph = HnswGraph.build(index, 8, 50);
+        graph.save(basePath);
+        IntToDoubleFunction similarity = similarity(index, randomVector(new SplittableRandom(3)));
+
+        // When
+        HnswGraph loaded = HnswGraph.load(basePath, index, 8, 50);
+
+        // Then
+        assertNotNull(loaded);
+        assertEquals(graph.search(similarity, 20), loaded.search(similarity, 20));
+    }
+
+    @Test
+    void load_WithChangedIndexOrSettings_ShouldReturnNull() throws Exception {
+        // Given
+        Path basePath = tempDir.resolve("laws");
+        HnswGraph.build(index(basePath, 1), 8, 50).save(basePath);
+
+        // When
+        MappedVectorIndex changed = index(basePath, 2);
+
+        // Then
+        assertTrue(Files.exists(HnswGraph.file(basePath)));
+        assertNull(HnswGraph.load(basePath, changed, 8, 50));
+        assertNull(HnswGraph.load(basePath, index(basePath, 1), 16, 50));
+    }
+
+    @Test
+    void load_ShouldUseChecksumStoredInIndexHeader() throws Exception {
+        // Given
+        Path basePath = tempDir.resolve("laws");
+        MappedVectorIndex index = index(basePath, 1);
+        HnswGraph.build(index, 16, 100).save(basePath);
+        // Změna matice bez přepsání hlavičky: kontrolní součet se při otevření nepřepočítává.
+        Path vectors = MappedVectorIndex.vectorsFile(basePath);
+        byte[] bytes = Files.readAllBytes(vectors);
+        bytes[bytes.length - 1] ^= 1;
+        Files.write(vectors, bytes);
+
+        // When
+        MappedVectorIndex reopened = MappedVectorIndex.open(basePath);
+
+        // Then
+        assertEquals(index.checksum(), reopened.checksum());
+        assertNotNull(HnswGraph.load(basePath, reopened, 16, 100));
+    }
+
+    private static MappedVectorIndex index(Path basePath, long seed) throws Exception {
+        SplittableRandom random = new SplittableRandom(seed);
+        List<StoredDocument> documents = new ArrayList<>(SIZE);
+        List<float[]> vectors = new ArrayList<>(SIZE);
+        for (int i = 0; i < SIZE; i++) {
+            documents.add(new StoredDocument("law-" + i, "§ " + i, Map.of()));
+            vectors.add(randomVector(random));
+        }
+        MappedVectorIndex.write(basePath, documents, vectors);
+        return MappedVectorIndex.open(basePath);
+    }
+
+    private static float[] randomVector(SplittableRandom random) {
+        float[] vector = new float[DIMENSIONS];
+        for (int i = 0; i < DIMENSIONS; i++) {
+            vector[i] = (float) random.nextGaussian();
+        }
+        return vector;
+    }
+
+    private static IntToDoubleFunction similarity(MappedVectorIndex index, float[] query) {
+        float[] row = new float[index.dimensions()];
+        return r -> {
+            index.vector(r, row);
+            double dot = 0;
+            for (int i = 0; i < row.length; i++) {
+                dot += query[i] * row[i];
+            }
+            return dot;
+        };
+    }
+
+    private static List<Integer> exactTopK(MappedVectorIndex index, IntToDoubleFunction similarity) {
+        double[] scores = IntStream.range(0, index.size()).mapToDouble(similarity).toArray();
+        return IntStream.range(0, index.size()).boxed()
+                .sorted(Comparator.comparingDouble((Integer r) -> scores[r]).reversed())
+                .limit(TOP_K)
+                .toList();
+    }
+}
@@ -0,0 +1,176 @@
+package com.ai.contractanalysis.rag;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.ai.document.Document;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LawCorpusSyncTest {
+
+    private static final Resource OBCANSKY = law("obcansky.json", "Nájemce platí nájemné.");
+    private static final Resource POKUTY = law("pokuty.json", "Smluvní pokuta musí být přiměřená.");
+
+    @TempDir
+    Path tempDir;
+
+    private final RecordingStore store = new RecordingStore();
+
+    @Test
+    void sync_WithoutManifest_ShouldAddAllLawsAndWriteManifest() throws Exception {
+        // Given
+        Path manifestFile = tempDir.resolve("laws.manifest");
+
+        // When
+        boolean changed = sync(manifestFile, OBCANSKY, POKUTY);
+
+        // Then
+        assertTrue(changed);
+        assertEquals(List.of("Nájemce platí nájemné.", "Smluvní pokuta musí být přiměřená."), store.addedTexts);
+        assertTrue(store.removedIds.isEmpty());
+        LawCorpusManifest manifest = LawCorpusManifest.read(manifestFile);
+        assertNotNull(manifest);
+        assertEquals(store.documents.keySet(), ids(manifest));
+    }
+
+    @Test
+    void sync_WithUnchangedLaws_ShouldNotChangeStore() {
+        // Given
+        Path manifestFile = tempDir.resolve("laws.manifest");
+        sync(manifestFile, OBCANSKY, POKUTY);
+        store.clearRecorded();
+
+        // When
+        boolean changed = sync(manifestFile, OBCANSKY, POKUTY);
+
+        // Then
+        assertFalse(changed);
+        assertEquals(0, store.applied);
+    }
+
+    @Test
+    void sync_WithChangedLaw_ShouldReplaceOnlyItsChunks() throws Exception {
+        // Given
+        Path manifestFile = tempDir.resolve("laws.manifest");
+        sync(manifestFile, OBCANSKY, POKUTY);
+        List<String> oldIds = LawCorpusManifest.read(manifestFile).files().get("pokuty.json").chunkIds();
+        store.clearRecorded();
+
+        // When
+        boolean changed = sync(manifestFile, OBCANSKY, law("pokuty.json", "Smluvní pokuta je omezena."));
+
+        // Then
+        assertTrue(changed);
+        assertEquals(List.of("Smluvní pokuta je omezena."), store.addedTexts);
+        assertEquals(oldIds, store.removedIds);
+        assertEquals(2, store.documents.size());
+        assertEquals(store.documents.keySet(), ids(LawCorpusManifest.read(manifestFile)));
+    }
+
+    @Test
+    void sync_WithRemovedLaw_ShouldRemoveItsChunks() throws Exception {
+        // Given
+        Path manifestFile = tempDir.resolve("laws.manifest");
+        sync(manifestFile, OBCANSKY, POKUTY);
+        store.clearRecorded();
+
+        // When
+        boolean changed = sync(manifestFile, OBCANSKY);
+
+        // Then
+        assertTrue(changed);
+        assertTrue(store.addedTexts.isEmpty());
+        assertEquals(List.of("Nájemce platí nájemné."),
+                store.documents.values().stream().map(Document::getText).toList());
+        assertEquals(Set.of("obcansky.json"), LawCorpusManifest.read(manifestFile).files().keySet());
+    }
+
+    @Test
+    void sync_WithStoreWithoutManifest_ShouldEmbedOnlyChangedLaws() {
+        // Given - vector store z doby před manifesty, zákon o pokutách se mezitím změnil
+        store.documents.put("najem", new Document("najem", "Nájemce platí nájemné.", Map.of("filename", "obcansky.json")));
+        store.documents.put("pokuta", new Document("pokuta", "Smluvní pokuta je omezena.", Map.of("filename", "pokuty.json")));
+        store.documents.put("zruseny", new Document("zruseny", "Zrušený předpis.", Map.of("filename", "zruseny.json")));
+
+        // When
+        boolean changed = sync(tempDir.resolve("laws.manifest"), OBCANSKY, POKUTY);
+
+        // Then
+        assertTrue(changed);
+        assertEquals(List.of("Smluvní pokuta musí být přiměřená."), store.addedTexts);
+        assertEquals(List.of("pokuta", "zruseny"), store.removedIds.stream().sorted().toList());
+        assertTrue(store.documents.containsKey("najem"));
+        assertTrue(Files.exists(tempDir.resolve("laws.manifest")));
+    }
+
+    @Test
+    void sync_WithManifestButMissingStore_ShouldAddAllLaws() throws Exception {
+        // Given - soubory vector store smazané, manifest zůstal
+        Path manifestFile = tempDir.resolve("laws.manifest");
+        sync(manifestFile, OBCANSKY, POKUTY);
+        store.documents.clear();
+        store.clearRecorded();
+
+        // When
+        boolean changed = new LawCorpusSync(new Resource[]{OBCANSKY, POKUTY})
+                .sync(manifestFile, false, () -> fail("Chybějící vector store se nemá číst"), store);
+
+        // Then
+        assertTrue(changed);
+        assertEquals(List.of("Nájemce platí nájemné.", "Smluvní pokuta musí být přiměřená."), store.addedTexts);
+        assertTrue(store.removedIds.isEmpty());
+        assertEquals(store.documents.keySet(), ids(LawCorpusManifest.read(manifestFile)));
+    }
+
+    private boolean sync(Path manifestFile, Resource... laws) {
+        return new LawCorpusSync(laws).sync(manifestFile, true, () -> List.copyOf(store.documents.values()), store);
+    }
+
+    private static Set<String> ids(LawCorpusManifest manifest) {
+        return manifest.files().values().stream()
+                .flatMap(entry -> entry.chunkIds().stream())
+                .collect(Collectors.toSet());
+    }
+
+    private static Resource law(String filename, String content) {
+        return new ByteArrayResource(content.getBytes()) {
+            @Override
+            public String getFilename() {
+                return filename;
+            }
+        };
+    }
+
+    private static class RecordingStore implements LawCorpusSync.Changes {
+        final Map<String, Document> documents = new LinkedHashMap<>();
+        final List<String> removedIds = new ArrayList<>();
+        final List<String> addedTexts = new ArrayList<>();
+        int applied;
+
+        @Override
+        public void apply(List<String> removedIds, List<Document> documents) {
+            applied++;
+            removedIds.forEach(this.documents::remove);
+            documents.forEach(document -> this.documents.put(document.getId(), document));
+            this.removedIds.addAll(removedIds);
+            documents.forEach(document -> addedTexts.add(document.getText()));
+        }
+
+        void clearRecorded() {
+            removedIds.clear();
+            addedTexts.clear();
+            applied = 0;
+        }
+    }
+}
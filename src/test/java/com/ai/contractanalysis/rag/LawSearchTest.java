@@ -0,0 +1,60 @@
+package com.ai.contractanalysis.rag;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class LawSearchTest {
+
+    private VectorStore vectorStore;
+    private LawSearch lawSearch;
+
+    @BeforeEach
+    void setUp() {
+        vectorStore = mock(VectorStore.class);
+        lawSearch = new LawSearch(vectorStore, 3, 40, 4, 10);
+    }
+
+    @Test
+    void search_ShouldDeduplicateDocumentsAndKeepBestScore() {
+        // Given
+        Document first = Document.builder().id("1").text("§ 1").score(0.5).build();
+        Document better = Document.builder().id("1").text("§ 1").score(0.9).build();
+        Document second = Document.builder().id("2").text("§ 2").score(0.7).build();
+        when(vectorStore.similaritySearch(any(SearchRequest.class)))
+                .thenReturn(List.of(first, second))
+                .thenReturn(List.of(better));
+
+        // When
+        List<Document> documents = lawSearch.search(
+                "Článek 1 nájemce platí nájem\n\nČlánek 2 pronajímatel udržuje byt");
+
+        // Then
+        assertEquals(List.of("1", "2"), documents.stream().map(Document::getId).toList());
+        assertEquals(0.9, documents.getFirst().getScore());
+        verify(vectorStore, times(2)).similaritySearch(any(SearchRequest.class));
+    }
+
+    @Test
+    void queries_ShouldCoverWholeText() {
+        // Given
+        String contract = String.join("\n\n", "a".repeat(30), "b".repeat(30), "c".repeat(30),
+                "d".repeat(30), "e".repeat(30), "f".repeat(30), "g".repeat(30), "h".repeat(30));
+
+        // When
+        List<String> queries = lawSearch.queries(contract);
+
+        // Then
+        assertEquals(3, queries.size());
+        assertTrue(queries.getFirst().startsWith("a"));
+        assertTrue(queries.stream().anyMatch(query -> query.contains("g") || query.contains("h")));
+        assertTrue(lawSearch.queries("  ").isEmpty());
+    }
+}
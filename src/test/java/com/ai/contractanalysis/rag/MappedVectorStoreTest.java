@@ -0,0 +1,316 @@
+package com.ai.contractanalysis.rag;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.SimpleVectorStore;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedVectorStoreTest {
+
+    private static final List<Document> LAWS = List.of(
+            new Document("najem", "Nájemce platí nájemné.", Map.of("filename", "obcansky.json")),
+            new Document("kauce", "Jistota nesmí převýšit trojnásobek nájemného.", Map.of("filename", "obcansky.json")),
+            new Document("pokuta", "Smluvní pokuta musí být přiměřená.", Map.of("filename", "pokuty.json")));
+
+    private final EmbeddingModel embeddingModel = new KeywordEmbeddingModel();
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void similaritySearch_ShouldMatchSimpleVectorStore() {
+        // Given
+        MappedVectorStore mapped = MappedVectorStore.builder(embeddingModel, tempDir.resolve("laws")).build();
+        SimpleVectorStore simple = SimpleVectorStore.builder(embeddingModel).build();
+        mapped.add(LAWS);
+        simple.add(LAWS);
+        SearchRequest request = SearchRequest.builder().query("nájemné a kauce").topK(2).build();
+
+        // When
+        List<Document> expected = simple.similaritySearch(request);
+        List<Document> actual = mapped.similaritySearch(request);
+
+        // Then
+        assertEquals(expected.stream().map(Document::getId).toList(), actual.stream().map(Document::getId).toList());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getScore(), actual.get(i).getScore(), 1e-6);
+            assertEquals(expected.get(i).getText(), actual.get(i).getText());
+            assertEquals("obcansky.json", actual.get(i).getMetadata().get("filename"));
+        }
+    }
+
+    @Test
+    void builder_WithExistingIndex_ShouldOpenWithoutEmbedding() {
+        // Given
+        Path basePath = tempDir.resolve("laws");
+        MappedVectorStore.builder(embeddingModel, basePath).build().add(LAWS);
+        KeywordEmbeddingModel countingModel = new KeywordEmbeddingModel();
+
+        // When
+        MappedVectorStore reopened = MappedVectorStore.builder(countingModel, basePath).build();
+        List<Document> results = reopened.similaritySearch(SearchRequest.builder().query("pokuta").topK(1).build());
+
+        // Then
+        assertTrue(Files.exists(tempDir.resolve("laws.vectors")));
+        assertTrue(Files.exists(tempDir.resolve("laws.documents")));
+        assertEquals(3, reopened.size());
+        assertEquals("pokuta", results.getFirst().getId());
+        assertEquals(1, countingModel.calls, "embedding jen pro dotaz");
+    }
+
+    @Test
+    void delete_ShouldRemoveDocumentsFromIndexFiles() {
+        // Given
+        Path basePath = tempDir.resolve("laws");
+        MappedVectorStore store = MappedVectorStore.builder(embeddingModel, basePath).build();
+        store.add(LAWS);
+
+        // When
+        store.delete(List.of("pokuta"));
+
+        // Then
+        MappedVectorStore reopened = MappedVectorStore.builder(embeddingModel, basePath).build();
+        assertEquals(2, reopened.size());
+        List<Document> results = reopened.similaritySearch(SearchRequest.builder().query("pokuta").topK(3).build());
+        assertTrue(results.stream().noneMatch(document -> document.getId().equals("pokuta")));
+    }
+
+    @Test
+    void replace_ShouldEmbedOnlyNewDocumentsAndRemoveOldOnes() {
+        // Given
+        Path basePath = tempDir.resolve("laws");
+        KeywordEmbeddingModel countingModel = new KeywordEmbeddingModel();
+        MappedVectorStore store = MappedVectorStore.builder(countingModel, basePath).build();
+        store.add(LAWS);
+        countingModel.calls = 0;
+        Document changed = new Document("pokuta-2", "Smluvní pokuta je omezena.", Map.of("filename", "pokuty.json"));
+
+        // When
+        store.replace(List.of("pokuta"), List.of(changed));
+
+        // Then
+        assertEquals(1, countingModel.calls);
+        MappedVectorStore reopened = MappedVectorStore.builder(embeddingModel, basePath).build();
+        assertEquals(List.of("najem", "kauce", "pokuta-2"), reopened.documents().stream().map(Document::getId).toList());
+        assertEquals("pokuty.json", reopened.documents().get(2).getMetadata().get("filename"));
+    }
+
+    @Test
+    void add_WithExistingId_ShouldReplaceDocumentInPlaceAndKeepCopiedRows() {
+        // Given
+        Path basePath = tempDir.resolve("laws");
+        MappedVectorStore store = MappedVectorStore.builder(embeddingModel, basePath).build();
+        store.add(LAWS);
+        SearchRequest request = SearchRequest.builder().query("nájemné").topK(3).build();
+        List<Double> before = store.similaritySearch(request).stream().map(Document::getScore).toList();
+        Document changed = new Document("kauce", "Kauce se vrací do měsíce.", Map.of());
+
+        // When
+        store.add(List.of(changed));
+
+        // Then
+        MappedVectorStore reopened = MappedVectorStore.builder(embeddingModel, basePath).build();
+        assertEquals(List.of("najem", "kauce", "pokuta"), reopened.documents().stream().map(Document::getId).toList());
+        assertEquals("Kauce se vrací do měsíce.", reopened.documents().get(1).getText());
+        assertEquals(before.getFirst(), reopened.similaritySearch(request).getFirst().getScore(), 1e-6);
+    }
+
+    @Test
+    void batchSimilaritySearch_ShouldMatchSingleSearchesWithOneEmbeddingCall() {
+        // Given
+        KeywordEmbeddingModel countingModel = new KeywordEmbeddingModel();
+        MappedVectorStore store = MappedVectorStore.builder(countingModel, tempDir.resolve("laws")).build();
+        store.add(LAWS);
+        List<SearchRequest> requests = List.of(
+                SearchRequest.builder().query("nájemné").topK(2).build(),
+                SearchRequest.builder().query("pokuta").topK(1).build(),
+                SearchRequest.builder().query("kauce").topK(3).filterExpression("filename == 'pokuty.json'").build());
+        List<List<String>> expected = requests.stream()
+                .map(request -> store.similaritySearch(request).stream().map(Document::getId).toList())
+                .toList();
+        int callsBefore = countingModel.calls;
+
+        // When
+        List<List<Document>> results = store.batchSimilaritySearch(requests);
+
+        // Then
+        assertEquals(expected, results.stream()
+                .map(documents -> documents.stream().map(Document::getId).toList())
+                .toList());
+        assertEquals(callsBefore + 1, countingModel.calls);
+    }
+
+    @Test
+    void similaritySearch_WithFilterAndThreshold_ShouldApplyBoth() {
+        // Given
+        MappedVectorStore store = MappedVectorStore.builder(embeddingModel, tempDir.resolve("laws")).build();
+        store.add(LAWS);
+
+        // When
+        List<Document> filtered = store.similaritySearch(SearchRequest.builder()
+                .query("pokuta").topK(3).filterExpression("filename == 'obcansky.json'").build());
+        List<Document> thresholded = store.similaritySearch(SearchRequest.builder()
+                .query("pokuta").topK(3).similarityThreshold(0.9).build());
+
+        // Then
+        assertEquals(2, filtered.size());
+        assertTrue(filtered.stream().allMatch(document -> document.getMetadata().get("filename").equals("obcansky.json")));
+        assertEquals(List.of("pokuta"), thresholded.stream().map(Document::getId).toList());
+    }
+
+    @Test
+    void similaritySearch_WithHnsw_ShouldMatchExactSearchAndPersistGraph() {
+        // Given
+        Path basePath = tempDir.resolve("laws");
+        HnswSettings hnsw = new HnswSettings(4, 16, 8);
+        MappedVectorStore exact = MappedVectorStore.builder(embeddingModel, tempDir.resolve("exact")).build();
+        MappedVectorStore approximate = MappedVectorStore.builder(embeddingModel, basePath).hnsw(hnsw).build();
+        exact.add(LAWS);
+        approximate.add(LAWS);
+        SearchRequest request = SearchRequest.builder().query("nájemné a kauce").topK(2).build();
+
+        // When
+        List<Document> expected = exact.similaritySearch(request);
+        List<Document> actual = MappedVectorStore.builder(embeddingModel, basePath).hnsw(hnsw).build()
+                .similaritySearch(request);
+
+        // Then
+        assertTrue(Files.exists(tempDir.resolve("laws.hnsw")));
+        assertEquals(expected.stream().map(Document::getId).toList(), actual.stream().map(Document::getId).toList());
+        assertEquals(expected.getFirst().getScore(), actual.getFirst().getScore(), 1e-6);
+    }
+
+    @Test
+    void similaritySearch_WithInt8Quantization_ShouldRescoreWithFullPrecision() {
+        // Given
+        Path basePath = tempDir.resolve("laws");
+        MappedVectorStore exact = MappedVectorStore.builder(embeddingModel, tempDir.resolve("exact")).build();
+        MappedVectorStore quantized = MappedVectorStore.builder(embeddingModel, basePath)
+                .quantization(VectorQuantization.INT8, 2)
+                .build();
+        exact.add(LAWS);
+        quantized.add(LAWS);
+        SearchRequest request = SearchRequest.builder().query("nájemné a kauce").topK(2).build();
+
+        // When
+        List<Document> expected = exact.similaritySearch(request);
+        List<Document> actual = quantized.similaritySearch(request);
+
+        // Then
+        assertTrue(Files.exists(tempDir.resolve("laws.int8")));
+        assertEquals(expected.stream().map(Document::getId).toList(), actual.stream().map(Document::getId).toList());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getScore(), actual.get(i).getScore(), 1e-6);
+        }
+    }
+
+    @Test
+    void builder_WithInt8QuantizationAndChangedIndex_ShouldRebuildQuantizedVectors() throws Exception {
+        // Given
+        Path basePath = tempDir.resolve("laws");
+        MappedVectorStore.builder(embeddingModel, basePath).quantization(VectorQuantization.INT8, 2).build()
+                .add(LAWS);
+        // Index se změní bez kvantizace, soubor .int8 k němu pak nepatří.
+        MappedVectorStore.builder(embeddingModel, basePath).build().delete(List.of("najem"));
+        MappedVectorIndex index = MappedVectorIndex.open(basePath);
+        assertNull(QuantizedVectorIndex.open(basePath, index));
+
+        // When
+        MappedVectorStore reopened = MappedVectorStore.builder(embeddingModel, basePath)
+                .quantization(VectorQuantization.INT8, 2)
+                .build();
+
+        // Then
+        assertNotNull(QuantizedVectorIndex.open(basePath, index));
+        assertEquals("pokuta", reopened.similaritySearch(SearchRequest.builder().query("pokuta").topK(1).build())
+                .getFirst().getId());
+    }
+
+    @Test
+    void builder_WithFilesFromDifferentWrites_ShouldDiscardIndex() throws Exception {
+        // Given
+        Path basePath = tempDir.resolve("laws");
+        Path otherPath = tempDir.resolve("other");
+        MappedVectorStore.builder(embeddingModel, basePath).build().add(LAWS);
+        MappedVectorStore.builder(embeddingModel, otherPath).build().add(LAWS.stream()
+                .map(law -> new Document(law.getId(), law.getText() + " Jiné znění.", law.getMetadata()))
+                .toList());
+        // Stejný počet řádků, ale dokumenty z jiného zápisu (pád mezi přesunem obou souborů).
+        Files.copy(tempDir.resolve("other.documents"), tempDir.resolve("laws.documents"),
+                StandardCopyOption.REPLACE_EXISTING);
+        assertThrows(IOException.class, () -> MappedVectorIndex.open(basePath));
+
+        // When
+        MappedVectorStore reopened = MappedVectorStore.builder(embeddingModel, basePath).build();
+
+        // Then
+        assertEquals(0, reopened.size());
+        assertFalse(MappedVectorStore.exists(basePath));
+    }
+
+    @Test
+    void similaritySearch_WithDifferentDimensions_ShouldThrow() {
+        // Given
+        Path basePath = tempDir.resolve("laws");
+        MappedVectorStore.builder(embeddingModel, basePath).build().add(LAWS);
+        EmbeddingModel otherModel = new KeywordEmbeddingModel() {
+            @Override
+            public float[] embed(String text) {
+                return new float[]{1, 0};
+            }
+        };
+        MappedVectorStore store = MappedVectorStore.builder(otherModel, basePath).build();
+
+        // When & Then
+        assertThrows(IllegalStateException.class,
+                () -> store.similaritySearch(SearchRequest.builder().query("pokuta").build()));
+    }
+
+    /**
+     * Tři osy podle klíčových slov, aby bylo pořadí výsledků předvídatelné.
+     */
+    private static class KeywordEmbeddingModel implements EmbeddingModel {
+        int calls;
+
+        @Override
+        public EmbeddingResponse call(EmbeddingRequest request) {
+            calls++;
+            List<Embedding> embeddings = request.getInstructions().stream()
+                    .map(text -> new Embedding(vector(text), 0))
+                    .toList();
+            return new EmbeddingResponse(embeddings);
+        }
+
+        @Override
+        public float[] embed(Document document) {
+            return vector(document.getText());
+        }
+
+        @Override
+        public int dimensions() {
+            return 3;
+        }
+
+        private static float[] vector(String text) {
+            String lower = text.toLowerCase();
+            return new float[]{
+                    lower.contains("nájem") ? 1f : 0.1f,
+                    lower.contains("jistota") || lower.contains("kauce") ? 1f : 0.1f,
+                    lower.contains("pokuta") ? 1f : 0.1f};
+        }
+    }
+}
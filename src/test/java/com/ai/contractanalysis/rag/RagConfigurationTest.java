@@ -1,5 +1,6 @@
 package com.ai.contractanalysis.rag;
 
+import io.micrometer.observation.ObservationRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -7,12 +8,17 @@ import org.junit.jupiter.api.io.TempDir;
 import org.mockito.Mock;
 import org.mockito.MockedConstruction;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.ai.document.Document;
 import org.springframework.ai.embedding.EmbeddingModel;
 import org.springframework.ai.reader.TextReader;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.core.io.ByteArrayResource;
 import org.springframework.core.io.Resource;
 import org.springframework.test.util.ReflectionTestUtils;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.HashMap;
@@ -47,12 +53,15 @@ class RagConfigurationTest {
     }
 
     @Test
-    void simpleVectorStore_WhenTextReaderThrowsException_ShouldPropagateException() {
+    void simpleVectorStore_WhenTextReaderThrowsException_ShouldPropagateException() throws Exception {
         // Given
         String vectorStorePath = tempDir.toString();
         ReflectionTestUtils.setField(ragConfiguration, "vectorStorePath", vectorStorePath);
 
         when(mockResource1.getFilename()).thenReturn("law1.json");
+        when(mockResource1.getInputStream()).thenReturn(new ByteArrayInputStream(new byte[0]));
+        when(mockResource2.getFilename()).thenReturn("law2.json");
+        when(mockResource2.getInputStream()).thenReturn(new ByteArrayInputStream(new byte[0]));
 
         try (MockedConstruction<TextReader> ignored = mockConstruction(TextReader.class,
                 (mock, context) -> {
@@ -62,7 +71,7 @@ class RagConfigurationTest {
 
             // When & Then
             assertThrows(RuntimeException.class,
-                    () -> ragConfiguration.simpleVectorStore(embeddingModel));
+                    () -> ragConfiguration.simpleVectorStore(embeddingModel, ObservationRegistry.NOOP));
         }
     }
 
@@ -102,7 +111,87 @@ class RagConfigurationTest {
 
         // When & Then
         assertThrows(NullPointerException.class,
-                () -> ragConfiguration.simpleVectorStore(embeddingModel));
+                () -> ragConfiguration.simpleVectorStore(embeddingModel, ObservationRegistry.NOOP));
     }
 
-}
\ No newline at end of file
+    @Test
+    void vectorStore_WithBinaryFormatAndExistingJson_ShouldImportAndQuantizeWithoutEmbedding() throws Exception {
+        // Given
+        ReflectionTestUtils.setField(ragConfiguration, "vectorStorePath", tempDir.toString());
+        ReflectionTestUtils.setField(ragConfiguration, "vectorStoreFormat", "binary");
+        ReflectionTestUtils.setField(ragConfiguration, "quantizationType", "int8");
+        ReflectionTestUtils.setField(ragConfiguration, "quantizationRescoreFactor", 4);
+        ReflectionTestUtils.setField(ragConfiguration, "laws",
+                new Resource[]{namedResource("law1.json", "Nájemce platí nájemné.")});
+        Files.writeString(tempDir.resolve("vectorstore.json"), """
+                {"law-1": {"id": "law-1", "text": "Nájemce platí nájemné.",
+                           "metadata": {"filename": "law1.json"}, "embedding": [1.0, 0.0, 0.0]}}
+                """);
+
+        // When
+        VectorStore vectorStore = ragConfiguration.vectorStore(embeddingModel, ObservationRegistry.NOOP);
+
+        // Then
+        MappedVectorStore mappedVectorStore = assertInstanceOf(MappedVectorStore.class, vectorStore);
+        assertEquals(1, mappedVectorStore.size());
+        assertTrue(MappedVectorStore.exists(tempDir.resolve("vectorstore")));
+        assertTrue(Files.exists(tempDir.resolve("vectorstore.int8")));
+        assertTrue(Files.exists(tempDir.resolve("vectorstore.manifest")));
+        verifyNoInteractions(embeddingModel);
+    }
+
+    @Test
+    void simpleVectorStore_WithManifestButMissingStore_ShouldReloadLaws() throws Exception {
+        // Given
+        ReflectionTestUtils.setField(ragConfiguration, "vectorStorePath", tempDir.toString());
+        ReflectionTestUtils.setField(ragConfiguration, "laws",
+                new Resource[]{namedResource("law1.json", "Nájemce platí nájemné.")});
+        when(embeddingModel.embed(any(Document.class))).thenReturn(new float[]{1f, 0f, 0f});
+        ragConfiguration.simpleVectorStore(embeddingModel, ObservationRegistry.NOOP);
+        Files.delete(tempDir.resolve("vectorstore.json"));
+
+        // When
+        ragConfiguration.simpleVectorStore(embeddingModel, ObservationRegistry.NOOP);
+
+        // Then
+        assertTrue(Files.readString(tempDir.resolve("vectorstore.json")).contains("Nájemce platí nájemné."));
+        verify(embeddingModel, times(2)).embed(any(Document.class));
+    }
+
+    @Test
+    void vectorStore_WithUnknownFormat_ShouldThrow() {
+        // Given
+        ReflectionTestUtils.setField(ragConfiguration, "vectorStoreFormat", "parquet");
+
+        // When & Then
+        assertThrows(IllegalStateException.class,
+                () -> ragConfiguration.vectorStore(embeddingModel, ObservationRegistry.NOOP));
+    }
+
+    @Test
+    void lawCorpusVersion_ShouldChangeWhenLawContentChanges() {
+        // Given
+        Resource law = namedResource("law1.json", "[{\"name\": \"§ 553\"}]");
+        Resource changedLaw = namedResource("law1.json", "[{\"name\": \"§ 554\"}]");
+
+        ReflectionTestUtils.setField(ragConfiguration, "laws", new Resource[]{law});
+        LawCorpusVersion original = ragConfiguration.lawCorpusVersion();
+        LawCorpusVersion same = ragConfiguration.lawCorpusVersion();
+
+        ReflectionTestUtils.setField(ragConfiguration, "laws", new Resource[]{changedLaw});
+        LawCorpusVersion changed = ragConfiguration.lawCorpusVersion();
+
+        // Then
+        assertEquals(original, same);
+        assertNotEquals(original, changed);
+    }
+
+    private static Resource namedResource(String filename, String content) {
+        return new ByteArrayResource(content.getBytes()) {
+            @Override
+            public String getFilename() {
+                return filename;
+            }
+        };
+    }
+}
@@ -0,0 +1,81 @@
+package com.ai.contractanalysis.rag;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VectorMathTest {
+
+    @Test
+    void dot_ShouldMatchScalarForAnyLengthAndOffset() {
+        // Given
+        SplittableRandom random = new SplittableRandom(11);
+        float[] a = new float[1600];
+        float[] b = new float[1600];
+        for (int i = 0; i < a.length; i++) {
+            a[i] = (float) random.nextGaussian();
+            b[i] = (float) random.nextGaussian();
+        }
+
+        // When & Then
+        for (int length : new int[]{0, 1, 3, 7, 8, 15, 16, 17, 33, 384, 1536}) {
+            float expected = VectorMath.scalarDot(a, 5, b, 50, length);
+            float actual = VectorMath.dot(a, 5, b, 50, length);
+            assertEquals(expected, actual, 1e-3f * Math.max(1, Math.abs(expected)), "délka " + length);
+        }
+    }
+
+    @Test
+    void dot_WithInt8Vector_ShouldMatchScalar() {
+        // Given
+        SplittableRandom random = new SplittableRandom(13);
+        float[] a = new float[1600];
+        byte[] b = new byte[1600];
+        for (int i = 0; i < a.length; i++) {
+            a[i] = (float) random.nextGaussian();
+            b[i] = (byte) random.nextInt(-127, 128);
+        }
+
+        // When & Then
+        for (int length : new int[]{0, 5, 16, 31, 1536}) {
+            float expected = VectorMath.scalarDot(a, 3, b, 30, length);
+            float actual = VectorMath.dot(a, 3, b, 30, length);
+            assertEquals(expected, actual, 1e-3f * Math.max(1, Math.abs(expected)), "délka " + length);
+        }
+    }
+
+    @Test
+    void simd_WithVectorModule_ShouldBeEnabled() {
+        // Surefire spouští testy s --add-modules jdk.incubator.vector
+        assertTrue(VectorMath.SIMD);
+    }
+
+    @Test
+    void normalize_ShouldReturnUnitVectorOrNullForZero() {
+        // When
+        float[] normalized = VectorMath.normalize(new float[]{3, 4});
+
+        // Then
+        assertArrayEquals(new float[]{0.6f, 0.8f}, normalized, 1e-6f);
+        assertNull(VectorMath.normalize(new float[]{0, 0}));
+    }
+
+    @Test
+    void topK_ShouldKeepBestScoresInDescendingOrder() {
+        // Given
+        TopK topK = new TopK(3);
+        float[] scores = {0.1f, 0.9f, 0.4f, 0.7f, 0.2f, 0.8f};
+
+        // When
+        for (int row = 0; row < scores.length; row++) {
+            topK.offer(row, scores[row]);
+        }
+
+        // Then
+        assertEquals(List.of(1, 5, 3), topK.drain().stream().map(ScoredRow::row).toList());
+        assertEquals(0, topK.size());
+    }
+}
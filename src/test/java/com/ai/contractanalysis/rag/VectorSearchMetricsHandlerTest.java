@@ -0,0 +1,58 @@
+package com.ai.contractanalysis.rag;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.observation.VectorStoreObservationContext;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VectorSearchMetricsHandlerTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private ObservationRegistry observationRegistry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        observationRegistry = ObservationRegistry.create();
+        observationRegistry.observationConfig().observationHandler(new VectorSearchMetricsHandler(meterRegistry));
+    }
+
+    @Test
+    void onStop_ForQuery_ShouldRecordHitCount() {
+        // When
+        observe(VectorStoreObservationContext.Operation.QUERY, List.of(new Document("Nájemné"), new Document("Kauce")));
+        observe(VectorStoreObservationContext.Operation.QUERY, List.of());
+
+        // Then
+        DistributionSummary summary = meterRegistry.get(VectorSearchMetricsHandler.HITS_SUMMARY)
+                .tags("db.system", "simple")
+                .summary();
+        assertEquals(2, summary.count());
+        assertEquals(2, summary.totalAmount());
+    }
+
+    @Test
+    void onStop_ForAdd_ShouldNotRecordHits() {
+        // When
+        observe(VectorStoreObservationContext.Operation.ADD, null);
+
+        // Then
+        assertNull(meterRegistry.find(VectorSearchMetricsHandler.HITS_SUMMARY).summary());
+    }
+
+    private void observe(VectorStoreObservationContext.Operation operation, List<Document> response) {
+        VectorStoreObservationContext context = VectorStoreObservationContext.builder("simple", operation).build();
+        Observation observation = Observation.createNotStarted("db.vector.client.operation", () -> context, observationRegistry)
+                .start();
+        context.setQueryResponse(response);
+        observation.stop();
+    }
+}
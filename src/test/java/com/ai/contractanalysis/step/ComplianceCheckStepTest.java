@@ -1,14 +1,18 @@
 package com.ai.contractanalysis.step;
 
+import com.ai.contractanalysis.issue.Importance;
+import com.ai.contractanalysis.issue.Issue;
 import com.ai.contractanalysis.issue.Issues;
 import com.ai.contractanalysis.utils.StepResult;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
 import org.springframework.ai.chat.client.ChatClient;
+import reactor.core.publisher.Flux;
 
-import java.util.HashMap;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
+import java.util.function.Consumer;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -23,7 +27,6 @@ class ComplianceCheckStepTest {
 
     @BeforeEach
     void setUp() {
-        step = new ComplianceCheckStep();
 
         chatClientBuilder = mock(ChatClient.Builder.class);
         chatClient = mock(ChatClient.class);
@@ -34,22 +37,25 @@ class ComplianceCheckStepTest {
 
         // Mock fluent API
         when(chatClient.prompt()).thenReturn(promptSpec);
+        when(promptSpec.advisors(ArgumentMatchers.<Consumer<ChatClient.AdvisorSpec>>any())).thenReturn(promptSpec);
         when(promptSpec.system(anyString())).thenReturn(promptSpec);
         when(promptSpec.user(anyString())).thenReturn(promptSpec);
 
         Issues mockedIssues = new Issues(List.of());
         when(promptSpec.call()).thenReturn(response);
         when(response.entity(Issues.class)).thenReturn(mockedIssues);
+
+        step = new ComplianceCheckStep(chatClientBuilder);
     }
 
     @Test
     void testExecuteSuccess() {
-        Map<ContextKey, Object> context = new HashMap<>();
+        PipelineContext context = new PipelineContext("Sample input");
         context.put(ContextKey.CONTRACT_ANALYSIS, "Sample contract analysis");
         context.put(ContextKey.LEGAL_CONTEXT, "Sample legal context");
         context.put(ContextKey.ORIGINAL_CONTRACT, "Sample original contract");
 
-        StepResult result = step.execute("Sample input", context, chatClientBuilder);
+        StepResult result = step.execute(context);
 
         assertTrue(result.success());
         assertNotNull(context.get(ContextKey.COMPLIANCE_ISSUES));
@@ -60,15 +66,65 @@ class ComplianceCheckStepTest {
     void testExecuteFailure() {
         when(promptSpec.call()).thenThrow(new RuntimeException("Chat service error"));
 
-        Map<ContextKey, Object> context = new HashMap<>();
+        PipelineContext context = new PipelineContext("Sample input");
         context.put(ContextKey.CONTRACT_ANALYSIS, "Sample contract analysis");
         context.put(ContextKey.LEGAL_CONTEXT, "Sample legal context");
         context.put(ContextKey.ORIGINAL_CONTRACT, "Sample original contract");
 
-        StepResult result = step.execute("Sample input", context, chatClientBuilder);
+        StepResult result = step.execute(context);
 
         assertFalse(result.success());
-        assertEquals("", context.getOrDefault(ContextKey.COMPLIANCE_ISSUES, ""));
+        assertFalse(context.contains(ContextKey.COMPLIANCE_ISSUES));
         assertTrue(result.message().contains("Chyba při kontrole shody"));
     }
+
+    @Test
+    void testExecuteStreamingEmitsIssuesAsTheyComplete() {
+        List<Issue> emitted = new ArrayList<>();
+
+        ChatClient.StreamResponseSpec streamResponse = mock(ChatClient.StreamResponseSpec.class);
+        when(promptSpec.stream()).thenReturn(streamResponse);
+        when(streamResponse.content()).thenReturn(Flux.just(
+                "{\"issues\": [{\"passage\": \"Chybí {strany}\", ",
+                "\"recommendation\": \"Doplnit\", \"importance\": \"HIGH\"},",
+                " {\"passage\": \"Lhůta\", \"recommendation\": \"Upřesnit\", \"importance\": \"LOW\"}]}"
+        ));
+
+        PipelineContext context = new PipelineContext("Sample input", emitted::add);
+        context.put(ContextKey.CONTRACT_ANALYSIS, "Sample contract analysis");
+        context.put(ContextKey.LEGAL_CONTEXT, "Sample legal context");
+        context.put(ContextKey.ORIGINAL_CONTRACT, "Sample original contract");
+
+        StepResult result = step.execute(context);
+
+        assertTrue(result.success());
+        assertEquals(List.of(
+                new Issue("Chybí {strany}", "Doplnit", Importance.HIGH),
+                new Issue("Lhůta", "Upřesnit", Importance.LOW)
+        ), emitted);
+        assertEquals(emitted, ((Issues) context.get(ContextKey.COMPLIANCE_ISSUES)).issues());
+        verify(promptSpec, never()).call();
+    }
+
+    @Test
+    void testExecuteChunkedMergesDuplicateIssues() {
+        when(response.entity(Issues.class)).thenReturn(
+                new Issues(List.of(new Issue("Chybí  lhůta", "Doplnit", Importance.HIGH))),
+                new Issues(List.of(new Issue("chybí lhůta", "Doplnit", Importance.HIGH),
+                        new Issue("Sankce", "Snížit", Importance.MEDIUM))));
+        step = new ComplianceCheckStep(chatClientBuilder, 2);
+
+        PipelineContext context = new PipelineContext("Sample input");
+        context.put(ContextKey.CONTRACT_ANALYSIS, "Sample contract analysis");
+        context.put(ContextKey.LEGAL_CONTEXT, "Sample legal context");
+        context.put(ContextKey.ORIGINAL_CONTRACT, "Část 1 Část 2");
+        context.put(ContextKey.CONTRACT_SEGMENTS, List.of("Část 1", "Část 2"));
+
+        StepResult result = step.execute(context);
+
+        assertTrue(result.success());
+        Issues issues = context.get(ContextKey.COMPLIANCE_ISSUES);
+        assertEquals(2, issues.issues().size());
+        verify(promptSpec, times(2)).call();
+    }
 }
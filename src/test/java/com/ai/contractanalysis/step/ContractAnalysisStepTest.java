@@ -1,12 +1,14 @@
 package com.ai.contractanalysis.step;
 
+import com.ai.contractanalysis.utils.ClauseSegmenter;
 import com.ai.contractanalysis.utils.StepResult;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
 import org.springframework.ai.chat.client.ChatClient;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.List;
+import java.util.function.Consumer;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -21,7 +23,6 @@ class ContractAnalysisStepTest {
 
     @BeforeEach
     void setUp() {
-        step = new ContractAnalysisStep();
 
         chatClientBuilder = mock(ChatClient.Builder.class);
         chatClient = mock(ChatClient.class);
@@ -32,18 +33,21 @@ class ContractAnalysisStepTest {
 
         // Mock fluent API
         when(chatClient.prompt()).thenReturn(promptSpec);
+        when(promptSpec.advisors(ArgumentMatchers.<Consumer<ChatClient.AdvisorSpec>>any())).thenReturn(promptSpec);
         when(promptSpec.system(anyString())).thenReturn(promptSpec);
         when(promptSpec.user(anyString())).thenReturn(promptSpec);
         when(promptSpec.call()).thenReturn(response);
         when(response.content()).thenReturn("Mocked contract analysis response");
+
+        step = new ContractAnalysisStep(chatClientBuilder);
     }
 
     @Test
     void testExecuteSuccess() {
-        Map<ContextKey, Object> context = new HashMap<>();
         String inputText = "Sample contract text";
+        PipelineContext context = new PipelineContext(inputText);
 
-        StepResult result = step.execute(inputText, context, chatClientBuilder);
+        StepResult result = step.execute(context);
 
         assertTrue(result.success());
         assertEquals("Mocked contract analysis response", context.get(ContextKey.CONTRACT_ANALYSIS));
@@ -55,13 +59,29 @@ class ContractAnalysisStepTest {
     void testExecuteFailure() {
         when(promptSpec.call()).thenThrow(new RuntimeException("Chat service error"));
 
-        Map<ContextKey, Object> context = new HashMap<>();
         String inputText = "Sample contract text";
+        PipelineContext context = new PipelineContext(inputText);
 
-        StepResult result = step.execute(inputText, context, chatClientBuilder);
+        StepResult result = step.execute(context);
 
         assertFalse(result.success());
-        assertEquals("", context.getOrDefault(ContextKey.CONTRACT_ANALYSIS, ""));
+        assertFalse(context.contains(ContextKey.CONTRACT_ANALYSIS));
         assertTrue(result.message().contains("Chyba při analýze smlouvy"));
     }
+
+    @Test
+    void testExecuteChunked() {
+        step = new ContractAnalysisStep(chatClientBuilder, new ClauseSegmenter(10, 40), 2);
+        String inputText = "Článek 1\nNájemce platí nájemné.\nČlánek 2\nPronajímatel udržuje byt.\n";
+        PipelineContext context = new PipelineContext(inputText);
+
+        StepResult result = step.execute(context);
+
+        assertTrue(result.success());
+        List<String> segments = context.get(ContextKey.CONTRACT_SEGMENTS);
+        assertEquals(2, segments.size());
+        assertTrue(((String) context.get(ContextKey.CONTRACT_ANALYSIS)).contains("## Část 2/2"));
+        assertEquals(inputText, context.get(ContextKey.ORIGINAL_CONTRACT));
+        verify(promptSpec, times(2)).call();
+    }
 }
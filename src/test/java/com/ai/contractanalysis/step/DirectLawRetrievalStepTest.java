@@ -0,0 +1,59 @@
+package com.ai.contractanalysis.step;
+
+import com.ai.contractanalysis.rag.LawSearch;
+import com.ai.contractanalysis.utils.StepResult;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.document.Document;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class DirectLawRetrievalStepTest {
+
+    private DirectLawRetrievalStep step;
+    private LawSearch lawSearch;
+
+    @BeforeEach
+    void setUp() {
+        lawSearch = mock(LawSearch.class);
+        step = new DirectLawRetrievalStep(lawSearch);
+    }
+
+    @Test
+    void testExecuteSuccess() {
+        Document found = new Document("1", "§ 2235 Nájem bytu", Map.of("filename", "obcansky-zakonik.json"));
+        Document prefetched = new Document("2", "§ 2236 Forma", Map.of("filename", "obcansky-zakonik.json"));
+        when(lawSearch.search("Sample contract analysis")).thenReturn(List.of(found));
+
+        PipelineContext context = new PipelineContext("Sample input");
+        context.put(ContextKey.CONTRACT_ANALYSIS, "Sample contract analysis");
+        context.put(ContextKey.PREFETCHED_LAWS, List.of(prefetched, found));
+
+        StepResult result = step.execute(context);
+
+        assertTrue(result.success());
+        String legalContext = context.get(ContextKey.LEGAL_CONTEXT);
+        assertTrue(legalContext.contains("[obcansky-zakonik.json]"));
+        assertTrue(legalContext.contains("§ 2235 Nájem bytu"));
+        assertTrue(legalContext.contains("§ 2236 Forma"));
+        assertEquals(legalContext.indexOf("§ 2235"), legalContext.lastIndexOf("§ 2235"));
+    }
+
+    @Test
+    void testExecuteFailure() {
+        when(lawSearch.search(anyString())).thenThrow(new RuntimeException("Embedding error"));
+
+        PipelineContext context = new PipelineContext("Sample input");
+        context.put(ContextKey.CONTRACT_ANALYSIS, "Sample contract analysis");
+
+        StepResult result = step.execute(context);
+
+        assertFalse(result.success());
+        assertFalse(context.contains(ContextKey.LEGAL_CONTEXT));
+        assertTrue(result.message().contains("Chyba při získávání právních informací"));
+    }
+}
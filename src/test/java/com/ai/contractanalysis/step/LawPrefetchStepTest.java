@@ -0,0 +1,57 @@
+package com.ai.contractanalysis.step;
+
+import com.ai.contractanalysis.rag.LawSearch;
+import com.ai.contractanalysis.utils.StepResult;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.document.Document;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class LawPrefetchStepTest {
+
+    private LawPrefetchStep step;
+    private LawSearch lawSearch;
+
+    @BeforeEach
+    void setUp() {
+        lawSearch = mock(LawSearch.class);
+        step = new LawPrefetchStep(lawSearch);
+    }
+
+    @Test
+    void testExecuteSuccess() {
+        List<Document> documents = List.of(new Document("§ 1"));
+        when(lawSearch.search("Článek 1 nájemce platí nájem")).thenReturn(documents);
+
+        PipelineContext context = new PipelineContext("Článek 1 nájemce platí nájem");
+
+        StepResult result = step.execute(context);
+
+        assertTrue(result.success());
+        assertEquals(documents, context.get(ContextKey.PREFETCHED_LAWS));
+    }
+
+    @Test
+    void testExecuteFailureFallsBack() {
+        when(lawSearch.search(anyString())).thenThrow(new RuntimeException("Embedding error"));
+
+        PipelineContext context = new PipelineContext("Článek 1 nájemce platí nájem");
+
+        StepResult result = step.execute(context);
+
+        assertTrue(result.success());
+        assertFalse(context.contains(ContextKey.PREFETCHED_LAWS));
+        assertTrue(result.message().contains("Předběžné vyhledání zákonů selhalo"));
+    }
+
+    @Test
+    void testDeclaresDependencies() {
+        assertEquals(Set.of(ContextKey.ORIGINAL_INPUT), step.getReads());
+        assertEquals(Set.of(ContextKey.PREFETCHED_LAWS), step.getWrites());
+    }
+}
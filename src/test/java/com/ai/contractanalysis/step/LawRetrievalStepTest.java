@@ -3,12 +3,15 @@ package com.ai.contractanalysis.step;
 import com.ai.contractanalysis.utils.StepResult;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
 import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.ai.chat.client.advisor.vectorstore.QuestionAnswerAdvisor;
+import org.springframework.ai.document.Document;
 import org.springframework.ai.vectorstore.VectorStore;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.List;
+import java.util.function.Consumer;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -25,7 +28,6 @@ class LawRetrievalStepTest {
     @BeforeEach
     void setUp() {
         vectorStore = mock(VectorStore.class);
-        step = new LawRetrievalStep(vectorStore);
 
         chatClientBuilder = mock(ChatClient.Builder.class);
         ragChatClient = mock(ChatClient.class);
@@ -33,39 +35,58 @@ class LawRetrievalStepTest {
         response = mock(ChatClient.CallResponseSpec.class);
 
         // Mock fluent API
+        when(chatClientBuilder.clone()).thenReturn(chatClientBuilder);
         when(chatClientBuilder.defaultAdvisors(any(QuestionAnswerAdvisor.class))).thenReturn(chatClientBuilder);
         when(chatClientBuilder.build()).thenReturn(ragChatClient);
 
         when(ragChatClient.prompt()).thenReturn(promptSpec);
+        when(promptSpec.advisors(ArgumentMatchers.<Consumer<ChatClient.AdvisorSpec>>any())).thenReturn(promptSpec);
         when(promptSpec.system(anyString())).thenReturn(promptSpec);
         when(promptSpec.user(anyString())).thenReturn(promptSpec);
         when(promptSpec.call()).thenReturn(response);
         when(response.content()).thenReturn("Mocked legal retrieval response");
+
+        step = new LawRetrievalStep(chatClientBuilder, vectorStore);
     }
 
     @Test
     void testExecuteSuccess() {
-        Map<ContextKey, Object> context = new HashMap<>();
+        PipelineContext context = new PipelineContext("Sample input");
         context.put(ContextKey.CONTRACT_ANALYSIS, "Sample contract analysis");
 
-        StepResult result = step.execute("Sample input", context, chatClientBuilder);
+        StepResult result = step.execute(context);
 
         assertTrue(result.success());
         assertEquals("Mocked legal retrieval response", context.get(ContextKey.LEGAL_CONTEXT));
         assertEquals("Právní informace byly úspěšně získány", result.message());
     }
 
+    @Test
+    void testExecuteWithPrefetchedLaws() {
+        PipelineContext context = new PipelineContext("Sample input");
+        context.put(ContextKey.CONTRACT_ANALYSIS, "Sample contract analysis");
+        context.put(ContextKey.PREFETCHED_LAWS, List.of(new Document("§ 2235 Nájem bytu")));
+
+        StepResult result = step.execute(context);
+
+        assertTrue(result.success());
+        ArgumentCaptor<String> userPrompt = ArgumentCaptor.forClass(String.class);
+        verify(promptSpec).user(userPrompt.capture());
+        assertTrue(userPrompt.getValue().contains("Sample contract analysis"));
+        assertTrue(userPrompt.getValue().contains("§ 2235 Nájem bytu"));
+    }
+
     @Test
     void testExecuteFailure() {
         when(promptSpec.call()).thenThrow(new RuntimeException("Chat service error"));
 
-        Map<ContextKey, Object> context = new HashMap<>();
+        PipelineContext context = new PipelineContext("Sample input");
         context.put(ContextKey.CONTRACT_ANALYSIS, "Sample contract analysis");
 
-        StepResult result = step.execute("Sample input", context, chatClientBuilder);
+        StepResult result = step.execute(context);
 
         assertFalse(result.success());
-        assertEquals("", context.getOrDefault(ContextKey.LEGAL_CONTEXT, ""));
+        assertFalse(context.contains(ContextKey.LEGAL_CONTEXT));
         assertTrue(result.message().contains("Chyba při získávání právních informací"));
     }
 }
@@ -0,0 +1,56 @@
+package com.ai.contractanalysis.step;
+
+import com.ai.contractanalysis.issue.Issues;
+import com.ai.contractanalysis.utils.StepResult;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PipelineContextTest {
+
+    @Test
+    void constructor_ShouldStoreOriginalInput() {
+        PipelineContext context = new PipelineContext("contract");
+
+        assertEquals("contract", context.get(ContextKey.ORIGINAL_INPUT));
+        assertNull(context.getIssueListener());
+    }
+
+    @Test
+    void put_ShouldRejectValueOfWrongType() {
+        PipelineContext context = new PipelineContext("contract");
+
+        assertThrows(IllegalArgumentException.class, () -> context.put(ContextKey.COMPLIANCE_ISSUES, "not issues"));
+    }
+
+    @Test
+    void put_WithNull_ShouldRemoveValue() {
+        PipelineContext context = new PipelineContext("contract");
+        context.put(ContextKey.CONTRACT_ANALYSIS, "analysis");
+
+        context.put(ContextKey.CONTRACT_ANALYSIS, null);
+
+        assertFalse(context.contains(ContextKey.CONTRACT_ANALYSIS));
+        assertNull(context.get(ContextKey.CONTRACT_ANALYSIS));
+    }
+
+    @Test
+    void getIssues_WithoutComplianceResult_ShouldReturnEmptyIssues() {
+        PipelineContext context = new PipelineContext("contract");
+
+        assertEquals(new Issues(List.of()), context.getIssues());
+    }
+
+    @Test
+    void isSuccessful_ShouldReflectRecordedResults() {
+        PipelineContext context = new PipelineContext("contract");
+        context.record(new StepResult("A", "in", "out", "ok", true));
+        assertTrue(context.isSuccessful());
+
+        context.record(new StepResult("B", "in", "", "error", false));
+        assertFalse(context.isSuccessful());
+        assertEquals(2, context.getExecutionHistory().size());
+    }
+}
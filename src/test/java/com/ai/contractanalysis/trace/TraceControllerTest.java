@@ -0,0 +1,62 @@
+package com.ai.contractanalysis.trace;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@ExtendWith(MockitoExtension.class)
+class TraceControllerTest {
+
+    @Mock
+    private TraceStore traceStore;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.standaloneSetup(new TraceController(traceStore))
+                .addFilters(new RequestIdFilter())
+                .build();
+    }
+
+    @Test
+    void getTrace_WhenKnown_ShouldReturnTrace() throws Exception {
+        // Given
+        Instant now = Instant.parse("2026-01-01T10:00:00Z");
+        StepTrace step = new StepTrace("Contract Analysis", now, now.plusMillis(800), 800, true, "ok",
+                120, 30, "smlouva", "analýza");
+        when(traceStore.get("req-1")).thenReturn(Optional.of(
+                new RequestTrace("req-1", now, now.plusSeconds(1), 1000, "success", 7, List.of(step))));
+
+        // When & Then
+        mockMvc.perform(get("/api/v1/contracts/traces/req-1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.outcome").value("success"))
+                .andExpect(jsonPath("$.steps[0].stepName").value("Contract Analysis"))
+                .andExpect(jsonPath("$.steps[0].durationMs").value(800))
+                .andExpect(jsonPath("$.steps[0].promptTokens").value(120));
+    }
+
+    @Test
+    void getTrace_WhenUnknown_ShouldReturnNotFound() throws Exception {
+        // Given
+        when(traceStore.get("missing")).thenReturn(Optional.empty());
+
+        // When & Then
+        mockMvc.perform(get("/api/v1/contracts/traces/missing").header(RequestIds.HEADER, "client-42"))
+                .andExpect(status().isNotFound())
+                .andExpect(header().string(RequestIds.HEADER, "client-42"));
+    }
+}
@@ -0,0 +1,81 @@
+package com.ai.contractanalysis.trace;
+
+import com.ai.contractanalysis.step.PipelineContext;
+import com.ai.contractanalysis.utils.StepResult;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TraceStoreTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void record_ShouldKeepTimingsTokensAndTruncatedPreviews() {
+        // Given
+        TraceStore store = new TraceStore(10, 20, false, Duration.ofHours(1), DataSize.ofMegabytes(100), tempDir.toString(), objectMapper);
+        PipelineContext context = new PipelineContext("smlouva");
+        Instant start = Instant.parse("2026-01-01T10:00:00Z");
+        context.record(new StepResult("Contract Analysis", "x".repeat(5000), "analýza", "ok", true));
+        context.recordTiming("Contract Analysis", start, start.plusMillis(1500));
+        context.onTokenUsage("Contract Analysis", 100, 20);
+        context.onTokenUsage("Contract Analysis", 50, 10);
+
+        // When
+        store.record("req-1", context, start, 5000);
+
+        // Then
+        RequestTrace trace = store.get("req-1").orElseThrow();
+        assertEquals("success", trace.outcome());
+        StepTrace step = trace.steps().getFirst();
+        assertEquals(1500, step.durationMs());
+        assertEquals(150, step.promptTokens());
+        assertEquals(30, step.completionTokens());
+        assertTrue(step.inputPreview().startsWith("x".repeat(20) + "…"));
+        assertTrue(step.inputPreview().length() < 50);
+        assertEquals("analýza", step.outputPreview());
+    }
+
+    @Test
+    void record_OverCapacity_ShouldEvictOldestTrace() {
+        // Given
+        TraceStore store = new TraceStore(2, 20, false, Duration.ofHours(1), DataSize.ofMegabytes(100), tempDir.toString(), objectMapper);
+
+        // When
+        store.record("req-1", Instant.now(), "cached", 10);
+        store.record("req-2", Instant.now(), "cached", 10);
+        store.record("req-3", Instant.now(), "cached", 10);
+
+        // Then
+        assertTrue(store.get("req-1").isEmpty());
+        assertTrue(store.get("req-2").isPresent());
+        assertTrue(store.get("req-3").isPresent());
+    }
+
+    @Test
+    void record_WithSpill_ShouldReadEvictedTraceFromDisk() {
+        // Given
+        TraceStore store = new TraceStore(1, 20, true, Duration.ofHours(1), DataSize.ofMegabytes(100), tempDir.toString(), objectMapper);
+
+        // When
+        store.record("req-1", Instant.now(), "coalesced", 10);
+        store.record("req-2", Instant.now(), "cached", 10);
+
+        // Then
+        assertTrue(Files.exists(tempDir.resolve("traces").resolve("req-1.json")));
+        RequestTrace evicted = store.get("req-1").orElseThrow();
+        assertEquals("coalesced", evicted.outcome());
+        assertTrue(store.get("../req-1").isEmpty());
+    }
+}
@@ -0,0 +1,96 @@
+package com.ai.contractanalysis.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoundedCacheTest {
+
+    @Test
+    void get_ShouldCountHitsAndMisses() {
+        // Given
+        BoundedCache<String, String> cache = new BoundedCache<>(10, null);
+        cache.put("a", "1");
+
+        // When
+        Optional<String> hit = cache.get("a");
+        Optional<String> miss = cache.get("b");
+
+        // Then
+        assertEquals(Optional.of("1"), hit);
+        assertTrue(miss.isEmpty());
+        assertEquals(1, cache.hitCount());
+        assertEquals(1, cache.missCount());
+    }
+
+    @Test
+    void put_ShouldEvictLeastRecentlyUsedEntry() {
+        // Given
+        List<String> evicted = new ArrayList<>();
+        BoundedCache<String, String> cache = new BoundedCache<>(2, null, value -> 1, (key, value) -> evicted.add(key));
+        cache.put("a", "1");
+        cache.put("b", "2");
+        cache.get("a");
+
+        // When
+        cache.put("c", "3");
+
+        // Then
+        assertEquals(List.of("b"), evicted);
+        assertTrue(cache.get("a").isPresent());
+        assertTrue(cache.get("b").isEmpty());
+        assertEquals(1, cache.evictionCount());
+    }
+
+    @Test
+    void put_ShouldBoundTotalWeight() {
+        // Given
+        BoundedCache<String, String> cache = new BoundedCache<>(10, null, String::length, (key, value) -> {
+        });
+
+        // When
+        cache.put("a", "12345");
+        cache.put("b", "123456");
+        cache.put("huge", "12345678901");
+
+        // Then
+        assertEquals(6, cache.weight());
+        assertEquals(1, cache.size());
+        assertTrue(cache.get("b").isPresent());
+        assertTrue(cache.get("huge").isEmpty());
+    }
+
+    @Test
+    void put_ShouldReplaceExistingEntryWeight() {
+        // Given
+        BoundedCache<String, String> cache = new BoundedCache<>(10, null, String::length, (key, value) -> {
+        });
+
+        // When
+        cache.put("a", "12345");
+        cache.put("a", "12");
+
+        // Then
+        assertEquals(2, cache.weight());
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void get_ShouldExpireEntriesAfterTtl() throws InterruptedException {
+        // Given
+        BoundedCache<String, String> cache = new BoundedCache<>(10, Duration.ofMillis(5));
+        cache.put("a", "1");
+
+        // When
+        Thread.sleep(20);
+
+        // Then
+        assertTrue(cache.get("a").isEmpty());
+        assertEquals(0, cache.size());
+    }
+}
@@ -0,0 +1,134 @@
+package com.ai.contractanalysis.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoundedVirtualThreadExecutorTest {
+
+    @Test
+    void constructor_ShouldRejectNonPositiveConcurrency() {
+        assertThrows(IllegalArgumentException.class, () -> new BoundedVirtualThreadExecutor("test-", 0));
+    }
+
+    @Test
+    void execute_ShouldNeverExceedMaxConcurrency() throws Exception {
+        // Given
+        int tasks = 50;
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxObserved = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(tasks);
+
+        try (BoundedVirtualThreadExecutor executor = new BoundedVirtualThreadExecutor("test-", 3)) {
+            // When
+            for (int i = 0; i < tasks; i++) {
+                executor.execute(() -> {
+                    int current = running.incrementAndGet();
+                    maxObserved.accumulateAndGet(current, Math::max);
+                    try {
+                        Thread.sleep(2);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    running.decrementAndGet();
+                    done.countDown();
+                });
+            }
+
+            // Then
+            assertTrue(done.await(10, TimeUnit.SECONDS));
+            assertTrue(maxObserved.get() <= 3);
+            assertEquals(3, executor.getMaxConcurrency());
+        }
+    }
+
+    @Test
+    void execute_ShouldNotOvertakeQueuedTasks() throws Exception {
+        for (int round = 0; round < 20; round++) {
+            // Given
+            CountDownLatch release = new CountDownLatch(1);
+            List<String> order = new CopyOnWriteArrayList<>();
+            CountDownLatch done = new CountDownLatch(2);
+            try (BoundedVirtualThreadExecutor executor = new BoundedVirtualThreadExecutor("test-", 1)) {
+                executor.execute(() -> await(release));
+                executor.execute(() -> {
+                    order.add("queued");
+                    done.countDown();
+                });
+
+                // When
+                release.countDown();
+                executor.execute(() -> {
+                    order.add("new");
+                    done.countDown();
+                });
+
+                // Then
+                assertTrue(done.await(5, TimeUnit.SECONDS));
+                assertEquals(List.of("queued", "new"), order);
+            }
+        }
+    }
+
+    @Test
+    void execute_WhenQueueIsFull_ShouldReject() throws Exception {
+        // Given
+        CountDownLatch release = new CountDownLatch(1);
+        try (BoundedVirtualThreadExecutor executor = new BoundedVirtualThreadExecutor("test-", 1, 1, Duration.ofSeconds(1))) {
+            executor.execute(() -> await(release));
+            executor.execute(() -> await(release));
+
+            // When & Then
+            assertThrows(RejectedExecutionException.class, () -> executor.execute(() -> { }));
+            assertEquals(1, executor.getQueuedCount());
+            release.countDown();
+        }
+    }
+
+    @Test
+    void close_ShouldInterruptRunningTasksAndCancelQueuedOnes() throws Exception {
+        // Given
+        CountDownLatch started = new CountDownLatch(1);
+        AtomicBoolean interrupted = new AtomicBoolean();
+        AtomicBoolean cancelled = new AtomicBoolean();
+        AtomicBoolean queuedRan = new AtomicBoolean();
+        BoundedVirtualThreadExecutor executor = new BoundedVirtualThreadExecutor("test-", 1, 10, Duration.ofSeconds(5));
+        executor.execute(() -> {
+            started.countDown();
+            try {
+                Thread.sleep(60_000);
+            } catch (InterruptedException e) {
+                interrupted.set(true);
+            }
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        executor.execute(() -> queuedRan.set(true), () -> cancelled.set(true));
+
+        // When
+        long start = System.nanoTime();
+        executor.close();
+
+        // Then
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+        assertTrue(interrupted.get());
+        assertTrue(cancelled.get());
+        assertFalse(queuedRan.get());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.ai.contractanalysis.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ClauseSegmenterTest {
+
+    @Test
+    void split_BelowThreshold_ShouldReturnWholeText() {
+        // Given
+        ClauseSegmenter segmenter = new ClauseSegmenter(100, 20);
+        String text = "Článek 1\nKrátká smlouva.";
+
+        // When
+        List<String> segments = segmenter.split(text);
+
+        // Then
+        assertEquals(List.of(text), segments);
+    }
+
+    @Test
+    void split_LongContract_ShouldAlignSegmentsToClauses() {
+        // Given
+        ClauseSegmenter segmenter = new ClauseSegmenter(50, 60);
+        String first = "Článek 1\nNájemce platí nájemné měsíčně.\n";
+        String second = "Článek 2\nPronajímatel udržuje byt v dobrém stavu.\n";
+        String third = "§ 3 Smlouva se uzavírá na dobu určitou.\n";
+
+        // When
+        List<String> segments = segmenter.split(first + second + third);
+
+        // Then
+        assertEquals(List.of(first, second, third), segments);
+    }
+
+    @Test
+    void split_OversizedClause_ShouldNotExceedSegmentSize() {
+        // Given
+        ClauseSegmenter segmenter = new ClauseSegmenter(10, 25);
+        String text = "Článek 1\n" + "x".repeat(40) + "\n\n" + "y".repeat(20);
+
+        // When
+        List<String> segments = segmenter.split(text);
+
+        // Then
+        assertTrue(segments.size() > 1);
+        assertTrue(segments.stream().allMatch(segment -> segment.length() <= 25));
+        assertEquals(text, String.join("", segments));
+    }
+
+    @Test
+    void disabled_ShouldNeverSplit() {
+        // Given
+        String text = "Článek 1\n" + "x".repeat(100_000);
+
+        // When & Then
+        assertEquals(List.of(text), ClauseSegmenter.disabled().split(text));
+    }
+}
@@ -0,0 +1,63 @@
+package com.ai.contractanalysis.utils;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExtractionCacheTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void put_ShouldEvictByTotalCharacters() {
+        // Given
+        ExtractionCache cache = new ExtractionCache(true, 10, Duration.ofHours(1), false, DataSize.ofMegabytes(100), tempDir.toString());
+
+        // When
+        cache.put("a", new ExtractedText("12345", false, 100));
+        cache.put("b", new ExtractedText("12345", false, 100));
+        cache.put("c", new ExtractedText("12345", false, 100));
+
+        // Then
+        assertTrue(cache.get("a").isEmpty());
+        assertTrue(cache.get("c").isPresent());
+        assertEquals(10, cache.weight());
+    }
+
+    @Test
+    void get_WithSpill_ShouldRestoreEvictedEntryFromDisk() {
+        // Given
+        ExtractionCache cache = new ExtractionCache(true, 20, Duration.ofHours(1), true, DataSize.ofMegabytes(100), tempDir.toString());
+        ExtractedText first = new ExtractedText("Článek 1\nNájem", true, 100);
+        cache.put("a", first);
+        cache.put("b", new ExtractedText("1234567890", false, 100));
+
+        // When
+        Optional<ExtractedText> restored = cache.get("a");
+
+        // Then
+        assertEquals(Optional.of(first), restored);
+        assertFalse(Files.exists(tempDir.resolve("extraction-cache").resolve("a.txt")));
+        assertTrue(Files.exists(tempDir.resolve("extraction-cache").resolve("b.txt")));
+    }
+
+    @Test
+    void get_WhenDisabled_ShouldAlwaysMiss() {
+        // Given
+        ExtractionCache cache = new ExtractionCache(false, 10, Duration.ofHours(1), false, DataSize.ofMegabytes(100), tempDir.toString());
+
+        // When
+        cache.put("a", new ExtractedText("123", false, 100));
+
+        // Then
+        assertTrue(cache.get("a").isEmpty());
+    }
+}
@@ -1,10 +1,20 @@
 package com.ai.contractanalysis.utils;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.poi.xwpf.usermodel.XWPFDocument;
+import org.apache.tika.parser.pdf.PDFParserConfig;
 import org.mockito.MockedStatic;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -23,7 +33,7 @@ class FileConverterTest {
     void extractText_ShouldThrowException_WhenFileIsNull() {
         // When & Then
         IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
-                () -> fileConverter.extractText(null));
+                () -> fileConverter.extract(null));
 
         assertEquals("Soubor je prázdný nebo chybí", ex.getMessage());
     }
@@ -36,7 +46,7 @@ class FileConverterTest {
 
         // When & Then
         IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
-                () -> fileConverter.extractText(file));
+                () -> fileConverter.extract(file));
 
         assertEquals("Soubor je prázdný nebo chybí", ex.getMessage());
     }
@@ -55,7 +65,7 @@ class FileConverterTest {
 
             // When & Then
             IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
-                    () -> fileConverter.extractText(file));
+                    () -> fileConverter.extract(file));
 
             assertEquals("Nepodporovaný typ souboru", ex.getMessage());
         }
@@ -75,11 +85,151 @@ class FileConverterTest {
 
             // When & Then
             IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
-                    () -> fileConverter.extractText(file));
+                    () -> fileConverter.extract(file));
 
             assertTrue(ex.getMessage().contains("Chyba při čtení souboru: file.pdf"));
             assertNotNull(ex.getCause());
             assertEquals("IO chyba", ex.getCause().getMessage());
         }
     }
+
+    @Test
+    void extract_ShouldReturnTextOfDocx() throws Exception {
+        // Given
+        MockMultipartFile file = new MockMultipartFile("file", "smlouva.docx", null,
+                docx("Článek 1", "Nájemce platí nájemné."));
+
+        // When
+        ExtractedText extracted = fileConverter.extract(file);
+
+        // Then
+        assertTrue(extracted.text().contains("Nájemce platí nájemné."));
+        assertFalse(extracted.truncated());
+    }
+
+    @Test
+    void extract_ShouldTruncate_WhenTextExceedsLimit() throws Exception {
+        // Given
+        FileConverter limited = new FileConverter(500);
+        MockMultipartFile file = new MockMultipartFile("file", "smlouva.docx", null,
+                docx("x".repeat(400), "y".repeat(400)));
+
+        // When
+        ExtractedText extracted = limited.extract(file);
+
+        // Then
+        assertTrue(extracted.truncated());
+        assertEquals(500, extracted.text().length());
+        assertEquals(500, extracted.maxChars());
+    }
+
+    @Test
+    void extract_ShouldReturnTextOfPdf() throws Exception {
+        // Given
+        MockMultipartFile file = new MockMultipartFile("file", "smlouva.pdf", null, pdf("Najemce plati najemne"));
+
+        // When
+        ExtractedText extracted = fileConverter.extract(file);
+
+        // Then
+        assertTrue(extracted.text().contains("Najemce plati najemne"));
+        assertFalse(extracted.truncated());
+    }
+
+    @Test
+    void extract_ShouldUseParallelExtractor_ForLargePdf() throws Exception {
+        // Given
+        FileConverter parallel = new FileConverter(100_000, new ParallelPdfExtractor(2, 1, 1), null);
+        MockMultipartFile file = new MockMultipartFile("file", "smlouva.pdf", null, pdf("Najemce plati najemne"));
+
+        // When
+        ExtractedText extracted = parallel.extract(file);
+        parallel.close();
+
+        // Then
+        assertTrue(extracted.text().contains("Najemce plati najemne"));
+    }
+
+    @Test
+    void pdfParserConfig_ShouldComeFromTikaConfig() {
+        // When
+        PDFParserConfig config = FileConverter.pdfParserConfig(FileConverter.loadParser());
+
+        // Then
+        assertNotNull(config);
+        assertFalse(config.isSortByPosition());
+        assertFalse(config.isExtractInlineImages());
+        assertEquals(PDFParserConfig.OCR_STRATEGY.NO_OCR, config.getOcrStrategy());
+    }
+
+    @Test
+    void extract_ShouldReuseCachedText_ForSameUploadBytes() throws Exception {
+        // Given
+        ExtractionCache cache = new ExtractionCache(true, 10_000, null, false, DataSize.ofMegabytes(100), "");
+        FileConverter cached = new FileConverter(100_000, null, cache);
+        byte[] content = docx("Článek 1", "Nájemce platí nájemné.");
+
+        // When
+        ExtractedText first = cached.extract(new MockMultipartFile("file", "smlouva.docx", null, content));
+        ExtractedText second = cached.extract(new MockMultipartFile("file", "kopie.docx", null, content));
+
+        // Then
+        assertSame(first, second);
+        assertEquals(1, cache.hitCount());
+    }
+
+    @Test
+    void extract_ShouldRecordExtractionMetricsByType() throws Exception {
+        // Given
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        FileConverter measured = new FileConverter(100_000, null, null, registry);
+        byte[] content = docx("Článek 1", "Nájemce platí nájemné.");
+
+        // When
+        measured.extract(new MockMultipartFile("file", "smlouva.docx", null, content));
+        assertThrows(IllegalArgumentException.class,
+                () -> measured.extract(new MockMultipartFile("file", "poskozena.pdf", null, "není pdf".getBytes())));
+
+        // Then
+        assertEquals(1, registry.get(FileConverter.EXTRACTION_TIMER)
+                .tags("type", "docx", "outcome", "success").timer().count());
+        assertEquals(1, registry.get(FileConverter.EXTRACTION_TIMER)
+                .tags("type", "pdf", "outcome", "failure").timer().count());
+        assertEquals(content.length, registry.get(FileConverter.EXTRACTION_BYTES)
+                .tags("type", "docx").summary().totalAmount());
+    }
+
+    @Test
+    void warmUp_ShouldNotThrow() {
+        // When & Then
+        assertDoesNotThrow(() -> fileConverter.warmUp());
+    }
+
+    private static byte[] pdf(String text) throws IOException {
+        try (PDDocument document = new PDDocument();
+             ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+            PDPage page = new PDPage();
+            document.addPage(page);
+            try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+                content.beginText();
+                content.setFont(PDType1Font.HELVETICA, 12);
+                content.newLineAtOffset(50, 700);
+                content.showText(text);
+                content.endText();
+            }
+            document.save(out);
+            return out.toByteArray();
+        }
+    }
+
+    private static byte[] docx(String... paragraphs) throws IOException {
+        try (XWPFDocument document = new XWPFDocument();
+             ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+            for (String paragraph : paragraphs) {
+                document.createParagraph().createRun().setText(paragraph);
+            }
+            document.write(out);
+            return out.toByteArray();
+        }
+    }
 }
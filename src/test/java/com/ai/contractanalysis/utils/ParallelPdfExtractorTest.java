@@ -0,0 +1,183 @@
+package com.ai.contractanalysis.utils;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.apache.tika.parser.pdf.PDFParserConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.InputStreamSource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParallelPdfExtractorTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final PDFParserConfig config = new PDFParserConfig();
+    private ParallelPdfExtractor extractor;
+
+    @BeforeEach
+    void setUp() {
+        extractor = new ParallelPdfExtractor(4, 5, 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        extractor.close();
+    }
+
+    @Test
+    void extract_ShouldKeepPageOrder() throws Exception {
+        // Given
+        FileSystemResource pdf = pdf(12);
+
+        // When
+        ExtractedText extracted = extractor.extract(pdf, 100_000, config);
+
+        // Then
+        assertNotNull(extracted);
+        assertFalse(extracted.truncated());
+        int previous = -1;
+        for (int page = 1; page <= 12; page++) {
+            int index = extracted.text().indexOf("Stranka " + page + " ");
+            assertTrue(index > previous, "stránka " + page);
+            previous = index;
+        }
+    }
+
+    @Test
+    void extract_ShouldTruncateToMaxChars() throws Exception {
+        // Given
+        FileSystemResource pdf = pdf(12);
+
+        // When
+        ExtractedText extracted = extractor.extract(pdf, 30, config);
+
+        // Then
+        assertTrue(extracted.truncated());
+        assertEquals(30, extracted.text().length());
+        assertTrue(extracted.text().startsWith("Stranka 1 "));
+    }
+
+    @Test
+    void extract_ShortDocument_ShouldTruncateToMaxChars() throws Exception {
+        // Given
+        FileSystemResource pdf = pdf(4);
+        ParallelPdfExtractor sequential = new ParallelPdfExtractor(4, 100, 2);
+
+        // When
+        ExtractedText extracted = sequential.extract(pdf, 30, config);
+        sequential.close();
+
+        // Then
+        assertTrue(extracted.truncated());
+        assertEquals(30, extracted.text().length());
+        assertTrue(extracted.text().startsWith("Stranka 1 "));
+    }
+
+    @Test
+    void extract_TextOfExactlyMaxChars_ShouldNotBeTruncated() throws Exception {
+        // Given
+        FileSystemResource pdf = pdf(12);
+        int length = extractor.extract(pdf, 100_000, config).text().length();
+
+        // When
+        ExtractedText extracted = extractor.extract(pdf, length, config);
+
+        // Then
+        assertFalse(extracted.truncated());
+        assertEquals(length, extracted.text().length());
+    }
+
+    @Test
+    void extract_ShortDocument_ShouldMatchParallelExtraction() throws Exception {
+        // Given
+        FileSystemResource pdf = pdf(12);
+        ParallelPdfExtractor sequential = new ParallelPdfExtractor(4, 100, 2);
+
+        // When
+        ExtractedText shortText = sequential.extract(pdf, 100_000, config);
+        sequential.close();
+
+        // Then
+        assertEquals(extractor.extract(pdf, 100_000, config), shortText);
+    }
+
+    @Test
+    void extract_ShortDocument_ShouldNotCopyUpload() throws Exception {
+        // Given
+        AtomicInteger opened = new AtomicInteger();
+        Path pdf = pdf(4).getFile().toPath();
+        InputStreamSource upload = () -> {
+            opened.incrementAndGet();
+            return Files.newInputStream(pdf);
+        };
+
+        // When
+        ExtractedText extracted = extractor.extract(upload, 100_000, config);
+
+        // Then
+        assertTrue(extracted.text().contains("Stranka 4 "));
+        assertEquals(1, opened.get());
+    }
+
+    @Test
+    void stripper_ShouldFollowParserConfig() throws Exception {
+        // Given
+        PDFParserConfig sorted = new PDFParserConfig();
+        sorted.setSortByPosition(true);
+        sorted.setEnableAutoSpace(false);
+
+        // When
+        PDFTextStripper stripper = ParallelPdfExtractor.stripper(sorted, 2, 3);
+
+        // Then
+        assertTrue(stripper.getSortByPosition());
+        assertEquals("", stripper.getWordSeparator());
+        assertEquals(2, stripper.getStartPage());
+        assertEquals(3, stripper.getEndPage());
+    }
+
+    @Test
+    void ranges_ShouldCoverAllPages() {
+        // When
+        List<int[]> ranges = extractor.ranges(11);
+
+        // Then
+        assertEquals(4, ranges.size());
+        assertArrayEquals(new int[]{1, 3}, ranges.getFirst());
+        assertArrayEquals(new int[]{10, 11}, ranges.getLast());
+    }
+
+    private FileSystemResource pdf(int pages) throws IOException {
+        Path file = tempDir.resolve("smlouva-" + pages + ".pdf");
+        try (PDDocument document = new PDDocument()) {
+            for (int page = 1; page <= pages; page++) {
+                PDPage pdPage = new PDPage();
+                document.addPage(pdPage);
+                try (PDPageContentStream content = new PDPageContentStream(document, pdPage)) {
+                    content.beginText();
+                    content.setFont(PDType1Font.HELVETICA, 12);
+                    content.newLineAtOffset(50, 700);
+                    content.showText("Stranka " + page + " smlouvy");
+                    content.endText();
+                }
+            }
+            document.save(file.toFile());
+        }
+        return new FileSystemResource(file);
+    }
+}
@@ -0,0 +1,66 @@
+package com.ai.contractanalysis.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParallelTasksTest {
+
+    @Test
+    void map_ShouldKeepInputOrderAndRespectConcurrencyLimit() {
+        // Given
+        List<Integer> items = IntStream.range(0, 20).boxed().toList();
+        AtomicInteger active = new AtomicInteger();
+        AtomicInteger maxActive = new AtomicInteger();
+
+        // When
+        List<Integer> results = ParallelTasks.map(items, 3, item -> {
+            maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(5);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            active.decrementAndGet();
+            return item * 2;
+        });
+
+        // Then
+        assertEquals(items.stream().map(item -> item * 2).toList(), results);
+        assertTrue(maxActive.get() <= 3);
+        assertTrue(maxActive.get() > 1);
+    }
+
+    @Test
+    void map_WithSingleNullResult_ShouldBehaveLikeMultipleItems() {
+        // When
+        List<String> single = ParallelTasks.map(List.of(1), 2, item -> null);
+        List<String> multiple = ParallelTasks.map(List.of(1, 2), 2, item -> null);
+
+        // Then
+        assertEquals(1, single.size());
+        assertNull(single.getFirst());
+        assertEquals(2, multiple.size());
+        assertNull(multiple.getFirst());
+    }
+
+    @Test
+    void map_WithFailingTask_ShouldRethrowItsException() {
+        // Given
+        List<Integer> items = List.of(1, 2, 3);
+
+        // When & Then
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> ParallelTasks.map(items, 2, item -> {
+                    if (item == 2) {
+                        throw new IllegalArgumentException("chyba " + item);
+                    }
+                    return item;
+                }));
+        assertEquals("chyba 2", exception.getMessage());
+    }
+}
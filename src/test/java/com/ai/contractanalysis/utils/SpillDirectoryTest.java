@@ -0,0 +1,64 @@
+package com.ai.contractanalysis.utils;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpillDirectoryTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void write_OverMaxBytes_ShouldDeleteOldestFiles() throws Exception {
+        // Given
+        SpillDirectory directory = new SpillDirectory(tempDir, Duration.ofHours(1), 25);
+        directory.write("a.txt", file -> Files.writeString(file, "0123456789"));
+        Files.setLastModifiedTime(tempDir.resolve("a.txt"), FileTime.from(Instant.now().minusSeconds(20)));
+        directory.write("b.txt", file -> Files.writeString(file, "0123456789"));
+        Files.setLastModifiedTime(tempDir.resolve("b.txt"), FileTime.from(Instant.now().minusSeconds(10)));
+
+        // When
+        directory.write("c.txt", file -> Files.writeString(file, "0123456789"));
+
+        // Then
+        assertFalse(Files.exists(tempDir.resolve("a.txt")));
+        assertTrue(directory.find("b.txt").isPresent());
+        assertTrue(directory.find("c.txt").isPresent());
+        assertEquals(20, directory.bytes());
+    }
+
+    @Test
+    void constructor_ShouldDeleteExpiredFiles() throws Exception {
+        // Given
+        Path expired = Files.writeString(tempDir.resolve("old.json"), "{}");
+        Files.setLastModifiedTime(expired, FileTime.from(Instant.now().minus(Duration.ofHours(2))));
+        Files.writeString(tempDir.resolve("fresh.json"), "{}");
+
+        // When
+        SpillDirectory directory = new SpillDirectory(tempDir, Duration.ofHours(1), Long.MAX_VALUE);
+
+        // Then
+        assertFalse(Files.exists(expired));
+        assertTrue(directory.find("fresh.json").isPresent());
+    }
+
+    @Test
+    void find_WithExpiredFile_ShouldDeleteIt() throws Exception {
+        // Given
+        SpillDirectory directory = new SpillDirectory(tempDir, Duration.ofHours(1), Long.MAX_VALUE);
+        directory.write("key.json", file -> Files.writeString(file, "{}"));
+        Files.setLastModifiedTime(tempDir.resolve("key.json"), FileTime.from(Instant.now().minus(Duration.ofHours(2))));
+
+        // When & Then
+        assertTrue(directory.find("key.json").isEmpty());
+        assertFalse(Files.exists(tempDir.resolve("key.json")));
+    }
+}
@@ -14,6 +14,13 @@ class SupportedFileTypeTest {
         assertEquals("docx", SupportedFileType.DOCX.getExtension());
     }
 
+    @Test
+    void getMediaType_ShouldReturnCorrectValues() {
+        assertEquals("application/pdf", SupportedFileType.PDF.getMediaType());
+        assertEquals("application/vnd.openxmlformats-officedocument.wordprocessingml.document",
+                SupportedFileType.DOCX.getMediaType());
+    }
+
     @Test
     void fromExtension_ShouldReturnEnum_WhenExtensionIsValid() {
         assertEquals(SupportedFileType.PDF, SupportedFileType.fromExtension("pdf"));